@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.Constants;
+
+/**
+ * Benchmarks the sight update of the {@link FogOfWar} with the full rebuild and the incremental update, and drawing single view circles with the
+ * {@link FogOfWar.CircleDrawer}.
+ * <p />
+ * Before every sight update a part of the movables moves by one position, like in a running game.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FogOfWarBenchmark {
+	private static final short WIDTH = 768;
+	private static final short HEIGHT = 768;
+	private static final IPlayer PLAYER = new IPlayer.DummyPlayer((byte) 0);
+	private static final int NUMBER_OF_BUILDINGS = 100;
+	private static final short MOVABLE_VIEW_DISTANCE = 8;
+	private static final short BUILDING_VIEW_DISTANCE = 25;
+
+	@Param({ "500", "5000" })
+	public int movablesCount;
+
+	@Param({ "10" })
+	public int movingPercentage;
+
+	private final Random random = new Random(0);
+	private final ConcurrentLinkedQueue<BenchmarkViewer> buildings = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<BenchmarkViewer> movables = new ConcurrentLinkedQueue<>();
+	private BenchmarkViewer[] movablesArray;
+
+	private FogOfWar fogOfWar;
+	private FogOfWar.CircleDrawer circleDrawer;
+	private boolean incrementalBefore;
+
+	@Setup
+	public void setup() {
+		incrementalBefore = Constants.FOG_OF_WAR_INCREMENTAL;
+
+		for (int i = 0; i < NUMBER_OF_BUILDINGS; i++) {
+			buildings.add(new BenchmarkViewer(randomPosition(), BUILDING_VIEW_DISTANCE));
+		}
+		movablesArray = new BenchmarkViewer[movablesCount];
+		for (int i = 0; i < movablesCount; i++) {
+			movablesArray[i] = new BenchmarkViewer(randomPosition(), MOVABLE_VIEW_DISTANCE);
+			movables.add(movablesArray[i]);
+		}
+
+		fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER);
+		fogOfWar.setGrid(new BenchmarkFogOfWarGrid());
+		fogOfWar.updateSight();
+
+		circleDrawer = fogOfWar.new CircleDrawer();
+		circleDrawer.setBuffer(new byte[WIDTH * HEIGHT]);
+	}
+
+	@TearDown
+	public void tearDown() {
+		Constants.FOG_OF_WAR_INCREMENTAL = incrementalBefore;
+	}
+
+	@Benchmark
+	public void fullRebuild() {
+		moveMovables();
+		Constants.FOG_OF_WAR_INCREMENTAL = false;
+		fogOfWar.updateSight();
+	}
+
+	@Benchmark
+	public void incrementalUpdate() {
+		moveMovables();
+		Constants.FOG_OF_WAR_INCREMENTAL = true;
+		fogOfWar.updateSight();
+	}
+
+	@Benchmark
+	public void drawCircle() {
+		BenchmarkViewer viewer = movablesArray[random.nextInt(movablesArray.length)];
+		circleDrawer.drawCircleToBuffer(viewer.getPos().x, viewer.getPos().y, BUILDING_VIEW_DISTANCE);
+	}
+
+	private void moveMovables() {
+		int moving = movablesArray.length * movingPercentage / 100;
+		for (int i = 0; i < moving; i++) {
+			movablesArray[random.nextInt(movablesArray.length)].move(random.nextInt(3) - 1, random.nextInt(3) - 1);
+		}
+	}
+
+	private ShortPoint2D randomPosition() {
+		return new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+	}
+
+	private static class BenchmarkViewer implements IViewDistancable {
+		private ShortPoint2D position;
+		private final short viewDistance;
+
+		BenchmarkViewer(ShortPoint2D position, short viewDistance) {
+			this.position = position;
+			this.viewDistance = viewDistance;
+		}
+
+		void move(int dx, int dy) {
+			int x = Math.min(Math.max(position.x + dx, 0), WIDTH - 1);
+			int y = Math.min(Math.max(position.y + dy, 0), HEIGHT - 1);
+			position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return PLAYER;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	private class BenchmarkFogOfWarGrid implements IFogOfWarGrid {
+		@Override
+		public IMovable getMovableAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+			return movables;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+			return buildings;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+
+import jsettlers.algorithms.partitions.PartitionCalculatorAlgorithm;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.astar.IAStarPathMap;
+import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.algorithms.path.dijkstra.ISearchTypeIndexGrid;
+import jsettlers.common.Color;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.data.IMapData;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+
+/**
+ * A grid of blocked and free positions the algorithm benchmarks run on. It is either one of the synthetic grids {@link #OPEN_FIELD}, {@link #MAZE}
+ * and {@link #ISLANDS} or the landscape of a map file in the directory given by the system property {@value #MAPS_DIRECTORY_PROPERTY}.
+ * <p />
+ * The outermost positions are always blocked. The blocked partitions are calculated once, so the path finding benchmarks can skip unreachable
+ * targets like the game does. Every {@value #TARGET_DENSITY}th free position is a target of the Dijkstra searches.
+ *
+ */
+public final class BenchmarkGrid implements IAStarPathMap, IDijkstraPathMap, ISearchTypeIndexGrid {
+	public static final String OPEN_FIELD = "open_field";
+	public static final String MAZE = "maze";
+	public static final String ISLANDS = "islands";
+
+	public static final String MAPS_DIRECTORY_PROPERTY = "jsettlers.benchmarks.maps";
+
+	private static final short SYNTHETIC_SIZE = 256;
+	private static final int MAZE_WALL_DISTANCE = 16;
+	private static final int MAZE_GAP = 3;
+	private static final int NUMBER_OF_ISLANDS = 24;
+	private static final int TARGET_DENSITY = 97;
+
+	private final short width;
+	private final short height;
+	private final BitSet blocked;
+	private final PartitionCalculatorAlgorithm partitions;
+
+	private BenchmarkGrid(short width, short height, BitSet blocked) {
+		this.width = width;
+		this.height = height;
+		this.blocked = blocked;
+		blockBorder();
+
+		BitSet containing = new BitSet(width * height);
+		containing.set(0, width * height);
+		this.partitions = new PartitionCalculatorAlgorithm(0, 0, width, height, containing, (x, y) -> blocked.get(x + y * width));
+		this.partitions.calculatePartitions();
+	}
+
+	/**
+	 * Blocks the outermost positions like on the maps of the game. The {@link PartitionCalculatorAlgorithm} reads the neighbors of every free
+	 * position without checking the bounds of the grid.
+	 */
+	private void blockBorder() {
+		for (int x = 0; x < width; x++) {
+			blocked.set(x);
+			blocked.set(x + (height - 1) * width);
+		}
+		for (int y = 0; y < height; y++) {
+			blocked.set(y * width);
+			blocked.set(width - 1 + y * width);
+		}
+	}
+
+	/**
+	 * Creates the grid of the given name.
+	 *
+	 * @param name
+	 *            {@link #OPEN_FIELD}, {@link #MAZE}, {@link #ISLANDS} or the file name of a map.
+	 */
+	public static BenchmarkGrid create(String name) throws MapLoadException {
+		switch (name) {
+		case OPEN_FIELD:
+			return new BenchmarkGrid(SYNTHETIC_SIZE, SYNTHETIC_SIZE, new BitSet());
+		case MAZE:
+			return createMaze();
+		case ISLANDS:
+			return createIslands();
+		default:
+			return loadMap(name);
+		}
+	}
+
+	/**
+	 * Vertical walls with a gap alternating at the top and the bottom, so paths have to wind through the whole grid.
+	 */
+	private static BenchmarkGrid createMaze() {
+		BitSet blocked = new BitSet(SYNTHETIC_SIZE * SYNTHETIC_SIZE);
+		for (int x = MAZE_WALL_DISTANCE; x < SYNTHETIC_SIZE; x += MAZE_WALL_DISTANCE) {
+			boolean gapAtTop = (x / MAZE_WALL_DISTANCE) % 2 == 0;
+			for (int y = 0; y < SYNTHETIC_SIZE; y++) {
+				boolean inGap = gapAtTop ? y < MAZE_GAP : y >= SYNTHETIC_SIZE - MAZE_GAP;
+				if (!inGap) {
+					blocked.set(x + y * SYNTHETIC_SIZE);
+				}
+			}
+		}
+		return new BenchmarkGrid(SYNTHETIC_SIZE, SYNTHETIC_SIZE, blocked);
+	}
+
+	/**
+	 * Water with randomly placed round islands.
+	 */
+	private static BenchmarkGrid createIslands() {
+		BitSet blocked = new BitSet(SYNTHETIC_SIZE * SYNTHETIC_SIZE);
+		blocked.set(0, SYNTHETIC_SIZE * SYNTHETIC_SIZE);
+
+		Random random = new Random(0);
+		for (int i = 0; i < NUMBER_OF_ISLANDS; i++) {
+			int centerX = random.nextInt(SYNTHETIC_SIZE);
+			int centerY = random.nextInt(SYNTHETIC_SIZE);
+			int radius = 8 + random.nextInt(24);
+
+			for (int y = Math.max(0, centerY - radius); y < Math.min(SYNTHETIC_SIZE, centerY + radius); y++) {
+				for (int x = Math.max(0, centerX - radius); x < Math.min(SYNTHETIC_SIZE, centerX + radius); x++) {
+					int dx = x - centerX;
+					int dy = y - centerY;
+					if (dx * dx + dy * dy < radius * radius) {
+						blocked.clear(x + y * SYNTHETIC_SIZE);
+					}
+				}
+			}
+		}
+		return new BenchmarkGrid(SYNTHETIC_SIZE, SYNTHETIC_SIZE, blocked);
+	}
+
+	private static BenchmarkGrid loadMap(String mapFileName) throws MapLoadException {
+		File mapsDirectory = new File(System.getProperty(MAPS_DIRECTORY_PROPERTY, "maps/release"));
+		IMapData mapData = MapLoader.getLoaderForListedMap(new ListedMapFile(new File(mapsDirectory, mapFileName))).getMapData();
+
+		short width = (short) mapData.getWidth();
+		short height = (short) mapData.getHeight();
+		BitSet blocked = new BitSet(width * height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				blocked.set(x + y * width, mapData.getLandscape(x, y).isBlocking);
+			}
+		}
+		return new BenchmarkGrid(width, height, blocked);
+	}
+
+	public short getWidth() {
+		return width;
+	}
+
+	public short getHeight() {
+		return height;
+	}
+
+	public boolean isBlocked(int x, int y) {
+		return blocked.get(x + y * width);
+	}
+
+	public PartitionCalculatorAlgorithm getPartitions() {
+		return partitions;
+	}
+
+	public BitSet getNotBlockedSet() {
+		BitSet notBlocked = new BitSet(width * height);
+		notBlocked.set(0, width * height);
+		notBlocked.andNot(blocked);
+		return notBlocked;
+	}
+
+	public ShortPoint2D getRandomFreePosition(Random random) {
+		while (true) {
+			int x = random.nextInt(width);
+			int y = random.nextInt(height);
+			if (!isBlocked(x, y)) {
+				return new ShortPoint2D(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Creates pairs of free positions that are connected by a path.
+	 *
+	 * @return An array with the start position of pair i at index 2 * i and the target position at 2 * i + 1.
+	 */
+	public ShortPoint2D[] createReachablePairs(int numberOfPairs, long seed) {
+		Random random = new Random(seed);
+		ShortPoint2D[] pairs = new ShortPoint2D[numberOfPairs * 2];
+
+		for (int i = 0; i < numberOfPairs; i++) {
+			ShortPoint2D start;
+			ShortPoint2D target;
+			do {
+				start = getRandomFreePosition(random);
+				target = getRandomFreePosition(random);
+			} while (start.equals(target) || getBlockedPartition(start.x, start.y) != getBlockedPartition(target.x, target.y));
+
+			pairs[2 * i] = start;
+			pairs[2 * i + 1] = target;
+		}
+		return pairs;
+	}
+
+	@Override
+	public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+		return blocked.get(x + y * width);
+	}
+
+	@Override
+	public float getCost(int sx, int sy, int tx, int ty) {
+		return 1;
+	}
+
+	@Override
+	public void markAsOpen(int x, int y) {
+	}
+
+	@Override
+	public void markAsClosed(int x, int y) {
+	}
+
+	@Override
+	public void setDebugColor(int x, int y, Color color) {
+	}
+
+	@Override
+	public short getBlockedPartition(int x, int y) {
+		return partitions.getPartitionAt(x, y);
+	}
+
+	@Override
+	public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+		int index = x + y * width;
+		return index % TARGET_DENSITY == 0 && !blocked.get(index);
+	}
+
+	@Override
+	public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+		return fitsSearchType(x, y, (ESearchType) null, requester);
+	}
+
+	@Override
+	public void setDijkstraSearched(int x, int y) {
+	}
+
+	@Override
+	public boolean isSearchTypeCandidate(int x, int y, ESearchType type) {
+		return fitsSearchType(x, y, type, null);
+	}
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * A path requester whose position is set by the benchmark before every search.
+ *
+ */
+public final class BenchmarkPathable implements IPathCalculatable {
+	private static final long serialVersionUID = 1L;
+
+	private static final IPlayer PLAYER = new IPlayer.DummyPlayer();
+
+	private ShortPoint2D pos;
+
+	public void setPos(ShortPoint2D pos) {
+		this.pos = pos;
+	}
+
+	@Override
+	public ShortPoint2D getPos() {
+		return pos;
+	}
+
+	@Override
+	public IPlayer getPlayer() {
+		return PLAYER;
+	}
+
+	@Override
+	public boolean needsPlayersGround() {
+		return false;
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.utils.coordinates.CoordinateOffsets;
+import jsettlers.common.utils.coordinates.ICoordinateConsumer;
+
+/**
+ * Benchmarks iterating the coordinates of the {@link HexGridArea} and the {@link MapCircle} around random centers of a map, with the streams
+ * clipped to the map and with a plain loop over the {@link CoordinateOffsets}. Several consumers are used, like the different callers in the
+ * game.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateStreamBenchmark {
+	private static final int MAP_SIZE = 512;
+	private static final int NUMBER_OF_CENTERS = 1024;
+
+	@Param({ "1", "8", "30" })
+	public int radius;
+
+	private final int[] sums = new int[3];
+	private final ICoordinateConsumer[] consumers = { (x, y) -> sums[0] += x, (x, y) -> sums[1] += y, (x, y) -> sums[2] ^= x + y };
+	private int[] centers;
+	private int nextCenter;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		centers = new int[2 * NUMBER_OF_CENTERS];
+		for (int i = 0; i < centers.length; i++) {
+			centers[i] = random.nextInt(MAP_SIZE);
+		}
+	}
+
+	@Benchmark
+	public int hexAreaStream() {
+		nextCenter();
+		HexGridArea.stream(centers[nextCenter], centers[nextCenter + 1], 1, radius).filterBounds(MAP_SIZE, MAP_SIZE).forEach(nextConsumer());
+		return sums[0];
+	}
+
+	@Benchmark
+	public int hexAreaOffsets() {
+		nextCenter();
+		int centerX = centers[nextCenter];
+		int centerY = centers[nextCenter + 1];
+		ICoordinateConsumer consumer = nextConsumer();
+
+		CoordinateOffsets offsets = HexGridArea.getOffsets();
+		int toIndex = HexGridArea.getFirstIndexOfRadius(radius + 1);
+		boolean inBounds = offsets.isInBounds(centerX, centerY, toIndex, 0, 0, MAP_SIZE, MAP_SIZE);
+		for (int i = HexGridArea.getFirstIndexOfRadius(1); i < toIndex; i++) {
+			int x = centerX + offsets.getDx(i);
+			int y = centerY + offsets.getDy(i);
+			if (inBounds || (0 <= x && x < MAP_SIZE && 0 <= y && y < MAP_SIZE)) {
+				consumer.accept(x, y);
+			}
+		}
+		return sums[0];
+	}
+
+	@Benchmark
+	public int circleStream() {
+		nextCenter();
+		MapCircle.stream(centers[nextCenter], centers[nextCenter + 1], radius).filterBounds(MAP_SIZE, MAP_SIZE).forEach(nextConsumer());
+		return sums[0];
+	}
+
+	@Benchmark
+	public int circleBorderStream() {
+		nextCenter();
+		MapCircle.streamBorder(centers[nextCenter], centers[nextCenter + 1], radius).filterBounds(MAP_SIZE, MAP_SIZE).forEach(nextConsumer());
+		return sums[0];
+	}
+
+	private void nextCenter() {
+		nextCenter = (nextCenter + 2) % centers.length;
+	}
+
+	private ICoordinateConsumer nextConsumer() {
+		return consumers[(nextCenter / 2) % consumers.length];
+	}
+}
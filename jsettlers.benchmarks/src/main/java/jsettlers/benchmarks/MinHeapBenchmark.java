@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.algorithms.heap.MinHeap;
+import jsettlers.algorithms.heap.MinHeapable;
+
+/**
+ * Benchmarks inserting elements with random ranks into a {@link MinHeap} and removing them again in order.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinHeapBenchmark {
+
+	@Param({ "100", "10000" })
+	public int size;
+
+	private final MinHeap<Element> heap = new MinHeap<>(16);
+	private Element[] elements;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		elements = new Element[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = new Element(random.nextFloat() * size);
+		}
+	}
+
+	@Benchmark
+	public float insertAndDeleteAll() {
+		for (Element element : elements) {
+			heap.insert(element);
+		}
+
+		float last = 0;
+		while (!heap.isEmpty()) {
+			last = heap.deleteMin().getRank();
+		}
+		return last;
+	}
+
+	private static final class Element implements MinHeapable {
+		private final float rank;
+		private int heapIdx = -1;
+
+		Element(float rank) {
+			this.rank = rank;
+		}
+
+		@Override
+		public float getRank() {
+			return rank;
+		}
+
+		@Override
+		public int getHeapIdx() {
+			return heapIdx;
+		}
+
+		@Override
+		public void setHeapIdx(int idx) {
+			heapIdx = idx;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.partitions.PartitionCalculatorAlgorithm;
+import jsettlers.algorithms.traversing.borders.BorderTraversingAlgorithm;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.mutables.MutableInt;
+import jsettlers.logic.map.loading.MapLoadException;
+
+/**
+ * Benchmarks the {@link PartitionCalculatorAlgorithm} on a whole grid and the {@link BorderTraversingAlgorithm} on the borders of all
+ * partitions of the grid.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionBenchmark {
+
+	@Param({ BenchmarkGrid.OPEN_FIELD, BenchmarkGrid.MAZE, BenchmarkGrid.ISLANDS, "600-4-mountain_lake.rmap", "768-6-nice_map.rmap" })
+	public String grid;
+
+	private BenchmarkGrid benchmarkGrid;
+	private BitSet notBlocked;
+	private ShortPoint2D[] borderPositions;
+
+	@Setup
+	public void setup() throws MapLoadException {
+		benchmarkGrid = BenchmarkGrid.create(grid);
+		notBlocked = benchmarkGrid.getNotBlockedSet();
+
+		PartitionCalculatorAlgorithm partitions = benchmarkGrid.getPartitions();
+		int numberOfPartitions = partitions.getNumberOfPartitions() - PartitionCalculatorAlgorithm.NUMBER_OF_RESERVED_PARTITIONS;
+		borderPositions = new ShortPoint2D[Math.max(0, numberOfPartitions)];
+		for (int i = 0; i < borderPositions.length; i++) {
+			borderPositions[i] = partitions.getPartitionBorderPos(i + PartitionCalculatorAlgorithm.NUMBER_OF_RESERVED_PARTITIONS);
+		}
+	}
+
+	@Benchmark
+	public int calculatePartitions() {
+		PartitionCalculatorAlgorithm partitioner = new PartitionCalculatorAlgorithm(0, 0, benchmarkGrid.getWidth(), benchmarkGrid.getHeight(),
+				notBlocked, IBlockingProvider.DEFAULT_IMPLEMENTATION);
+		partitioner.calculatePartitions();
+		return partitioner.getNumberOfPartitions();
+	}
+
+	@Benchmark
+	public int traverseBorders() {
+		PartitionCalculatorAlgorithm partitions = benchmarkGrid.getPartitions();
+		short width = benchmarkGrid.getWidth();
+		short height = benchmarkGrid.getHeight();
+		MutableInt traversedPositions = new MutableInt();
+		int sum = 0;
+
+		for (ShortPoint2D borderPosition : borderPositions) {
+			if (borderPosition == null) {
+				continue;
+			}
+
+			short partition = partitions.getPartitionAt(borderPosition.x, borderPosition.y);
+			BorderTraversingAlgorithm.traverseBorder(
+					(x, y) -> 0 <= x && x < width && 0 <= y && y < height && partitions.getPartitionAt(x, y) == partition,
+					borderPosition, (insideX, insideY, outsideX, outsideY) -> true, true, traversedPositions);
+			sum += traversedPositions.value;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
+import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
+import jsettlers.algorithms.path.dijkstra.SearchTypeIndex;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.loading.MapLoadException;
+
+/**
+ * Benchmarks {@link BucketQueueAStar}, {@link HierarchicalAStar} and {@link DijkstraAlgorithm} on a fixed set of reachable start and target
+ * positions. The {@link DijkstraAlgorithm} is benchmarked with and without a {@link SearchTypeIndex} and with a flood from the requester.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFindingBenchmark {
+	private static final int NUMBER_OF_PAIRS = 1024;
+	private static final short DIJKSTRA_MAX_RADIUS = 40;
+
+	@Param({ BenchmarkGrid.OPEN_FIELD, BenchmarkGrid.MAZE, BenchmarkGrid.ISLANDS, "600-4-mountain_lake.rmap", "768-6-nice_map.rmap" })
+	public String grid;
+
+	private final BenchmarkPathable requester = new BenchmarkPathable();
+	private BucketQueueAStar aStar;
+	private HierarchicalAStar hierarchicalAStar;
+	private DijkstraAlgorithm dijkstra;
+	private DijkstraAlgorithm indexedDijkstra;
+	private DijkstraAlgorithm floodDijkstra;
+	private ShortPoint2D[] pairs;
+	private int nextPair;
+
+	@Setup
+	public void setup() throws MapLoadException {
+		BenchmarkGrid benchmarkGrid = BenchmarkGrid.create(grid);
+		short width = benchmarkGrid.getWidth();
+		short height = benchmarkGrid.getHeight();
+
+		aStar = new BucketQueueAStar(benchmarkGrid, width, height);
+		hierarchicalAStar = new HierarchicalAStar(benchmarkGrid, width, height);
+		dijkstra = new DijkstraAlgorithm(benchmarkGrid, aStar, width, height);
+		SearchTypeIndex searchTypeIndex = new SearchTypeIndex(benchmarkGrid, width, height, EnumSet.of(ESearchType.CUTTABLE_TREE));
+		indexedDijkstra = new DijkstraAlgorithm(benchmarkGrid, aStar, width, height, searchTypeIndex);
+		floodDijkstra = new DijkstraAlgorithm(benchmarkGrid, aStar, width, height, null, EnumSet.of(ESearchType.CUTTABLE_TREE));
+		pairs = benchmarkGrid.createReachablePairs(NUMBER_OF_PAIRS, 0);
+	}
+
+	@Benchmark
+	public Path bucketQueueAStar() {
+		ShortPoint2D start = nextStart();
+		return aStar.findPath(requester, start.x, start.y, pairs[nextPair + 1].x, pairs[nextPair + 1].y);
+	}
+
+	@Benchmark
+	public Path hierarchicalAStar() {
+		ShortPoint2D start = nextStart();
+		return hierarchicalAStar.findPath(requester, start.x, start.y, pairs[nextPair + 1].x, pairs[nextPair + 1].y);
+	}
+
+	@Benchmark
+	public Path dijkstra() {
+		ShortPoint2D center = nextStart();
+		return dijkstra.find(requester, center.x, center.y, (short) 0, DIJKSTRA_MAX_RADIUS, ESearchType.CUTTABLE_TREE);
+	}
+
+	@Benchmark
+	public Path dijkstraWithSearchTypeIndex() {
+		ShortPoint2D center = nextStart();
+		return indexedDijkstra.find(requester, center.x, center.y, (short) 0, DIJKSTRA_MAX_RADIUS, ESearchType.CUTTABLE_TREE);
+	}
+
+	@Benchmark
+	public Path dijkstraFlood() {
+		ShortPoint2D center = nextStart();
+		return floodDijkstra.find(requester, center.x, center.y, (short) 0, DIJKSTRA_MAX_RADIUS, ESearchType.CUTTABLE_TREE);
+	}
+
+	private ShortPoint2D nextStart() {
+		nextPair = (nextPair + 2) % pairs.length;
+		ShortPoint2D start = pairs[nextPair];
+		requester.setPos(start);
+		return start;
+	}
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jsettlers.common.resources.IResourceProvider;
+import jsettlers.common.resources.ResourceManager;
+import jsettlers.graphics.image.TextureCache;
+import jsettlers.graphics.map.draw.ImagePreloadTask;
+import jsettlers.graphics.map.draw.ImageProvider;
+
+/**
+ * Measures the time the {@link ImagePreloadTask} needs to create the settler texture atlases and the background texture. With a
+ * <code>cold</code> cache, everything is decoded from the dat files and the caches are written. With a <code>warm</code> cache, the textures
+ * and the image positions are read from the {@link TextureCache}.
+ * <p />
+ * The benchmark needs the graphics of the original game. The directory containing the dat files is given by the system property
+ * {@value #GFX_DIRECTORY_PROPERTY}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(3)
+public class TextureCacheBenchmark {
+	public static final String GFX_DIRECTORY_PROPERTY = "jsettlers.benchmarks.gfx";
+
+	@Param({ "cold", "warm" })
+	public String cache;
+
+	private File cacheDirectory;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		String gfxDirectory = System.getProperty(GFX_DIRECTORY_PROPERTY);
+		if (gfxDirectory == null) {
+			throw new IllegalStateException("The system property " + GFX_DIRECTORY_PROPERTY + " needs to point to the GFX directory of the game.");
+		}
+
+		File resourcesDirectory = Files.createTempDirectory("texture-cache").toFile();
+		ResourceManager.setProvider(new DirectoryResourceProvider(resourcesDirectory));
+		cacheDirectory = new File(resourcesDirectory, "cache");
+
+		// the preloading started with the lookup path fills the caches
+		Thread preloader = ImageProvider.setLookupPath(new File(gfxDirectory));
+		if (preloader != null) {
+			preloader.join();
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void prepareIteration() {
+		ImageProvider.getInstance().invalidateAll();
+
+		if ("cold".equals(cache)) {
+			File[] cacheFiles = cacheDirectory.listFiles();
+			if (cacheFiles != null) {
+				for (File cacheFile : cacheFiles) {
+					cacheFile.delete();
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public void preloadImages() {
+		new ImagePreloadTask().run();
+	}
+
+	private static class DirectoryResourceProvider implements IResourceProvider {
+		private final File directory;
+
+		DirectoryResourceProvider(File directory) {
+			this.directory = directory;
+		}
+
+		@Override
+		public InputStream getResourcesFileStream(String name) throws IOException {
+			return new FileInputStream(new File(directory, name));
+		}
+
+		@Override
+		public OutputStream writeConfigurationFile(String name) throws IOException {
+			return writeUserFile(name);
+		}
+
+		@Override
+		public OutputStream writeUserFile(String name) throws IOException {
+			File file = new File(directory, name);
+			file.getParentFile().mkdirs();
+			return new FileOutputStream(file);
+		}
+
+		@Override
+		public File getResourcesDirectory() {
+			return directory;
+		}
+	}
+}
@@ -65,6 +65,16 @@ public abstract class CommonConstants {
 	 */
 	public static boolean USE_SAVEGAME_COMPRESSION = false;
 
+	/**
+	 * Interval of the autosave in game time milliseconds. The autosave is disabled if this is 0.
+	 */
+	public static int AUTOSAVE_INTERVAL = 0;
+
+	/**
+	 * Number of autosaves of a game that are kept. If this is 0, all autosaves are kept.
+	 */
+	public static int AUTOSAVE_RETENTION = 3;
+
 	/**
 	 * Enables the AI submodule.
 	 */
@@ -75,6 +85,11 @@ public abstract class CommonConstants {
 	 */
 	public static boolean ALL_AI = false;
 
+	/**
+	 * If set to <code>true</code>, the incrementally updated statistics of the AI are compared to a full scan of the map after every update.
+	 */
+	public static boolean VERIFY_AI_STATISTICS = false;
+
 	/**
 	 * If set, only this AI type is used.
 	 */
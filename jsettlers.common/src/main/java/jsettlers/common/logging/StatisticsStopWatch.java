@@ -64,6 +64,18 @@ public class StatisticsStopWatch extends StopWatch {
 		return measurements.get(measurements.size() - 1);
 	}
 
+	public int getNumberOfMeasurements() {
+		return measurements.size();
+	}
+
+	public long getTotal() {
+		long total = 0;
+		for (Long measurement : measurements) {
+			total += measurement;
+		}
+		return total;
+	}
+
 	private double calculateAverage(List<Long> measurements) {
 		long sum = 0;
 		if(!measurements.isEmpty()) {
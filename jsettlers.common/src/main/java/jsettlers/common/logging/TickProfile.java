@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.logging;
+
+/**
+ * The measurements of one subsystem recorded by the {@link TickProfiler}.
+ * <p />
+ * The durations are counted in a histogram with four buckets per power of two, so percentiles are accurate to 25% without storing every
+ * measurement.
+ *
+ */
+public final class TickProfile {
+	private static final int SUB_BUCKET_BITS = 2;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int NUMBER_OF_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final String name;
+	private int count;
+	private long totalNanos;
+	private long maxNanos;
+	private long allocatedBytes;
+	private boolean allocationsMeasured;
+	private final long[] histogram;
+
+	TickProfile(String name) {
+		this.name = name;
+		this.histogram = new long[NUMBER_OF_BUCKETS];
+	}
+
+	TickProfile(TickProfile profile) {
+		this.name = profile.name;
+		this.count = profile.count;
+		this.totalNanos = profile.totalNanos;
+		this.maxNanos = profile.maxNanos;
+		this.allocatedBytes = profile.allocatedBytes;
+		this.allocationsMeasured = profile.allocationsMeasured;
+		this.histogram = profile.histogram.clone();
+	}
+
+	/**
+	 * @param nanos
+	 *            The duration of the measurement.
+	 * @param allocatedBytes
+	 *            The bytes allocated during the measurement or a negative value if they have not been measured.
+	 */
+	void record(long nanos, long allocatedBytes) {
+		nanos = Math.max(0, nanos);
+		count++;
+		totalNanos += nanos;
+		maxNanos = Math.max(maxNanos, nanos);
+		histogram[getBucket(nanos)]++;
+
+		if (allocatedBytes >= 0) {
+			this.allocatedBytes += allocatedBytes;
+			allocationsMeasured = true;
+		}
+	}
+
+	static int getBucket(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long getBucketLowerBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public long getMeanNanos() {
+		return count > 0 ? totalNanos / count : 0;
+	}
+
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * @param percentile
+	 *            The percentile between 0 and 100.
+	 * @return An upper bound of the duration that the given percentage of measurements did not exceed.
+	 */
+	public long getPercentileNanos(double percentile) {
+		long rank = (long) Math.ceil(percentile / 100 * count);
+		long counted = 0;
+		for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+			counted += histogram[bucket];
+			if (counted >= rank && counted > 0) {
+				long upperBound = bucket + 1 < NUMBER_OF_BUCKETS ? getBucketLowerBound(bucket + 1) - 1 : Long.MAX_VALUE;
+				return Math.min(upperBound, maxNanos);
+			}
+		}
+		return maxNanos;
+	}
+
+	/**
+	 * @return The bytes allocated during all measurements or -1 if the allocations have not been measured.
+	 */
+	public long getAllocatedBytes() {
+		return allocationsMeasured ? allocatedBytes : -1;
+	}
+
+	@Override
+	public String toString() {
+		return "TickProfile{" + name + ", count=" + count + ", totalNanos=" + totalNanos + "}";
+	}
+}
@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.logging;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Aggregates the time and allocations of the subsystems executed by the game clock, e.g. the timerables of the network timer and of the
+ * RescheduleTimer, as well as the duration of every clock tick and the time it waited for its lockstep.
+ * <p />
+ * Measurements are started with {@link #begin()} and finished with {@link #end(Class)} on the same thread. They can be nested, the outer
+ * measurement includes the inner ones. While the profiler is disabled, {@link #begin()} only reads a volatile flag.
+ * <p />
+ * Allocations are only measured if an {@link IAllocationCounter} has been set, because the JVM specific API to count them is not available on
+ * every platform.
+ *
+ */
+public final class TickProfiler {
+	/**
+	 * Name of the profile containing the duration of the clock ticks without the time waited for the lockstep.
+	 */
+	public static final String TICK = "clock tick";
+	/**
+	 * Name of the profile containing the time the clock ticks waited for their lockstep. Only ticks that had to wait are counted.
+	 */
+	public static final String LOCKSTEP_WAIT = "lockstep wait";
+
+	private static final int MAX_NESTING = 16;
+
+	/**
+	 * Counts the bytes allocated by the current thread.
+	 */
+	public interface IAllocationCounter {
+		/**
+		 * @return The number of bytes allocated by the current thread since it has been started.
+		 */
+		long getAllocatedBytes();
+	}
+
+	private static final class Measurements {
+		final long[] startNanos = new long[MAX_NESTING];
+		final long[] startAllocatedBytes = new long[MAX_NESTING];
+		int depth;
+	}
+
+	private static volatile boolean enabled = false;
+	private static volatile IAllocationCounter allocationCounter;
+
+	private static final HashMap<Object, TickProfile> profiles = new HashMap<>();
+	private static final ThreadLocal<Measurements> measurements = new ThreadLocal<Measurements>() {
+		@Override
+		protected Measurements initialValue() {
+			return new Measurements();
+		}
+	};
+
+	private TickProfiler() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		TickProfiler.enabled = enabled;
+	}
+
+	public static void setAllocationCounter(IAllocationCounter allocationCounter) {
+		TickProfiler.allocationCounter = allocationCounter;
+	}
+
+	/**
+	 * Starts a measurement on the current thread.
+	 *
+	 * @return true if the measurement has been started and needs to be finished with {@link #end(Class)}.
+	 */
+	public static boolean begin() {
+		if (!enabled) {
+			return false;
+		}
+
+		Measurements current = measurements.get();
+		if (current.depth >= MAX_NESTING) {
+			return false;
+		}
+
+		IAllocationCounter counter = allocationCounter;
+		current.startAllocatedBytes[current.depth] = counter != null ? counter.getAllocatedBytes() : -1;
+		current.startNanos[current.depth] = System.nanoTime();
+		current.depth++;
+		return true;
+	}
+
+	/**
+	 * Finishes the last measurement started on the current thread.
+	 *
+	 * @param subsystem
+	 *            The class of the measured subsystem. The measurements are aggregated per class.
+	 */
+	public static void end(Class<?> subsystem) {
+		long endNanos = System.nanoTime();
+		Measurements current = measurements.get();
+		if (current.depth <= 0) {
+			return;
+		}
+		current.depth--;
+
+		long allocatedBytes = -1;
+		IAllocationCounter counter = allocationCounter;
+		long startAllocatedBytes = current.startAllocatedBytes[current.depth];
+		if (counter != null && startAllocatedBytes >= 0) {
+			allocatedBytes = counter.getAllocatedBytes() - startAllocatedBytes;
+		}
+
+		record(subsystem, endNanos - current.startNanos[current.depth], allocatedBytes);
+	}
+
+	/**
+	 * Records a tick of the game clock.
+	 *
+	 * @param tickNanos
+	 *            The duration of the whole tick.
+	 * @param lockstepWaitNanos
+	 *            The time of the tick spent waiting for the lockstep.
+	 */
+	public static void recordTick(long tickNanos, long lockstepWaitNanos) {
+		if (!enabled) {
+			return;
+		}
+
+		record(TICK, tickNanos - lockstepWaitNanos, -1);
+		if (lockstepWaitNanos > 0) {
+			record(LOCKSTEP_WAIT, lockstepWaitNanos, -1);
+		}
+	}
+
+	private static void record(Object key, long nanos, long allocatedBytes) {
+		synchronized (profiles) {
+			TickProfile profile = profiles.get(key);
+			if (profile == null) {
+				profile = new TickProfile(getName(key));
+				profiles.put(key, profile);
+			}
+			profile.record(nanos, allocatedBytes);
+		}
+	}
+
+	private static String getName(Object key) {
+		if (key instanceof Class) {
+			Class<?> subsystem = (Class<?>) key;
+			String name = subsystem.getSimpleName();
+			return name.isEmpty() ? subsystem.getName().replaceFirst(".*\\.", "") : name;
+		} else {
+			return key.toString();
+		}
+	}
+
+	/**
+	 * @return Copies of all profiles recorded since the last {@link #reset()}, the profile with the longest total duration first.
+	 */
+	public static List<TickProfile> getProfiles() {
+		List<TickProfile> copies = new ArrayList<>();
+		synchronized (profiles) {
+			for (TickProfile profile : profiles.values()) {
+				copies.add(new TickProfile(profile));
+			}
+		}
+
+		Collections.sort(copies, new Comparator<TickProfile>() {
+			@Override
+			public int compare(TickProfile first, TickProfile second) {
+				return Long.compare(second.getTotalNanos(), first.getTotalNanos());
+			}
+		});
+		return copies;
+	}
+
+	public static boolean hasProfiles() {
+		synchronized (profiles) {
+			return !profiles.isEmpty();
+		}
+	}
+
+	/**
+	 * Removes all recorded profiles.
+	 */
+	public static void reset() {
+		synchronized (profiles) {
+			profiles.clear();
+		}
+	}
+
+	/**
+	 * Writes the profiles as comma separated values with one line per profile. Durations are given in microseconds.
+	 */
+	public static void writeCsv(Writer writer) throws IOException {
+		writer.write("name,count,totalUs,meanUs,p50Us,p90Us,p99Us,maxUs,allocatedBytes\n");
+		for (TickProfile profile : getProfiles()) {
+			writer.write(String.format(Locale.ENGLISH, "%s,%d,%d,%d,%d,%d,%d,%d,%d\n", profile.getName(), profile.getCount(),
+					toMicros(profile.getTotalNanos()), toMicros(profile.getMeanNanos()), toMicros(profile.getPercentileNanos(50)),
+					toMicros(profile.getPercentileNanos(90)), toMicros(profile.getPercentileNanos(99)), toMicros(profile.getMaxNanos()),
+					profile.getAllocatedBytes()));
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Writes the profiles as a JSON array with one object per profile. Durations are given in microseconds.
+	 */
+	public static void writeJson(Writer writer) throws IOException {
+		writer.write("[");
+		String separator = "\n";
+		for (TickProfile profile : getProfiles()) {
+			writer.write(separator);
+			writer.write(String.format(Locale.ENGLISH,
+					"  {\"name\": \"%s\", \"count\": %d, \"totalUs\": %d, \"meanUs\": %d, \"p50Us\": %d, \"p90Us\": %d, \"p99Us\": %d, \"maxUs\": %d, \"allocatedBytes\": %d}",
+					profile.getName().replace("\\", "\\\\").replace("\"", "\\\""), profile.getCount(), toMicros(profile.getTotalNanos()),
+					toMicros(profile.getMeanNanos()), toMicros(profile.getPercentileNanos(50)), toMicros(profile.getPercentileNanos(90)),
+					toMicros(profile.getPercentileNanos(99)), toMicros(profile.getMaxNanos()), profile.getAllocatedBytes()));
+			separator = ",\n";
+		}
+		writer.write("\n]\n");
+		writer.flush();
+	}
+
+	private static long toMicros(long nanos) {
+		return nanos / 1000;
+	}
+}
@@ -16,6 +16,7 @@ package jsettlers.common.map.shapes;
 
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.coordinates.CoordinateOffsets;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.common.utils.coordinates.IBooleanCoordinateFunction;
 
@@ -35,6 +36,12 @@ public final class HexGridArea implements IMapArea {
 	private static final byte[] DIRECTION_INCREASE_Y = { EDirection.SOUTH_EAST.gridDeltaY, EDirection.SOUTH_WEST.gridDeltaY,
 			EDirection.WEST.gridDeltaY, EDirection.NORTH_WEST.gridDeltaY, EDirection.NORTH_EAST.gridDeltaY, EDirection.EAST.gridDeltaY };
 
+	/**
+	 * The coordinates of the hexagons up to this radius are calculated once and streamed from {@link #getOffsets()}.
+	 */
+	public static final int MAX_CACHED_RADIUS = 64;
+	private static final CoordinateOffsets OFFSETS = new CoordinateOffsets(streamRings(0, 0, 0, MAX_CACHED_RADIUS));
+
 	private static final long serialVersionUID = -2218632675269689379L;
 	final short cX;
 	final short cY;
@@ -153,6 +160,29 @@ public final class HexGridArea implements IMapArea {
 	}
 
 	public static CoordinateStream stream(int cX, int cY, int startRadius, int maxRadius) {
+		if (maxRadius <= MAX_CACHED_RADIUS) {
+			return OFFSETS.stream(cX, cY, getFirstIndexOfRadius(startRadius), getFirstIndexOfRadius(maxRadius + 1));
+		} else {
+			return streamRings(cX, cY, startRadius, maxRadius);
+		}
+	}
+
+	/**
+	 * @return The coordinates of the hexagon with radius {@link #MAX_CACHED_RADIUS} around (0|0), ordered by their radius like the coordinates of
+	 *         {@link #stream(int, int, int, int)}.
+	 */
+	public static CoordinateOffsets getOffsets() {
+		return OFFSETS;
+	}
+
+	/**
+	 * @return The index of the first coordinate with the given radius in {@link #getOffsets()}.
+	 */
+	public static int getFirstIndexOfRadius(int radius) {
+		return radius == 0 ? 0 : 1 + 3 * radius * (radius - 1);
+	}
+
+	private static CoordinateStream streamRings(int cX, int cY, int startRadius, int maxRadius) {
 		return new CoordinateStream() {
 			@Override
 			public boolean iterate(IBooleanCoordinateFunction function) {
@@ -14,8 +14,11 @@
  *******************************************************************************/
 package jsettlers.common.map.shapes;
 
+import java.util.Arrays;
+
 import jsettlers.common.position.SRectangle;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.coordinates.CoordinateOffsets;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.common.utils.coordinates.IBooleanCoordinateFunction;
 import jsettlers.common.utils.coordinates.ICoordinatePredicate;
@@ -34,6 +37,12 @@ import jsettlers.common.utils.coordinates.ICoordinatePredicate;
 public final class MapCircle implements IMapArea {
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The coordinates of the circles of this many different radiuses are calculated once and streamed from {@link CoordinateOffsets}.
+	 */
+	private static final int MAX_CACHED_CIRCLES = 32;
+	private static volatile CachedCircle[] cachedCircles = new CachedCircle[0];
+
 	private final float radius;
 	private final short centerX;
 	private final short centerY;
@@ -168,6 +177,15 @@ public final class MapCircle implements IMapArea {
 	}
 
 	public static CoordinateStream stream(int centerX, int centerY, float radius) {
+		CachedCircle cachedCircle = getCachedCircle(radius);
+		if (cachedCircle != null) {
+			return cachedCircle.area.stream(centerX, centerY);
+		} else {
+			return streamLines(centerX, centerY, radius);
+		}
+	}
+
+	private static CoordinateStream streamLines(int centerX, int centerY, float radius) {
 		return new CoordinateStream() {
 			@Override
 			public boolean iterate(IBooleanCoordinateFunction function) {
@@ -203,7 +221,12 @@ public final class MapCircle implements IMapArea {
 	}
 
 	public static CoordinateStream streamBorder(int centerX, int centerY, float radius) {
-		return stream(centerX, centerY, radius).filter(getBorderPredicate(centerX, centerY, radius));
+		CachedCircle cachedCircle = getCachedCircle(radius);
+		if (cachedCircle != null) {
+			return cachedCircle.border.stream(centerX, centerY);
+		} else {
+			return streamLines(centerX, centerY, radius).filter(getBorderPredicate(centerX, centerY, radius));
+		}
 	}
 
 	private static ICoordinatePredicate getBorderPredicate(int centerX, int centerY, float radius) {
@@ -216,4 +239,47 @@ public final class MapCircle implements IMapArea {
 			return !(xDistToCenter < prevLineWidth && xDistToCenter < nextLineWidth);
 		};
 	}
+
+	/**
+	 * @return The cached coordinates of the circle with the given radius or <code>null</code> if the circles of too many other radiuses are cached.
+	 */
+	private static CachedCircle getCachedCircle(float radius) {
+		CachedCircle cachedCircle = findCachedCircle(cachedCircles, radius);
+		if (cachedCircle != null) {
+			return cachedCircle;
+		}
+
+		synchronized (MapCircle.class) {
+			CachedCircle[] circles = cachedCircles;
+			cachedCircle = findCachedCircle(circles, radius);
+			if (cachedCircle == null && circles.length < MAX_CACHED_CIRCLES) {
+				cachedCircle = new CachedCircle(radius);
+				CachedCircle[] newCircles = Arrays.copyOf(circles, circles.length + 1);
+				newCircles[circles.length] = cachedCircle;
+				cachedCircles = newCircles;
+			}
+			return cachedCircle;
+		}
+	}
+
+	private static CachedCircle findCachedCircle(CachedCircle[] circles, float radius) {
+		for (CachedCircle circle : circles) {
+			if (circle.radius == radius) {
+				return circle;
+			}
+		}
+		return null;
+	}
+
+	private static final class CachedCircle {
+		final float radius;
+		final CoordinateOffsets area;
+		final CoordinateOffsets border;
+
+		CachedCircle(float radius) {
+			this.radius = radius;
+			this.area = new CoordinateOffsets(streamLines(0, 0, radius));
+			this.border = new CoordinateOffsets(streamLines(0, 0, radius).filter(getBorderPredicate(0, 0, radius)));
+		}
+	}
 }
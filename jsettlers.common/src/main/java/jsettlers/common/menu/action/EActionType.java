@@ -234,6 +234,11 @@ public enum EActionType {
 	 */
 	TOGGLE_ORIGINAL_GRAPHICS,
 
+	/**
+	 * Toggles if the time spent in the subsystems of the game clock is measured and shown.
+	 */
+	TOGGLE_TICK_PROFILER,
+
 	/**
 	 * The user wants to go back.
 	 */
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.utils.coordinates;
+
+import java.io.Serializable;
+
+import jsettlers.common.utils.mutables.MutableInt;
+
+/**
+ * An immutable table of coordinates relative to a center. Shapes that are streamed often, like the areas around a position, calculate their
+ * coordinates once into such a table and only add the center when they are iterated.
+ * <p>
+ * The coordinates can be read directly with {@link #getDx(int)} and {@link #getDy(int)} in loops that don't need a {@link CoordinateStream}.
+ * The streams of the table clip the coordinates to the bounds given with {@link CoordinateStream#filterBounds(int, int, int, int)}. If the
+ * whole table around the center is inside of the bounds, the coordinates are not checked at all.
+ *
+ */
+public final class CoordinateOffsets implements Serializable {
+	private static final long serialVersionUID = -1416785716582567386L;
+
+	private final short[] dx;
+	private final short[] dy;
+	/**
+	 * The largest absolute x or y offset of the first i + 1 coordinates at index i.
+	 */
+	private final short[] extents;
+
+	/**
+	 * Creates the table of the coordinates of the given stream.
+	 *
+	 * @param relativeCoordinates
+	 *            The coordinates around the center (0|0) in the order they are iterated by the streams of this table.
+	 */
+	public CoordinateOffsets(CoordinateStream relativeCoordinates) {
+		int size = relativeCoordinates.count();
+		dx = new short[size];
+		dy = new short[size];
+		extents = new short[size];
+
+		MutableInt index = new MutableInt(0);
+		relativeCoordinates.forEach((x, y) -> {
+			int i = index.value++;
+			dx[i] = (short) x;
+			dy[i] = (short) y;
+			extents[i] = (short) Math.max(i > 0 ? extents[i - 1] : 0, Math.max(Math.abs(x), Math.abs(y)));
+		});
+	}
+
+	public int size() {
+		return dx.length;
+	}
+
+	public int getDx(int index) {
+		return dx[index];
+	}
+
+	public int getDy(int index) {
+		return dy[index];
+	}
+
+	/**
+	 * Checks if the first coordinates of this table are inside of the given bounds when they are placed around the given center.
+	 *
+	 * @param toIndex
+	 *            exclusive index of the last checked coordinate
+	 * @param xStart
+	 *            inclusive
+	 * @param yStart
+	 *            inclusive
+	 * @param xEnd
+	 *            exclusive
+	 * @param yEnd
+	 *            exclusive
+	 * @return true if all coordinates up to the given index are inside of the bounds.
+	 */
+	public boolean isInBounds(int centerX, int centerY, int toIndex, int xStart, int yStart, int xEnd, int yEnd) {
+		int extent = toIndex > 0 ? extents[toIndex - 1] : 0;
+		return xStart <= centerX - extent && centerX + extent < xEnd && yStart <= centerY - extent && centerY + extent < yEnd;
+	}
+
+	public CoordinateStream stream(int centerX, int centerY) {
+		return stream(centerX, centerY, 0, size());
+	}
+
+	/**
+	 * @param fromIndex
+	 *            inclusive index of the first streamed coordinate
+	 * @param toIndex
+	 *            exclusive index of the last streamed coordinate
+	 * @return A stream of the coordinates of the given range placed around the given center.
+	 */
+	public CoordinateStream stream(int centerX, int centerY, int fromIndex, int toIndex) {
+		return new OffsetsStream(centerX, centerY, fromIndex, toIndex, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
+
+	private final class OffsetsStream extends CoordinateStream {
+		private static final long serialVersionUID = 6190937151366939235L;
+
+		private final int centerX;
+		private final int centerY;
+		private final int fromIndex;
+		private final int toIndex;
+		private final int xStart;
+		private final int yStart;
+		private final int xEnd;
+		private final int yEnd;
+
+		OffsetsStream(int centerX, int centerY, int fromIndex, int toIndex, int xStart, int yStart, int xEnd, int yEnd) {
+			this.centerX = centerX;
+			this.centerY = centerY;
+			this.fromIndex = fromIndex;
+			this.toIndex = toIndex;
+			this.xStart = xStart;
+			this.yStart = yStart;
+			this.xEnd = xEnd;
+			this.yEnd = yEnd;
+		}
+
+		@Override
+		public boolean iterate(IBooleanCoordinateFunction function) {
+			if (isInBounds(centerX, centerY, toIndex, xStart, yStart, xEnd, yEnd)) {
+				for (int i = fromIndex; i < toIndex; i++) {
+					if (!function.apply(centerX + dx[i], centerY + dy[i])) {
+						return false;
+					}
+				}
+			} else {
+				for (int i = fromIndex; i < toIndex; i++) {
+					int x = centerX + dx[i];
+					int y = centerY + dy[i];
+					if (xStart <= x && x < xEnd && yStart <= y && y < yEnd && !function.apply(x, y)) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public CoordinateStream filterBounds(int xStart, int yStart, int xEnd, int yEnd) {
+			return new OffsetsStream(centerX, centerY, fromIndex, toIndex, Math.max(this.xStart, xStart), Math.max(this.yStart, yStart),
+					Math.min(this.xEnd, xEnd), Math.min(this.yEnd, yEnd));
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TickProfilerTest {
+
+	@Before
+	public void setUp() {
+		TickProfiler.reset();
+		TickProfiler.setEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		TickProfiler.setEnabled(false);
+		TickProfiler.setAllocationCounter(null);
+		TickProfiler.reset();
+	}
+
+	@Test
+	public void testBucketBoundsContainValues() {
+		for (long nanos = 0; nanos < 100000; nanos += 7) {
+			int bucket = TickProfile.getBucket(nanos);
+			assertTrue(TickProfile.getBucketLowerBound(bucket) <= nanos);
+			assertTrue(TickProfile.getBucketLowerBound(bucket + 1) > nanos);
+		}
+		assertTrue(TickProfile.getBucketLowerBound(TickProfile.getBucket(Long.MAX_VALUE)) > 0);
+	}
+
+	@Test
+	public void testPercentilesAreAccurateToBucketSize() {
+		TickProfile profile = new TickProfile("test");
+		for (int i = 1; i <= 1000; i++) {
+			profile.record(i * 1000L, -1);
+		}
+
+		assertEquals(1000, profile.getCount());
+		assertEquals(1000000, profile.getMaxNanos());
+		assertEquals(500500, profile.getMeanNanos());
+		assertBetween(500000, 500000 * 1.25, profile.getPercentileNanos(50));
+		assertBetween(990000, 1000000, profile.getPercentileNanos(99));
+		assertEquals(1000000, profile.getPercentileNanos(100));
+		assertEquals(-1, profile.getAllocatedBytes());
+	}
+
+	@Test
+	public void testDisabledProfilerRecordsNothing() {
+		TickProfiler.setEnabled(false);
+
+		assertFalse(TickProfiler.begin());
+		TickProfiler.recordTick(1000, 0);
+
+		assertFalse(TickProfiler.hasProfiles());
+	}
+
+	@Test
+	public void testNestedMeasurementsArePerClass() {
+		assertTrue(TickProfiler.begin());
+		assertTrue(TickProfiler.begin());
+		TickProfiler.end(Integer.class);
+		TickProfiler.end(String.class);
+		assertTrue(TickProfiler.begin());
+		TickProfiler.end(Integer.class);
+
+		List<TickProfile> profiles = TickProfiler.getProfiles();
+		assertEquals(2, profiles.size());
+		TickProfile outer = getProfile(profiles, "String");
+		TickProfile inner = getProfile(profiles, "Integer");
+		assertEquals(1, outer.getCount());
+		assertEquals(2, inner.getCount());
+	}
+
+	@Test
+	public void testAllocationsAreMeasuredWithCounter() {
+		long[] allocated = { 100 };
+		TickProfiler.setAllocationCounter(() -> allocated[0]);
+
+		TickProfiler.begin();
+		allocated[0] += 64;
+		TickProfiler.end(Integer.class);
+
+		assertEquals(64, getProfile(TickProfiler.getProfiles(), "Integer").getAllocatedBytes());
+	}
+
+	@Test
+	public void testTicksAndLockstepWait() {
+		TickProfiler.recordTick(5000, 2000);
+		TickProfiler.recordTick(3000, 0);
+
+		List<TickProfile> profiles = TickProfiler.getProfiles();
+		assertEquals(2, getProfile(profiles, TickProfiler.TICK).getCount());
+		assertEquals(6000, getProfile(profiles, TickProfiler.TICK).getTotalNanos());
+		assertEquals(1, getProfile(profiles, TickProfiler.LOCKSTEP_WAIT).getCount());
+		assertEquals(2000, getProfile(profiles, TickProfiler.LOCKSTEP_WAIT).getTotalNanos());
+	}
+
+	@Test
+	public void testCsvContainsOneLinePerProfile() throws IOException {
+		TickProfiler.recordTick(5000000, 2000000);
+
+		StringWriter writer = new StringWriter();
+		TickProfiler.writeCsv(writer);
+		String[] lines = writer.toString().split("\n");
+
+		assertEquals(3, lines.length);
+		assertTrue(lines[0].startsWith("name,count,totalUs"));
+		assertEquals("clock tick,1,3000,3000,", lines[1].substring(0, "clock tick,1,3000,3000,".length()));
+		assertTrue(lines[2].startsWith("lockstep wait,1,2000,"));
+	}
+
+	private static TickProfile getProfile(List<TickProfile> profiles, String name) {
+		for (TickProfile profile : profiles) {
+			if (profile.getName().equals(name)) {
+				return profile;
+			}
+		}
+		throw new AssertionError("No profile " + name);
+	}
+
+	private static void assertBetween(double min, double max, long value) {
+		assertTrue(value + " not in [" + min + ", " + max + "]", min <= value && value <= max);
+	}
+}
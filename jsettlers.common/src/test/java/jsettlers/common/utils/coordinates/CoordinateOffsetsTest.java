@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.common.utils.coordinates;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Tests the {@link CoordinateOffsets} of the {@link HexGridArea}.
+ *
+ */
+public class CoordinateOffsetsTest {
+	private static final int WIDTH = 50;
+	private static final int HEIGHT = 40;
+
+	@Test
+	public void testSameOrderAsIterator() {
+		for (int startRadius = 0; startRadius < 6; startRadius++) {
+			for (int maxRadius = startRadius; maxRadius < 12; maxRadius++) {
+				Iterator<ShortPoint2D> iterator = new HexGridArea(20, 30, startRadius, maxRadius).iterator();
+
+				for (ShortPoint2D position : HexGridArea.stream(20, 30, startRadius, maxRadius).toList()) {
+					assertTrue(iterator.hasNext());
+					assertEquals(iterator.next(), position);
+				}
+				assertFalse(iterator.hasNext());
+			}
+		}
+	}
+
+	@Test
+	public void testIndicesOfRadiuses() {
+		CoordinateOffsets offsets = HexGridArea.getOffsets();
+		assertEquals(HexGridArea.getFirstIndexOfRadius(HexGridArea.MAX_CACHED_RADIUS + 1), offsets.size());
+
+		for (int radius = 0; radius <= HexGridArea.MAX_CACHED_RADIUS; radius++) {
+			for (int i = HexGridArea.getFirstIndexOfRadius(radius); i < HexGridArea.getFirstIndexOfRadius(radius + 1); i++) {
+				ShortPoint2D position = new ShortPoint2D(100 + offsets.getDx(i), 100 + offsets.getDy(i));
+				assertEquals(radius, new ShortPoint2D(100, 100).getOnGridDistTo(position));
+			}
+		}
+	}
+
+	@Test
+	public void testFilterBounds() {
+		for (int y = -5; y < HEIGHT + 5; y += 3) {
+			for (int x = -5; x < WIDTH + 5; x += 3) {
+				CoordinateStream stream = HexGridArea.stream(x, y, 2, 9);
+				List<ShortPoint2D> expected = stream.filter((currX, currY) -> 0 <= currX && currX < WIDTH && 0 <= currY && currY < HEIGHT).toList();
+
+				assertEquals(expected, stream.filterBounds(WIDTH, HEIGHT).toList());
+				assertEquals(expected, stream.filterBounds(-10, -10, WIDTH + 10, HEIGHT).filterBounds(0, 0, WIDTH, HEIGHT + 10).toList());
+			}
+		}
+	}
+
+	@Test
+	public void testIsInBounds() {
+		CoordinateOffsets offsets = HexGridArea.getOffsets();
+		int toIndex = HexGridArea.getFirstIndexOfRadius(4);
+
+		assertTrue(offsets.isInBounds(3, 3, toIndex, 0, 0, WIDTH, HEIGHT));
+		assertTrue(offsets.isInBounds(WIDTH - 4, HEIGHT - 4, toIndex, 0, 0, WIDTH, HEIGHT));
+		assertFalse(offsets.isInBounds(2, 3, toIndex, 0, 0, WIDTH, HEIGHT));
+		assertFalse(offsets.isInBounds(3, HEIGHT - 3, toIndex, 0, 0, WIDTH, HEIGHT));
+	}
+}
@@ -17,15 +17,17 @@ package jsettlers.graphics.image;
 import go.graphics.GLDrawContext;
 import go.graphics.TextureHandle;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
-import jsettlers.common.resources.ResourceManager;
 import jsettlers.graphics.map.draw.GLPreloadTask;
 import jsettlers.graphics.map.draw.ImageProvider;
 import jsettlers.graphics.reader.AdvancedDatFileReader;
@@ -57,6 +59,14 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	private ByteBuffer byteBuffer;
 
 	private final File cacheFile;
+	private final long contentHash;
+
+	/**
+	 * The positions and sizes of the images added by {@link #addSequences(AdvancedDatFileReader, int[], Sequence[])}. They are stored in the cache
+	 * with the texture.
+	 */
+	private final ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+	private final DataOutputStream metadata = new DataOutputStream(metadataBytes);
 
 	/**
 	 * Creates a new {@link MultiImageMap}.
@@ -67,13 +77,15 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	 *            The height of the base image.
 	 * @param id
 	 *            The id of the map.
+	 * @param contentHash
+	 *            The hash of the dat file the images are read from. A cache of an other dat file content is not used.
 	 * @see #addSequences(AdvancedDatFileReader, int[], Sequence[])
 	 */
-	public MultiImageMap(int width, int height, String id) {
+	public MultiImageMap(int width, int height, String id, long contentHash) {
 		this.width = width;
 		this.height = height;
-		File root = new File(ResourceManager.getResourcesDirectory(), "cache");
-		cacheFile = new File(root, "cache-" + id);
+		this.contentHash = contentHash;
+		cacheFile = TextureCache.getCacheFile("atlas-" + id);
 	}
 
 	private void allocateBuffers() {
@@ -100,11 +112,14 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 
 		ImageMetadata settlermeta = new ImageMetadata();
 		ImageMetadata reusableTorsometa = new ImageMetadata();
+		metadata.writeInt(sequenceIndexes.length);
 		for (int seqindex : sequenceIndexes) {
 			long[] settlers = dfr.getSettlerPointers(seqindex);
 			long[] torsos = dfr.getTorsoPointers(seqindex);
 
 			Image[] images = new Image[settlers.length];
+			metadata.writeInt(seqindex);
+			metadata.writeInt(settlers.length);
 			for (int i = 0; i < settlers.length; i++) {
 				// System.out.println("Processing seq + " + seqindex +
 				// ", image " + i + ":");
@@ -135,6 +150,12 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 					torsometa = null;
 				}
 
+				writeImageMetadata(settlermeta, settlerx, settlery);
+				metadata.writeBoolean(torsometa != null);
+				if (torsometa != null) {
+					writeImageMetadata(torsometa, torsox, torsoy);
+				}
+
 				images[i] =
 						new MultiImageImage(this, settlermeta, settlerx,
 								settlery, torsometa,
@@ -148,50 +169,96 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 		ImageProvider.getInstance().addPreloadTask(this);
 	}
 
+	private void writeImageMetadata(ImageMetadata imageMetadata, int x, int y) throws IOException {
+		metadata.writeInt(imageMetadata.width);
+		metadata.writeInt(imageMetadata.height);
+		metadata.writeInt(imageMetadata.offsetX);
+		metadata.writeInt(imageMetadata.offsetY);
+		metadata.writeInt(x);
+		metadata.writeInt(y);
+	}
+
 	/**
 	 * Forces the regeneration of the cache file.
 	 */
 	public synchronized void writeCache() {
-		FileOutputStream out = null;
 		try {
-			cacheFile.getParentFile().mkdirs();
-			cacheFile.delete();
-			File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
-			out = new FileOutputStream(tempFile);
-
-			try {
-				byte[] line = new byte[this.width * 2];
-				byteBuffer.rewind();
-				while (byteBuffer.hasRemaining()) {
-					byteBuffer.get(line);
-					out.write(line);
-				}
-			} finally {
-				out.close();
-			}
-
-			tempFile.renameTo(cacheFile);
+			TextureCache.write(cacheFile, contentHash, width, height, metadataBytes.toByteArray(), buffers);
 
 			buffers = null;
 			byteBuffer = null;
 		} catch (IOException e) {
-			if (out != null) {
-				try {
-					out.close();
-				} catch (IOException e1) {
-				}
-			}
 			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Checks if this image map is can be loaded from the cache instead of regenerating it.
+	 * Creates the images of the given sequences from the cache, if the cache is valid for them. The texture is then uploaded from the memory mapped
+	 * cache.
 	 * 
-	 * @return <code>true</code> iff this file is cached.
+	 * @param sequenceIndexes
+	 *            The indexes of the sequences that need to be in the cache.
+	 * @param addTo
+	 *            The image sequence to add the images to.
+	 * @return <code>true</code> iff the images have been loaded from the cache.
 	 */
-	public synchronized boolean hasCache() {
-		return cacheFile.isFile();
+	public synchronized boolean loadCache(int[] sequenceIndexes, Sequence<Image>[] addTo) {
+		TextureCache cache = TextureCache.read(cacheFile, contentHash, width, height);
+		if (cache == null) {
+			return false;
+		}
+
+		List<Sequence<Image>> sequences = new ArrayList<>(sequenceIndexes.length);
+		try {
+			DataInputStream in = cache.getMetadata();
+			if (in.readInt() != sequenceIndexes.length) {
+				return false;
+			}
+
+			ImageMetadata settlermeta = new ImageMetadata();
+			ImageMetadata torsometa = new ImageMetadata();
+			for (int sequence = 0; sequence < sequenceIndexes.length; sequence++) {
+				if (in.readInt() != sequenceIndexes[sequence]) {
+					return false;
+				}
+
+				Image[] images = new Image[in.readInt()];
+				for (int i = 0; i < images.length; i++) {
+					readImageMetadata(in, settlermeta);
+					int settlerx = in.readInt();
+					int settlery = in.readInt();
+
+					if (in.readBoolean()) {
+						readImageMetadata(in, torsometa);
+						int torsox = in.readInt();
+						int torsoy = in.readInt();
+						images[i] = new MultiImageImage(this, settlermeta, settlerx, settlery, torsometa, torsox, torsoy);
+					} else {
+						images[i] = new MultiImageImage(this, settlermeta, settlerx, settlery, null, 0, 0);
+					}
+				}
+				sequences.add(new ArraySequence<>(images));
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read the metadata of " + cacheFile + ": " + e.getMessage());
+			return false;
+		}
+
+		for (int sequence = 0; sequence < sequenceIndexes.length; sequence++) {
+			addTo[sequenceIndexes[sequence]] = sequences.get(sequence);
+		}
+
+		buffers = cache.getPixels();
+		textureValid = false;
+		ImageProvider.getInstance().addPreloadTask(this);
+		return true;
+	}
+
+	private static void readImageMetadata(DataInputStream in, ImageMetadata imageMetadata) throws IOException {
+		imageMetadata.width = in.readInt();
+		imageMetadata.height = in.readInt();
+		imageMetadata.offsetX = in.readInt();
+		imageMetadata.offsetY = in.readInt();
 	}
 
 	@Override
@@ -274,20 +341,11 @@ public class MultiImageMap implements ImageArrayProvider, GLPreloadTask {
 	private synchronized void loadTexture(GLDrawContext gl) throws
 			IOException {
 		if (buffers == null) {
-			allocateBuffers();
-			FileInputStream in = new FileInputStream(cacheFile);
-			try {
-				byte[] line = new byte[this.width * 2];
-				while (in.available() > 0) {
-					if (in.read(line) <= 0) {
-						throw new IOException();
-					}
-					byteBuffer.put(line);
-				}
-				byteBuffer.rewind();
-			} finally {
-				in.close();
+			TextureCache cache = TextureCache.read(cacheFile, contentHash, width, height);
+			if (cache == null) {
+				throw new IOException("The texture cache " + cacheFile + " is missing or outdated.");
 			}
+			buffers = cache.getPixels();
 		}
 
 		buffers.rewind();
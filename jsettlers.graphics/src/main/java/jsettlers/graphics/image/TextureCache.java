@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.image;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+import jsettlers.common.resources.ResourceManager;
+
+/**
+ * A cache file for a texture generated from the dat files. It contains the pixels of the texture and the metadata needed to use it without
+ * decoding the dat file again.
+ * <p>
+ * The file starts with a header containing {@link #FORMAT_VERSION}, the content hash of the dat file the texture was generated from, the size of
+ * the texture and the metadata. It is followed by the pixels as little endian shorts. The header is read with a stream and validated, only the
+ * pixels of a valid cache are memory mapped.
+ *
+ */
+public final class TextureCache {
+	/**
+	 * The version of the cache format. It needs to be increased whenever the format or the way the textures are generated changes.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x4a535443; // JSTC
+
+	private final ShortBuffer pixels;
+	private final byte[] metadata;
+
+	private TextureCache(ShortBuffer pixels, byte[] metadata) {
+		this.pixels = pixels;
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Gets the cache file with the given name in the cache directory of the resources.
+	 *
+	 * @param name
+	 *            The name of the cache.
+	 * @return The file.
+	 */
+	public static File getCacheFile(String name) {
+		return new File(new File(ResourceManager.getResourcesDirectory(), "cache"), name);
+	}
+
+	/**
+	 * Reads a cache file.
+	 *
+	 * @param file
+	 *            The cache file.
+	 * @param contentHash
+	 *            The hash of the dat file content the texture needs to be generated from.
+	 * @param width
+	 *            The width the texture needs to have.
+	 * @param height
+	 *            The height the texture needs to have.
+	 * @return The cache or <code>null</code> if the file does not exist or does not match the given parameters.
+	 */
+	public static TextureCache read(File file, long contentHash, int width, int height) {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		try {
+			byte[] metadata;
+			long pixelsStart;
+
+			DataInputStream in = new DataInputStream(new FileInputStream(file));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != contentHash || in.readInt() != width
+						|| in.readInt() != height) {
+					return null;
+				}
+				metadata = new byte[in.readInt()];
+				in.readFully(metadata);
+				pixelsStart = 4 + 4 + 8 + 4 + 4 + 4 + metadata.length;
+			} finally {
+				in.close();
+			}
+
+			long pixelsLength = 2L * width * height;
+			if (file.length() != pixelsStart + pixelsLength) {
+				return null;
+			}
+
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				ByteBuffer mapped = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, pixelsStart, pixelsLength);
+				return new TextureCache(toNativeOrder(mapped), metadata);
+			} finally {
+				randomAccessFile.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read texture cache " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * The mapped pixels are used directly if the platform is little endian. Otherwise they are copied.
+	 */
+	private static ShortBuffer toNativeOrder(ByteBuffer littleEndianPixels) {
+		littleEndianPixels.order(ByteOrder.LITTLE_ENDIAN);
+		if (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN) {
+			return littleEndianPixels.asShortBuffer();
+		}
+
+		ShortBuffer copy = ByteBuffer.allocateDirect(littleEndianPixels.capacity()).order(ByteOrder.nativeOrder()).asShortBuffer();
+		copy.put(littleEndianPixels.asShortBuffer());
+		copy.rewind();
+		return copy;
+	}
+
+	/**
+	 * Writes a cache file. The file is written to a temporary file first, so a cancelled write does not leave a broken cache.
+	 *
+	 * @param file
+	 *            The cache file.
+	 * @param contentHash
+	 *            The hash of the dat file content the texture was generated from.
+	 * @param width
+	 *            The width of the texture.
+	 * @param height
+	 *            The height of the texture.
+	 * @param metadata
+	 *            The metadata of the texture.
+	 * @param pixels
+	 *            The pixels of the texture. The position of the buffer is not changed.
+	 * @throws IOException
+	 *             If the file could not be written.
+	 */
+	public static void write(File file, long contentHash, int width, int height, byte[] metadata, ShortBuffer pixels) throws IOException {
+		file.getParentFile().mkdirs();
+		File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeLong(contentHash);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(metadata.length);
+			out.write(metadata);
+
+			ShortBuffer source = pixels.duplicate();
+			source.rewind();
+			ByteBuffer line = ByteBuffer.allocate(width * 2).order(ByteOrder.LITTLE_ENDIAN);
+			for (int y = 0; y < height; y++) {
+				line.clear();
+				for (int x = 0; x < width; x++) {
+					line.putShort(source.get());
+				}
+				out.write(line.array(), 0, line.position());
+			}
+		} finally {
+			out.close();
+		}
+
+		file.delete();
+		if (!tempFile.renameTo(file)) {
+			throw new IOException("Could not move " + tempFile + " to " + file);
+		}
+	}
+
+	/**
+	 * Gets the pixels of the texture in native byte order.
+	 *
+	 * @return A direct buffer with the pixels.
+	 */
+	public ShortBuffer getPixels() {
+		return pixels;
+	}
+
+	/**
+	 * Gets a stream to read the metadata stored with the texture.
+	 *
+	 * @return The stream.
+	 */
+	public DataInputStream getMetadata() {
+		return new DataInputStream(new ByteArrayInputStream(metadata));
+	}
+}
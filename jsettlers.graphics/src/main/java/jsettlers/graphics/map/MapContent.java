@@ -14,6 +14,9 @@
  *******************************************************************************/
 package jsettlers.graphics.map;
 
+import java.util.List;
+import java.util.Locale;
+
 import go.graphics.GLDrawContext;
 import go.graphics.IllegalBufferException;
 import go.graphics.UIPoint;
@@ -39,6 +42,8 @@ import jsettlers.common.images.AnimationSequence;
 import jsettlers.common.images.EImageLinkType;
 import jsettlers.common.images.ImageLink;
 import jsettlers.common.images.OriginalImageLink;
+import jsettlers.common.logging.TickProfile;
+import jsettlers.common.logging.TickProfiler;
 import jsettlers.common.map.EDebugColorModes;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.map.shapes.IMapArea;
@@ -51,7 +56,6 @@ import jsettlers.common.menu.UIState;
 import jsettlers.common.menu.action.EActionType;
 import jsettlers.common.menu.action.IAction;
 import jsettlers.common.menu.messages.IMessage;
-import jsettlers.common.movable.IMovable;
 import jsettlers.common.position.FloatRectangle;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.selectable.ISelectionSet;
@@ -71,6 +75,7 @@ import jsettlers.graphics.map.controls.original.OriginalControls;
 import jsettlers.graphics.map.draw.Background;
 import jsettlers.graphics.map.draw.ImageProvider;
 import jsettlers.graphics.map.draw.MapObjectDrawer;
+import jsettlers.graphics.map.draw.ParallelObjectDrawer;
 import jsettlers.graphics.messages.Messenger;
 import jsettlers.graphics.sound.BackgroundSound;
 import jsettlers.graphics.sound.SoundManager;
@@ -155,6 +160,8 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 
 	private final MapObjectDrawer objectDrawer;
 
+	private final ParallelObjectDrawer parallelObjectDrawer;
+
 	/**
 	 * The current connector that connects the outside world to us.
 	 */
@@ -171,6 +178,11 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 
 	private final ETextDrawPosition textDrawPosition;
 
+	private static final int TICK_PROFILE_LINES = 10;
+	private static final long TICK_PROFILE_REFRESH_INTERVAL = 1000;
+	private String[] tickProfileLines = new String[0];
+	private long tickProfileRefreshTime;
+
 	/**
 	 * The controls that represent the interface.
 	 */
@@ -232,6 +244,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		this.soundmanager = new SoundManager(soundPlayer);
 
 		objectDrawer = new MapObjectDrawer(context, soundmanager);
+		parallelObjectDrawer = new ParallelObjectDrawer(context, soundmanager);
 		backgroundSound = new BackgroundSound(context, soundmanager);
 		backgroundSound.start();
 
@@ -275,6 +288,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 
 			adaptScreenSize();
 			this.objectDrawer.increaseAnimationStep();
+			this.context.getDrawBuffer().nextFrame();
 
 			this.context.begin(gl);
 			long start = System.currentTimeMillis();
@@ -303,6 +317,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 			drawMessages(gl);
 
 			drawFramerateTimeAndHash(gl);
+			drawTickProfile(gl);
 
 			if (actionThreadIsSlow) {
 				drawActionThreadSlow(gl);
@@ -326,6 +341,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		} else {
 			ImageLink image = GOTO_ANIMATION.getImage(timeDifference < GOTO_MARK_TIME / 2 ? 0 : 1);
 			objectDrawer.drawGotoMarker(scrollMarker, ImageProvider.getInstance().getImage(image));
+			objectDrawer.submitCommands();
 		}
 	}
 
@@ -335,6 +351,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 			moveToMarker = null;
 		} else {
 			objectDrawer.drawMoveToMarker(moveToMarker, timeDifference / GOTO_MARK_TIME);
+			objectDrawer.submitCommands();
 		}
 	}
 
@@ -426,6 +443,49 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		drawer.drawString(getConfiguredX(sideXOffset, windowWidth, 7 * letterWidth), yFirstLine, fps);
 		drawer.drawString(getConfiguredX(sideXOffset + 9 * letterWidth, windowWidth, 9 * letterWidth), yFirstLine, timeString);
 		drawer.drawString(getConfiguredX(sideXOffset, windowWidth, 7 * letterWidth), ySecondLine, CommitInfo.COMMIT_HASH_SHORT);
+
+		String drawStatistics = context.getDrawBuffer().getLastFrameStatistics().toString();
+		drawer.drawString(getConfiguredX(sideXOffset + 9 * letterWidth, windowWidth, drawer.getWidth(drawStatistics)), ySecondLine, drawStatistics);
+	}
+
+	/**
+	 * Draws the subsystems of the game clock that took the most time while the {@link TickProfiler} is enabled. The lines are only refreshed once
+	 * a second, so they can be read while the game is running.
+	 */
+	private void drawTickProfile(GLDrawContext gl) {
+		if (!TickProfiler.isEnabled()) {
+			return;
+		}
+
+		long now = System.currentTimeMillis();
+		if (now - tickProfileRefreshTime >= TICK_PROFILE_REFRESH_INTERVAL) {
+			tickProfileRefreshTime = now;
+			tickProfileLines = createTickProfileLines();
+		}
+
+		TextDrawer drawer = textDrawer.getTextDrawer(gl, EFontSize.NORMAL);
+		float letterWidth = getLetterWidth(drawer);
+		float textLineHeight = getTextLineHeight(drawer);
+
+		for (int i = 0; i < tickProfileLines.length; i++) {
+			float y = windowHeight - (4.5f + 1.5f * i) * textLineHeight;
+			String line = tickProfileLines[i];
+			drawer.drawString(getConfiguredX(2 * letterWidth, windowWidth, drawer.getWidth(line)), y, line);
+		}
+	}
+
+	private static String[] createTickProfileLines() {
+		List<TickProfile> profiles = TickProfiler.getProfiles();
+		String[] lines = new String[Math.min(profiles.size(), TICK_PROFILE_LINES) + 1];
+		lines[0] = "subsystem: count, total ms, p50 / p99 us, allocated kB";
+		for (int i = 1; i < lines.length; i++) {
+			TickProfile profile = profiles.get(i - 1);
+			long allocatedBytes = profile.getAllocatedBytes();
+			lines[i] = String.format(Locale.ENGLISH, "%s: %d, %d, %d / %d, %s", profile.getName(), profile.getCount(),
+					profile.getTotalNanos() / 1000000, profile.getPercentileNanos(50) / 1000, profile.getPercentileNanos(99) / 1000,
+					allocatedBytes >= 0 ? Long.toString(allocatedBytes / 1024) : "-");
+		}
+		return lines;
 	}
 
 	private float getConfiguredX(float borderDistance, int windowWidth, float fixedTextLength) {
@@ -468,30 +528,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		MapRectangle area = this.context.getConverter().getMapForScreen(screen);
 
 		double bottomDrawY = screen.getMinY() - OVERDRAW_BOTTOM_PX;
-
-		boolean linePartiallyVisible = true;
-		for (int line = 0; line < area.getLines() + 50 && linePartiallyVisible; line++) {
-			int y = area.getLineY(line);
-			if (y < 0) {
-				continue;
-			}
-			if (y >= height) {
-				break;
-			}
-			linePartiallyVisible = false;
-
-			int endX = Math.min(area.getLineEndX(line), width - 1);
-			int startX = Math.max(area.getLineStartX(line), 0);
-			for (int x = startX; x <= endX; x = map.nextDrawableX(x, y, endX)) {
-				drawTile(x, y);
-				if (!linePartiallyVisible) {
-					double drawSpaceY = this.context.getConverter().getViewY(x, y, this.context.getHeight(x, y));
-					if (drawSpaceY > bottomDrawY) {
-						linePartiallyVisible = true;
-					}
-				}
-			}
-		}
+		parallelObjectDrawer.draw(area, area.getLines() + 50, bottomDrawY, objectDrawer);
 
 		if (placementBuilding != null) {
 			ShortPoint2D underMouse = this.context.getPositionOnScreen((float) mousePosition.getX(), (float) mousePosition.getY());
@@ -500,6 +537,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 
 				if (mapObject != null && mapObject.getMapObject(EMapObjectType.CONSTRUCTION_MARK) != null) { // if there is a construction mark
 					this.objectDrawer.drawMapObject(underMouse.x, underMouse.y, placementBuilding);
+					this.objectDrawer.submitCommands();
 				}
 			}
 		}
@@ -511,23 +549,6 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		context.getDrawBuffer().flush();
 	}
 
-	private void drawTile(int x, int y) {
-		IMapObject object = map.getMapObjectsAt(x, y);
-		if (object != null) {
-			this.objectDrawer.drawMapObject(x, y, object);
-		}
-
-		IMovable movable = map.getMovableAt(x, y);
-		if (movable != null) {
-			this.objectDrawer.draw(movable);
-		}
-
-		if (map.isBorder(x, y)) {
-			byte player = map.getPlayerIdAt(x, y);
-			objectDrawer.drawPlayerBorderObject(x, y, player);
-		}
-	}
-
 	private void drawDebugColors() {
 		GLDrawContext gl = this.context.getGl();
 
@@ -679,6 +700,8 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 			return new Action(EActionType.SHOW_SELECTION);
 		} else if ("n".equalsIgnoreCase(keyCode)) {
 			return new Action(EActionType.NEXT_OF_TYPE);
+		} else if ("F3".equalsIgnoreCase(keyCode)) {
+			return new Action(EActionType.TOGGLE_TICK_PROFILER);
 		} else if ("F5".equalsIgnoreCase(keyCode)) {
 			return new Action(EActionType.ZOOM_IN);
 		} else if ("F6".equalsIgnoreCase(keyCode)) {
@@ -875,6 +898,9 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 		case TOGGLE_ORIGINAL_GRAPHICS:
 			context.ENABLE_ORIGINAL = !context.ENABLE_ORIGINAL;
 			break;
+		case TOGGLE_TICK_PROFILER:
+			TickProfiler.setEnabled(!TickProfiler.isEnabled());
+			break;
 		case PAN_TO:
 			PointAction panAction = (PointAction) action;
 			scrollTo(panAction.getPosition(), false);
@@ -953,6 +979,7 @@ public final class MapContent implements RegionContent, IMapInterfaceListener, A
 	public void stop() {
 		backgroundSound.stop();
 		controls.stop();
+		parallelObjectDrawer.stop();
 	}
 
 	void loadUIState(UIState state) {
@@ -14,9 +14,11 @@
  *******************************************************************************/
 package jsettlers.graphics.map.draw;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 import java.util.BitSet;
 
 import go.graphics.GLDrawContext;
@@ -30,6 +32,7 @@ import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.shapes.MapRectangle;
 import jsettlers.common.position.FloatRectangle;
+import jsettlers.graphics.image.TextureCache;
 import jsettlers.graphics.map.MapDrawContext;
 import jsettlers.graphics.reader.AdvancedDatFileReader;
 import jsettlers.graphics.reader.DatBitmapReader;
@@ -869,16 +872,35 @@ public class Background implements IGraphicsBackgroundListener {
 
 	private boolean mapViewResized;
 
-	private static short[] preloadedTexture = null;
+	private static ShortBuffer preloadedTexture = null;
+
+	/**
+	 * Gets the texture data from the cache or generates it from the dat file and writes the cache.
+	 * 
+	 * @return A direct buffer with the texture data.
+	 */
+	private static ShortBuffer getTexture() {
+		AdvancedDatFileReader reader = ImageProvider.getInstance().getFileReader(LAND_FILE);
+		long contentHash = reader != null ? reader.getContentHash() : 0;
+		File cacheFile = TextureCache.getCacheFile("background");
+
+		TextureCache cache = TextureCache.read(cacheFile, contentHash, TEXTURE_SIZE, TEXTURE_SIZE);
+		if (cache != null) {
+			return cache.getPixels();
+		}
 
-	private static short[] getTexture() {
 		short[] data = new short[TEXTURE_SIZE * TEXTURE_SIZE];
 		try {
 			addTextures(data);
+			TextureCache.write(cacheFile, contentHash, TEXTURE_SIZE, TEXTURE_SIZE, new byte[0], ShortBuffer.wrap(data));
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
-		return data;
+
+		ShortBuffer buffer = ByteBuffer.allocateDirect(data.length * 2).order(ByteOrder.nativeOrder()).asShortBuffer();
+		buffer.put(data);
+		buffer.rewind();
+		return buffer;
 	}
 
 	public static void preloadTexture() {
@@ -893,19 +915,17 @@ public class Background implements IGraphicsBackgroundListener {
 	private static TextureHandle getTexture(GLDrawContext context) {
 		if (texture == null || !texture.isValid()) {
 			long startTime = System.currentTimeMillis();
-			short[] data;
+			ShortBuffer data;
 			synchronized (preloadMutex) {
 				if (preloadedTexture != null) {
 					data = preloadedTexture;
-					// free the array
+					// free the buffer
 					preloadedTexture = null;
 				} else {
 					data = getTexture();
 				}
 			}
-			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length * 2).order(ByteOrder.nativeOrder());
-			buffer.asShortBuffer().put(data);
-			texture = context.generateTexture(TEXTURE_SIZE, TEXTURE_SIZE, buffer.asShortBuffer());
+			texture = context.generateTexture(TEXTURE_SIZE, TEXTURE_SIZE, data);
 
 			System.out.println("Background texture generated in " + (System.currentTimeMillis() - startTime) + "ms");
 		}
@@ -1612,5 +1632,8 @@ public class Background implements IGraphicsBackgroundListener {
 	 */
 	public static void invalidateTexture() {
 		texture = null;
+		synchronized (preloadMutex) {
+			preloadedTexture = null;
+		}
 	}
 }
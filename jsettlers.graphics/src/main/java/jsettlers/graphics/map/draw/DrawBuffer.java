@@ -19,11 +19,20 @@ import go.graphics.TextureHandle;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 
 import jsettlers.graphics.map.IGLProvider;
 
 /**
  * This class buffers triangle draw calls and sends them to opengl in bratches. It should only be used during one frame.
+ * <p>
+ * The triangles added until the next {@link #flush()} are collected in batches that are drawn in the order they were started, each with a single
+ * draw call. A triangle is added to an earlier batch of its texture only if none of the batches started after it overlaps the triangle on the
+ * screen. Otherwise a new batch is started. Therefore every pixel is drawn in the same order the triangles were added in, and translucent or
+ * overlapping images are blended exactly as if they were drawn one by one.
  * 
  * @author Michael Zangl
  *
@@ -32,109 +41,191 @@ public class DrawBuffer {
 
 	private static final float Z_OFFSET_PER_ITEM = .00001f;
 	/**
-	 * Number of buffers to hold. So many textures may be used simultaneously.
+	 * Values we need for one vertex: x, y, z, u, v as float bits and the color.
 	 */
-	private static final int BUFFERS = 5;
+	private static final int VERTEX_LENGTH = 6;
+	private static final int TRIANGLE_LENGTH = 3 * VERTEX_LENGTH;
+	private static final int INITIAL_BATCH_TRIANGLES = 64;
+	private static final int INITIAL_UPLOAD_TRIANGLES = 4096;
+	/**
+	 * Number of batches that are searched for a batch of the same texture before a new batch is started.
+	 */
+	private static final int MAX_BATCH_LOOKBACK = 32;
+
 	private final IGLProvider context;
 	private float z;
 
 	/**
-	 * This is a buffer for a single texture.
+	 * This is a buffer for a single texture. The triangles added to it are put into the batches of the {@link DrawBuffer}.
 	 * 
 	 * @author Michael Zangl
 	 *
 	 */
 	public class Buffer {
 		/**
-		 * Bytes we need for one vertex.
-		 */
-		private static final int VERTEX_LENGTH = 5 * 4 + 4;
-		private static final int TRIAMGLE_LENGTH = 3 * VERTEX_LENGTH;
-		private static final int BUFFER_TRIANGLES = 1000;
-
-		/**
-		 * The last texture we set.
+		 * The texture all triangles of this buffer use.
 		 */
 		private TextureHandle currentTexture = null;
 
+		protected Buffer() {
+		}
+
+		protected void addImage(float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
+			Batch batch = getBatch(currentTexture, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), 2);
+			batch.addPointPrimitive(x1, y1, u1, v1, activeColor);
+			batch.addPointPrimitive(x1, y2, u1, v2, activeColor);
+			batch.addPointPrimitive(x2, y1, u2, v1, activeColor);
+			batch.addPointPrimitive(x2, y1, u2, v1, activeColor);
+			batch.addPointPrimitive(x1, y2, u1, v2, activeColor);
+			batch.addPointPrimitive(x2, y2, u2, v2, activeColor);
+			batch.currentTriangles += 2;
+		}
+
+		public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3,
+				float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
+			Batch batch = getBatch(currentTexture, Math.min(x1, Math.min(x2, x3)), Math.min(y1, Math.min(y2, y3)),
+					Math.max(x1, Math.max(x2, x3)), Math.max(y1, Math.max(y2, y3)), 1);
+			batch.addPointPrimitive(x1, y1, u1, v1, activeColor);
+			batch.addPointPrimitive(x2, y2, u2, v2, activeColor);
+			batch.addPointPrimitive(x3, y3, u3, v3, activeColor);
+			batch.currentTriangles += 1;
+		}
+	}
+
+	/**
+	 * Triangles of one texture that are drawn with a single draw call. The bounds of all its triangles are kept to decide if later triangles may be
+	 * added.
+	 */
+	private final class Batch {
+		private TextureHandle texture;
+
 		private int currentTriangles = 0;
 
-		protected final ByteBuffer byteBuffer;
+		private int[] vertices = new int[INITIAL_BATCH_TRIANGLES * TRIANGLE_LENGTH];
+		private int length = 0;
 
-		protected Buffer() {
-			byteBuffer =
-					ByteBuffer.allocateDirect(BUFFER_TRIANGLES * TRIAMGLE_LENGTH);
-			byteBuffer.order(ByteOrder.nativeOrder());
+		private float minX;
+		private float minY;
+		private float maxX;
+		private float maxY;
+
+		private void start(TextureHandle texture, float minX, float minY, float maxX, float maxY) {
+			this.texture = texture;
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+
+		/**
+		 * Checks if the given bounds overlap the bounds of this batch. Touching bounds are treated as overlapping, as rounding may make them share
+		 * pixels.
+		 */
+		private boolean overlaps(float minX, float minY, float maxX, float maxY) {
+			return minX <= this.maxX && this.minX <= maxX && minY <= this.maxY && this.minY <= maxY;
 		}
 
-		protected void setForTexture(TextureHandle texture) throws IllegalBufferException {
-			if (currentTexture != texture) {
-				if (texture != null && !texture.isValid()) {
-					throw new IllegalBufferException("The texture " + texture + " is not valid.");
-				}
+		private void add(float minX, float minY, float maxX, float maxY, int triangles) {
+			this.minX = Math.min(this.minX, minX);
+			this.minY = Math.min(this.minY, minY);
+			this.maxX = Math.max(this.maxX, maxX);
+			this.maxY = Math.max(this.maxY, maxY);
 
-				if (currentTriangles != 0) {
-					draw();
-				}
-				currentTexture = texture;
+			int required = length + triangles * TRIANGLE_LENGTH;
+			if (required > vertices.length) {
+				vertices = Arrays.copyOf(vertices, Math.max(required, 2 * vertices.length));
 			}
 		}
 
-		protected void draw() {
+		private void addPointPrimitive(float x1, float y1, float u, float v, int activeColor) {
+			int[] vertices = this.vertices;
+			int i = length;
+			vertices[i] = Float.floatToRawIntBits(x1);
+			vertices[i + 1] = Float.floatToRawIntBits(y1);
+			vertices[i + 2] = Float.floatToRawIntBits(getZ());
+			vertices[i + 3] = Float.floatToRawIntBits(u);
+			vertices[i + 4] = Float.floatToRawIntBits(v);
+			vertices[i + 5] = activeColor;
+			length = i + VERTEX_LENGTH;
+		}
+
+		private void draw() {
 			try {
-				byteBuffer.rewind();
-				context.getGl().drawTrianglesWithTextureColored(currentTexture, byteBuffer, currentTriangles);
+				ByteBuffer upload = getUploadBuffer(currentTriangles);
+				uploadInts.clear();
+				uploadInts.put(vertices, 0, length);
+				upload.rewind();
+				context.getGl().drawTrianglesWithTextureColored(texture, upload, currentTriangles);
+				statistics.drawCalls++;
+				statistics.triangles += currentTriangles;
 			} catch (IllegalBufferException e) {
 				// TODO: Crash report. Should not happen since we check texture in advance.
 				e.printStackTrace();
 			}
-			byteBuffer.rewind();
 			currentTriangles = 0;
+			length = 0;
 		}
+	}
 
-		protected void addImage(float x1, float y1, float x2, float y2, float u1, float v1, float u2, float v2, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 2) {
-				draw();
-			}
-			addPointPrimitive(x1, y1, u1, v1, activeColor);
-			addPointPrimitive(x1, y2, u1, v2, activeColor);
-			addPointPrimitive(x2, y1, u2, v1, activeColor);
-			addPointPrimitive(x2, y1, u2, v1, activeColor);
-			addPointPrimitive(x1, y2, u1, v2, activeColor);
-			addPointPrimitive(x2, y2, u2, v2, activeColor);
-			currentTriangles += 2;
+	/**
+	 * Counts the work done by a {@link DrawBuffer} during one frame.
+	 */
+	public static final class FrameStatistics {
+		private int drawCalls;
+		private int triangles;
+		private int flushes;
+
+		/**
+		 * @return The number of draw calls sent to opengl.
+		 */
+		public int getDrawCalls() {
+			return drawCalls;
 		}
 
-		public void addTriangle(float x1, float y1, float x2, float y2, float x3, float y3,
-				float u1, float v1, float u2, float v2, float u3, float v3, int activeColor) {
-			if (currentTriangles >= BUFFER_TRIANGLES - 1) {
-				draw();
-			}
-			addPointPrimitive(x1, y1, u1, v1, activeColor);
-			addPointPrimitive(x2, y2, u2, v2, activeColor);
-			addPointPrimitive(x3, y3, u3, v3, activeColor);
-			currentTriangles += 1;
+		/**
+		 * @return The number of triangles drawn.
+		 */
+		public int getTriangles() {
+			return triangles;
 		}
 
-		private void addPointPrimitive(float x1, float y1, float u, float v, int activeColor) {
-			byteBuffer.putFloat(x1);
-			byteBuffer.putFloat(y1);
-			byteBuffer.putFloat(getZ());
-			byteBuffer.putFloat(u);
-			byteBuffer.putFloat(v);
-			byteBuffer.putInt(activeColor);
+		/**
+		 * @return How often the buffer was flushed.
+		 */
+		public int getFlushes() {
+			return flushes;
+		}
+
+		private void reset() {
+			drawCalls = 0;
+			triangles = 0;
+			flushes = 0;
+		}
+
+		@Override
+		public String toString() {
+			return drawCalls + " draws, " + triangles + " triangles, " + flushes + " flushes";
 		}
 	}
 
-	private int lastFreedBuffer = 0;
-	private final Buffer[] drawBuffers;
+	private final IdentityHashMap<TextureHandle, Buffer> buffersByTexture = new IdentityHashMap<>();
+	private final ArrayList<Buffer> freeBuffers = new ArrayList<>();
+	private Buffer lastUsedBuffer = null;
+
+	/**
+	 * The batches of the current frame in the order they were started.
+	 */
+	private final ArrayList<Batch> batches = new ArrayList<>();
+	private final ArrayList<Batch> freeBatches = new ArrayList<>();
+
+	private ByteBuffer uploadBuffer;
+	private IntBuffer uploadInts;
+
+	private FrameStatistics statistics = new FrameStatistics();
+	private FrameStatistics lastFrameStatistics = new FrameStatistics();
 
 	public DrawBuffer(IGLProvider context) {
 		this.context = context;
-		drawBuffers = new Buffer[BUFFERS];
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i] = new Buffer();
-		}
 	}
 
 	/**
@@ -181,32 +272,108 @@ public class DrawBuffer {
 	 *             If the texture could not be used.
 	 */
 	public Buffer getBuffer(TextureHandle texture) throws IllegalBufferException {
-		for (int i = 0; i < BUFFERS; i++) {
-			if (drawBuffers[i].currentTexture == texture) {
-				return drawBuffers[i];
+		if (lastUsedBuffer != null && lastUsedBuffer.currentTexture == texture) {
+			return lastUsedBuffer;
+		}
+
+		Buffer buffer = buffersByTexture.get(texture);
+		if (buffer == null) {
+			if (texture != null && !texture.isValid()) {
+				throw new IllegalBufferException("The texture " + texture + " is not valid.");
 			}
+
+			buffer = freeBuffers.isEmpty() ? new Buffer() : freeBuffers.remove(freeBuffers.size() - 1);
+			buffer.currentTexture = texture;
+			buffersByTexture.put(texture, buffer);
 		}
+		lastUsedBuffer = buffer;
+		return buffer;
+	}
 
-		lastFreedBuffer++;
-		if (lastFreedBuffer >= BUFFERS) {
-			lastFreedBuffer = 0;
+	/**
+	 * Gets the batch to add triangles with the given texture and bounds to. The triangles may only be added to an earlier batch of the same texture
+	 * if they don't overlap any of the batches started after it, otherwise the drawing order of their pixels would change.
+	 */
+	private Batch getBatch(TextureHandle texture, float minX, float minY, float maxX, float maxY, int triangles) {
+		Batch batch = null;
+		for (int i = batches.size() - 1; i >= 0 && i >= batches.size() - MAX_BATCH_LOOKBACK; i--) {
+			Batch candidate = batches.get(i);
+			if (candidate.texture == texture) {
+				batch = candidate;
+				break;
+			}
+			if (candidate.overlaps(minX, minY, maxX, maxY)) {
+				break;
+			}
 		}
 
-		Buffer buffer = drawBuffers[lastFreedBuffer];
-		buffer.setForTexture(texture);
-		return buffer;
+		if (batch == null) {
+			batch = freeBatches.isEmpty() ? new Batch() : freeBatches.remove(freeBatches.size() - 1);
+			batch.start(texture, minX, minY, maxX, maxY);
+			batches.add(batch);
+		}
+		batch.add(minX, minY, maxX, maxY, triangles);
+		return batch;
+	}
+
+	private ByteBuffer getUploadBuffer(int triangles) {
+		if (uploadBuffer == null || uploadInts.capacity() < triangles * TRIANGLE_LENGTH) {
+			int capacity = Math.max(triangles, INITIAL_UPLOAD_TRIANGLES);
+			if (uploadBuffer != null) {
+				capacity = Math.max(capacity, 2 * uploadInts.capacity() / TRIANGLE_LENGTH);
+			}
+			uploadBuffer = ByteBuffer.allocateDirect(capacity * TRIANGLE_LENGTH * 4);
+			uploadBuffer.order(ByteOrder.nativeOrder());
+			uploadInts = uploadBuffer.asIntBuffer();
+		}
+		return uploadBuffer;
 	}
 
 	/**
 	 * Draw all pending buffers to the screen.
 	 */
 	public void flush() {
-		for (int i = 0; i < BUFFERS; i++) {
-			drawBuffers[i].draw();
+		for (int i = 0; i < batches.size(); i++) {
+			Batch batch = batches.get(i);
+			if (batch.currentTriangles > 0) {
+				batch.draw();
+			}
+			batch.texture = null;
+			freeBatches.add(batch);
+		}
+		batches.clear();
+
+		for (Buffer buffer : buffersByTexture.values()) {
+			buffer.currentTexture = null;
+			freeBuffers.add(buffer);
 		}
+		buffersByTexture.clear();
+		lastUsedBuffer = null;
+		statistics.flushes++;
 		setZ(0);
 	}
 
+	/**
+	 * Starts counting the statistics of a new frame.
+	 * 
+	 * @see #getLastFrameStatistics()
+	 */
+	public void nextFrame() {
+		FrameStatistics finished = statistics;
+		statistics = lastFrameStatistics;
+		lastFrameStatistics = finished;
+		statistics.reset();
+	}
+
+	/**
+	 * Gets the statistics of the frame finished by the last call to {@link #nextFrame()}.
+	 * 
+	 * @return The statistics.
+	 */
+	public FrameStatistics getLastFrameStatistics() {
+		return lastFrameStatistics;
+	}
+
 	/**
 	 * Gets the Z coordinate to add new images at.
 	 * 
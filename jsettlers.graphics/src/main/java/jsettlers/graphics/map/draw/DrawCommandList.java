@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import java.util.Arrays;
+
+import go.graphics.GLDrawContext;
+
+import jsettlers.common.Color;
+import jsettlers.common.sound.ISoundable;
+import jsettlers.graphics.image.Image;
+import jsettlers.graphics.image.SingleImage;
+import jsettlers.graphics.sound.SoundManager;
+
+/**
+ * Records the calls the {@link MapObjectDrawer} would make to the {@link DrawBuffer} and the {@link SoundManager}, so they can be created on any
+ * thread and replayed on the OpenGL thread later.
+ * <p>
+ * The images are only turned into textures while replaying, because textures can only be created on the OpenGL thread. Replaying the commands in
+ * the order they were recorded results in exactly the same calls to the {@link DrawBuffer} as drawing directly, the buffer then batches images of
+ * the same texture where this does not change the drawing order. Changes of the z coordinate are recorded as commands as well, so the z of every
+ * image only depends on the images replayed before it.
+ * <p>
+ * A list may only be used by one thread at a time.
+ *
+ */
+public final class DrawCommandList {
+	private static final byte IMAGE = 0;
+	private static final byte SHADED_IMAGE = 1;
+	private static final byte TRIANGLE = 2;
+	private static final byte PUSH_Z = 3;
+	private static final byte PUSH_Z_OFFSET = 4;
+	private static final byte POP_Z = 5;
+	private static final byte SOUND = 6;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private byte[] types = new byte[INITIAL_CAPACITY];
+	/**
+	 * Two objects per command: The image and the color or the soundable.
+	 */
+	private Object[] objects = new Object[2 * INITIAL_CAPACITY];
+	/**
+	 * The index of the first float and int parameter of every command.
+	 */
+	private int[] floatStarts = new int[INITIAL_CAPACITY];
+	private int[] intStarts = new int[INITIAL_CAPACITY];
+
+	private float[] floats = new float[4 * INITIAL_CAPACITY];
+	private int[] ints = new int[INITIAL_CAPACITY];
+
+	private int size = 0;
+	private int floatsSize = 0;
+	private int intsSize = 0;
+
+	/**
+	 * The z coordinates to restore while replaying. Only used by the replaying thread.
+	 */
+	private float[] zStack = new float[4];
+
+	/**
+	 * @return The number of recorded commands. This can be used to replay only the commands recorded after this call.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Removes all commands. The images and movables are released, so they can be garbage collected.
+	 */
+	public void clear() {
+		Arrays.fill(objects, 0, 2 * size, null);
+		size = 0;
+		floatsSize = 0;
+		intsSize = 0;
+	}
+
+	/**
+	 * Records {@link Image#drawAt(GLDrawContext, DrawBuffer, float, float, int)}.
+	 */
+	public void addImage(Image image, float viewX, float viewY, int color) {
+		addCommand(IMAGE, image, null);
+		addFloat(viewX);
+		addFloat(viewY);
+		addInt(color);
+	}
+
+	/**
+	 * Records {@link Image#drawAt(GLDrawContext, DrawBuffer, float, float, Color, float)}.
+	 */
+	public void addImage(Image image, float viewX, float viewY, Color color, float multiply) {
+		addCommand(SHADED_IMAGE, image, color);
+		addFloat(viewX);
+		addFloat(viewY);
+		addFloat(multiply);
+	}
+
+	/**
+	 * Records {@link SingleImage#drawTriangle(GLDrawContext, DrawBuffer, float, float, float, float, float, float, float, float, int)}.
+	 */
+	public void addTriangle(SingleImage image, float viewX, float viewY, float u1, float v1, float u2, float v2, float u3, float v3,
+			int color) {
+		addCommand(TRIANGLE, image, null);
+		addFloat(viewX);
+		addFloat(viewY);
+		addFloat(u1);
+		addFloat(v1);
+		addFloat(u2);
+		addFloat(v2);
+		addFloat(u3);
+		addFloat(v3);
+		addInt(color);
+	}
+
+	/**
+	 * Draws the following images at the given z coordinate until {@link #popZ()} is called.
+	 */
+	public void pushZ(float z) {
+		addCommand(PUSH_Z, null, null);
+		addFloat(z);
+	}
+
+	/**
+	 * Moves the z coordinate of the following images by the given offset until {@link #popZ()} is called.
+	 */
+	public void pushZOffset(float offset) {
+		addCommand(PUSH_Z_OFFSET, null, null);
+		addFloat(offset);
+	}
+
+	/**
+	 * Restores the z coordinate changed by the last {@link #pushZ(float)} or {@link #pushZOffset(float)}.
+	 */
+	public void popZ() {
+		addCommand(POP_Z, null, null);
+	}
+
+	/**
+	 * Records a sound that is played if the soundable has not played its sound yet. The soundable is marked as played in any case.
+	 *
+	 * @param soundable
+	 *            The object playing the sound.
+	 * @param soundId
+	 *            The sound to play or -1 to only mark the sound as played.
+	 */
+	public void addSound(ISoundable soundable, int soundId, int x, int y) {
+		addCommand(SOUND, soundable, null);
+		addInt(soundId);
+		addInt(x);
+		addInt(y);
+	}
+
+	/**
+	 * Replays the commands with the indexes from start (inclusive) to end (exclusive). This must be called on the OpenGL thread.
+	 *
+	 * @param start
+	 *            The first command to replay.
+	 * @param end
+	 *            The index after the last command to replay.
+	 * @param gl
+	 *            The context to create the textures with.
+	 * @param buffer
+	 *            The buffer to add the images to.
+	 * @param sound
+	 *            The sound manager to play the sounds with.
+	 */
+	public void replay(int start, int end, GLDrawContext gl, DrawBuffer buffer, SoundManager sound) {
+		int zStackSize = 0;
+
+		for (int i = start; i < end; i++) {
+			int f = floatStarts[i];
+			int n = intStarts[i];
+
+			switch (types[i]) {
+			case IMAGE:
+				((Image) objects[2 * i]).drawAt(gl, buffer, floats[f], floats[f + 1], ints[n]);
+				break;
+			case SHADED_IMAGE:
+				((Image) objects[2 * i]).drawAt(gl, buffer, floats[f], floats[f + 1], (Color) objects[2 * i + 1], floats[f + 2]);
+				break;
+			case TRIANGLE:
+				((SingleImage) objects[2 * i]).drawTriangle(gl, buffer, floats[f], floats[f + 1], floats[f + 2], floats[f + 3], floats[f + 4],
+						floats[f + 5], floats[f + 6], floats[f + 7], ints[n]);
+				break;
+			case PUSH_Z:
+			case PUSH_Z_OFFSET:
+				if (zStackSize == zStack.length) {
+					zStack = Arrays.copyOf(zStack, 2 * zStackSize);
+				}
+				float z = buffer.getZ();
+				zStack[zStackSize++] = z;
+				buffer.setZ(types[i] == PUSH_Z ? floats[f] : z + floats[f]);
+				break;
+			case POP_Z:
+				buffer.setZ(zStack[--zStackSize]);
+				break;
+			case SOUND:
+				ISoundable soundable = (ISoundable) objects[2 * i];
+				if (!soundable.isSoundPlayed()) {
+					if (ints[n] >= 0) {
+						sound.playSound(ints[n], 1, ints[n + 1], ints[n + 2]);
+					}
+					soundable.setSoundPlayed();
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unknown draw command " + types[i]);
+			}
+		}
+	}
+
+	/**
+	 * Replays all commands and clears the list afterwards.
+	 *
+	 * @see #replay(int, int, GLDrawContext, DrawBuffer, SoundManager)
+	 */
+	public void replayAndClear(GLDrawContext gl, DrawBuffer buffer, SoundManager sound) {
+		replay(0, size, gl, buffer, sound);
+		clear();
+	}
+
+	private void addCommand(byte type, Object first, Object second) {
+		if (size == types.length) {
+			int capacity = 2 * size;
+			types = Arrays.copyOf(types, capacity);
+			objects = Arrays.copyOf(objects, 2 * capacity);
+			floatStarts = Arrays.copyOf(floatStarts, capacity);
+			intStarts = Arrays.copyOf(intStarts, capacity);
+		}
+		types[size] = type;
+		objects[2 * size] = first;
+		objects[2 * size + 1] = second;
+		floatStarts[size] = floatsSize;
+		intStarts[size] = intsSize;
+		size++;
+	}
+
+	private void addFloat(float value) {
+		if (floatsSize == floats.length) {
+			floats = Arrays.copyOf(floats, 2 * floatsSize);
+		}
+		floats[floatsSize++] = value;
+	}
+
+	private void addInt(int value) {
+		if (intsSize == ints.length) {
+			ints = Arrays.copyOf(ints, 2 * intsSize);
+		}
+		ints[intsSize++] = value;
+	}
+}
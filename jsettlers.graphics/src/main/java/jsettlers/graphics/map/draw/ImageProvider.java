@@ -21,6 +21,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import jsettlers.common.images.DirectImageLink;
 import jsettlers.common.images.EImageLinkType;
@@ -50,6 +53,7 @@ public final class ImageProvider {
 	private static final String FILE_PREFIX = "siedler3_";
 	private static final int LAST_SEQUENCE_NUMBER = 2;
 	private static final List<Integer> HIGHRES_IMAGE_FILE_NUMBERS = Arrays.asList(3, 14);
+	private static final int DECODE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
 
 	/**
 	 * The lookup path for the dat files.
@@ -87,6 +91,11 @@ public final class ImageProvider {
 
 	private final Queue<GLPreloadTask> tasks = new ConcurrentLinkedQueue<>();
 	private final Hashtable<Integer, AdvancedDatFileReader> readers = new Hashtable<>();
+	private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS, runnable -> {
+		Thread thread = new Thread(runnable, "image decoder");
+		thread.setDaemon(true);
+		return thread;
+	});
 
 	private ImageIndexFile indexFile = null;
 
@@ -110,10 +119,11 @@ public final class ImageProvider {
 	 *
 	 * @param path
 	 *            The directory. It may not exist, but must not be null.
+	 * @return The thread preloading the images.
 	 */
-	public static void setLookupPath(File path) {
+	public static Thread setLookupPath(File path) {
 		ImageProvider.lookupPath = path;
-		getInstance().startPreloading();
+		return getInstance().startPreloading();
 	}
 
 	/**
@@ -334,6 +344,18 @@ public final class ImageProvider {
 		}
 	}
 
+	/**
+	 * Runs the given task on one of the image decode threads. The dat files can be read by multiple threads at the same time, so tasks decoding
+	 * different sequences run in parallel.
+	 * 
+	 * @param task
+	 *            The task decoding images.
+	 * @return The future of the task.
+	 */
+	public Future<?> submitDecodeTask(Runnable task) {
+		return decodeExecutor.submit(task);
+	}
+
 	/**
 	 * Adds a preload task that is executed on the OpenGl thread with a opengl context.
 	 * <p>
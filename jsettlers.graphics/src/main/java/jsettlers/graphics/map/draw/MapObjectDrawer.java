@@ -16,8 +16,6 @@ package jsettlers.graphics.map.draw;
 
 import java.util.ConcurrentModificationException;
 
-import go.graphics.GLDrawContext;
-
 import jsettlers.common.Color;
 import jsettlers.common.CommonConstants;
 import jsettlers.common.buildings.EBuildingType;
@@ -51,11 +49,16 @@ import jsettlers.graphics.sound.SoundManager;
 
 /**
  * This class handles drawing of objects on the map.
+ * <p>
+ * The images and sounds are not sent to the OpenGL context directly but recorded in a {@link DrawCommandList}. This allows multiple drawers to
+ * record the objects of different parts of the map in parallel. The recorded commands are sent to the draw buffer of the context by
+ * {@link #submitCommands()}.
  *
  * @author michael
  */
 public class MapObjectDrawer {
 
+	private static final int NO_SOUND = -1;
 	private static final int SOUND_MILL = 42;
 	private static final int SOUND_BUILDING_DESTROYED = 93;
 	private static final int SOUND_SETTLER_KILLED = 35;
@@ -129,6 +132,7 @@ public class MapObjectDrawer {
 
 	private final SoundManager sound;
 	private final MapDrawContext context;
+	private final DrawCommandList commands = new DrawCommandList();
 
 	/**
 	 * An animation counter, used for trees and other waving/animated things.
@@ -154,6 +158,30 @@ public class MapObjectDrawer {
 		this.sound = sound;
 	}
 
+	/**
+	 * Gets the list the draw calls of this drawer are recorded in.
+	 *
+	 * @return The commands.
+	 */
+	public DrawCommandList getCommands() {
+		return commands;
+	}
+
+	/**
+	 * Sends the commands with the indexes from start (inclusive) to end (exclusive) to the draw buffer and the sound manager. This needs to be
+	 * called on the OpenGL thread.
+	 */
+	public void submitCommands(int start, int end) {
+		commands.replay(start, end, context.getGl(), context.getDrawBuffer(), sound);
+	}
+
+	/**
+	 * Sends all recorded commands to the draw buffer and the sound manager and clears them. This needs to be called on the OpenGL thread.
+	 */
+	public void submitCommands() {
+		commands.replayAndClear(context.getGl(), context.getDrawBuffer(), sound);
+	}
+
 	/**
 	 * Draws a map object at a given position.
 	 *
@@ -341,24 +369,21 @@ public class MapObjectDrawer {
 	}
 
 	private void drawConstructionMark(int x, int y, IMapObject object, float color) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(CONSTRUCTION_MARK_Z);
+		commands.pushZ(CONSTRUCTION_MARK_Z);
 		drawByProgress(x, y, 4, 6, object.getStateProgress(), color);
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 
 	private void drawRoofFlag(int x, int y, IMapObject object, float color) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(FLAG_ROOF_Z);
+		commands.pushZ(FLAG_ROOF_Z);
 		drawPlayerableWaving(x, y, 13, 64, object, color);
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 
 	private void drawPlacementBuilding(int x, int y, IMapObject object, float color) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(PLACEMENT_BUILDING_Z);
+		commands.pushZ(PLACEMENT_BUILDING_Z);
 		drawBuilding(x, y, (IBuilding) object, color);
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 
 	private void drawPlantDecoration(int x, int y, float color) {
@@ -433,59 +458,52 @@ public class MapObjectDrawer {
 		if (!movable.isSoundPlayed()) {
 			final EMovableAction action = movable.getAction();
 			if (action == EMovableAction.ACTION1) {
-				playSoundAction1(movable.getMovableType(), movable.getPos());
-				movable.setSoundPlayed();
+				ShortPoint2D position = movable.getPos();
+				commands.addSound(movable, getSoundAction1(movable.getMovableType()), position.x, position.y);
 			} else if (action == EMovableAction.ACTION2) {
-				playSoundAction2(movable.getMovableType(), movable.getPos());
-				movable.setSoundPlayed();
+				ShortPoint2D position = movable.getPos();
+				commands.addSound(movable, getSoundAction2(movable.getMovableType()), position.x, position.y);
 			}
 		}
 	}
 
-	private void playSoundAction1(EMovableType type, ShortPoint2D position) {
+	private static int getSoundAction1(EMovableType type) {
 		switch (type) {
 		case BRICKLAYER:
-			sound.playSound(1, 1, position);
-			break;
+			return 1;
 		case LUMBERJACK:
-			sound.playSound(0, 1, position);
-			break;
+			return 0;
 		case SAWMILLER:
-			sound.playSound(5, 1, position);
-			break;
+			return 5;
 		case STONECUTTER:
-			sound.playSound(3, 1, position);
-			break;
+			return 3;
 		case DIGGER:
-			sound.playSound(2, 1, position);
-			break;
+			return 2;
 		case SMITH:
-			sound.playSound(6, 1, position);
-			break;
+			return 6;
 		case FARMER:
-			sound.playSound(12, 1, position);
-			break;
+			return 12;
 		case SWORDSMAN_L1:
 		case SWORDSMAN_L2:
 		case SWORDSMAN_L3:
-			sound.playSound(30, 1, position);
-			break;
+			return 30;
 		case BOWMAN_L1:
 		case BOWMAN_L2:
 		case BOWMAN_L3:
-			sound.playSound(33, 1, position);
-			break;
+			return 33;
 		case CHARCOAL_BURNER:
-			sound.playSound(45, 1, position);
-			break;
+			return 45;
+		default:
+			return NO_SOUND;
 		}
 	}
 
-	private void playSoundAction2(EMovableType type, ShortPoint2D position) {
+	private static int getSoundAction2(EMovableType type) {
 		switch (type) {
 		case LUMBERJACK:
-			sound.playSound(36, 1, position);
-			break;
+			return 36;
+		default:
+			return NO_SOUND;
 		}
 	}
 
@@ -513,7 +531,7 @@ public class MapObjectDrawer {
 			viewX = context.getConverter().getViewX(x, y, height);
 			viewY = context.getConverter().getViewY(x, y, height);
 		}
-		image.drawAt(context.getGl(), context.getDrawBuffer(), viewX, viewY, color, shade);
+		commands.addImage(image, viewX, viewY, color, shade);
 
 		if (movable.isSelected()) {
 			drawSelectionMark(viewX, viewY, movable.getHealth() / movable.getMovableType().getHealth());
@@ -532,26 +550,24 @@ public class MapObjectDrawer {
 	}
 
 	private void drawSelectionMark(float viewX, float viewY, float healthPercentage) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(MOVABLE_SELECTION_MARKER_Z);
+		commands.pushZ(MOVABLE_SELECTION_MARKER_Z);
 
 		Image image = ImageProvider.getInstance().getSettlerSequence(4, 7).getImageSafe(0);
-		image.drawAt(context.getGl(), context.getDrawBuffer(), viewX, viewY + 20, -1);
+		commands.addImage(image, viewX, viewY + 20, -1);
 
 		Sequence<? extends Image> sequence = ImageProvider.getInstance().getSettlerSequence(4, 6);
 		int healthId = Math.min((int) ((1 - healthPercentage) * sequence.length()), sequence.length() - 1);
 		Image healthImage = sequence.getImageSafe(healthId);
-		healthImage.drawAt(context.getGl(), context.getDrawBuffer(), viewX, viewY + 38, -1);
+		commands.addImage(healthImage, viewX, viewY + 38, -1);
 
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 
 	private void playSound(IMapObject object, int soundId, int x, int y) {
 		if (object instanceof ISoundable) {
 			ISoundable soundable = (ISoundable) object;
 			if (!soundable.isSoundPlayed()) {
-				sound.playSound(soundId, 1, x, y);
-				soundable.setSoundPlayed();
+				commands.addSound(soundable, soundId, x, y);
 			}
 		}
 	}
@@ -593,16 +609,14 @@ public class MapObjectDrawer {
 		int iColor = Color.getABGR(color, color, color, 1);
 
 		boolean onGround = progress >= 1;
-		float z = 0;
 		if (onGround) {
-			z = context.getDrawBuffer().getZ();
-			context.getDrawBuffer().setZ(-.1f);
+			commands.pushZ(-.1f);
 			iColor &= 0x7fffffff;
 		}
 		Image image = this.imageProvider.getSettlerSequence(OBJECTS_FILE, sequence).getImageSafe(index);
-		image.drawAt(context.getGl(), context.getDrawBuffer(), x, betweenTilesY + 20 * progress * (1 - progress) + 20, iColor);
+		commands.addImage(image, x, betweenTilesY + 20 * progress * (1 - progress) + 20, iColor);
 		if (onGround) {
-			context.getDrawBuffer().setZ(z);
+			commands.popZ();
 		}
 	}
 
@@ -749,6 +763,16 @@ public class MapObjectDrawer {
 		this.animationStep = ((int) System.currentTimeMillis() / 100) & 0x7fffffff;
 	}
 
+	/**
+	 * Uses the same animation step as the given drawer, so objects drawn by both drawers move in sync.
+	 *
+	 * @param drawer
+	 *            The drawer to take the animation step from.
+	 */
+	public void copyAnimationStep(MapObjectDrawer drawer) {
+		this.animationStep = drawer.animationStep;
+	}
+
 	/**
 	 * Draws a stack
 	 *
@@ -894,7 +918,6 @@ public class MapObjectDrawer {
 			int height = context.getHeight(x, y);
 			float towerX = context.getConverter().getViewX(x, y, height);
 			float towerY = context.getConverter().getViewY(x, y, height);
-			GLDrawContext gl = context.getGl();
 
 			for (IBuildingOccupier occupier : building.getOccupiers()) {
 				OccupierPlace place = occupier.getPlace();
@@ -915,7 +938,7 @@ public class MapObjectDrawer {
 				}
 				float viewX = towerX + place.getOffsetX();
 				float viewY = towerY + place.getOffsetY();
-				image.drawAt(gl, context.getDrawBuffer(), viewX, viewY, color, baseColor);
+				commands.addImage(image, viewX, viewY, color, baseColor);
 
 				if (place.getSoldierClass() == ESoldierClass.BOWMAN) {
 					playMovableSound(movable);
@@ -930,13 +953,12 @@ public class MapObjectDrawer {
 	}
 
 	private void drawBuildingSelectMarker(int x, int y) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(BUILDING_SELECTION_MARKER_Z);
+		commands.pushZ(BUILDING_SELECTION_MARKER_Z);
 
 		Image image = imageProvider.getSettlerSequence(SELECT_MARK_FILE, SELECT_MARK_SEQUENCE).getImageSafe(0);
 		draw(image, x, y, -1);
 
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 
 	private void drawWithConstructionMask(int x, int y, float maskState, Image unsafeImage, float color) {
@@ -955,11 +977,11 @@ public class MapObjectDrawer {
 		float topLineBottom = 1 - maskState;
 		float topLineTop = Math.max(0, topLineBottom - .1f);
 
-		image.drawTriangle(context.getGl(), context.getDrawBuffer(), viewX, viewY, 0, 1, 1, 1, 0, topLineBottom, iColor);
-		image.drawTriangle(context.getGl(), context.getDrawBuffer(), viewX, viewY, 1, 1, 1, topLineBottom, 0, topLineBottom, iColor);
+		commands.addTriangle(image, viewX, viewY, 0, 1, 1, 1, 0, topLineBottom, iColor);
+		commands.addTriangle(image, viewX, viewY, 1, 1, 1, topLineBottom, 0, topLineBottom, iColor);
 
 		for (int i = 0; i < tiles; i++) {
-			image.drawTriangle(context.getGl(), context.getDrawBuffer(), viewX, viewY, 1.0f / tiles * i,
+			commands.addTriangle(image, viewX, viewY, 1.0f / tiles * i,
 					topLineBottom, 1.0f / tiles * (i + 1), topLineBottom, 1.0f / tiles * (i + .5f), topLineTop, iColor);
 		}
 	}
@@ -997,18 +1019,16 @@ public class MapObjectDrawer {
 		float viewX = context.getConverter().getViewX(x, y, height);
 		float viewY = context.getConverter().getViewY(x, y, height);
 
-		image.drawAt(context.getGl(), context.getDrawBuffer(), viewX, viewY, color, baseColor);
+		commands.addImage(image, viewX, viewY, color, baseColor);
 	}
 
 	private void draw(Image image, int x, int y, float color, boolean background) {
-		float z = 0;
 		if (background) {
-			z = context.getDrawBuffer().getZ();
-			context.getDrawBuffer().setZ(z - .1f);
+			commands.pushZOffset(-.1f);
 		}
 		draw(image, x, y, color);
 		if (background) {
-			context.getDrawBuffer().setZ(z);
+			commands.popZ();
 		}
 	}
 
@@ -1022,7 +1042,7 @@ public class MapObjectDrawer {
 		float viewX = context.getConverter().getViewX(x, y, height);
 		float viewY = context.getConverter().getViewY(x, y, height);
 
-		image.drawAt(context.getGl(), context.getDrawBuffer(), viewX, viewY, color);
+		commands.addImage(image, viewX, viewY, color);
 	}
 
 	public void drawMoveToMarker(ShortPoint2D moveToMarker, float progress) {
@@ -1031,9 +1051,8 @@ public class MapObjectDrawer {
 	}
 
 	public void drawGotoMarker(ShortPoint2D gotoMarker, Image image) {
-		float z = context.getDrawBuffer().getZ();
-		context.getDrawBuffer().setZ(FLAG_ROOF_Z);
+		commands.pushZ(FLAG_ROOF_Z);
 		draw(image, gotoMarker.x, gotoMarker.y, 1f);
-		context.getDrawBuffer().setZ(z);
+		commands.popZ();
 	}
 }
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.graphics.map.draw;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jsettlers.common.map.IGraphicsGrid;
+import jsettlers.common.map.shapes.MapRectangle;
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.graphics.map.MapDrawContext;
+import jsettlers.graphics.sound.SoundManager;
+
+/**
+ * Draws the map objects, movables and borders of the visible area of the map.
+ * <p>
+ * The lines of the area are split into bands of {@value #BAND_LINES} lines. The bands are recorded by worker threads in parallel, each with its own
+ * {@link MapObjectDrawer}. The OpenGL thread records bands no worker has started yet itself and submits the recorded commands band by band in the
+ * order of the lines. So the draw buffer gets the same calls as if the lines were drawn one after the other on the OpenGL thread.
+ *
+ */
+public final class ParallelObjectDrawer {
+	private static final int BAND_LINES = 8;
+	private static final int WORKER_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors() - 1);
+
+	private final IGraphicsGrid map;
+	private final MapDrawContext context;
+	private final SoundManager sound;
+	private final ExecutorService executor;
+
+	private final List<Band> bands = new ArrayList<>();
+
+	private MapRectangle area;
+	private double bottomDrawY;
+	private volatile boolean aborted;
+
+	/**
+	 * Creates a new drawer for the objects of the map of the given context.
+	 *
+	 * @param context
+	 *            The context to draw on.
+	 * @param sound
+	 *            The sound manager to play the sounds of the objects with.
+	 */
+	public ParallelObjectDrawer(MapDrawContext context, SoundManager sound) {
+		this.map = context.getMap();
+		this.context = context;
+		this.sound = sound;
+
+		if (WORKER_THREADS > 0) {
+			executor = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+				Thread thread = new Thread(runnable, "map object drawer");
+				thread.setDaemon(true);
+				return thread;
+			});
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Draws the objects of the given area.
+	 * <p>
+	 * Like drawing line by line, the lines are drawn from the first line of the area until a line is drawn that has no tile above the given
+	 * bottom.
+	 *
+	 * @param area
+	 *            The area of the map to draw.
+	 * @param lines
+	 *            The number of lines of the area to draw at most.
+	 * @param bottomDrawY
+	 *            The lowest y coordinate in draw space a line needs to reach to be partially visible.
+	 * @param animationSource
+	 *            The drawer whose animation step is used.
+	 */
+	public void draw(MapRectangle area, int lines, double bottomDrawY, MapObjectDrawer animationSource) {
+		this.area = area;
+		this.bottomDrawY = bottomDrawY;
+		this.aborted = false;
+
+		int numberOfBands = (lines + BAND_LINES - 1) / BAND_LINES;
+		while (bands.size() < numberOfBands) {
+			bands.add(new Band());
+		}
+		for (int i = 0; i < numberOfBands; i++) {
+			Band band = bands.get(i);
+			band.reset(i * BAND_LINES, Math.min(lines, (i + 1) * BAND_LINES));
+			band.drawer.copyAnimationStep(animationSource);
+		}
+
+		if (executor != null) {
+			for (int i = 1; i < numberOfBands; i++) {
+				Band band = bands.get(i);
+				band.future = executor.submit(band);
+			}
+		}
+
+		try {
+			submitBands(numberOfBands);
+		} finally {
+			aborted = true;
+			for (int i = 0; i < numberOfBands; i++) {
+				bands.get(i).finish();
+			}
+		}
+	}
+
+	private void submitBands(int numberOfBands) {
+		short height = map.getHeight();
+
+		for (int i = 0; i < numberOfBands; i++) {
+			Band band = bands.get(i);
+			band.awaitRecorded();
+
+			for (int line = band.firstLine; line < band.endLine; line++) {
+				int y = area.getLineY(line);
+				if (y < 0) {
+					continue;
+				}
+				if (y >= height) {
+					return;
+				}
+
+				band.submitLine(line);
+				if (!band.isLineVisible(line)) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	public void stop() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Some consecutive lines of the area. The commands of every line are recorded one after the other.
+	 */
+	private final class Band implements Runnable {
+		private final MapObjectDrawer drawer = new MapObjectDrawer(context, sound);
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		private int firstLine;
+		private int endLine;
+		private int[] lineEnds = new int[BAND_LINES];
+		private boolean[] lineVisible = new boolean[BAND_LINES];
+		private Future<?> future;
+
+		void reset(int firstLine, int endLine) {
+			this.firstLine = firstLine;
+			this.endLine = endLine;
+			this.future = null;
+			claimed.set(false);
+		}
+
+		@Override
+		public void run() {
+			if (!aborted && claimed.compareAndSet(false, true)) {
+				record();
+			}
+		}
+
+		/**
+		 * Records the band on the current thread if no worker started it yet or waits for the worker otherwise.
+		 */
+		void awaitRecorded() {
+			if (claimed.compareAndSet(false, true)) {
+				record();
+			} else {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException("Could not draw the map objects.", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+			}
+		}
+
+		/**
+		 * Waits until no worker uses this band anymore and removes the recorded commands.
+		 */
+		void finish() {
+			if (future != null) {
+				boolean interrupted = false;
+				while (true) {
+					try {
+						future.get();
+						break;
+					} catch (ExecutionException e) {
+						break; // already reported if the band was needed
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			drawer.getCommands().clear();
+		}
+
+		private void record() {
+			short width = map.getWidth();
+			short height = map.getHeight();
+
+			for (int line = firstLine; line < endLine && !aborted; line++) {
+				int index = line - firstLine;
+				int y = area.getLineY(line);
+				boolean visible = false;
+
+				if (y >= 0 && y < height) {
+					int endX = Math.min(area.getLineEndX(line), width - 1);
+					int startX = Math.max(area.getLineStartX(line), 0);
+					for (int x = startX; x <= endX; x = map.nextDrawableX(x, y, endX)) {
+						drawTile(x, y);
+						if (!visible) {
+							double drawSpaceY = context.getConverter().getViewY(x, y, context.getHeight(x, y));
+							if (drawSpaceY > bottomDrawY) {
+								visible = true;
+							}
+						}
+					}
+				}
+
+				lineEnds[index] = drawer.getCommands().size();
+				lineVisible[index] = visible;
+			}
+		}
+
+		private void drawTile(int x, int y) {
+			IMapObject object = map.getMapObjectsAt(x, y);
+			if (object != null) {
+				drawer.drawMapObject(x, y, object);
+			}
+
+			IMovable movable = map.getMovableAt(x, y);
+			if (movable != null) {
+				drawer.draw(movable);
+			}
+
+			if (map.isBorder(x, y)) {
+				byte player = map.getPlayerIdAt(x, y);
+				drawer.drawPlayerBorderObject(x, y, player);
+			}
+		}
+
+		void submitLine(int line) {
+			int index = line - firstLine;
+			int start = index == 0 ? 0 : lineEnds[index - 1];
+			drawer.submitCommands(start, lineEnds[index]);
+		}
+
+		boolean isLineVisible(int line) {
+			return lineVisible[line - firstLine];
+		}
+	}
+}
@@ -40,6 +40,9 @@ import jsettlers.graphics.sequence.Sequence;
 /**
  * This is an advanced dat file reader. It can read the file, but it only reads needed sequences.
  * <p>
+ * The file is memory mapped once. Every sequence or image is decoded with an own {@link ByteReader} on that mapping, so different sequences can be
+ * decoded by different threads at the same time.
+ * <p>
  * The format of a dat file is (all numbers in little endian):
  * <table>
  * <tr>
@@ -196,8 +199,12 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 	private final DatBitmapTranslator<GuiImage> guiTranslator;
 
+	/**
+	 * The reader holding the mapping of the file. It is only used to read the index, the images are read by readers created from it.
+	 */
 	private ByteReader reader = null;
 	private final File file;
+	private volatile Long contentHash;
 
 	/**
 	 * This is a list of file positions where the settler sequences start.
@@ -205,9 +212,9 @@ public class AdvancedDatFileReader implements DatFileSet {
 	private int[] settlerstarts;
 
 	/**
-	 * A list of loaded settler sequences.
+	 * A list of loaded settler sequences. It is set at the end of {@link #initialize()}.
 	 */
-	private Sequence<Image>[] settlersequences = null;
+	private volatile Sequence<Image>[] settlersequences = null;
 	/**
 	 * An array with the same length as settlers.
 	 */
@@ -280,8 +287,6 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 		guiimages = new GuiImage[guistarts.length];
 
-		settlersequences = new Sequence[settlerstarts.length];
-
 		int torsodifference = settlerstarts.length - torsostarts.length;
 		if (torsodifference != 0) {
 			int[] oldtorsos = torsostarts;
@@ -305,6 +310,8 @@ public class AdvancedDatFileReader implements DatFileSet {
 				torsostarts[i] = -1;
 			}
 		}
+
+		settlersequences = new Sequence[settlerstarts.length];
 	}
 
 	private void initFromReader(File file, ByteReader reader)
@@ -421,7 +428,11 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 	private void initializeIfNeeded() {
 		if (settlersequences == null) {
-			initialize();
+			synchronized (this) {
+				if (settlersequences == null) {
+					initialize();
+				}
+			}
 		}
 	}
 
@@ -457,15 +468,29 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
-	private synchronized void loadSettlers(int index) throws IOException {
+	private void loadSettlers(int index) throws IOException {
+		settlersequences[index] = decodeSettlers(index);
+	}
+
+	/**
+	 * Decodes the settler images and their torsos of the given sequence. This does not change the state of this file reader and may be called by
+	 * multiple threads at the same time.
+	 * 
+	 * @param index
+	 *            The index of the sequence.
+	 * @return The decoded sequence.
+	 * @throws IOException
+	 *             If the sequence could not be read.
+	 */
+	public Sequence<Image> decodeSettlers(int index) throws IOException {
+		initializeIfNeeded();
 
 		int position = settlerstarts[index];
 		long[] framePositions = readSequenceHeader(position);
 
 		SettlerImage[] images = new SettlerImage[framePositions.length];
 		for (int i = 0; i < framePositions.length; i++) {
-			reader.skipTo(framePositions[i]);
-			images[i] = DatBitmapReader.getImage(settlerTranslator, reader);
+			images[i] = DatBitmapReader.getImage(settlerTranslator, reader.createReaderAt(framePositions[i]));
 		}
 
 		int torsoposition = torsostarts[index];
@@ -473,18 +498,17 @@ public class AdvancedDatFileReader implements DatFileSet {
 			long[] torsoPositions = readSequenceHeader(torsoposition);
 			for (int i = 0; i < torsoPositions.length
 					&& i < framePositions.length; i++) {
-				reader.skipTo(torsoPositions[i]);
 				TorsoImage torso =
-						DatBitmapReader.getImage(torsoTranslator, reader);
+						DatBitmapReader.getImage(torsoTranslator, reader.createReaderAt(torsoPositions[i]));
 				images[i].setTorso(torso);
 			}
 		}
 
-		settlersequences[index] = new ArraySequence<>(images);
+		return new ArraySequence<>(images);
 	}
 
 	private long[] readSequenceHeader(int position) throws IOException {
-		reader.skipTo(position);
+		ByteReader reader = this.reader.createReaderAt(position);
 
 		reader.assumeToRead(START);
 		int frameCount = reader.read8();
@@ -544,17 +568,18 @@ public class AdvancedDatFileReader implements DatFileSet {
 		}
 	}
 
+	/**
+	 * Gets a new reader positioned at the given landscape image.
+	 */
 	public ByteReader getReaderForLandscape(int index) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(landscapestarts[index]);
-		return reader;
+		return reader.createReaderAt(landscapestarts[index]);
 	}
 
 	private void loadLandscapeImage(int index) {
 		try {
-			reader.skipTo(landscapestarts[index]);
 			LandscapeImage image =
-					DatBitmapReader.getImage(landscapeTranslator, reader);
+					DatBitmapReader.getImage(landscapeTranslator, reader.createReaderAt(landscapestarts[index]));
 			landscapeimages[index] = image;
 		} catch (IOException e) {
 			landscapeimages[index] = NullImage.getForLandscape();
@@ -601,8 +626,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 
 	private void loadGuiImage(int index) {
 		try {
-			reader.skipTo(guistarts[index]);
-			GuiImage image = DatBitmapReader.getImage(guiTranslator, reader);
+			GuiImage image = DatBitmapReader.getImage(guiTranslator, reader.createReaderAt(guistarts[index]));
 			guiimages[index] = image;
 		} catch (IOException e) {
 			guiimages[index] = NullImage.getForGui();
@@ -625,7 +649,7 @@ public class AdvancedDatFileReader implements DatFileSet {
 	}
 
 	/**
-	 * Gets a reader positioned at the given settler
+	 * Gets a new reader positioned at the given settler
 	 * 
 	 * @param pointer
 	 * @return
@@ -633,21 +657,38 @@ public class AdvancedDatFileReader implements DatFileSet {
 	 */
 	public ByteReader getReaderForPointer(long pointer) throws IOException {
 		initializeIfNeeded();
-		reader.skipTo(pointer);
-		return reader;
+		return reader.createReaderAt(pointer);
 	}
 
+	/**
+	 * Packs the given settler sequences to one texture. The texture and the positions of the images are cached, so the sequences are only decoded
+	 * if there is no valid cache.
+	 */
 	public void generateImageMap(int width, int height, int[] sequences,
 			String id) throws IOException {
 		initializeIfNeeded();
 
-		MultiImageMap map = new MultiImageMap(width, height, id);
-		if (!map.hasCache()) {
+		MultiImageMap map = new MultiImageMap(width, height, id, getContentHash());
+		if (!map.loadCache(sequences, settlersequences)) {
 			map.addSequences(this, sequences, settlersequences);
 			map.writeCache();
 		}
 	}
 
+	/**
+	 * Gets a hash of the content of the dat file. It is used to detect outdated caches. The hash is calculated from the size and the modification
+	 * time of the file, so checking a cache does not require reading the whole file.
+	 * 
+	 * @return The hash or 0 if the file could not be read.
+	 */
+	public long getContentHash() {
+		initializeIfNeeded();
+		if (contentHash == null) {
+			contentHash = reader != null ? 31 * file.lastModified() + file.length() : 0;
+		}
+		return contentHash;
+	}
+
 	public DatBitmapTranslator<SettlerImage> getSettlerTranslator() {
 		return settlerTranslator;
 	}
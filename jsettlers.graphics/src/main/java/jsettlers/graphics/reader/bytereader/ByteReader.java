@@ -14,42 +14,29 @@
  *******************************************************************************/
 package jsettlers.graphics.reader.bytereader;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 
 /**
  * This class provides a little endian wrapper of a reader.
+ * <p>
+ * The file is memory mapped. Readers created by {@link #createReaderAt(long)} share the mapping but have their own position, so they can be used
+ * by other threads without seeking this reader.
  *
  * @author michael
  */
 public class ByteReader {
 
-	private static final int CACHE_SIZE = 10000;
+	private final ByteBuffer buffer;
 
 	/**
-	 * The position the input stram is currently at.
+	 * The file the buffer is mapped from or <code>null</code> if the mapping is shared with an other reader.
 	 */
-	private long inputStreamPosition = 0;
-	/**
-	 * The current cache position the user is reading from next.
-	 * <p>
-	 * It may never be greater than CACHE_SIZE.
-	 *
-	 * @see ByteReader#assertCacheHolds(int);
-	 */
-	private int cachePosition;
-	/**
-	 * The start of the cache in the file.
-	 * <p>
-	 * Initialize so that jump does good work.
-	 */
-	private long cacheStart = -2 * CACHE_SIZE;
-
-	/**
-	 * The data cache
-	 */
-	private byte[] cache = new byte[CACHE_SIZE];
-
 	private final RandomAccessFile in;
 
 	/**
@@ -61,78 +48,42 @@ public class ByteReader {
 	 *             It an IO error occured.
 	 */
 	public ByteReader(RandomAccessFile in) throws IOException {
-		this.in = in;
-		jumpCachePosition(0);
+		this(in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length()), in);
 	}
 
-	/**
-	 * Reads a 16 bit int.
-	 *
-	 * @return The int.
-	 * @throws IOException
-	 *             If an io error occured.
-	 */
-	public int read16() throws IOException {
-		assertCacheHolds(2);
-
-		int c = this.cachePosition;
-		int byte0 = this.cache[c];
-		int byte1 = this.cache[c + 1];
-		this.cachePosition = c + 2;
-
-		return (0xff & byte0) | ((0xff & byte1) << 8);
+	private ByteReader(ByteBuffer buffer, RandomAccessFile in) {
+		this.buffer = buffer;
+		this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+		this.in = in;
 	}
 
 	/**
-	 * Sets the cache position pointer and the cache so that the pointer is on the given position in the file.
+	 * Creates a new reader on the same data that starts at the given position. The position of this reader is not changed.
 	 *
-	 * @param newCachePosition
-	 *            A file position
+	 * @param pos
+	 *            The position the new reader starts at.
+	 * @return The new reader.
 	 * @throws IOException
+	 *             If the position is outside of the data.
 	 */
-	private void jumpCachePosition(long newCachePosition) throws IOException {
-		long positionInCache = newCachePosition - this.cacheStart;
-		if (positionInCache >= 0 && positionInCache < CACHE_SIZE) {
-			this.cachePosition = (int) positionInCache;
-		} else {
-			// we have to reload...
-			this.in.seek(newCachePosition);
-			this.inputStreamPosition = newCachePosition;
-			this.cacheStart = this.inputStreamPosition;
-
-			this.inputStreamPosition += this.in.read(this.cache, 0, CACHE_SIZE);
-			this.cachePosition = 0;
-		}
+	public ByteReader createReaderAt(long pos) throws IOException {
+		ByteReader reader = new ByteReader(buffer.duplicate(), null);
+		reader.skipTo(pos);
+		return reader;
 	}
 
 	/**
-	 * Asserts that the cache hold bytecount valid bytes.
-	 * <p>
-	 * if the rest of the cache is not long enough
+	 * Reads a 16 bit int.
 	 *
-	 * @param bytecount
+	 * @return The int.
 	 * @throws IOException
+	 *             If an io error occured.
 	 */
-	private void assertCacheHolds(int bytecount) throws IOException {
-
-		if (bytecount >= CACHE_SIZE) {
-			throw new IllegalArgumentException(
-					"Cache buffer to small to read that many bytes");
-		}
-
-		int remaining = CACHE_SIZE - this.cachePosition;
-		if (remaining < bytecount) {
-			// refill buffer
-			for (int i = 0; i < remaining; i++) {
-				this.cache[i] = this.cache[this.cachePosition + i];
-			}
-
-			// todo: save until where cache is valid, if file to long.
-			int length = (int) Math.min(CACHE_SIZE - remaining, this.in.length() - this.in.getFilePointer());
-			this.inputStreamPosition += this.in.read(this.cache, remaining, length);
-			// TODO: store how long buffer is valid
-			this.cacheStart += this.cachePosition;
-			this.cachePosition = 0;
+	public int read16() throws IOException {
+		try {
+			return 0xffff & buffer.getShort();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
 		}
 	}
 
@@ -144,18 +95,11 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read32() throws IOException {
-		assertCacheHolds(4);
-
-		byte byte0 = this.cache[this.cachePosition++];
-		byte byte1 = this.cache[this.cachePosition++];
-		byte byte2 = this.cache[this.cachePosition++];
-		byte byte3 = this.cache[this.cachePosition++];
-
-		int value =
-				(0xff & byte0) | ((0xff & byte1) << 8)
-						| ((0xff & byte2) << 16)
-						| ((0xff & byte3) << 24);
-		return value;
+		try {
+			return buffer.getInt();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
+		}
 	}
 
 	/**
@@ -167,10 +111,12 @@ public class ByteReader {
 	 *             If the read data does not match the given data.
 	 */
 	public void assumeToRead(byte[] toRead) throws IOException {
-		assertCacheHolds(toRead.length);
+		if (buffer.remaining() < toRead.length) {
+			throw endOfData();
+		}
 
 		for (int i = 0; i < toRead.length; i++) {
-			byte read = this.cache[this.cachePosition++];
+			byte read = buffer.get();
 			if (read != toRead[i]) {
 				throw new IOException("IO error: expected to read " + toRead[i]
 						+ " but got " + read + " (i=" + i + ")");
@@ -186,11 +132,10 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public int read16signed() throws IOException {
-		int read = read16();
-		if (read < 0x8000) {
-			return read;
-		} else {
-			return read - 0x10000;
+		try {
+			return buffer.getShort();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
 		}
 	}
 
@@ -202,14 +147,15 @@ public class ByteReader {
 	 *             If an io error occured.
 	 */
 	public int read8() throws IOException {
-		assertCacheHolds(1);
-		return 0xff & this.cache[this.cachePosition++];
+		try {
+			return 0xff & buffer.get();
+		} catch (BufferUnderflowException e) {
+			throw endOfData();
+		}
 	}
 
 	/**
 	 * Reads a byte stream from the stream.
-	 * <p>
-	 * Warning: this is not guaranteed to work for long arrays.
 	 *
 	 * @param b
 	 *            The byte array to read to.
@@ -222,12 +168,9 @@ public class ByteReader {
 	 *             If an io error occurred.
 	 */
 	public int read(byte[] b, int off, int len) throws IOException {
-		assertCacheHolds(len);
-
-		for (int i = 0; i < len; i++) {
-			b[off + i] = this.cache[this.cachePosition++];
-		}
-		return len;
+		int read = Math.min(len, buffer.remaining());
+		buffer.get(b, off, read);
+		return read;
 	}
 
 	/**
@@ -240,8 +183,11 @@ public class ByteReader {
 	 *             If an IO error occured.
 	 */
 	public long skipTo(long pos) throws IOException {
-		jumpCachePosition(pos);
-		return this.cacheStart + this.cachePosition;
+		if (pos < 0 || pos > buffer.limit()) {
+			throw new IOException("Position " + pos + " is outside of the data (length " + buffer.limit() + ")");
+		}
+		buffer.position((int) pos);
+		return pos;
 	}
 
 	/**
@@ -251,16 +197,22 @@ public class ByteReader {
 	 * @return The number.
 	 */
 	public long getReadBytes() {
-		return this.cacheStart + this.cachePosition;
+		return buffer.position();
 	}
 
 	/**
-	 * Closes the underlying stream.
+	 * Closes the underlying stream. The readers sharing the data can still be used.
 	 *
 	 * @throws IOException
 	 *             If the close failed.
 	 */
 	public void close() throws IOException {
-		this.in.close();
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	private IOException endOfData() {
+		return new EOFException("Tried to read behind the end of the data at position " + buffer.position());
 	}
 }
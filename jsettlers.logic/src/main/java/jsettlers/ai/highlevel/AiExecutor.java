@@ -14,12 +14,17 @@
  *******************************************************************************/
 package jsettlers.ai.highlevel;
 
-import static java8.util.stream.StreamSupport.stream;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import jsettlers.common.logging.StatisticsStopWatch;
+import jsettlers.logic.constants.ExtendedRandom;
+import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.network.client.interfaces.ITaskScheduler;
@@ -27,34 +32,68 @@ import jsettlers.network.synchronic.timer.INetworkTimerable;
 
 /**
  * The AiExecutor holds all IWhatToDoAi high level KIs and executes them when NetworkTimer notifies it.
+ * <p>
+ * The statistics are updated on the game thread. Then the rules of all computer players are applied in parallel on a small pool of worker
+ * threads while the game thread waits, so the grids do not change during the evaluation. Every player collects its tasks in its own
+ * {@link BufferedTaskScheduler} and uses its own random generator. After all players are finished, their tasks are scheduled in the order of
+ * the players. This way the scheduled tasks are the same on every client and in every replay, regardless of how the players were distributed
+ * on the workers.
+ * <p>
+ * The random generators of the players are seeded from {@link MatchConstants#aiRandom()} in player order before every evaluation. Therefore
+ * their state does not need to be saved: a loaded game continues with the same random numbers as the saved one.
  * 
  * @author codingberlin
  */
 public class AiExecutor implements INetworkTimerable {
+	private static final int MAX_WORKERS = 4;
+
+	/**
+	 * A computer player taking longer than this to apply its rules is reported. The time is never used for a decision, because the decisions
+	 * have to be the same on all clients.
+	 */
+	public static final long TIME_BUDGET_PER_PLAYER_MS = 500;
 
-	private final List<IWhatToDoAi> whatToDoAis;
+	private final List<ComputerPlayer> computerPlayers;
 	private final AiStatistics aiStatistics;
+	private final ITaskScheduler taskScheduler;
+	private final ExecutorService workers;
 	private final StatisticsStopWatch updateStatisticsStopWatch = new StatisticsStopWatch();
 	private final StatisticsStopWatch applyRulesStopWatch = new StatisticsStopWatch();
 
 	public AiExecutor(PlayerSetting[] playerSettings, MainGrid mainGrid, ITaskScheduler taskScheduler) {
+		this(playerSettings, mainGrid, taskScheduler, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors() / 2));
+	}
+
+	AiExecutor(PlayerSetting[] playerSettings, MainGrid mainGrid, ITaskScheduler taskScheduler, int maxWorkers) {
+		this.taskScheduler = taskScheduler;
 		aiStatistics = new AiStatistics(mainGrid);
 		aiStatistics.updateStatistics();
-		this.whatToDoAis = new ArrayList<>();
+		this.computerPlayers = new ArrayList<>();
 		WhatToDoAiFactory aiFactory = new WhatToDoAiFactory();
 		for (byte playerId = 0; playerId < playerSettings.length; playerId++) {
 			PlayerSetting playerSetting = playerSettings[playerId];
 			if (playerSetting.isAvailable() && playerSetting.getPlayerType().isAi()) {
-				whatToDoAis.add(aiFactory.buildWhatToDoAi(
+				BufferedTaskScheduler playerTaskScheduler = new BufferedTaskScheduler();
+				ExtendedRandom random = new ExtendedRandom(0);
+				IWhatToDoAi whatToDoAi = aiFactory.buildWhatToDoAi(
 						playerSettings[playerId].getPlayerType(),
 						playerSettings[playerId].getCivilisation(),
 						aiStatistics,
 						mainGrid.getPartitionsGrid().getPlayer(playerId),
 						mainGrid,
 						mainGrid.getMovableGrid(),
-						taskScheduler));
+						playerTaskScheduler,
+						random);
+				computerPlayers.add(new ComputerPlayer(playerId, whatToDoAi, playerTaskScheduler, random));
 			}
 		}
+
+		int numberOfWorkers = Math.max(1, Math.min(maxWorkers, computerPlayers.size()));
+		this.workers = Executors.newFixedThreadPool(numberOfWorkers, runnable -> {
+			Thread worker = new Thread(runnable, "AiWorker");
+			worker.setDaemon(true);
+			return worker;
+		});
 	}
 
 	@Override
@@ -63,10 +102,42 @@ public class AiExecutor implements INetworkTimerable {
 		aiStatistics.updateStatistics();
 		updateStatisticsStopWatch.stop("computerplayer:updateStatistics()");
 		applyRulesStopWatch.restart();
-		stream(whatToDoAis).forEach(IWhatToDoAi::applyRules);
+		for (ComputerPlayer computerPlayer : computerPlayers) {
+			computerPlayer.random.setSeed(MatchConstants.aiRandom().nextLong());
+		}
+		applyRules();
+		for (ComputerPlayer computerPlayer : computerPlayers) {
+			computerPlayer.taskScheduler.flushTo(taskScheduler);
+		}
 		applyRulesStopWatch.stop("computerplayer:applyRules()");
 	}
 
+	private void applyRules() {
+		if (computerPlayers.size() == 1) {
+			computerPlayers.get(0).call();
+			return;
+		}
+
+		try {
+			for (Future<Void> result : workers.invokeAll(computerPlayers)) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Stops the worker threads. Must be called when the game has been stopped.
+	 */
+	public void shutdown() {
+		workers.shutdownNow();
+	}
+
 	public StatisticsStopWatch getUpdateStatisticsStopWatch() {
 		return updateStatisticsStopWatch;
 	}
@@ -74,4 +145,61 @@ public class AiExecutor implements INetworkTimerable {
 	public StatisticsStopWatch getApplyRulesStopWatch() {
 		return applyRulesStopWatch;
 	}
+
+	/**
+	 * @return The stop watch measuring how long the given computer player takes to apply its rules or <code>null</code> if the player is no
+	 *         computer player.
+	 */
+	public StatisticsStopWatch getApplyRulesStopWatch(byte playerId) {
+		ComputerPlayer computerPlayer = getComputerPlayer(playerId);
+		return computerPlayer != null ? computerPlayer.applyRulesStopWatch : null;
+	}
+
+	/**
+	 * @return How often the given computer player exceeded {@value #TIME_BUDGET_PER_PLAYER_MS} ms to apply its rules.
+	 */
+	public int getNumberOfExceededTimeBudgets(byte playerId) {
+		ComputerPlayer computerPlayer = getComputerPlayer(playerId);
+		return computerPlayer != null ? computerPlayer.exceededTimeBudgets : 0;
+	}
+
+	private ComputerPlayer getComputerPlayer(byte playerId) {
+		for (ComputerPlayer computerPlayer : computerPlayers) {
+			if (computerPlayer.playerId == playerId) {
+				return computerPlayer;
+			}
+		}
+		return null;
+	}
+
+	private static class ComputerPlayer implements Callable<Void> {
+		final byte playerId;
+		final IWhatToDoAi whatToDoAi;
+		final BufferedTaskScheduler taskScheduler;
+		final ExtendedRandom random;
+		final StatisticsStopWatch applyRulesStopWatch = new StatisticsStopWatch();
+		volatile int exceededTimeBudgets;
+
+		ComputerPlayer(byte playerId, IWhatToDoAi whatToDoAi, BufferedTaskScheduler taskScheduler, ExtendedRandom random) {
+			this.playerId = playerId;
+			this.whatToDoAi = whatToDoAi;
+			this.taskScheduler = taskScheduler;
+			this.random = random;
+		}
+
+		@Override
+		public Void call() {
+			applyRulesStopWatch.restart();
+			whatToDoAi.applyRules();
+			applyRulesStopWatch.stop("computerplayer " + playerId + ":applyRules()");
+
+			long duration = applyRulesStopWatch.getDiff();
+			if (duration > TIME_BUDGET_PER_PLAYER_MS) {
+				exceededTimeBudgets++;
+				System.err.println("WARNING: computer player " + playerId + " took " + duration + " ms to apply its rules (budget: "
+						+ TIME_BUDGET_PER_PLAYER_MS + " ms)");
+			}
+			return null;
+		}
+	}
 }
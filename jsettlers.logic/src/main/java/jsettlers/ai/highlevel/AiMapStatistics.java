@@ -0,0 +1,437 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import static jsettlers.common.mapobject.EMapObjectType.STONE;
+import static jsettlers.common.mapobject.EMapObjectType.TREE_ADULT;
+import static jsettlers.common.mapobject.EMapObjectType.TREE_GROWING;
+
+import java.util.BitSet;
+
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.shapes.MapNeighboursArea;
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.logic.map.grid.IPositionChangedListener;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.logic.map.grid.landscape.LandscapeGrid;
+import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
+import jsettlers.logic.map.grid.objects.ObjectsGrid;
+import jsettlers.logic.map.grid.partition.PartitionsGrid;
+import jsettlers.logic.player.Player;
+
+/**
+ * The statistics of the {@link AiStatistics} that are calculated from the positions of the map. The contribution of every position to the positions
+ * sets and counters is remembered, so an update only has to recalculate the positions reported by the grids as changed. The first update
+ * calculates all positions.
+ * <p />
+ * A position depends on the players and the tower enforcement of the positions up to {@value #DEPENDENCY_RADIUS} positions away, so a change marks
+ * all positions in this distance. The positions of the players are collected regardless of the partition to build on, because merges and divides
+ * of partitions are not reported.
+ */
+final class AiMapStatistics implements IPositionChangedListener {
+	static final int LAND = 0;
+	static final int STONES = 1;
+	static final int TREES = 2;
+	static final int RIVERS = 3;
+	static final int WINE = 4;
+	static final int BORDER = 5;
+	private static final int NUMBER_OF_PLAYER_POSITIONS = 6;
+
+	private static final int FREE_TREE = 1 << 6;
+	private static final int FREE_STONE = 1 << 7;
+	private static final int FREE_RIVER = 1 << 8;
+	private static final int RESOURCE = 1 << 9;
+	private static final int RESOURCE_COUNTED = 1 << 10;
+	private static final int GRASS = 1 << 11;
+	private static final int PLAYER_POSITIONS = (1 << NUMBER_OF_PLAYER_POSITIONS) - 1;
+
+	private static final int DEPENDENCY_RADIUS = 3;
+	private static final int FISH_OWNER_DISTANCE = 3;
+	private static final int CUTTABLE_CHECK_DISTANCE = 2;
+
+	private final MainGrid mainGrid;
+	private final LandscapeGrid landscapeGrid;
+	private final ObjectsGrid objectsGrid;
+	private final PartitionsGrid partitionsGrid;
+	private final FlagsGrid flagsGrid;
+	private final short width;
+	private final short height;
+	private final int noPlayerIndex;
+
+	private final short[] flags;
+	private final byte[] owners;
+	private final byte[] resourceTypes;
+	private final byte[] resourceCountIndexes;
+
+	private final AiPositions[] resources;
+	private final AiPositions freeTrees = new AiPositions();
+	private final AiPositions freeStones = new AiPositions();
+	private final AiPositions freeRivers = new AiPositions();
+	private final AiPositions[][] playerPositions;
+	private final long[][] resourceAndGrassCount;
+	private final long[][] resourceCount;
+
+	private BitSet changedPositions;
+	private BitSet updatedPositions;
+
+	/**
+	 * @param resourceAndGrassCount
+	 *            The counters of the {@link AiMapInformation} to be kept up to date.
+	 */
+	AiMapStatistics(MainGrid mainGrid, long[][] resourceAndGrassCount) {
+		this.mainGrid = mainGrid;
+		this.landscapeGrid = mainGrid.getLandscapeGrid();
+		this.objectsGrid = mainGrid.getObjectsGrid();
+		this.partitionsGrid = mainGrid.getPartitionsGrid();
+		this.flagsGrid = mainGrid.getFlagsGrid();
+		this.width = mainGrid.getWidth();
+		this.height = mainGrid.getHeight();
+		this.resourceAndGrassCount = resourceAndGrassCount;
+
+		int numberOfPlayers = partitionsGrid.getNumberOfPlayers();
+		noPlayerIndex = numberOfPlayers;
+
+		flags = new short[width * height];
+		owners = new byte[width * height];
+		resourceTypes = new byte[width * height];
+		resourceCountIndexes = new byte[width * height];
+
+		resources = new AiPositions[EResourceType.VALUES.length];
+		for (int i = 0; i < resources.length; i++) {
+			resources[i] = new AiPositions();
+		}
+		playerPositions = new AiPositions[numberOfPlayers][NUMBER_OF_PLAYER_POSITIONS];
+		for (int playerId = 0; playerId < numberOfPlayers; playerId++) {
+			for (int i = 0; i < NUMBER_OF_PLAYER_POSITIONS; i++) {
+				playerPositions[playerId][i] = new AiPositions();
+			}
+		}
+		resourceCount = new long[numberOfPlayers + 1][EResourceType.VALUES.length];
+
+		changedPositions = new BitSet(width * height);
+		changedPositions.set(0, width * height);
+		updatedPositions = new BitSet(width * height);
+	}
+
+	@Override
+	public synchronized void positionChanged(int x, int y) {
+		int minX = Math.max(0, x - DEPENDENCY_RADIUS);
+		int maxX = Math.min(width - 1, x + DEPENDENCY_RADIUS);
+		int maxY = Math.min(height - 1, y + DEPENDENCY_RADIUS);
+		for (int currY = Math.max(0, y - DEPENDENCY_RADIUS); currY <= maxY; currY++) {
+			changedPositions.set(minX + currY * width, maxX + 1 + currY * width);
+		}
+	}
+
+	private synchronized BitSet takeChangedPositions() {
+		BitSet taken = changedPositions;
+		changedPositions = updatedPositions;
+		updatedPositions = taken;
+		return taken;
+	}
+
+	/**
+	 * Recalculates the contributions of all positions changed since the last update.
+	 */
+	void update() {
+		BitSet changed = takeChangedPositions();
+		if (changed.isEmpty()) {
+			return;
+		}
+
+		int removedFreeFlags = 0;
+		int[] removedPlayerFlags = new int[playerPositions.length];
+		for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+			int positionFlags = flags[index];
+			byte owner = owners[index];
+			if (owner >= 0) {
+				removedPlayerFlags[owner] |= positionFlags & PLAYER_POSITIONS;
+			}
+			removedFreeFlags |= positionFlags & ~PLAYER_POSITIONS;
+			removeCounters(index, positionFlags, owner);
+		}
+
+		AiPositions.AiPositionFilter isChanged = (x, y) -> changed.get(x + y * width);
+		if ((removedFreeFlags & RESOURCE) != 0) {
+			for (AiPositions resourcePositions : resources) {
+				resourcePositions.removeAll(isChanged);
+			}
+		}
+		removeChanged(freeTrees, removedFreeFlags, FREE_TREE, isChanged);
+		removeChanged(freeStones, removedFreeFlags, FREE_STONE, isChanged);
+		removeChanged(freeRivers, removedFreeFlags, FREE_RIVER, isChanged);
+		for (int playerId = 0; playerId < playerPositions.length; playerId++) {
+			for (int i = 0; i < NUMBER_OF_PLAYER_POSITIONS; i++) {
+				removeChanged(playerPositions[playerId][i], removedPlayerFlags[playerId], 1 << i, isChanged);
+			}
+		}
+
+		for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+			calculatePosition(index % width, index / width, index);
+		}
+		changed.clear();
+
+		for (AiPositions resourcePositions : resources) {
+			resourcePositions.ensureSorted();
+		}
+		freeTrees.ensureSorted();
+		freeStones.ensureSorted();
+		freeRivers.ensureSorted();
+		for (AiPositions[] positionsOfPlayer : playerPositions) {
+			for (AiPositions positions : positionsOfPlayer) {
+				positions.ensureSorted();
+			}
+		}
+	}
+
+	private static void removeChanged(AiPositions positions, int removedFlags, int flag, AiPositions.AiPositionFilter isChanged) {
+		if ((removedFlags & flag) != 0) {
+			positions.removeAll(isChanged);
+		}
+	}
+
+	private void removeCounters(int index, int positionFlags, byte owner) {
+		if ((positionFlags & RESOURCE_COUNTED) != 0) {
+			int countIndex = resourceCountIndexes[index];
+			resourceAndGrassCount[countIndex][resourceTypes[index]]--;
+			resourceCount[countIndex][resourceTypes[index]]--;
+		}
+		if ((positionFlags & GRASS) != 0) {
+			resourceAndGrassCount[owner >= 0 ? owner : noPlayerIndex][AiMapInformation.GRASS_INDEX]--;
+		}
+	}
+
+	private void calculatePosition(int x, int y, int index) {
+		Player player = partitionsGrid.getPlayerAt(x, y);
+		int mapInformationPlayerId = player != null ? player.playerId : noPlayerIndex;
+		int positionFlags = 0;
+
+		if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
+			EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
+			resources[resourceType.ordinal].addNoCollission(x, y);
+			positionFlags |= RESOURCE;
+
+			int countIndex = -1;
+			if (resourceType != EResourceType.FISH) {
+				countIndex = mapInformationPlayerId;
+			} else if (landscapeGrid.getLandscapeTypeAt(x, y) == ELandscapeType.WATER1) {
+				countIndex = getFishCountIndex(x, y, mapInformationPlayerId);
+			}
+			if (countIndex >= 0) {
+				positionFlags |= RESOURCE_COUNTED;
+				resourceTypes[index] = resourceType.ordinal;
+				resourceCountIndexes[index] = (byte) countIndex;
+				resourceAndGrassCount[countIndex][resourceType.ordinal]++;
+				resourceCount[countIndex][resourceType.ordinal]++;
+			}
+		}
+		if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
+			positionFlags |= GRASS;
+			resourceAndGrassCount[mapInformationPlayerId][AiMapInformation.GRASS_INDEX]++;
+		}
+
+		if (player == null) {
+			positionFlags |= calculateFreeLand(x, y);
+		} else {
+			positionFlags |= calculatePlayerLand(x, y, player);
+			if (hasNeighborIngestibleByPioneersOf(x, y, player)) {
+				playerPositions[player.playerId][BORDER].addNoCollission(x, y);
+				positionFlags |= 1 << BORDER;
+			}
+		}
+
+		flags[index] = (short) positionFlags;
+		owners[index] = player != null ? player.playerId : -1;
+	}
+
+	private int getFishCountIndex(int x, int y, int mapInformationPlayerId) {
+		if (mapInformationPlayerId != noPlayerIndex) {
+			return mapInformationPlayerId;
+		}
+
+		int fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x + FISH_OWNER_DISTANCE, y);
+		if (fishMapInformationPlayerId == noPlayerIndex) {
+			fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x - FISH_OWNER_DISTANCE, y);
+		}
+		if (fishMapInformationPlayerId == noPlayerIndex) {
+			fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, y + FISH_OWNER_DISTANCE);
+		}
+		if (fishMapInformationPlayerId == noPlayerIndex) {
+			fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, y - FISH_OWNER_DISTANCE);
+		}
+		return fishMapInformationPlayerId;
+	}
+
+	private int mapInformationPlayerIdOfPosition(int x, int y) {
+		if (!mainGrid.isInBounds(x, y)) {
+			return noPlayerIndex;
+		}
+
+		byte playerId = partitionsGrid.getPlayerIdAt(x, y);
+		return playerId == -1 ? noPlayerIndex : playerId;
+	}
+
+	private int calculateFreeLand(int x, int y) {
+		int positionFlags = 0;
+		if (objectsGrid.hasCuttableObject(x, y, TREE_ADULT)) {
+			freeTrees.addNoCollission(x, y);
+			positionFlags |= FREE_TREE;
+		}
+		if (objectsGrid.hasCuttableObject(x, y, STONE)) {
+			freeStones.addNoCollission(x, y);
+			positionFlags |= FREE_STONE;
+		}
+		if (landscapeGrid.getLandscapeTypeAt(x, y).isRiver()) {
+			freeRivers.addNoCollission(x, y);
+			positionFlags |= FREE_RIVER;
+		}
+		return positionFlags;
+	}
+
+	private int calculatePlayerLand(int x, int y, Player player) {
+		AiPositions[] positionsOfPlayer = playerPositions[player.playerId];
+		int positionFlags = 0;
+		if (flagsGrid.isProtected(x, y)) {
+			AbstractHexMapObject o = objectsGrid.getObjectsAt(x, y);
+			if (o != null) {
+				if (o.hasCuttableObject(STONE) && isCuttableByPlayer(x, y, player.playerId)) {
+					positionsOfPlayer[STONES].addNoCollission(x, y);
+					positionFlags |= 1 << STONES;
+				} else if (o.hasMapObjectTypes(TREE_GROWING, TREE_ADULT) && isCuttableByPlayer(x, y, player.playerId)) {
+					positionsOfPlayer[TREES].addNoCollission(x, y);
+					positionFlags |= 1 << TREES;
+				}
+			}
+		} else {
+			positionsOfPlayer[LAND].addNoCollission(x, y);
+			positionFlags |= 1 << LAND;
+		}
+		if (landscapeGrid.getLandscapeTypeAt(x, y).isRiver()) {
+			positionsOfPlayer[RIVERS].addNoCollission(x, y);
+			positionFlags |= 1 << RIVERS;
+		}
+		if (objectsGrid.hasMapObjectType(x, y, EMapObjectType.WINE_GROWING, EMapObjectType.WINE_HARVESTABLE)) {
+			positionsOfPlayer[WINE].addNoCollission(x, y);
+			positionFlags |= 1 << WINE;
+		}
+		return positionFlags;
+	}
+
+	private boolean isCuttableByPlayer(int x, int y, byte playerId) {
+		return partitionsGrid.getPlayerIdAt(x - CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE) == playerId
+				&& partitionsGrid.getPlayerIdAt(x - CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE) == playerId
+				&& partitionsGrid.getPlayerIdAt(x + CUTTABLE_CHECK_DISTANCE, y - CUTTABLE_CHECK_DISTANCE) == playerId
+				&& partitionsGrid.getPlayerIdAt(x + CUTTABLE_CHECK_DISTANCE, y + CUTTABLE_CHECK_DISTANCE) == playerId;
+	}
+
+	private boolean hasNeighborIngestibleByPioneersOf(int x, int y, Player player) {
+		return !MapNeighboursArea.stream(x, y)
+				.filterBounds(width, height)
+				.filter((currX, currY) -> isIngestibleByPioneersOf(currX, currY, player))
+				.isEmpty();
+	}
+
+	private boolean isIngestibleByPioneersOf(int x, int y, Player player) {
+		Player otherPlayer = partitionsGrid.getPlayerAt(x, y);
+		return !player.hasSameTeam(otherPlayer)
+				&& !flagsGrid.isBlocked(x, y)
+				&& !partitionsGrid.isEnforcedByTower(x, y);
+	}
+
+	AiPositions getResourcePositions(EResourceType resourceType) {
+		return resources[resourceType.ordinal];
+	}
+
+	AiPositions getFreeTrees() {
+		return freeTrees;
+	}
+
+	AiPositions getFreeStones() {
+		return freeStones;
+	}
+
+	AiPositions getFreeRivers() {
+		return freeRivers;
+	}
+
+	/**
+	 * @param type
+	 *            One of {@link #LAND}, {@link #STONES}, {@link #TREES}, {@link #RIVERS}, {@link #WINE} and {@link #BORDER}.
+	 * @return The positions of the given type on the land of the player, regardless of the partition.
+	 */
+	AiPositions getPlayerPositions(byte playerId, int type) {
+		return playerPositions[playerId][type];
+	}
+
+	long getResourceCountOfPlayer(EResourceType resourceType, byte playerId) {
+		return resourceCount[playerId][resourceType.ordinal];
+	}
+
+	long getResourceCountOfNoPlayer(EResourceType resourceType) {
+		return resourceCount[noPlayerIndex][resourceType.ordinal];
+	}
+
+	/**
+	 * Compares these statistics with the given ones.
+	 *
+	 * @return A description of the first difference or <code>null</code> if the statistics are equal.
+	 */
+	String findDifferenceTo(AiMapStatistics other) {
+		for (int index = 0; index < flags.length; index++) {
+			if (flags[index] != other.flags[index] || owners[index] != other.owners[index]
+					|| ((flags[index] & RESOURCE_COUNTED) != 0
+							&& (resourceTypes[index] != other.resourceTypes[index] || resourceCountIndexes[index] != other.resourceCountIndexes[index]))) {
+				return "position (" + (index % width) + "|" + (index / width) + ") has flags " + Integer.toBinaryString(flags[index]) + " of player "
+						+ owners[index] + " instead of " + Integer.toBinaryString(other.flags[index]) + " of player " + other.owners[index];
+			}
+		}
+		for (int i = 0; i < resources.length; i++) {
+			if (!resources[i].hasSamePositions(other.resources[i])) {
+				return "positions of resource " + EResourceType.VALUES[i] + ": " + resources[i] + " instead of " + other.resources[i];
+			}
+		}
+		if (!freeTrees.hasSamePositions(other.freeTrees) || !freeStones.hasSamePositions(other.freeStones)
+				|| !freeRivers.hasSamePositions(other.freeRivers)) {
+			return "positions of trees, stones or rivers without player";
+		}
+		for (int playerId = 0; playerId < playerPositions.length; playerId++) {
+			for (int i = 0; i < NUMBER_OF_PLAYER_POSITIONS; i++) {
+				if (!playerPositions[playerId][i].hasSamePositions(other.playerPositions[playerId][i])) {
+					return "positions of type " + i + " of player " + playerId + ": " + playerPositions[playerId][i] + " instead of "
+							+ other.playerPositions[playerId][i];
+				}
+			}
+		}
+		for (int i = 0; i < resourceAndGrassCount.length; i++) {
+			for (int ii = 0; ii < resourceAndGrassCount[i].length; ii++) {
+				if (resourceAndGrassCount[i][ii] != other.resourceAndGrassCount[i][ii]) {
+					return "resource and grass count " + ii + " of player " + i + " is " + resourceAndGrassCount[i][ii] + " instead of "
+							+ other.resourceAndGrassCount[i][ii];
+				}
+			}
+		}
+		for (int i = 0; i < resourceCount.length; i++) {
+			for (int ii = 0; ii < resourceCount[i].length; ii++) {
+				if (resourceCount[i][ii] != other.resourceCount[i][ii]) {
+					return "resource count of " + EResourceType.VALUES[ii] + " of player " + i + " is " + resourceCount[i][ii] + " instead of "
+							+ other.resourceCount[i][ii];
+				}
+			}
+		}
+		return null;
+	}
+}
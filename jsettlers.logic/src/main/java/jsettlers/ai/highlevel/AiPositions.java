@@ -139,6 +139,53 @@ public class AiPositions implements IMapArea {
 		sorted = false;
 	}
 
+	/**
+	 * Adds the positions of the other set accepted by the filter. If this set is empty, it stays in the order of the other set.
+	 */
+	void addAllNoCollision(AiPositions otherAiPositions, AiPositionFilter filter) {
+		otherAiPositions.ensureSorted();
+		for (int i = 0; i < otherAiPositions.size; i++) {
+			int pos = otherAiPositions.points[i];
+			if (filter.contains(unpackX(pos), unpackY(pos))) {
+				if (points.length == size) {
+					resizeTo(points.length * 2);
+				}
+				points[size] = pos;
+				size++;
+			}
+		}
+		sorted = false;
+	}
+
+	/**
+	 * Removes all positions accepted by the filter. The remaining positions keep their order.
+	 */
+	void removeAll(AiPositionFilter filter) {
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			int pos = points[i];
+			if (!filter.contains(unpackX(pos), unpackY(pos))) {
+				points[newSize] = pos;
+				newSize++;
+			}
+		}
+		size = newSize;
+	}
+
+	boolean hasSamePositions(AiPositions otherAiPositions) {
+		ensureSorted();
+		otherAiPositions.ensureSorted();
+		if (size != otherAiPositions.size) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (points[i] != otherAiPositions.points[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public void remove(int x, int y) {
 		ensureSorted();
 		int index = indexOf(x, y);
@@ -173,7 +220,7 @@ public class AiPositions implements IMapArea {
 		return new PositionsIterator();
 	}
 
-	private void ensureSorted() {
+	void ensureSorted() {
 		if (!sorted) {
 			Arrays.sort(points, 0, size);
 			sorted = true;
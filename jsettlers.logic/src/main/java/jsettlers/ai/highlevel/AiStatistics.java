@@ -21,7 +21,6 @@ import static jsettlers.common.buildings.EBuildingType.LUMBERJACK;
 import static jsettlers.common.buildings.EBuildingType.TOWER;
 import static jsettlers.common.mapobject.EMapObjectType.STONE;
 import static jsettlers.common.mapobject.EMapObjectType.TREE_ADULT;
-import static jsettlers.common.mapobject.EMapObjectType.TREE_GROWING;
 import static jsettlers.common.movable.EMovableType.BEARER;
 import static jsettlers.common.movable.EMovableType.SWORDSMAN_L1;
 import static jsettlers.common.movable.EMovableType.SWORDSMAN_L2;
@@ -46,7 +45,6 @@ import jsettlers.common.buildings.IMaterialProductionSettings;
 import jsettlers.common.landscape.ELandscapeType;
 import jsettlers.common.landscape.EResourceType;
 import jsettlers.common.map.partition.IPartitionData;
-import jsettlers.common.map.shapes.MapNeighboursArea;
 import jsettlers.common.mapobject.EMapObjectType;
 import jsettlers.common.material.EMaterialType;
 import jsettlers.common.movable.EDirection;
@@ -62,9 +60,9 @@ import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.grid.flags.FlagsGrid;
 import jsettlers.logic.map.grid.landscape.LandscapeGrid;
 import jsettlers.logic.map.grid.movable.MovableGrid;
-import jsettlers.logic.map.grid.objects.AbstractHexMapObject;
 import jsettlers.logic.map.grid.objects.ObjectsGrid;
 import jsettlers.logic.map.grid.partition.PartitionsGrid;
+import jsettlers.logic.movable.Movable;
 import jsettlers.logic.movable.interfaces.ILogicMovable;
 import jsettlers.logic.player.Player;
 
@@ -88,9 +86,7 @@ public class AiStatistics {
 	private final MainGrid mainGrid;
 	private final Queue<Building> buildings;
 	private final PlayerStatistic[] playerStatistics;
-	private final Map<EMapObjectType, AiPositions> sortedCuttableObjectsInDefaultPartition;
-	private final AiPositions[] sortedResourceTypes;
-	private final AiPositions sortedRiversInDefaultPartition;
+	private final AiMapStatistics mapStatistics;
 	private final LandscapeGrid landscapeGrid;
 	private final ObjectsGrid objectsGrid;
 	private final PartitionsGrid partitionsGrid;
@@ -98,7 +94,6 @@ public class AiStatistics {
 	private final FlagsGrid flagsGrid;
 	private final AbstractConstructionMarkableMap constructionMarksGrid;
 	private final AiMapInformation aiMapInformation;
-	private final long[] resourceCountInDefaultPartition;
 	private final List<Player> players;
 
 	public AiStatistics(MainGrid mainGrid) {
@@ -115,13 +110,8 @@ public class AiStatistics {
 		for (byte i = 0; i < mainGrid.getGuiInputGrid().getNumberOfPlayers(); i++) {
 			this.playerStatistics[i] = new PlayerStatistic();
 		}
-		sortedRiversInDefaultPartition = new AiPositions();
-		sortedCuttableObjectsInDefaultPartition = new HashMap<>();
-		sortedResourceTypes = new AiPositions[EResourceType.VALUES.length];
-		for (int i = 0; i < sortedResourceTypes.length; i++) {
-			sortedResourceTypes[i] = new AiPositions();
-		}
-		resourceCountInDefaultPartition = new long[EResourceType.VALUES.length];
+		mapStatistics = new AiMapStatistics(mainGrid, aiMapInformation.resourceAndGrassCount);
+		mainGrid.addPositionChangedListener(mapStatistics);
 		players = J8Arrays.stream(partitionsGrid.getPlayers()).filter(Objects::nonNull).collect(Collectors.toList());
 	}
 
@@ -137,14 +127,14 @@ public class AiStatistics {
 		for (PlayerStatistic playerStatistic : playerStatistics) {
 			playerStatistic.clearAll();
 		}
-		sortedRiversInDefaultPartition.clear();
-		sortedCuttableObjectsInDefaultPartition.clear();
-		for (AiPositions xCoordinatesMap : sortedResourceTypes) {
-			xCoordinatesMap.clear();
-		}
 
 		updateBuildingStatistics();
 		updateMapStatistics();
+		updateMovableStatistics();
+
+		for (PlayerStatistic playerStatistic : playerStatistics) {
+			playerStatistic.sortPositions();
+		}
 	}
 
 	private void updateBuildingStatistics() {
@@ -194,185 +184,103 @@ public class AiStatistics {
 	}
 
 	private void updateMapStatistics() {
-		aiMapInformation.clear();
 		updatePartitionIdsToBuildOn();
-		short width = mainGrid.getWidth();
-		short height = mainGrid.getHeight();
-		Arrays.fill(resourceCountInDefaultPartition, 0);
-
-		for (short x = 0; x < width; x++) {
-			for (short y = 0; y < height; y++) {
-				Player player = partitionsGrid.getPlayerAt(x, y);
-				int mapInformationPlayerId;
-				if (player != null) {
-					mapInformationPlayerId = player.playerId;
-				} else {
-					mapInformationPlayerId = aiMapInformation.resourceAndGrassCount.length - 1;
-				}
-				if (landscapeGrid.getResourceAmountAt(x, y) > 0) {
-					EResourceType resourceType = landscapeGrid.getResourceTypeAt(x, y);
-					sortedResourceTypes[resourceType.ordinal].addNoCollission(x, y);
-					if (resourceType != EResourceType.FISH) {
-						aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][resourceType.ordinal]++;
-						if (player != null) {
-							playerStatistics[player.playerId].resourceCount[resourceType.ordinal]++;
-						} else {
-							resourceCountInDefaultPartition[resourceType.ordinal]++;
-						}
-					} else if (landscapeGrid.getLandscapeTypeAt(x, y) == ELandscapeType.WATER1) {
-						int fishMapInformationPlayerId = mapInformationPlayerId;
-						if (mapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-							fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x + 3), y);
-							if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-								fishMapInformationPlayerId = mapInformationPlayerIdOfPosition((short) (x - 3), y);
-								if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-									fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y + 3));
-									if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-										fishMapInformationPlayerId = mapInformationPlayerIdOfPosition(x, (short) (y - 3));
-									}
-								}
-							}
-						}
-						aiMapInformation.resourceAndGrassCount[fishMapInformationPlayerId][resourceType.ordinal]++;
-						if (fishMapInformationPlayerId == aiMapInformation.resourceAndGrassCount.length - 1) {
-							resourceCountInDefaultPartition[resourceType.ordinal]++;
-						} else {
-							playerStatistics[fishMapInformationPlayerId].resourceCount[resourceType.ordinal]++;
-						}
-					}
-				}
-				if (landscapeGrid.getLandscapeTypeAt(x, y).isGrass()) {
-					aiMapInformation.resourceAndGrassCount[mapInformationPlayerId][AiMapInformation.GRASS_INDEX]++;
-				}
-				ILogicMovable movable = movableGrid.getMovableAt(x, y);
-				if (movable != null) {
-					Player movablePlayer = movable.getPlayer();
-					byte movablePlayerId = movablePlayer.playerId;
-					PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
-					EMovableType movableType = movable.getMovableType();
-					Maps.computeIfAbsent(movablePlayerStatistic.movablePositions, movableType, key -> new ArrayList<>()).add(movable.getPosition());
-
-					if (movableType == BEARER && movable.getAction() == EMovableAction.NO_ACTION) {
-						playerStatistics[movablePlayerId].joblessBearerPositions.add(movable.getPosition());
-					}
-					if (player != null && player.playerId != movablePlayerId && movableType.isSoldier() && getEnemiesOf(player).contains(movablePlayer)) {
-						playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(movable.getPos().x, movable.getPos().y);
-					}
-				}
-				if (player == null) {
-					updateFreeLand(x, y);
-				} else if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
-					updatePlayerLand(x, y, player);
-				}
-				if (player != null && hasNeighborIngestibleByPioneersOf(x, y, player)) {
-					if (partitionsGrid.getPartitionIdAt(x, y) == playerStatistics[player.playerId].partitionIdToBuildOn) {
-						playerStatistics[player.playerId].borderIngestibleByPioneers.add(x, y);
-					} else {
-						playerStatistics[player.playerId].otherPartitionBorder.add(x, y);
-					}
-				}
-			}
-		}
-	}
-
-	private int mapInformationPlayerIdOfPosition(short x, short y) {
-		if (!mainGrid.isInBounds(x, y)) {
-			return aiMapInformation.resourceAndGrassCount.length - 1;
+		mapStatistics.update();
+		if (CommonConstants.VERIFY_AI_STATISTICS) {
+			verifyMapStatistics();
 		}
 
-		byte playerId = mainGrid.getPartitionsGrid().getPlayerIdAt(x, y);
-		if (playerId == -1) {
-			return aiMapInformation.resourceAndGrassCount.length - 1;
+		for (byte playerId = 0; playerId < playerStatistics.length; playerId++) {
+			updatePlayerLand(playerId);
 		}
-
-		return playerId;
+		updateNearStones();
 	}
 
-	private boolean hasNeighborIngestibleByPioneersOf(int x, int y, Player player) {
-		return !MapNeighboursArea.stream(x, y)
-				.filterBounds(mainGrid.getWidth(), mainGrid.getHeight())
-				.filter((currX, currY) -> isIngestibleByPioneersOf(currX, currY, player))
-				.isEmpty();
+	private void verifyMapStatistics() {
+		String difference = findDifferenceToFullScan();
+		if (difference != null) {
+			System.err.println("ERROR: The incrementally updated AI statistics differ from a full scan of the map: " + difference);
+		}
 	}
 
-	private boolean isIngestibleByPioneersOf(int x, int y, Player player) {
-		Player otherPlayer = partitionsGrid.getPlayerAt(x, y);
-		return !player.hasSameTeam(otherPlayer)
-				&& !flagsGrid.isBlocked(x, y)
-				&& !partitionsGrid.isEnforcedByTower(x, y);
+	/**
+	 * Compares the incrementally updated statistics of the map with statistics calculated from scratch.
+	 *
+	 * @return A description of the first difference or <code>null</code> if the statistics are equal.
+	 */
+	String findDifferenceToFullScan() {
+		long[][] fullScanResourceAndGrassCount = new long[aiMapInformation.resourceAndGrassCount.length][aiMapInformation.resourceAndGrassCount[0].length];
+		AiMapStatistics fullScan = new AiMapStatistics(mainGrid, fullScanResourceAndGrassCount);
+		fullScan.update();
+		return mapStatistics.findDifferenceTo(fullScan);
 	}
 
-	private void updatePlayerLand(short x, short y, Player player) {
-		byte playerId = player.playerId;
+	/**
+	 * The positions of the players are collected for all partitions of the player. Only the positions in the partition to build on are used.
+	 */
+	private void updatePlayerLand(byte playerId) {
 		PlayerStatistic playerStatistic = playerStatistics[playerId];
-		if (mainGrid.getFlagsGrid().isProtected(x, y)) {
-			AbstractHexMapObject o = objectsGrid.getObjectsAt(x, y);
-			if (o != null) {
-				if (o.hasCuttableObject(STONE) && isCuttableByPlayer(x, y, player.playerId)) {
-					playerStatistic.stones.addNoCollission(x, y);
-				} else if (o.hasMapObjectTypes(TREE_GROWING, TREE_ADULT) && isCuttableByPlayer(x, y, player.playerId)) {
-					playerStatistic.trees.addNoCollission(x, y);
+		short partitionIdToBuildOn = playerStatistic.partitionIdToBuildOn;
+		AiPositionFilter inPartitionToBuildOn = (x, y) -> partitionsGrid.getPartitionIdAt(x, y) == partitionIdToBuildOn;
+		AiPositionFilter notInPartitionToBuildOn = (x, y) -> partitionsGrid.getPartitionIdAt(x, y) != partitionIdToBuildOn;
+
+		playerStatistic.landToBuildOn.addAllNoCollision(mapStatistics.getPlayerPositions(playerId, AiMapStatistics.LAND), inPartitionToBuildOn);
+		playerStatistic.stones.addAllNoCollision(mapStatistics.getPlayerPositions(playerId, AiMapStatistics.STONES), inPartitionToBuildOn);
+		playerStatistic.trees.addAllNoCollision(mapStatistics.getPlayerPositions(playerId, AiMapStatistics.TREES), inPartitionToBuildOn);
+		playerStatistic.rivers.addAllNoCollision(mapStatistics.getPlayerPositions(playerId, AiMapStatistics.RIVERS), inPartitionToBuildOn);
+		playerStatistic.wineCount = mapStatistics.getPlayerPositions(playerId, AiMapStatistics.WINE).stream().filter(inPartitionToBuildOn::contains).count();
+
+		AiPositions border = mapStatistics.getPlayerPositions(playerId, AiMapStatistics.BORDER);
+		playerStatistic.borderIngestibleByPioneers.addAllNoCollision(border, inPartitionToBuildOn);
+		playerStatistic.otherPartitionBorder.addAllNoCollision(border, notInPartitionToBuildOn);
+	}
+
+	private void updateNearStones() {
+		AiPositions stones = mapStatistics.getFreeStones();
+		for (int i = 0; i < stones.size(); i++) {
+			ShortPoint2D stone = stones.get(i);
+			for (EDirection dir : EDirection.VALUES) {
+				int currX = dir.getNextTileX(stone.x, NEAR_STONE_DISTANCE);
+				int currY = dir.getNextTileY(stone.y, NEAR_STONE_DISTANCE);
+				if (mainGrid.isInBounds(currX, currY)) {
+					byte playerId = partitionsGrid.getPlayerIdAt(currX, currY);
+					if (playerId != -1 && hasPlayersBlockedPartition(playerId, stone.x, stone.y)) {
+						playerStatistics[playerId].stonesNearBy.addNoCollission(stone.x, stone.y);
+					}
 				}
 			}
-		} else {
-			playerStatistic.landToBuildOn.addNoCollission(x, y);
-		}
-		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
-		if (landscape.isRiver()) {
-			playerStatistic.rivers.addNoCollission(x, y);
-		}
-		if (objectsGrid.hasMapObjectType(x, y, EMapObjectType.WINE_GROWING, EMapObjectType.WINE_HARVESTABLE)) {
-			playerStatistic.wineCount++;
 		}
 	}
 
-	private boolean isCuttableByPlayer(short x, short y, byte playerId) {
-		byte[] playerIds = new byte[4];
-		playerIds[0] = partitionsGrid.getPlayerIdAt(x - 2, y - 2);
-		playerIds[1] = partitionsGrid.getPlayerIdAt(x - 2, y + 2);
-		playerIds[2] = partitionsGrid.getPlayerIdAt(x + 2, y - 2);
-		playerIds[3] = partitionsGrid.getPlayerIdAt(x + 2, y + 2);
-		for (byte positionPlayerId : playerIds) {
-			if (positionPlayerId != playerId) {
-				return false;
+	/**
+	 * The movables are collected in the order of their positions, like a scan of the map would find them.
+	 */
+	private void updateMovableStatistics() {
+		List<ILogicMovable> movables = new ArrayList<>();
+		for (ILogicMovable movable : Movable.getAllMovables()) {
+			ShortPoint2D position = movable.getPosition();
+			if (position != null && mainGrid.isInBounds(position.x, position.y) && movableGrid.getMovableAt(position.x, position.y) == movable) {
+				movables.add(movable);
 			}
 		}
-		return true;
-	}
+		int height = mainGrid.getHeight();
+		Collections.sort(movables, Comparators.comparingInt(movable -> movable.getPosition().x * height + movable.getPosition().y));
 
-	private void updateFreeLand(short x, short y) {
-		if (objectsGrid.hasCuttableObject(x, y, TREE_ADULT)) {
-			AiPositions trees = sortedCuttableObjectsInDefaultPartition.get(TREE_ADULT);
-			if (trees == null) {
-				trees = new AiPositions();
-				sortedCuttableObjectsInDefaultPartition.put(TREE_ADULT, trees);
-			}
-			trees.addNoCollission(x, y);
-		}
-		if (objectsGrid.hasCuttableObject(x, y, STONE)) {
-			AiPositions stones = sortedCuttableObjectsInDefaultPartition.get(STONE);
-			if (stones == null) {
-				stones = new AiPositions();
-				sortedCuttableObjectsInDefaultPartition.put(STONE, stones);
+		for (ILogicMovable movable : movables) {
+			ShortPoint2D position = movable.getPosition();
+			Player movablePlayer = movable.getPlayer();
+			byte movablePlayerId = movablePlayer.playerId;
+			PlayerStatistic movablePlayerStatistic = playerStatistics[movablePlayerId];
+			EMovableType movableType = movable.getMovableType();
+			Maps.computeIfAbsent(movablePlayerStatistic.movablePositions, movableType, key -> new ArrayList<>()).add(position);
+
+			if (movableType == BEARER && movable.getAction() == EMovableAction.NO_ACTION) {
+				movablePlayerStatistic.joblessBearerPositions.add(position);
 			}
-			stones.addNoCollission(x, y);
-			updateNearStones(x, y);
-		}
-		ELandscapeType landscape = landscapeGrid.getLandscapeTypeAt(x, y);
-		if (landscape.isRiver()) {
-			sortedRiversInDefaultPartition.addNoCollission(x, y);
-		}
-	}
 
-	private void updateNearStones(short x, short y) {
-		for (EDirection dir : EDirection.VALUES) {
-			int currX = dir.getNextTileX(x, NEAR_STONE_DISTANCE);
-			int currY = dir.getNextTileY(y, NEAR_STONE_DISTANCE);
-			if (mainGrid.isInBounds(currX, currY)) {
-				byte playerId = partitionsGrid.getPlayerIdAt(currX, currY);
-				if (playerId != -1 && hasPlayersBlockedPartition(playerId, x, y)) {
-					playerStatistics[playerId].stonesNearBy.addNoCollission(x, y);
-				}
+			Player player = partitionsGrid.getPlayerAt(position.x, position.y);
+			if (player != null && player.playerId != movablePlayerId && movableType.isSoldier() && getEnemiesOf(player).contains(movablePlayer)) {
+				playerStatistics[player.playerId].enemyTroopsInTown.addNoCollission(position.x, position.y);
 			}
 		}
 	}
@@ -403,11 +311,11 @@ public class AiStatistics {
 	}
 
 	ShortPoint2D getNearestResourcePointForPlayer(ShortPoint2D point, EResourceType resourceType, byte playerId, int searchDistance, AiPositionFilter filter) {
-		return getNearestPointInDefaultPartitionOutOfSortedMap(point, sortedResourceTypes[resourceType.ordinal], playerId, searchDistance, filter);
+		return getNearestPointInDefaultPartitionOutOfSortedMap(point, mapStatistics.getResourcePositions(resourceType), playerId, searchDistance, filter);
 	}
 
 	public ShortPoint2D getNearestFishPointForPlayer(ShortPoint2D point, final byte playerId, int currentNearestPointDistance) {
-		return sortedResourceTypes[EResourceType.FISH.ordinal].getNearestPoint(point, currentNearestPointDistance, new AiPositionFilter() {
+		return mapStatistics.getResourcePositions(EResourceType.FISH).getNearestPoint(point, currentNearestPointDistance, new AiPositionFilter() {
 			@Override
 			public boolean contains(int x, int y) {
 				return isPlayerThere(x + 3, y) || isPlayerThere(x - 3, y) || isPlayerThere(x, y + 3) || isPlayerThere(x, y - 3);
@@ -428,8 +336,12 @@ public class AiStatistics {
 	}
 
 	private ShortPoint2D getNearestCuttableObjectPointForPlayer(ShortPoint2D point, EMapObjectType cuttableObject, int searchDistance, byte playerId, AiPositionFilter filter) {
-		AiPositions sortedResourcePoints = sortedCuttableObjectsInDefaultPartition.get(cuttableObject);
-		if (sortedResourcePoints == null) {
+		AiPositions sortedResourcePoints;
+		if (cuttableObject == TREE_ADULT) {
+			sortedResourcePoints = mapStatistics.getFreeTrees();
+		} else if (cuttableObject == STONE) {
+			sortedResourcePoints = mapStatistics.getFreeStones();
+		} else {
 			return null;
 		}
 
@@ -568,26 +480,21 @@ public class AiStatistics {
 		}
 	}
 
+	/**
+	 * Returns the first of the nearest points of the list. The list is not changed, because the lists of the statistics are read by all computer
+	 * players at the same time.
+	 */
 	public static ShortPoint2D detectNearestPointFromList(ShortPoint2D referencePoint, List<ShortPoint2D> points) {
-		if (points.isEmpty()) {
-			return null;
-		}
-
-		return detectNearestPointsFromList(referencePoint, points, 1).get(0);
-	}
-
-	private static List<ShortPoint2D> detectNearestPointsFromList(final ShortPoint2D referencePoint, List<ShortPoint2D> points, int amountOfPointsToDetect) {
-		if (amountOfPointsToDetect <= 0) {
-			return Collections.emptyList();
-		}
-
-		if (points.size() <= amountOfPointsToDetect) {
-			return points;
+		ShortPoint2D nearestPoint = null;
+		int nearestDistance = Integer.MAX_VALUE;
+		for (ShortPoint2D point : points) {
+			int distance = point.getOnGridDistTo(referencePoint);
+			if (distance < nearestDistance) {
+				nearestPoint = point;
+				nearestDistance = distance;
+			}
 		}
-
-		Collections.sort(points, Comparators.comparingInt(o -> o.getOnGridDistTo(referencePoint)));
-
-		return points.subList(0, amountOfPointsToDetect);
+		return nearestPoint;
 	}
 
 	public int getNumberOfMaterialTypeForPlayer(EMaterialType type, byte playerId) {
@@ -603,7 +510,7 @@ public class AiStatistics {
 	}
 
 	public ShortPoint2D getNearestRiverPointInDefaultPartitionFor(ShortPoint2D referencePoint, int searchDistance, AiPositionFilter filter) {
-		return getNearestPointInDefaultPartitionOutOfSortedMap(referencePoint, sortedRiversInDefaultPartition, (byte) -1, searchDistance, filter);
+		return getNearestPointInDefaultPartitionOutOfSortedMap(referencePoint, mapStatistics.getFreeRivers(), (byte) -1, searchDistance, filter);
 	}
 
 	int getNumberOfNotFinishedBuildingTypesForPlayer(EBuildingType buildingType, byte playerId) {
@@ -666,11 +573,11 @@ public class AiStatistics {
 	}
 
 	public long resourceCountInDefaultPartition(EResourceType resourceType) {
-		return resourceCountInDefaultPartition[resourceType.ordinal];
+		return mapStatistics.getResourceCountOfNoPlayer(resourceType);
 	}
 
 	public long resourceCountOfPlayer(EResourceType resourceType, byte playerId) {
-		return playerStatistics[playerId].resourceCount[resourceType.ordinal];
+		return mapStatistics.getResourceCountOfPlayer(resourceType, playerId);
 	}
 
 	List<ShortPoint2D> threatenedBorderOf(byte playerId) {
@@ -722,7 +629,6 @@ public class AiStatistics {
 		final AiPositions rivers = new AiPositions();
 		final AiPositions enemyTroopsInTown = new AiPositions();
 		List<ShortPoint2D> threatenedBorder;
-		final long[] resourceCount = new long[EResourceType.VALUES.length];
 		int numberOfNotFinishedBuildings;
 		int numberOfTotalBuildings;
 		int numberOfNotOccupiedMilitaryBuildings;
@@ -753,10 +659,23 @@ public class AiStatistics {
 			clearIntegers();
 		}
 
+		/**
+		 * Sorts the positions once after the update, so reading them does not change them while the computer players are evaluated in parallel.
+		 */
+		void sortPositions() {
+			landToBuildOn.ensureSorted();
+			borderIngestibleByPioneers.ensureSorted();
+			otherPartitionBorder.ensureSorted();
+			stones.ensureSorted();
+			stonesNearBy.ensureSorted();
+			trees.ensureSorted();
+			rivers.ensureSorted();
+			enemyTroopsInTown.ensureSorted();
+		}
+
 		private void clearIntegers() {
 			Arrays.fill(totalBuildingsNumbers, 0);
 			Arrays.fill(buildingsNumbers, 0);
-			Arrays.fill(resourceCount, 0);
 			numberOfNotFinishedBuildings = 0;
 			numberOfTotalBuildings = 0;
 			numberOfNotOccupiedMilitaryBuildings = 0;
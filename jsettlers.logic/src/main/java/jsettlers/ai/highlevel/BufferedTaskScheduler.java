@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jsettlers.network.client.interfaces.ITaskScheduler;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+/**
+ * Collects the tasks of one computer player while its rules are applied on a worker thread. The {@link AiExecutor} hands the collected tasks
+ * to the real {@link ITaskScheduler} on the game thread, so the tasks of all players are scheduled in the same order as if the players were
+ * evaluated one after the other.
+ *
+ */
+class BufferedTaskScheduler implements ITaskScheduler {
+
+	private final List<TaskPacket> tasks = new ArrayList<>();
+
+	@Override
+	public void scheduleTask(TaskPacket task) {
+		tasks.add(task);
+	}
+
+	/**
+	 * Schedules the collected tasks in the order they have been collected and forgets them.
+	 */
+	void flushTo(ITaskScheduler taskScheduler) {
+		for (TaskPacket task : tasks) {
+			taskScheduler.scheduleTask(task);
+		}
+		tasks.clear();
+	}
+
+	int getNumberOfTasks() {
+		return tasks.size();
+	}
+}
@@ -84,6 +84,7 @@ import jsettlers.input.tasks.MoveToGuiTask;
 import jsettlers.input.tasks.WorkAreaGuiTask;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.buildings.military.occupying.OccupyingBuilding;
+import jsettlers.logic.constants.ExtendedRandom;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.grid.movable.MovableGrid;
 import jsettlers.logic.movable.interfaces.ILogicMovable;
@@ -129,7 +130,8 @@ class WhatToDoAi implements IWhatToDoAi {
 	private PioneerGroup broadenerPioneers;
 	private AiPositions.AiPositionFilter[] geologistFilters = new AiPositions.AiPositionFilter[EResourceType.values().length];
 
-	WhatToDoAi(byte playerId, AiStatistics aiStatistics, EconomyMinister economyMinister, ArmyGeneral armyGeneral, MainGrid mainGrid, ITaskScheduler taskScheduler) {
+	WhatToDoAi(byte playerId, AiStatistics aiStatistics, EconomyMinister economyMinister, ArmyGeneral armyGeneral, MainGrid mainGrid, ITaskScheduler taskScheduler,
+			ExtendedRandom random) {
 		this.playerId = playerId;
 		this.mainGrid = mainGrid;
 		this.movableGrid = mainGrid.getMovableGrid();
@@ -137,7 +139,7 @@ class WhatToDoAi implements IWhatToDoAi {
 		this.aiStatistics = aiStatistics;
 		this.armyGeneral = armyGeneral;
 		this.economyMinister = economyMinister;
-		this.pioneerAi = new PioneerAi(aiStatistics, playerId);
+		this.pioneerAi = new PioneerAi(aiStatistics, playerId, random);
 		bestConstructionPositionFinderFactory = new BestConstructionPositionFinderFactory();
 		resourcePioneers = new PioneerGroup(RESOURCE_PIONEER_GROUP_COUNT);
 		broadenerPioneers = new PioneerGroup(BROADEN_PIONEER_GROUP_COUNT);
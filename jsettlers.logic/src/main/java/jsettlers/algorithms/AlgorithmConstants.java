@@ -26,6 +26,10 @@ public abstract class AlgorithmConstants {
 	 * initial number of elements in the min heaps used for pathfinding
 	 */
 	public static final int MINHEAP_INIT_NUMBER_OF_ELEMENTS = 1000;
+	/**
+	 * paths with a heuristic distance of at least this value are searched on the abstract cluster graph of the hierarchical AStar.
+	 */
+	public static final int HIERARCHICAL_PATHFINDING_MIN_DISTANCE = 48;
 	/**
 	 * if the construction marks are currently activated and the user does not move the view, the markings will be updated after this time (ms).
 	 */
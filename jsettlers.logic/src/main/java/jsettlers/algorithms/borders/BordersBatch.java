@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2015 - 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.borders;
+
+import java.util.Arrays;
+
+/**
+ * A batch of calculated border states. The entries are stored in the order they have been calculated, a position may be contained more than
+ * once.
+ * 
+ */
+public final class BordersBatch {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private int[] entries = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
+	void add(int x, int y, boolean isBorder) {
+		if (size + 3 > entries.length) {
+			entries = Arrays.copyOf(entries, entries.length * 2);
+		}
+		entries[size++] = x;
+		entries[size++] = y;
+		entries[size++] = isBorder ? 1 : 0;
+	}
+
+	void addAll(BordersBatch other) {
+		if (size + other.size > entries.length) {
+			entries = Arrays.copyOf(entries, Math.max(entries.length * 2, size + other.size));
+		}
+		System.arraycopy(other.entries, 0, entries, size, other.size);
+		size += other.size;
+	}
+
+	void clear() {
+		size = 0;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Calls the given visitor for every entry of this batch in the order they have been added.
+	 */
+	public void forEach(IBorderStateVisitor visitor) {
+		for (int i = 0; i < size; i += 3) {
+			visitor.visit(entries[i], entries[i + 1], entries[i + 2] != 0);
+		}
+	}
+
+	@FunctionalInterface
+	public interface IBorderStateVisitor {
+		void visit(int x, int y, boolean isBorder);
+	}
+}
@@ -14,58 +14,142 @@
  *******************************************************************************/
 package jsettlers.algorithms.borders;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import jsettlers.common.movable.EDirection;
 import jsettlers.common.position.ShortPoint2D;
 
-import java.util.concurrent.LinkedBlockingQueue;
-
 /**
  * This thread calculates the positions that represent the border between the areas occupied by different players.
+ * <p>
+ * Positions to be checked are marked in a bit set, so a position that is marked several times is only calculated once. The thread takes all
+ * marked positions at once and calculates them in stripes of {@value #STRIPE_HEIGHT} rows. If several stripes contain marked positions, they
+ * are calculated by a small pool of worker threads. The results of all stripes are handed to the grid in one {@link BordersBatch}.
  * 
  * @author Andreas Eberle
  * 
  */
 public class BordersThread implements Runnable {
+	private static final int STRIPE_HEIGHT = 32;
+	private static final int MAX_WORKERS = 4;
 
 	private final IBordersThreadGrid grid;
-	private final LinkedBlockingQueue<ShortPoint2D> positionsQueue = new LinkedBlockingQueue<>();
+	private final int width;
+	private final int height;
 	private final Thread bordersThread;
+	private final ExecutorService workers;
 
-	private boolean canceled = false;
+	private BitSet markedPositions;
+	private BitSet positionsInProgress;
+	private final BordersBatch batch = new BordersBatch();
+
+	private volatile boolean canceled = false;
 
 	/**
 	 * This constructor creates a new instance of {@link BordersThread} and automatically launches a thread for it called "bordersThread".
 	 * 
 	 * @param grid
 	 *            the grid on that the {@link BordersThread} will be operating
+	 * @param width
+	 *            width of the grid
+	 * @param height
+	 *            height of the grid
 	 */
-	public BordersThread(IBordersThreadGrid grid) {
+	public BordersThread(IBordersThreadGrid grid, int width, int height) {
 		this.grid = grid;
+		this.width = width;
+		this.height = height;
+		this.markedPositions = new BitSet(width * height);
+		this.positionsInProgress = new BitSet(width * height);
+
 		this.bordersThread = new Thread(this);
 		this.bordersThread.setName("BordersThread");
 		this.bordersThread.setDaemon(true);
+
+		int numberOfWorkers = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors() / 2));
+		this.workers = Executors.newFixedThreadPool(numberOfWorkers, runnable -> {
+			Thread worker = new Thread(runnable, "BordersWorker");
+			worker.setDaemon(true);
+			return worker;
+		});
 	}
 
 	@Override
 	public void run() {
 		while (!canceled) {
-			ShortPoint2D position = null;
-			while (position == null && !canceled) {
+			try {
+				takeMarkedPositions();
+				calculateMarkedPositions();
+			} catch (InterruptedException e) {
+				// canceled
+			}
+		}
+	}
+
+	/**
+	 * Waits until positions have been marked and swaps them with the empty set of positions in progress.
+	 */
+	private synchronized void takeMarkedPositions() throws InterruptedException {
+		while (markedPositions.isEmpty() && !canceled) {
+			wait();
+		}
+
+		BitSet taken = markedPositions;
+		markedPositions = positionsInProgress;
+		positionsInProgress = taken;
+	}
+
+	private void calculateMarkedPositions() throws InterruptedException {
+		List<Callable<BordersBatch>> stripes = new ArrayList<>();
+		for (int stripeY = 0; stripeY < height; stripeY += STRIPE_HEIGHT) {
+			int startIndex = stripeY * width;
+			int endIndex = Math.min(stripeY + STRIPE_HEIGHT, height) * width;
+
+			int firstMarked = positionsInProgress.nextSetBit(startIndex);
+			if (firstMarked >= 0 && firstMarked < endIndex) {
+				stripes.add(() -> calculateStripe(firstMarked, endIndex));
+			}
+		}
+
+		batch.clear();
+		if (stripes.size() == 1) {
+			try {
+				batch.addAll(stripes.get(0).call());
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		} else {
+			for (Future<BordersBatch> stripeResult : workers.invokeAll(stripes)) {
 				try {
-					position = positionsQueue.take();
-				} catch (InterruptedException e) {
+					batch.addAll(stripeResult.get());
+				} catch (ExecutionException e) {
+					e.printStackTrace();
 				}
 			}
-			if (!canceled) {
-				calculateForPosition(position);
-			}
+		}
+		positionsInProgress.clear();
+
+		if (!canceled && !batch.isEmpty()) {
+			grid.setBordersAt(batch);
 		}
 	}
 
-	private void calculateForPosition(ShortPoint2D position) {
-		short x = position.x;
-		short y = position.y;
+	private BordersBatch calculateStripe(int startIndex, int endIndex) {
+		BordersBatch stripeBatch = new BordersBatch();
+		for (int index = startIndex; index >= 0 && index < endIndex; index = positionsInProgress.nextSetBit(index + 1)) {
+			calculateForPosition(index % width, index / width, stripeBatch);
+		}
+		return stripeBatch;
+	}
 
+	private void calculateForPosition(int x, int y, BordersBatch stripeBatch) {
 		byte player = grid.getPlayerIdAt(x, y);
 		boolean isBorder = false;
 
@@ -101,31 +185,38 @@ public class BordersThread implements Runnable {
 					}
 				} // else the position is not occupied -> don't display a border here
 
-				grid.setBorderAt(currNeighborX, currNeighborY, neighborIsBorder);
+				stripeBatch.add(currNeighborX, currNeighborY, neighborIsBorder);
 			}
 		}
 
-		grid.setBorderAt(x, y, isBorder && player >= 0);
+		stripeBatch.add(x, y, isBorder && player >= 0);
 	}
 
 	public void checkPosition(ShortPoint2D position) {
-		this.positionsQueue.offer(position);
+		checkPosition(position.x, position.y);
+	}
+
+	public synchronized void checkPosition(int x, int y) {
+		markedPositions.set(x + y * width);
+		notifyAll();
 	}
 
-	public void checkArea(int x, int y, short width, short height) {
+	public synchronized void checkArea(int x, int y, short width, short height) {
 		int endX = x + width;
 		int endY = y + height;
 
 		for (; y < endY; y += 2) {
 			for (int currX = x; currX < endX; currX += 2) {
-				this.positionsQueue.offer(new ShortPoint2D(currX, y));
+				markedPositions.set(currX + y * this.width);
 			}
 		}
+		notifyAll();
 	}
 
 	public void cancel() {
 		this.canceled = true;
 		bordersThread.interrupt();
+		workers.shutdownNow();
 	}
 
 	public void start() {
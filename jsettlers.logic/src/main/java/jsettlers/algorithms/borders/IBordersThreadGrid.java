@@ -34,17 +34,13 @@ public interface IBordersThreadGrid {
 	byte getPlayerIdAt(int x, int y);
 
 	/**
-	 * Sets if the given position is a border tile or not.
+	 * Sets the calculated border states. The entries of the batch have to be applied in their order, as a position can be contained more than
+	 * once.
 	 * 
-	 * @param x
-	 *            x coordinate
-	 * @param y
-	 *            y coordinate
-	 * @param isBorder
-	 *            if true, the given position is a border position<br>
-	 *            if false, the given position is no border position.
+	 * @param batch
+	 *            the border states calculated in one run of the {@link BordersThread}.
 	 */
-	void setBorderAt(int x, int y, boolean isBorder);
+	void setBordersAt(BordersBatch batch);
 
 	boolean isInBounds(int x, int y);
 
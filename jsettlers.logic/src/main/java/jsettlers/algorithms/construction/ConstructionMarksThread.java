@@ -16,8 +16,7 @@ package jsettlers.algorithms.construction;
 
 import jsettlers.algorithms.AlgorithmConstants;
 import jsettlers.common.buildings.EBuildingType;
-import jsettlers.common.logging.MilliStopWatch;
-import jsettlers.common.logging.StopWatch;
+import jsettlers.common.logging.TickProfiler;
 import jsettlers.common.map.shapes.MapRectangle;
 import jsettlers.network.client.interfaces.IPausingSupplier;
 
@@ -63,15 +62,16 @@ public final class ConstructionMarksThread implements Runnable {
 
 				while (buildingType != null && !canceled) {
 					if (!pausingSupplier.isPausing()) {
-						StopWatch watch = new MilliStopWatch();
-						watch.restart();
+						boolean measured = TickProfiler.begin();
 
 						EBuildingType buildingType = this.buildingType;
 						if (buildingType != null && mapArea != null) { // if the task has already been canceled
 							algorithm.calculateConstructMarks(mapArea, buildingType);
 						}
 
-						watch.stop("calculation of construction marks");
+						if (measured) {
+							TickProfiler.end(algorithm.getClass());
+						}
 					}
 					synchronized (this) {
 						wait(AlgorithmConstants.CONSTRUCT_MARKS_MAX_REFRESH_TIME);
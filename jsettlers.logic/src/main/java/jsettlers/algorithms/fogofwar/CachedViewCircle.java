@@ -30,6 +30,10 @@ public final class CachedViewCircle {
 	final short[] y;
 	final byte[] sight;
 	final int size;
+	/**
+	 * The biggest absolute x or y offset of the circle's positions.
+	 */
+	final int maxOffset;
 
 	public CachedViewCircle(int radius) {
 		radius -= FogOfWar.PADDING / 2;
@@ -44,12 +48,14 @@ public final class CachedViewCircle {
 		MapCircleIterator iter = circle.iterator();
 		final float squaredViewDistance = radius * radius;
 		int i = 0;
+		int maxOffset = 0;
 
 		while (iter.hasNext()) {
 			int y = iter.nextY();
 			int x = iter.nextX();
 			this.x[i] = (short) x;
 			this.y[i] = (short) y;
+			maxOffset = Math.max(maxOffset, Math.max(Math.abs(x), Math.abs(y)));
 
 			double squaredDistance = MapCircle.getSquaredDistance(x, y);
 			byte newSight;
@@ -63,6 +69,7 @@ public final class CachedViewCircle {
 
 			i++;
 		}
+		this.maxOffset = maxOffset;
 	}
 
 	private int countElements(MapCircle circle) {
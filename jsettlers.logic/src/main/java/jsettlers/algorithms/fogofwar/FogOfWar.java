@@ -16,50 +16,118 @@ package jsettlers.algorithms.fogofwar;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import jsettlers.algorithms.fogofwar.CachedViewCircle.CachedViewCircleIterator;
 import jsettlers.common.CommonConstants;
+import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.player.IPlayer;
 import jsettlers.common.player.IPlayerable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
 
 /**
  * This class holds the fog of war for a given map and team.
+ * <p>
+ * By default the sight is updated incrementally: only the view circles of viewers that appeared, moved or disappeared since the last update are
+ * recalculated, together with the tiles that are still dimming down. The full rebuild of the whole map is kept as fallback and to validate the
+ * incremental update, see {@link Constants#FOG_OF_WAR_INCREMENTAL}.
  * 
  * @author Andreas Eberle
  */
 public final class FogOfWar implements Serializable {
 	private static final long serialVersionUID = 1877994785778678510L;
+
+	/**
+	 * The sight is saved with {@link #writeTo(SavegameChunkOutputStream)} and always written as <code>null</code>. Only savegames written with plain
+	 * Java serialization contain it as two dimensional array.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("team", byte.class),
+			new ObjectStreamField("width", short.class),
+			new ObjectStreamField("height", short.class),
+			new ObjectStreamField("sight", byte[][].class)
+	};
+
 	/**
 	 * Longest distance any unit may look
 	 */
 	private static final byte MAX_VIEW_DISTANCE = 65;
 	static final int PADDING = 10;
+	private static final byte DIM_DOWN_SPEED = 10;
 
-	private final byte team;
+	private byte team;
 
-	private final short width;
-	private final short height;
-	private byte[][] sight;
+	private short width;
+	private short height;
+	private transient byte[] sight;
 
 	private transient boolean enabled = Constants.FOG_OF_WAR_DEFAULT_ENABLED;
 	private transient IFogOfWarGrid grid;
 	private transient boolean canceled;
+	private transient IGraphicsBackgroundListener backgroundListener;
+
+	private transient CircleDrawer drawer;
+	private transient FullSightCalculator fullSightCalculator;
+	private transient IncrementalSightCalculator incrementalSightCalculator;
 
 	public FogOfWar(short width, short height, IPlayer player) {
 		this.width = width;
 		this.height = height;
 		this.team = player.getTeamId();
-		this.sight = new byte[width][height];
+		this.sight = new byte[width * height];
+		this.drawer = new CircleDrawer();
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("team", team);
+		fields.put("width", width);
+		fields.put("height", height);
+		fields.put("sight", null);
+		oos.writeFields();
 	}
 
 	private void readObject(ObjectInputStream ois) throws ClassNotFoundException, IOException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		team = fields.get("team", (byte) 0);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		byte[][] sight2D = (byte[][]) fields.get("sight", null);
+
+		sight = new byte[width * height];
+		if (sight2D != null) { // otherwise the sight is read with readFrom()
+			for (int x = 0; x < width; x++) {
+				for (int y = 0; y < height; y++) {
+					sight[getIndex(x, y)] = sight2D[x][y];
+				}
+			}
+		}
 		enabled = true;
+		drawer = new CircleDrawer();
+	}
+
+	/**
+	 * Writes the sight of this fog of war to the given savegame chunk.
+	 */
+	public void writeTo(SavegameChunkOutputStream out) throws IOException {
+		out.writeBytes(sight);
+	}
+
+	/**
+	 * Reads the sight written by {@link #writeTo(SavegameChunkOutputStream)}.
+	 */
+	public void readFrom(SavegameChunkInputStream in) throws IOException {
+		in.readBytes(sight);
 	}
 
 	public void start(IFogOfWarGrid grid) {
@@ -68,6 +136,16 @@ public final class FogOfWar implements Serializable {
 		thread.start();
 	}
 
+	/**
+	 * Sets the listener that is informed about every position whose visible status has been changed by a sight update.
+	 * 
+	 * @param backgroundListener
+	 *            The listener or <code>null</code> to remove it.
+	 */
+	public void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
+		this.backgroundListener = backgroundListener;
+	}
+
 	/**
 	 * Gets the visible status of a map pint
 	 * 
@@ -79,12 +157,16 @@ public final class FogOfWar implements Serializable {
 	 */
 	public final byte getVisibleStatus(int x, int y) {
 		if (enabled) {
-			return (byte) Math.min(sight[x][y], CommonConstants.FOG_OF_WAR_VISIBLE);
+			return (byte) Math.min(sight[getIndex(x, y)], CommonConstants.FOG_OF_WAR_VISIBLE);
 		} else {
 			return CommonConstants.FOG_OF_WAR_VISIBLE;
 		}
 	}
 
+	private int getIndex(int x, int y) {
+		return y * width + x;
+	}
+
 	private boolean isPlayerOK(IPlayerable playerable) {
 		return (MatchConstants.ENABLE_ALL_PLAYER_FOG_OF_WAR || (playerable.getPlayer().getTeamId() == team));
 	}
@@ -97,16 +179,47 @@ public final class FogOfWar implements Serializable {
 		this.enabled = enabled;
 	}
 
-	final class NewFoWThread extends Thread {
-		private static final byte DIM_DOWN_SPEED = 10;
-		private final CircleDrawer drawer;
-		private byte[][] buffer;
+	/**
+	 * Recalculates the sight from the current view distancables of the grid.
+	 */
+	void updateSight() {
+		if (Constants.FOG_OF_WAR_INCREMENTAL) {
+			if (incrementalSightCalculator == null) {
+				incrementalSightCalculator = new IncrementalSightCalculator();
+			}
+			incrementalSightCalculator.updateSight();
+		} else {
+			if (fullSightCalculator == null) {
+				fullSightCalculator = new FullSightCalculator();
+			}
+			fullSightCalculator.rebuildSight();
+		}
+	}
+
+	void setGrid(IFogOfWarGrid grid) {
+		this.grid = grid;
+	}
 
+	private static byte dimDown(byte currSight) {
+		if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
+			byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
+			return newSight < CommonConstants.FOG_OF_WAR_EXPLORED ? CommonConstants.FOG_OF_WAR_EXPLORED : newSight;
+		} else {
+			return currSight;
+		}
+	}
+
+	private void informBackgroundListener(int index, byte oldSight, byte newSight) {
+		IGraphicsBackgroundListener listener = backgroundListener;
+		if (listener != null && Math.min(oldSight, CommonConstants.FOG_OF_WAR_VISIBLE) != Math.min(newSight, CommonConstants.FOG_OF_WAR_VISIBLE)) {
+			listener.backgroundChangedAt(index % width, index / width);
+		}
+	}
+
+	final class NewFoWThread extends Thread {
 		NewFoWThread() {
 			super("FoWThread");
 			super.setDaemon(true);
-			this.buffer = new byte[width][height];
-			drawer = new CircleDrawer();
 		}
 
 		@Override
@@ -117,7 +230,7 @@ public final class FogOfWar implements Serializable {
 				// StopWatch watch = new MilliStopWatch();
 				// watch.restart();
 				if (enabled) {
-					rebuildSight();
+					updateSight();
 				}
 				// watch.stop("NewFoWThread needed: ");
 
@@ -125,35 +238,39 @@ public final class FogOfWar implements Serializable {
 			}
 		}
 
-		private void rebuildSight() {
-			drawer.setBuffer(buffer);
-
-			for (int x = 0; x < width; x++) {
-				for (int y = 0; y < height; y++) {
-					byte currSight = sight[x][y];
-
-					if (currSight >= CommonConstants.FOG_OF_WAR_EXPLORED) {
-						byte newSight = (byte) (currSight - DIM_DOWN_SPEED);
-						if (newSight < CommonConstants.FOG_OF_WAR_EXPLORED) {
-							buffer[x][y] = CommonConstants.FOG_OF_WAR_EXPLORED;
-						} else {
-							buffer[x][y] = newSight;
-						}
-					} else {
-						buffer[x][y] = sight[x][y];
-					}
-				}
+		private void mySleep(int ms) {
+			try {
+				Thread.sleep(ms);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
 			}
+		}
+	}
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> buildings = grid.getBuildingViewDistancables();
-			applyViewDistances(buildings);
+	/**
+	 * Dims down the whole map and draws the view circles of all view distancables again.
+	 */
+	final class FullSightCalculator {
+		private byte[] buffer = new byte[width * height];
 
-			ConcurrentLinkedQueue<? extends IViewDistancable> movables = grid.getMovableViewDistancables();
-			applyViewDistances(movables);
+		void rebuildSight() {
+			for (int i = 0; i < buffer.length; i++) {
+				buffer[i] = dimDown(sight[i]);
+			}
+
+			drawer.setBuffer(buffer);
+			applyViewDistances(grid.getBuildingViewDistancables());
+			applyViewDistances(grid.getMovableViewDistancables());
 
-			byte[][] temp = sight;
+			byte[] temp = sight;
 			sight = buffer;
 			buffer = temp;
+
+			if (backgroundListener != null) {
+				for (int i = 0; i < buffer.length; i++) {
+					informBackgroundListener(i, buffer[i], sight[i]);
+				}
+			}
 		}
 
 		private void applyViewDistances(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
@@ -168,22 +285,240 @@ public final class FogOfWar implements Serializable {
 				}
 			}
 		}
+	}
 
-		private void mySleep(int ms) {
-			try {
-				Thread.sleep(ms);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+	/**
+	 * Updates the sight from the changes of the view distancables since the last update.
+	 * <p>
+	 * For every position, the brightest value any current view circle gives it is kept in {@link #target}. The tiles of view circles that have been
+	 * added or removed are marked as dirty, their target is recalculated from all view circles overlapping them and they are updated. Besides these,
+	 * only the tiles that are brighter than their target and still need to be dimmed down are touched. This gives exactly the same result as the
+	 * full rebuild.
+	 */
+	final class IncrementalSightCalculator {
+		private static final int BUCKET_SIZE_SHIFT = 5;
+
+		private final byte[] target = new byte[width * height];
+		private final BitSet dirty = new BitSet(width * height);
+		private final BitSet dimming = new BitSet(width * height);
+
+		private final IdentityHashMap<IViewDistancable, ViewCircle> viewCircles = new IdentityHashMap<>();
+		private final int bucketsWidth = (width >> BUCKET_SIZE_SHIFT) + 1;
+		private final ViewCircle[] buckets = new ViewCircle[bucketsWidth * ((height >> BUCKET_SIZE_SHIFT) + 1)];
+
+		private int updateCounter = 0;
+		private int maxCircleOffset = 0;
+		private int dirtyMinX;
+		private int dirtyMaxX;
+		private int dirtyMinY;
+		private int dirtyMaxY;
+
+		IncrementalSightCalculator() {
+			for (int i = 0; i < sight.length; i++) {
+				if (needsDimming(sight[i], target[i])) {
+					dimming.set(i);
+				}
+			}
+		}
+
+		void updateSight() {
+			updateCounter++;
+			dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+			dirtyMaxX = dirtyMaxY = Integer.MIN_VALUE;
+
+			updateViewCircles(grid.getBuildingViewDistancables());
+			updateViewCircles(grid.getMovableViewDistancables());
+			removeVanishedViewCircles();
+
+			dimDownUntouchedTiles();
+
+			if (!dirty.isEmpty()) {
+				calculateDirtyTargets();
+				updateDirtyTiles();
+			}
+		}
+
+		private void updateViewCircles(ConcurrentLinkedQueue<? extends IViewDistancable> objects) {
+			for (IViewDistancable curr : objects) {
+				ShortPoint2D pos = curr.getPos();
+				short distance = curr.getViewDistance();
+				if (pos == null || distance <= 0 || !isPlayerOK(curr)) {
+					continue;
+				}
+
+				ViewCircle viewCircle = viewCircles.get(curr);
+				if (viewCircle == null) {
+					viewCircle = new ViewCircle(pos.x, pos.y, drawer.getCachedCircle(distance));
+					viewCircles.put(curr, viewCircle);
+					addToBucket(viewCircle);
+					markDirty(viewCircle);
+
+				} else if (viewCircle.x != pos.x || viewCircle.y != pos.y || viewCircle.circle != drawer.getCachedCircle(distance)) {
+					markDirty(viewCircle);
+					removeFromBucket(viewCircle);
+					viewCircle.x = pos.x;
+					viewCircle.y = pos.y;
+					viewCircle.circle = drawer.getCachedCircle(distance);
+					addToBucket(viewCircle);
+					markDirty(viewCircle);
+				}
+
+				viewCircle.seenInUpdate = updateCounter;
+			}
+		}
+
+		private void removeVanishedViewCircles() {
+			for (Iterator<ViewCircle> iterator = viewCircles.values().iterator(); iterator.hasNext();) {
+				ViewCircle viewCircle = iterator.next();
+				if (viewCircle.seenInUpdate != updateCounter) {
+					markDirty(viewCircle);
+					removeFromBucket(viewCircle);
+					iterator.remove();
+				}
+			}
+		}
+
+		private void markDirty(ViewCircle viewCircle) {
+			CachedViewCircleIterator iterator = viewCircle.circle.iterator(viewCircle.x, viewCircle.y);
+			while (iterator.hasNext()) {
+				final int x = iterator.getCurrX();
+				final int y = iterator.getCurrY();
+				if (x >= 0 && x < width && y > 0 && y < height) {
+					dirty.set(getIndex(x, y));
+				}
+			}
+
+			int radius = viewCircle.circle.maxOffset;
+			dirtyMinX = Math.min(dirtyMinX, viewCircle.x - radius);
+			dirtyMaxX = Math.max(dirtyMaxX, viewCircle.x + radius);
+			dirtyMinY = Math.min(dirtyMinY, viewCircle.y - radius);
+			dirtyMaxY = Math.max(dirtyMaxY, viewCircle.y + radius);
+		}
+
+		private void dimDownUntouchedTiles() {
+			for (int i = dimming.nextSetBit(0); i >= 0; i = dimming.nextSetBit(i + 1)) {
+				if (!dirty.get(i)) {
+					updateTile(i);
+				}
+			}
+		}
+
+		/**
+		 * Draws all view circles overlapping the dirty area into the target. Only dirty tiles are changed, all others still have their correct
+		 * target.
+		 */
+		private void calculateDirtyTargets() {
+			for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+				target[i] = 0;
+			}
+
+			int minBucketX = Math.max(0, dirtyMinX - maxCircleOffset) >> BUCKET_SIZE_SHIFT;
+			int maxBucketX = Math.min(width - 1, dirtyMaxX + maxCircleOffset) >> BUCKET_SIZE_SHIFT;
+			int minBucketY = Math.max(0, dirtyMinY - maxCircleOffset) >> BUCKET_SIZE_SHIFT;
+			int maxBucketY = Math.min(height - 1, dirtyMaxY + maxCircleOffset) >> BUCKET_SIZE_SHIFT;
+
+			for (int bucketY = minBucketY; bucketY <= maxBucketY; bucketY++) {
+				for (int bucketX = minBucketX; bucketX <= maxBucketX; bucketX++) {
+					for (ViewCircle curr = buckets[bucketY * bucketsWidth + bucketX]; curr != null; curr = curr.nextInBucket) {
+						drawTarget(curr);
+					}
+				}
 			}
 		}
 
+		private void drawTarget(ViewCircle viewCircle) {
+			int radius = viewCircle.circle.maxOffset;
+			if (viewCircle.x + radius < dirtyMinX || viewCircle.x - radius > dirtyMaxX || viewCircle.y + radius < dirtyMinY
+					|| viewCircle.y - radius > dirtyMaxY) {
+				return;
+			}
+
+			CachedViewCircleIterator iterator = viewCircle.circle.iterator(viewCircle.x, viewCircle.y);
+			while (iterator.hasNext()) {
+				final int x = iterator.getCurrX();
+				final int y = iterator.getCurrY();
+				if (x >= 0 && x < width && y > 0 && y < height) {
+					int index = getIndex(x, y);
+					byte newSight = iterator.getCurrSight();
+					if (target[index] < newSight && dirty.get(index)) {
+						target[index] = newSight;
+					}
+				}
+			}
+		}
+
+		private void updateDirtyTiles() {
+			for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+				updateTile(i);
+			}
+			dirty.clear();
+		}
+
+		private void updateTile(int index) {
+			byte oldSight = sight[index];
+			byte newSight = (byte) Math.max(dimDown(oldSight), target[index]);
+			sight[index] = newSight;
+			dimming.set(index, needsDimming(newSight, target[index]));
+			informBackgroundListener(index, oldSight, newSight);
+		}
+
+		private boolean needsDimming(byte currSight, byte targetSight) {
+			return currSight > CommonConstants.FOG_OF_WAR_EXPLORED && currSight > targetSight;
+		}
+
+		private void addToBucket(ViewCircle viewCircle) {
+			maxCircleOffset = Math.max(maxCircleOffset, viewCircle.circle.maxOffset);
+			int bucket = getBucket(viewCircle);
+			viewCircle.prevInBucket = null;
+			viewCircle.nextInBucket = buckets[bucket];
+			if (buckets[bucket] != null) {
+				buckets[bucket].prevInBucket = viewCircle;
+			}
+			buckets[bucket] = viewCircle;
+		}
+
+		private void removeFromBucket(ViewCircle viewCircle) {
+			if (viewCircle.prevInBucket == null) {
+				buckets[getBucket(viewCircle)] = viewCircle.nextInBucket;
+			} else {
+				viewCircle.prevInBucket.nextInBucket = viewCircle.nextInBucket;
+			}
+			if (viewCircle.nextInBucket != null) {
+				viewCircle.nextInBucket.prevInBucket = viewCircle.prevInBucket;
+			}
+		}
+
+		private int getBucket(ViewCircle viewCircle) {
+			int bucketX = Math.min(Math.max(viewCircle.x, 0), width - 1) >> BUCKET_SIZE_SHIFT;
+			int bucketY = Math.min(Math.max(viewCircle.y, 0), height - 1) >> BUCKET_SIZE_SHIFT;
+			return bucketY * bucketsWidth + bucketX;
+		}
+	}
+
+	/**
+	 * The view circle that has been drawn for a view distancable in the last update.
+	 */
+	private static final class ViewCircle {
+		int x;
+		int y;
+		CachedViewCircle circle;
+		int seenInUpdate;
+
+		ViewCircle prevInBucket;
+		ViewCircle nextInBucket;
+
+		ViewCircle(int x, int y, CachedViewCircle circle) {
+			this.x = x;
+			this.y = y;
+			this.circle = circle;
+		}
 	}
 
 	final class CircleDrawer {
-		private byte[][] buffer;
+		private byte[] buffer;
 		private final CachedViewCircle[] cachedCircles = new CachedViewCircle[MAX_VIEW_DISTANCE];
 
-		public final void setBuffer(byte[][] buffer) {
+		public final void setBuffer(byte[] buffer) {
 			this.buffer = buffer;
 		}
 
@@ -199,18 +534,19 @@ public final class FogOfWar implements Serializable {
 				final int y = iterator.getCurrY();
 
 				if (x >= 0 && x < width && y > 0 && y < height) {
-					byte oldSight = buffer[x][y];
+					int index = getIndex(x, y);
+					byte oldSight = buffer[index];
 					if (oldSight < CommonConstants.FOG_OF_WAR_VISIBLE) {
 						byte newSight = iterator.getCurrSight();
 						if (oldSight < newSight) {
-							buffer[x][y] = newSight;
+							buffer[index] = newSight;
 						}
 					}
 				}
 			}
 		}
 
-		private CachedViewCircle getCachedCircle(int viewDistance) {
+		CachedViewCircle getCachedCircle(int viewDistance) {
 			int radius = Math.min(viewDistance + PADDING, MAX_VIEW_DISTANCE - 1);
 			if (cachedCircles[radius] == null) {
 				cachedCircles[radius] = new CachedViewCircle(radius);
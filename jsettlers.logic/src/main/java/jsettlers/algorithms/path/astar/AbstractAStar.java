@@ -22,4 +22,21 @@ public abstract class AbstractAStar {
 	public abstract Path findPath(IPathCalculatable requester, final short sx, final short sy, final short tx, final short ty);
 
 	public abstract Path findPath(IPathCalculatable aStarPathable, ShortPoint2D targetPos);
+
+	/**
+	 * Searches the path to the target that can be reached with the lowest costs from the start. The search floods the positions around the start
+	 * and stops at the first position accepted by the filter, so no path has to be searched for targets that can't be reached.
+	 *
+	 * @param cx
+	 *            x coordinate of the center of the searched area
+	 * @param cy
+	 *            y coordinate of the center of the searched area
+	 * @param maxDistance
+	 *            Only positions closer than this distance to the center are visited. The start has to be in this area.
+	 * @param filter
+	 *            Decides which positions are targets. The start, blocked positions and positions that can't be reached are never targets.
+	 * @return The path to the nearest target or <code>null</code> if no target can be reached inside of the area.
+	 */
+	public abstract Path findPathToNearest(IPathCalculatable requester, short sx, short sy, short cx, short cy, int maxDistance,
+			IPathTargetFilter filter);
 }
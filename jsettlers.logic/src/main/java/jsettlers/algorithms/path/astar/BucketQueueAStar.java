@@ -105,61 +105,108 @@ public final class BucketQueueAStar extends AbstractAStar {
 				break;
 			}
 
-			final float currPositionCosts = costs[currFlatIdx];
-
 			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
 				final int neighborX = x + xDeltaArray[i];
 				final int neighborY = y + yDeltaArray[i];
 
 				if (isValidPosition(requester, x, y, neighborX, neighborY, blockedAtStartPartition)) {
-					final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
+					openNeighbor(currFlatIdx, x, y, neighborX, neighborY, getHeuristicCost(neighborX, neighborY, tx, ty));
+				}
+			}
+		}
 
-					if (!closedBitSet.get(flatNeighborIdx)) {
-						final float newCosts = currPositionCosts + map.getCost(x, y, neighborX, neighborY);
+		if (found) {
+			return createPath(targetFlatIdx);
+		}
 
-						if (openBitSet.get(flatNeighborIdx)) {
-							final float oldCosts = costs[flatNeighborIdx];
+		return null;
+	}
 
-							if (oldCosts > newCosts) {
-								costs[flatNeighborIdx] = newCosts;
-								depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
-								depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
+	@Override
+	public final Path findPathToNearest(IPathCalculatable requester, short sx, short sy, short cx, short cy, int maxDistance,
+			IPathTargetFilter filter) {
+		if (!isInBounds(sx, sy)) {
+			throw new InvalidStartPositionException("Start position is out of bounds!", sx, sy);
+		}
 
-								int heuristicCosts = getHeuristicCost(neighborX, neighborY, tx, ty);
-								open.increasedPriority(flatNeighborIdx, oldCosts + heuristicCosts, newCosts + heuristicCosts);
-							}
+		final short blockedAtStartPartition = isBlocked(requester, sx, sy) ? map.getBlockedPartition(sx, sy) : -1;
+		final int startFlatIdx = getFlatIdx(sx, sy);
 
-						} else {
-							costs[flatNeighborIdx] = newCosts;
-							depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
-							depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
-							openBitSet.set(flatNeighborIdx);
-							open.insert(flatNeighborIdx, newCosts + getHeuristicCost(neighborX, neighborY, tx, ty));
+		closedBitSet.clear();
+		openBitSet.clear();
+
+		open.clear();
+		initStartNode(sx, sy, sx, sy);
 
-							map.markAsOpen(neighborX, neighborY);
-						}
-					}
+		while (!open.isEmpty()) {
+			int currFlatIdx = open.deleteMin();
+
+			final int x = getX(currFlatIdx);
+			final int y = getY(currFlatIdx);
+
+			setClosed(x, y);
+
+			if (currFlatIdx != startFlatIdx && !isBlocked(requester, x, y) && filter.isTarget(x, y)) {
+				return createPath(currFlatIdx);
+			}
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				final int neighborX = x + xDeltaArray[i];
+				final int neighborY = y + yDeltaArray[i];
+
+				if (isValidPosition(requester, x, y, neighborX, neighborY, blockedAtStartPartition)
+						&& getHeuristicCost(neighborX, neighborY, cx, cy) < maxDistance) {
+					openNeighbor(currFlatIdx, x, y, neighborX, neighborY, 0);
 				}
 			}
 		}
 
-		if (found) {
-			int pathlength = depthParentHeap[getDepthIdx(getFlatIdx(tx, ty))];
-			Path path = new Path(pathlength);
+		return null;
+	}
+
+	private final void openNeighbor(int currFlatIdx, int x, int y, int neighborX, int neighborY, int heuristicCosts) {
+		final int flatNeighborIdx = getFlatIdx(neighborX, neighborY);
 
-			int idx = pathlength;
-			int parentFlatIdx = targetFlatIdx;
+		if (!closedBitSet.get(flatNeighborIdx)) {
+			final float newCosts = costs[currFlatIdx] + map.getCost(x, y, neighborX, neighborY);
 
-			while (idx > 0) {
-				idx--;
-				path.insertAt(idx, (short) getX(parentFlatIdx), (short) getY(parentFlatIdx));
-				parentFlatIdx = depthParentHeap[getParentIdx(parentFlatIdx)];
+			if (openBitSet.get(flatNeighborIdx)) {
+				final float oldCosts = costs[flatNeighborIdx];
+
+				if (oldCosts > newCosts) {
+					costs[flatNeighborIdx] = newCosts;
+					depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
+					depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
+
+					open.increasedPriority(flatNeighborIdx, oldCosts + heuristicCosts, newCosts + heuristicCosts);
+				}
+
+			} else {
+				costs[flatNeighborIdx] = newCosts;
+				depthParentHeap[getDepthIdx(flatNeighborIdx)] = depthParentHeap[getDepthIdx(currFlatIdx)] + 1;
+				depthParentHeap[getParentIdx(flatNeighborIdx)] = currFlatIdx;
+				openBitSet.set(flatNeighborIdx);
+				open.insert(flatNeighborIdx, newCosts + heuristicCosts);
+
+				map.markAsOpen(neighborX, neighborY);
 			}
+		}
+	}
+
+	private final Path createPath(int targetFlatIdx) {
+		int pathlength = depthParentHeap[getDepthIdx(targetFlatIdx)];
+		Path path = new Path(pathlength);
 
-			return path;
+		int idx = pathlength;
+		int parentFlatIdx = targetFlatIdx;
+
+		while (idx > 0) {
+			idx--;
+			path.insertAt(idx, (short) getX(parentFlatIdx), (short) getY(parentFlatIdx));
+			parentFlatIdx = depthParentHeap[getParentIdx(parentFlatIdx)];
 		}
 
-		return null;
+		return path;
 	}
 
 	private static final int getDepthIdx(int flatIdx) {
@@ -217,7 +264,7 @@ public final class BucketQueueAStar extends AbstractAStar {
 		return flatIdx / width;
 	}
 
-	private final int getHeuristicCost(final int sx, final int sy, final int tx, final int ty) {
+	static int getHeuristicCost(final int sx, final int sy, final int tx, final int ty) {
 		final int dx = (tx - sx);
 		final int dy = (ty - sy);
 		final int absDx = Math.abs(dx);
@@ -0,0 +1,538 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.common.movable.EDirection;
+
+/**
+ * Abstract graph of the map used by the {@link HierarchicalAStar}.
+ * <p>
+ * The map is divided into clusters of {@link #CLUSTER_SIZE}x{@link #CLUSTER_SIZE} positions. Every border between two neighboring clusters is
+ * scanned for runs of transitions, where a free position of one cluster has a free neighbor in the other cluster. Each run is represented by one
+ * or two transitions, whose positions become the entrances of the clusters. The costs between all entrances of a cluster are calculated with a
+ * search restricted to the cluster.
+ * <p>
+ * The graph only depends on the blocked state of the positions. Changed positions have to be reported with {@link #invalidate(int, int)}, the
+ * affected clusters are rebuilt with the next call to {@link #update(IPathCalculatable)}.
+ */
+final class ClusterGraph {
+	static final int CLUSTER_SIZE_SHIFT = 4;
+	static final int CLUSTER_SIZE = 1 << CLUSTER_SIZE_SHIFT;
+	/**
+	 * Upper bound of entrances per cluster, as only positions at the edge of a cluster can be entrances.
+	 */
+	static final int MAX_ENTRANCES = 4 * CLUSTER_SIZE;
+	/**
+	 * Runs of transitions of at least this length are represented by transitions at both of their ends.
+	 */
+	private static final int DOUBLE_TRANSITION_LENGTH = 6;
+
+	private static final int BORDER_RIGHT = 0;
+	private static final int BORDER_BOTTOM = 1;
+	private static final int BORDER_CORNER = 2;
+	private static final int NUMBER_OF_BORDERS = 3;
+
+	private static final byte[] xDeltaArray = EDirection.getXDeltaArray();
+	private static final byte[] yDeltaArray = EDirection.getYDeltaArray();
+
+	private final IAStarPathMap map;
+	private final int width;
+	private final int height;
+	private final int clustersX;
+	private final int clustersY;
+
+	/**
+	 * Transitions of the right, bottom and corner border of every cluster stored as pairs of the position inside the cluster and the position
+	 * inside the neighbor cluster.
+	 */
+	private final int[][] transitions;
+	private final int[][] entrances;
+	private final float[][] distances;
+	/**
+	 * Transitions of every entrance stored as pairs of the node and the flat index of the entrance reached by the transition.
+	 */
+	private final int[][][] links;
+	private final BitSet dirtyClusters;
+
+	private final float[] localCosts = new float[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final int[] localParents = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final boolean[] localClosed = new boolean[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final boolean[] localBlocked = new boolean[CLUSTER_SIZE * CLUSTER_SIZE];
+	private final NodeQueue localQueue = new NodeQueue(CLUSTER_SIZE * CLUSTER_SIZE);
+	private int localBlockedCluster = -1;
+	private int localOriginX;
+	private int localOriginY;
+	private int localMaxX;
+	private int localMaxY;
+
+	ClusterGraph(IAStarPathMap map, int width, int height) {
+		this.map = map;
+		this.width = width;
+		this.height = height;
+		this.clustersX = (width + CLUSTER_SIZE - 1) >> CLUSTER_SIZE_SHIFT;
+		this.clustersY = (height + CLUSTER_SIZE - 1) >> CLUSTER_SIZE_SHIFT;
+
+		int numberOfClusters = clustersX * clustersY;
+		this.transitions = new int[numberOfClusters * NUMBER_OF_BORDERS][];
+		this.entrances = new int[numberOfClusters][];
+		this.distances = new float[numberOfClusters][];
+		this.links = new int[numberOfClusters][][];
+		this.dirtyClusters = new BitSet(numberOfClusters);
+		this.dirtyClusters.set(0, numberOfClusters);
+	}
+
+	/**
+	 * @return The number of node ids used by the graph. The id of an entrance is calculated by {@link #getNode(int, int)}.
+	 */
+	int getNumberOfNodes() {
+		return clustersX * clustersY * MAX_ENTRANCES;
+	}
+
+	static int getNode(int cluster, int entranceIdx) {
+		return cluster * MAX_ENTRANCES + entranceIdx;
+	}
+
+	static int getClusterOfNode(int node) {
+		return node / MAX_ENTRANCES;
+	}
+
+	static int getEntranceIdxOfNode(int node) {
+		return node % MAX_ENTRANCES;
+	}
+
+	int getClusterOf(int x, int y) {
+		return (y >> CLUSTER_SIZE_SHIFT) * clustersX + (x >> CLUSTER_SIZE_SHIFT);
+	}
+
+	int[] getEntrances(int cluster) {
+		return entrances[cluster];
+	}
+
+	float getDistance(int cluster, int fromEntranceIdx, int toEntranceIdx) {
+		return distances[cluster][fromEntranceIdx * entrances[cluster].length + toEntranceIdx];
+	}
+
+	/**
+	 * Marks the cluster of the given position to be rebuilt.
+	 */
+	void invalidate(int x, int y) {
+		dirtyClusters.set(getClusterOf(x, y));
+	}
+
+	/**
+	 * Rebuilds all invalidated clusters.
+	 *
+	 * @param requester
+	 *            Requester used to check the blocked state of positions. It must not need the players ground.
+	 */
+	void update(IPathCalculatable requester) {
+		localBlockedCluster = -1; // the blocked state may have changed since the last call
+
+		if (dirtyClusters.isEmpty()) {
+			return;
+		}
+
+		BitSet affectedClusters = (BitSet) dirtyClusters.clone();
+		for (int cluster = dirtyClusters.nextSetBit(0); cluster >= 0; cluster = dirtyClusters.nextSetBit(cluster + 1)) {
+			int clusterX = cluster % clustersX;
+			int clusterY = cluster / clustersX;
+
+			for (int border = 0; border < NUMBER_OF_BORDERS; border++) {
+				updateTransitions(requester, clusterX, clusterY, border, affectedClusters);
+			}
+			updateTransitions(requester, clusterX - 1, clusterY, BORDER_RIGHT, affectedClusters);
+			updateTransitions(requester, clusterX, clusterY - 1, BORDER_BOTTOM, affectedClusters);
+			updateTransitions(requester, clusterX - 1, clusterY - 1, BORDER_CORNER, affectedClusters);
+		}
+
+		BitSet linkedClusters = (BitSet) affectedClusters.clone();
+		for (int cluster = affectedClusters.nextSetBit(0); cluster >= 0; cluster = affectedClusters.nextSetBit(cluster + 1)) {
+			int[] newEntrances = calculateEntrances(cluster);
+			if (dirtyClusters.get(cluster) || !Arrays.equals(newEntrances, entrances[cluster])) {
+				entrances[cluster] = newEntrances;
+				distances[cluster] = calculateDistances(requester, cluster);
+				addNeighborClusters(cluster, linkedClusters); // the links of the neighbors contain the indexes of the entrances
+			}
+		}
+		for (int cluster = linkedClusters.nextSetBit(0); cluster >= 0; cluster = linkedClusters.nextSetBit(cluster + 1)) {
+			links[cluster] = calculateLinks(cluster);
+		}
+
+		dirtyClusters.clear();
+	}
+
+	/**
+	 * Adds the clusters that can have transitions to the given cluster.
+	 */
+	private void addNeighborClusters(int cluster, BitSet clusters) {
+		int clusterX = cluster % clustersX;
+		int clusterY = cluster / clustersX;
+		boolean hasLeftNeighbor = clusterX > 0;
+		boolean hasTopNeighbor = clusterY > 0;
+		boolean hasRightNeighbor = clusterX + 1 < clustersX;
+		boolean hasBottomNeighbor = clusterY + 1 < clustersY;
+
+		if (hasLeftNeighbor) {
+			clusters.set(cluster - 1);
+		}
+		if (hasTopNeighbor) {
+			clusters.set(cluster - clustersX);
+		}
+		if (hasLeftNeighbor && hasTopNeighbor) {
+			clusters.set(cluster - clustersX - 1);
+		}
+		if (hasRightNeighbor) {
+			clusters.set(cluster + 1);
+		}
+		if (hasBottomNeighbor) {
+			clusters.set(cluster + clustersX);
+		}
+		if (hasRightNeighbor && hasBottomNeighbor) {
+			clusters.set(cluster + clustersX + 1);
+		}
+	}
+
+	/**
+	 * @return The transitions leaving the given entrance stored as pairs of the node and the flat index of the reached entrance.
+	 */
+	int[] getLinks(int cluster, int entranceIdx) {
+		return links[cluster][entranceIdx];
+	}
+
+	private int[][] calculateLinks(int cluster) {
+		int clusterX = cluster % clustersX;
+		int clusterY = cluster / clustersX;
+		int[] clusterEntrances = entrances[cluster];
+		int[][] clusterLinks = new int[clusterEntrances.length][];
+		int[] buffer = new int[4 * NUMBER_OF_BORDERS * 2];
+
+		for (int i = 0; i < clusterEntrances.length; i++) {
+			int cell = clusterEntrances[i];
+			int count = collectTransitions(clusterX, clusterY, BORDER_RIGHT, cell, true, buffer, 0);
+			count = collectTransitions(clusterX, clusterY, BORDER_BOTTOM, cell, true, buffer, count);
+			count = collectTransitions(clusterX, clusterY, BORDER_CORNER, cell, true, buffer, count);
+			count = collectTransitions(clusterX - 1, clusterY, BORDER_RIGHT, cell, false, buffer, count);
+			count = collectTransitions(clusterX, clusterY - 1, BORDER_BOTTOM, cell, false, buffer, count);
+			count = collectTransitions(clusterX - 1, clusterY - 1, BORDER_CORNER, cell, false, buffer, count);
+			clusterLinks[i] = Arrays.copyOf(buffer, count);
+		}
+		return clusterLinks;
+	}
+
+	private int collectTransitions(int clusterX, int clusterY, int border, int cell, boolean owner, int[] buffer, int count) {
+		if (clusterX < 0 || clusterY < 0) {
+			return count;
+		}
+		int[] borderTransitions = transitions[getBorderIdx(clusterX, clusterY, border)];
+		if (borderTransitions == null) {
+			return count;
+		}
+
+		for (int i = 0; i < borderTransitions.length; i += 2) {
+			int ownCell = borderTransitions[owner ? i : i + 1];
+			if (ownCell == cell) {
+				int otherCell = borderTransitions[owner ? i + 1 : i];
+				int otherCluster = getClusterOf(otherCell % width, otherCell / width);
+				buffer[count++] = getNode(otherCluster, Arrays.binarySearch(entrances[otherCluster], otherCell));
+				buffer[count++] = otherCell;
+			}
+		}
+		return count;
+	}
+
+	private int getBorderIdx(int clusterX, int clusterY, int border) {
+		return (clusterY * clustersX + clusterX) * NUMBER_OF_BORDERS + border;
+	}
+
+	private void updateTransitions(IPathCalculatable requester, int clusterX, int clusterY, int border, BitSet affectedClusters) {
+		if (clusterX < 0 || clusterY < 0) {
+			return;
+		}
+		boolean hasRightNeighbor = clusterX + 1 < clustersX;
+		boolean hasBottomNeighbor = clusterY + 1 < clustersY;
+
+		int minX = clusterX << CLUSTER_SIZE_SHIFT;
+		int minY = clusterY << CLUSTER_SIZE_SHIFT;
+		int maxX = Math.min(width, minX + CLUSTER_SIZE) - 1;
+		int maxY = Math.min(height, minY + CLUSTER_SIZE) - 1;
+
+		TransitionsBuilder builder = new TransitionsBuilder();
+		switch (border) {
+		case BORDER_RIGHT:
+			if (!hasRightNeighbor) {
+				return;
+			}
+			for (int y = minY; y <= maxY; y++) {
+				int neighborY = -1;
+				if (!isBlocked(requester, maxX, y)) {
+					if (!isBlocked(requester, maxX + 1, y)) {
+						neighborY = y;
+					} else if (y < maxY && !isBlocked(requester, maxX + 1, y + 1)) {
+						neighborY = y + 1;
+					}
+				}
+				builder.addCandidate(neighborY, getFlatIdx(maxX, y), neighborY >= 0 ? getFlatIdx(maxX + 1, neighborY) : -1);
+			}
+			affectedClusters.set(getClusterOf(maxX + 1, minY));
+			break;
+
+		case BORDER_BOTTOM:
+			if (!hasBottomNeighbor) {
+				return;
+			}
+			for (int x = minX; x <= maxX; x++) {
+				int neighborX = -1;
+				if (!isBlocked(requester, x, maxY)) {
+					if (!isBlocked(requester, x, maxY + 1)) {
+						neighborX = x;
+					} else if (x < maxX && !isBlocked(requester, x + 1, maxY + 1)) {
+						neighborX = x + 1;
+					}
+				}
+				builder.addCandidate(neighborX, getFlatIdx(x, maxY), neighborX >= 0 ? getFlatIdx(neighborX, maxY + 1) : -1);
+			}
+			affectedClusters.set(getClusterOf(minX, maxY + 1));
+			break;
+
+		case BORDER_CORNER:
+			if (!hasRightNeighbor || !hasBottomNeighbor) {
+				return;
+			}
+			if (!isBlocked(requester, maxX, maxY) && !isBlocked(requester, maxX + 1, maxY + 1)) {
+				builder.addCandidate(0, getFlatIdx(maxX, maxY), getFlatIdx(maxX + 1, maxY + 1));
+			}
+			affectedClusters.set(getClusterOf(maxX + 1, maxY + 1));
+			break;
+		}
+
+		transitions[getBorderIdx(clusterX, clusterY, border)] = builder.build();
+		affectedClusters.set(clusterY * clustersX + clusterX);
+	}
+
+	private int[] calculateEntrances(int cluster) {
+		int clusterX = cluster % clustersX;
+		int clusterY = cluster / clustersX;
+
+		int[] cells = new int[2 * MAX_ENTRANCES];
+		int count = addTransitionCells(clusterX, clusterY, BORDER_RIGHT, true, cells, 0);
+		count = addTransitionCells(clusterX, clusterY, BORDER_BOTTOM, true, cells, count);
+		count = addTransitionCells(clusterX, clusterY, BORDER_CORNER, true, cells, count);
+		count = addTransitionCells(clusterX - 1, clusterY, BORDER_RIGHT, false, cells, count);
+		count = addTransitionCells(clusterX, clusterY - 1, BORDER_BOTTOM, false, cells, count);
+		count = addTransitionCells(clusterX - 1, clusterY - 1, BORDER_CORNER, false, cells, count);
+
+		Arrays.sort(cells, 0, count);
+		int uniqueCount = 0;
+		for (int i = 0; i < count; i++) {
+			if (uniqueCount == 0 || cells[uniqueCount - 1] != cells[i]) {
+				cells[uniqueCount++] = cells[i];
+			}
+		}
+		return Arrays.copyOf(cells, uniqueCount);
+	}
+
+	private int addTransitionCells(int clusterX, int clusterY, int border, boolean owner, int[] cells, int count) {
+		if (clusterX < 0 || clusterY < 0) {
+			return count;
+		}
+		int[] borderTransitions = transitions[getBorderIdx(clusterX, clusterY, border)];
+		if (borderTransitions != null) {
+			for (int i = owner ? 0 : 1; i < borderTransitions.length; i += 2) {
+				cells[count++] = borderTransitions[i];
+			}
+		}
+		return count;
+	}
+
+	private float[] calculateDistances(IPathCalculatable requester, int cluster) {
+		int[] clusterEntrances = entrances[cluster];
+		int numberOfEntrances = clusterEntrances.length;
+		float[] clusterDistances = new float[numberOfEntrances * numberOfEntrances];
+
+		for (int from = 0; from < numberOfEntrances; from++) {
+			searchInCluster(requester, cluster, clusterEntrances[from], -1, false);
+			for (int to = 0; to < numberOfEntrances; to++) {
+				clusterDistances[from * numberOfEntrances + to] = getLocalCost(clusterEntrances[to]);
+			}
+		}
+		return clusterDistances;
+	}
+
+	/**
+	 * Calculates the costs from (or to if reverse is true) the given position to the positions of the given cluster without leaving the cluster.
+	 * The results can be read with {@link #getLocalCost(int)} and {@link #getLocalParent(int)} until the next search.
+	 *
+	 * @param requester
+	 *            Requester used to check the blocked state of positions.
+	 * @param cluster
+	 *            The cluster to search in.
+	 * @param sourceCell
+	 *            The flat index of the position to start at.
+	 * @param targetCell
+	 *            The flat index of the position the search is directed to and stops at or -1 to search all positions.
+	 * @param reverse
+	 *            If true, the costs of the steps are taken in the opposite direction, so the results are the costs to reach the source.
+	 */
+	void searchInCluster(IPathCalculatable requester, int cluster, int sourceCell, int targetCell, boolean reverse) {
+		if (cluster != localBlockedCluster) {
+			initLocalBlocked(requester, cluster);
+		}
+
+		Arrays.fill(localCosts, Float.POSITIVE_INFINITY);
+		Arrays.fill(localClosed, false);
+		localQueue.clear();
+
+		int source = getLocalIdx(sourceCell % width, sourceCell / width);
+		int target = -1;
+		int targetX = 0;
+		int targetY = 0;
+		if (targetCell >= 0) { // direct the search to the target
+			targetX = targetCell % width;
+			targetY = targetCell / width;
+			target = getLocalIdx(targetX, targetY);
+		}
+		localCosts[source] = 0;
+		localParents[source] = -1;
+		localQueue.insertOrDecrease(source, 0);
+
+		while (!localQueue.isEmpty()) {
+			int current = localQueue.deleteMin();
+			localClosed[current] = true;
+			if (current == target) {
+				break;
+			}
+
+			int x = localOriginX + (current & (CLUSTER_SIZE - 1));
+			int y = localOriginY + (current >> CLUSTER_SIZE_SHIFT);
+			float currentCosts = localCosts[current];
+
+			for (int i = 0; i < EDirection.NUMBER_OF_DIRECTIONS; i++) {
+				int neighborX = x + xDeltaArray[i];
+				int neighborY = y + yDeltaArray[i];
+
+				if (localOriginX <= neighborX && neighborX <= localMaxX && localOriginY <= neighborY && neighborY <= localMaxY) {
+					int neighbor = getLocalIdx(neighborX, neighborY);
+					if (!localBlocked[neighbor] && !localClosed[neighbor]) {
+						float stepCosts = reverse ? map.getCost(neighborX, neighborY, x, y) : map.getCost(x, y, neighborX, neighborY);
+						float newCosts = currentCosts + stepCosts;
+						if (newCosts < localCosts[neighbor]) {
+							localCosts[neighbor] = newCosts;
+							localParents[neighbor] = current;
+							int heuristicCosts = target >= 0 ? BucketQueueAStar.getHeuristicCost(neighborX, neighborY, targetX, targetY) : 0;
+							localQueue.insertOrDecrease(neighbor, newCosts + heuristicCosts);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void initLocalBlocked(IPathCalculatable requester, int cluster) {
+		localOriginX = (cluster % clustersX) << CLUSTER_SIZE_SHIFT;
+		localOriginY = (cluster / clustersX) << CLUSTER_SIZE_SHIFT;
+		localMaxX = Math.min(width, localOriginX + CLUSTER_SIZE) - 1;
+		localMaxY = Math.min(height, localOriginY + CLUSTER_SIZE) - 1;
+
+		for (int y = localOriginY; y <= localMaxY; y++) {
+			for (int x = localOriginX; x <= localMaxX; x++) {
+				localBlocked[getLocalIdx(x, y)] = isBlocked(requester, x, y);
+			}
+		}
+		localBlockedCluster = cluster;
+	}
+
+	/**
+	 * @return The costs of the given position calculated by the last {@link #searchInCluster(IPathCalculatable, int, int, int, boolean)} or
+	 *         {@link Float#POSITIVE_INFINITY} if it is not reachable.
+	 */
+	float getLocalCost(int cell) {
+		return localCosts[getLocalIdx(cell % width, cell / width)];
+	}
+
+	/**
+	 * @return The flat index of the predecessor of the given position on the way from the source of the last search or -1 for the source itself.
+	 */
+	int getLocalParent(int cell) {
+		int parent = localParents[getLocalIdx(cell % width, cell / width)];
+		if (parent < 0) {
+			return -1;
+		}
+		return getFlatIdx(localOriginX + (parent & (CLUSTER_SIZE - 1)), localOriginY + (parent >> CLUSTER_SIZE_SHIFT));
+	}
+
+	private int getLocalIdx(int x, int y) {
+		return ((y - localOriginY) << CLUSTER_SIZE_SHIFT) + x - localOriginX;
+	}
+
+	private boolean isBlocked(IPathCalculatable requester, int x, int y) {
+		return map.isBlocked(requester, x, y);
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	/**
+	 * Groups the transition candidates of a border into runs of neighboring transitions and selects the representing transitions of every run.
+	 */
+	private static final class TransitionsBuilder {
+		private final int[] result = new int[4 * CLUSTER_SIZE];
+		private int resultSize = 0;
+
+		private int runLength = 0;
+		private int lastNeighborCoordinate;
+		private final int[] runCells = new int[2 * CLUSTER_SIZE];
+
+		/**
+		 * @param neighborCoordinate
+		 *            Coordinate of the neighbor position along the border or -1 if there is no transition at this candidate.
+		 */
+		void addCandidate(int neighborCoordinate, int cell, int neighborCell) {
+			if (neighborCoordinate < 0 || (runLength > 0 && neighborCoordinate - lastNeighborCoordinate > 1)) {
+				finishRun();
+			}
+			if (neighborCoordinate >= 0) {
+				runCells[2 * runLength] = cell;
+				runCells[2 * runLength + 1] = neighborCell;
+				runLength++;
+				lastNeighborCoordinate = neighborCoordinate;
+			}
+		}
+
+		private void finishRun() {
+			if (runLength >= DOUBLE_TRANSITION_LENGTH) {
+				addTransition(0);
+				addTransition(runLength - 1);
+			} else if (runLength > 0) {
+				addTransition((runLength - 1) / 2);
+			}
+			runLength = 0;
+		}
+
+		private void addTransition(int runIdx) {
+			result[resultSize++] = runCells[2 * runIdx];
+			result[resultSize++] = runCells[2 * runIdx + 1];
+		}
+
+		int[] build() {
+			finishRun();
+			return Arrays.copyOf(result, resultSize);
+		}
+	}
+}
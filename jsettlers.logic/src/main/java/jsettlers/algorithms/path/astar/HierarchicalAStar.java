@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+
+import jsettlers.algorithms.AlgorithmConstants;
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Hierarchical AStar (HPA*) for long paths on the hex grid.
+ * <p>
+ * Long requests are first solved on the abstract {@link ClusterGraph} of the map and the resulting abstract path is refined to a {@link Path} by
+ * searches inside the clusters. Short requests, requesters needing the players ground and requests the abstract graph can not solve are delegated
+ * to a {@link BucketQueueAStar}.
+ * <p>
+ * The abstract graph is built with the requester of the path, so the blocked state of the {@link IAStarPathMap} must not depend on requesters that
+ * don't need the players ground. Changes of the blocked state have to be reported with {@link #blockedChanged(int, int)}. The whole graph should be
+ * built with {@link #buildGraph()} while the map is loaded, otherwise the first long search builds it.
+ * <p>
+ * NOTE: The paths are not guaranteed to be the shortest ones, as they have to pass the entrances of the clusters. On random maps they are about
+ * 1-2% longer than the paths of the {@link BucketQueueAStar}, HierarchicalAStarTest checks that they are at most 5% longer.
+ */
+public final class HierarchicalAStar extends AbstractAStar {
+	/**
+	 * The heuristic costs are weighted slightly higher to prefer nodes closer to the target if several nodes have the same estimated costs.
+	 */
+	private static final float HEURISTIC_WEIGHT = 1.001f;
+
+	/**
+	 * Requester used to build the graph before any path is requested. As it doesn't need the players ground, it is treated like the requesters of
+	 * the long searches.
+	 */
+	private static final IPathCalculatable GRAPH_REQUESTER = new IPathCalculatable() {
+		private static final long serialVersionUID = -4410723349187745513L;
+
+		@Override
+		public ShortPoint2D getPos() {
+			return null;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return null;
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	};
+
+	private final IAStarPathMap map;
+	private final short width;
+	private final short height;
+
+	private final BucketQueueAStar aStar;
+	private final ClusterGraph graph;
+
+	private final int startNode;
+	private final int targetNode;
+	private final float[] costs;
+	private final int[] parents;
+	private final int[] visitedInSearch;
+	private final int[] closedInSearch;
+	private int searchId = 0;
+	private final NodeQueue open;
+
+	public HierarchicalAStar(IAStarPathMap map, short width, short height) {
+		this.map = map;
+		this.width = width;
+		this.height = height;
+
+		this.aStar = new BucketQueueAStar(map, width, height);
+		this.graph = new ClusterGraph(map, width, height);
+
+		int numberOfNodes = graph.getNumberOfNodes() + 2;
+		this.startNode = numberOfNodes - 2;
+		this.targetNode = numberOfNodes - 1;
+		this.costs = new float[numberOfNodes];
+		this.parents = new int[numberOfNodes];
+		this.visitedInSearch = new int[numberOfNodes];
+		this.closedInSearch = new int[numberOfNodes];
+		this.open = new NodeQueue(numberOfNodes);
+	}
+
+	/**
+	 * Informs the path finder that the blocked state of the given position has changed.
+	 *
+	 * @param x
+	 *            x coordinate
+	 * @param y
+	 *            y coordinate
+	 */
+	public void blockedChanged(int x, int y) {
+		graph.invalidate(x, y);
+	}
+
+	/**
+	 * Builds all parts of the abstract graph that have not been built yet or have been invalidated. This should be called when the map has been
+	 * loaded, so the game is not stalled by building the whole graph with the first long search.
+	 */
+	public void buildGraph() {
+		graph.update(GRAPH_REQUESTER);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, ShortPoint2D target) {
+		ShortPoint2D pos = requester.getPos();
+		return findPath(requester, pos.x, pos.y, target.x, target.y);
+	}
+
+	@Override
+	public Path findPath(IPathCalculatable requester, short sx, short sy, short tx, short ty) {
+		if (requester.needsPlayersGround() || !isInBounds(sx, sy) || !isInBounds(tx, ty)
+				|| BucketQueueAStar.getHeuristicCost(sx, sy, tx, ty) < AlgorithmConstants.HIERARCHICAL_PATHFINDING_MIN_DISTANCE
+				|| map.isBlocked(requester, sx, sy) || map.isBlocked(requester, tx, ty)
+				|| map.getBlockedPartition(sx, sy) != map.getBlockedPartition(tx, ty)) {
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+
+		graph.update(requester);
+
+		Path path = findHierarchicalPath(requester, sx, sy, tx, ty);
+		if (path != null) {
+			return path;
+		} else { // the abstract graph is only an approximation of the map, let the AStar decide if the target is reachable
+			return aStar.findPath(requester, sx, sy, tx, ty);
+		}
+	}
+
+	@Override
+	public Path findPathToNearest(IPathCalculatable requester, short sx, short sy, short cx, short cy, int maxDistance, IPathTargetFilter filter) {
+		return aStar.findPathToNearest(requester, sx, sy, cx, cy, maxDistance, filter);
+	}
+
+	private Path findHierarchicalPath(IPathCalculatable requester, int sx, int sy, int tx, int ty) {
+		int startCluster = graph.getClusterOf(sx, sy);
+		int targetCluster = graph.getClusterOf(tx, ty);
+		int startCell = getFlatIdx(sx, sy);
+		int targetCell = getFlatIdx(tx, ty);
+
+		int[] targetEntrances = graph.getEntrances(targetCluster);
+		float[] targetCosts = new float[targetEntrances.length];
+		graph.searchInCluster(requester, targetCluster, targetCell, -1, true);
+		for (int i = 0; i < targetEntrances.length; i++) {
+			targetCosts[i] = graph.getLocalCost(targetEntrances[i]);
+		}
+
+		searchId++;
+		open.clear();
+
+		int[] startEntrances = graph.getEntrances(startCluster);
+		graph.searchInCluster(requester, startCluster, startCell, -1, false);
+		visit(startNode, -1, 0, 0);
+		closedInSearch[startNode] = searchId;
+		for (int i = 0; i < startEntrances.length; i++) {
+			relax(startNode, ClusterGraph.getNode(startCluster, i), startEntrances[i], graph.getLocalCost(startEntrances[i]), tx, ty);
+		}
+
+		while (!open.isEmpty()) {
+			int node = open.deleteMin();
+			closedInSearch[node] = searchId;
+
+			if (node == targetNode) {
+				return refinePath(requester, startCell, targetCell);
+			}
+
+			int cluster = ClusterGraph.getClusterOfNode(node);
+			int entranceIdx = ClusterGraph.getEntranceIdxOfNode(node);
+			int[] clusterEntrances = graph.getEntrances(cluster);
+			int cell = clusterEntrances[entranceIdx];
+			float nodeCosts = costs[node];
+
+			for (int i = 0; i < clusterEntrances.length; i++) {
+				if (i != entranceIdx) {
+					relax(node, ClusterGraph.getNode(cluster, i), clusterEntrances[i], nodeCosts + graph.getDistance(cluster, entranceIdx, i), tx, ty);
+				}
+			}
+
+			int[] links = graph.getLinks(cluster, entranceIdx);
+			for (int i = 0; i < links.length; i += 2) {
+				int neighborCell = links[i + 1];
+				float stepCosts = map.getCost(cell % width, cell / width, neighborCell % width, neighborCell / width);
+				relax(node, links[i], neighborCell, nodeCosts + stepCosts, tx, ty);
+			}
+
+			if (cluster == targetCluster) {
+				relax(node, targetNode, targetCell, nodeCosts + targetCosts[entranceIdx], tx, ty);
+			}
+		}
+
+		return null;
+	}
+
+	private void relax(int fromNode, int node, int cell, float newCosts, int tx, int ty) {
+		if (newCosts == Float.POSITIVE_INFINITY || closedInSearch[node] == searchId) {
+			return;
+		}
+
+		if (visitedInSearch[node] != searchId || newCosts < costs[node]) {
+			int heuristicCosts = BucketQueueAStar.getHeuristicCost(cell % width, cell / width, tx, ty);
+			visit(node, fromNode, newCosts, heuristicCosts);
+		}
+	}
+
+	private void visit(int node, int parent, float newCosts, int heuristicCosts) {
+		visitedInSearch[node] = searchId;
+		costs[node] = newCosts;
+		parents[node] = parent;
+		if (node != startNode) {
+			open.insertOrDecrease(node, newCosts + HEURISTIC_WEIGHT * heuristicCosts);
+		}
+	}
+
+	private Path refinePath(IPathCalculatable requester, int startCell, int targetCell) {
+		int numberOfNodes = 0;
+		for (int node = targetNode; node != startNode; node = parents[node]) {
+			numberOfNodes++;
+		}
+		int[] nodes = new int[numberOfNodes];
+		for (int node = targetNode, i = numberOfNodes - 1; node != startNode; node = parents[node], i--) {
+			nodes[i] = node;
+		}
+
+		CellList cells = new CellList();
+		int currentCell = startCell;
+		int currentCluster = graph.getClusterOf(startCell % width, startCell / width);
+
+		for (int node : nodes) {
+			int nextCell;
+			int nextCluster;
+			if (node == targetNode) {
+				nextCell = targetCell;
+				nextCluster = graph.getClusterOf(targetCell % width, targetCell / width);
+			} else {
+				nextCluster = ClusterGraph.getClusterOfNode(node);
+				nextCell = graph.getEntrances(nextCluster)[ClusterGraph.getEntranceIdxOfNode(node)];
+			}
+
+			if (nextCluster == currentCluster) {
+				graph.searchInCluster(requester, currentCluster, currentCell, nextCell, false);
+				cells.addLocalPath(currentCell, nextCell);
+			} else {
+				cells.add(nextCell);
+			}
+
+			currentCell = nextCell;
+			currentCluster = nextCluster;
+		}
+
+		Path path = new Path(cells.size);
+		for (int i = 0; i < cells.size; i++) {
+			int cell = cells.cells[i];
+			path.insertAt(i, (short) (cell % width), (short) (cell / width));
+		}
+		return path;
+	}
+
+	private boolean isInBounds(int x, int y) {
+		return 0 <= x && x < width && 0 <= y && y < height;
+	}
+
+	private int getFlatIdx(int x, int y) {
+		return y * width + x;
+	}
+
+	/**
+	 * Collects the positions of a refined path.
+	 */
+	private final class CellList {
+		private int[] cells = new int[256];
+		private int size = 0;
+
+		void add(int cell) {
+			if (size == cells.length) {
+				cells = Arrays.copyOf(cells, 2 * size);
+			}
+			cells[size++] = cell;
+		}
+
+		/**
+		 * Adds the path found by the last search inside a cluster from its source to the given target excluding the source.
+		 */
+		void addLocalPath(int sourceCell, int targetCell) {
+			int start = size;
+			for (int cell = targetCell; cell != sourceCell; cell = graph.getLocalParent(cell)) {
+				add(cell);
+			}
+			for (int i = start, j = size - 1; i < j; i++, j--) { // the positions have been added from the target to the source
+				int temp = cells[i];
+				cells[i] = cells[j];
+				cells[j] = temp;
+			}
+		}
+	}
+}
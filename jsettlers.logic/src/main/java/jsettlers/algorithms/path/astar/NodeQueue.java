@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of integer node ids with float ranks supporting to decrease the rank of a queued node.
+ * <p>
+ * Nodes with equal ranks are ordered by their ids, so the order in which nodes are removed does only depend on the inserted values.
+ */
+final class NodeQueue {
+	private final int[] heap;
+	private final int[] heapIndexes;
+	private final float[] ranks;
+	private int size = 0;
+
+	NodeQueue(int maxNumberOfIds) {
+		this.heap = new int[maxNumberOfIds];
+		this.heapIndexes = new int[maxNumberOfIds];
+		this.ranks = new float[maxNumberOfIds];
+		Arrays.fill(heapIndexes, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			heapIndexes[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Inserts the given node or decreases its rank if it is already queued with a higher rank.
+	 */
+	void insertOrDecrease(int id, float rank) {
+		int index = heapIndexes[id];
+		if (index < 0) {
+			ranks[id] = rank;
+			heap[size] = id;
+			heapIndexes[id] = size;
+			siftUp(size++);
+		} else if (rank < ranks[id]) {
+			ranks[id] = rank;
+			siftUp(index);
+		}
+	}
+
+	int deleteMin() {
+		int min = heap[0];
+		heapIndexes[min] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			heapIndexes[heap[0]] = 0;
+			siftDown(0);
+		}
+		return min;
+	}
+
+	private void siftUp(int index) {
+		int id = heap[index];
+		while (index > 0) {
+			int parentIndex = (index - 1) / 2;
+			int parent = heap[parentIndex];
+			if (!isLess(id, parent)) {
+				break;
+			}
+			heap[index] = parent;
+			heapIndexes[parent] = index;
+			index = parentIndex;
+		}
+		heap[index] = id;
+		heapIndexes[id] = index;
+	}
+
+	private void siftDown(int index) {
+		int id = heap[index];
+		while (true) {
+			int childIndex = 2 * index + 1;
+			if (childIndex >= size) {
+				break;
+			}
+			if (childIndex + 1 < size && isLess(heap[childIndex + 1], heap[childIndex])) {
+				childIndex++;
+			}
+			int child = heap[childIndex];
+			if (!isLess(child, id)) {
+				break;
+			}
+			heap[index] = child;
+			heapIndexes[child] = index;
+			index = childIndex;
+		}
+		heap[index] = id;
+		heapIndexes[id] = index;
+	}
+
+	private boolean isLess(int id1, int id2) {
+		return ranks[id1] < ranks[id2] || (ranks[id1] == ranks[id2] && id1 < id2);
+	}
+}
@@ -28,6 +28,13 @@ import jsettlers.common.position.ShortPoint2D;
 
 /**
  * this class implements a strict dijkstra algorithm
+ * <p>
+ * If a {@link SearchTypeIndex} is given, searches for the search types of the index only look at the candidates of the index instead of every
+ * position of the rings around the center. The candidates are checked in the same order as the rings are walked, so the result is the same.
+ * <p>
+ * The ring search has to search a path to every fitting position until one can be reached. For the flooded search types, the positions are
+ * instead searched with a single flood from the requester (see {@link AbstractAStar#findPathToNearest}) if the requester is inside of the searched
+ * area. The flood finds the fitting position with the shortest path from the requester instead of the one nearest to the center.
  * 
  * @author Andreas Eberle
  * 
@@ -40,12 +47,35 @@ public final class DijkstraAlgorithm {
 	private final IDijkstraPathMap map;
 	private final short height, width;
 	private final AbstractAStar aStar;
+	private final SearchTypeIndex searchTypeIndex;
+	private final Set<ESearchType> floodedSearchTypes;
 
 	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height) {
+		this(map, aStar, width, height, null);
+	}
+
+	/**
+	 * @param searchTypeIndex
+	 *            The index of the candidates of some search types or <code>null</code> if every position has to be checked.
+	 */
+	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height, SearchTypeIndex searchTypeIndex) {
+		this(map, aStar, width, height, searchTypeIndex, EnumSet.noneOf(ESearchType.class));
+	}
+
+	/**
+	 * @param searchTypeIndex
+	 *            The index of the candidates of some search types or <code>null</code> if every position has to be checked.
+	 * @param floodedSearchTypes
+	 *            The search types that are searched with a flood from the requester.
+	 */
+	public DijkstraAlgorithm(IDijkstraPathMap map, AbstractAStar aStar, short width, short height, SearchTypeIndex searchTypeIndex,
+			Set<ESearchType> floodedSearchTypes) {
 		this.map = map;
 		this.aStar = aStar;
 		this.width = width;
 		this.height = height;
+		this.searchTypeIndex = searchTypeIndex;
+		this.floodedSearchTypes = floodedSearchTypes;
 	}
 
 	public final Path find(final IPathCalculatable requester, final short cX, final short cY, final short minRadius, final short maxRadius,
@@ -54,6 +84,13 @@ public final class DijkstraAlgorithm {
 			throw new InvalidStartPositionException("dijkstra center position is not in bounds!", cX, cY);
 		}
 
+		if (floodedSearchTypes.contains(type)) {
+			ShortPoint2D pos = requester.getPos();
+			if (SearchTypeIndex.getHexDistance(pos.x - cX, pos.y - cY) < maxRadius) {
+				return flood(requester, pos, cX, cY, minRadius, maxRadius, type);
+			}
+		}
+
 		// check center position (special case for minRadius <= 0
 		if (minRadius <= 0) {
 			map.setDijkstraSearched(cX, cY);
@@ -64,6 +101,10 @@ public final class DijkstraAlgorithm {
 			}
 		}
 
+		if (searchTypeIndex != null && searchTypeIndex.isIndexed(type)) {
+			return findCandidate(requester, cX, cY, minRadius, maxRadius, type);
+		}
+
 		for (short radius = minRadius; radius < maxRadius; radius++) {
 			short x = cX, y = (short) (cY - radius);
 			for (byte direction = 0; direction < 6; direction++) {
@@ -87,6 +128,38 @@ public final class DijkstraAlgorithm {
 		return null;
 	}
 
+	private Path findCandidate(IPathCalculatable requester, short cX, short cY, short minRadius, short maxRadius, ESearchType type) {
+		searchTypeIndex.startSearch(type, cX, cY, minRadius, maxRadius);
+
+		for (int index = searchTypeIndex.nextCandidate(); index >= 0; index = searchTypeIndex.nextCandidate()) {
+			short x = (short) (index % width);
+			short y = (short) (index / width);
+			map.setDijkstraSearched(x, y);
+			if (map.fitsSearchType(x, y, type, requester)) {
+				Path path = findPathTo(requester, x, y);
+				if (path != null) {
+					return path;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Floods the area around the center from the requester. The flood may leave the searched area up to the max radius to find ways around
+	 * obstacles.
+	 */
+	private Path flood(IPathCalculatable requester, ShortPoint2D pos, short cX, short cY, short minRadius, short maxRadius, ESearchType type) {
+		return aStar.findPathToNearest(requester, pos.x, pos.y, cX, cY, 2 * maxRadius, (x, y) -> {
+			int radius = SearchTypeIndex.getHexDistance(x - cX, y - cY);
+			if (radius < minRadius || radius >= maxRadius) {
+				return false;
+			}
+			map.setDijkstraSearched(x, y);
+			return map.fitsSearchType(x, y, type, requester);
+		});
+	}
+
 	private final Path findPathTo(IPathCalculatable requester, short tx, short ty) {
 		ShortPoint2D pos = requester.getPos();
 		return aStar.findPath(requester, pos.x, pos.y, tx, ty);
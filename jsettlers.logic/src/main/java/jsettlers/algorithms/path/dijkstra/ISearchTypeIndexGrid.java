@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import jsettlers.common.material.ESearchType;
+
+/**
+ * The grid the {@link SearchTypeIndex} is calculated from.
+ *
+ */
+public interface ISearchTypeIndexGrid {
+
+	/**
+	 * Checks the part of {@link IDijkstraPathMap#fitsSearchType(int, int, ESearchType, jsettlers.algorithms.path.IPathCalculatable)} that does not
+	 * depend on the requester and on the marks of the positions.
+	 *
+	 * @return <code>false</code> if the position can never fit the search type until the grid reports a change near it.
+	 */
+	boolean isSearchTypeCandidate(int x, int y, ESearchType type);
+}
@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+
+import jsettlers.common.material.ESearchType;
+
+/**
+ * Keeps the positions that may fit a search type for a fixed set of search types, so the {@link DijkstraAlgorithm} only needs to look at these
+ * candidates instead of every position around the center of a search.
+ * <p />
+ * The candidates of a search type are stored in a bit set. The map is divided into blocks of {@value #BLOCK_SIZE}x{@value #BLOCK_SIZE}
+ * positions with a counter of candidates, so a search can skip empty blocks. A change reported by the grid marks the surrounding positions,
+ * which are recalculated before the next search. The first search calculates all positions.
+ * <p />
+ * The candidates of a search are returned in the same order the {@link DijkstraAlgorithm} walks the hex rings around the center: by increasing
+ * radius and, on the same radius, in the order of the ring starting at the top.
+ *
+ */
+public final class SearchTypeIndex {
+	private static final int BLOCK_SHIFT = 3;
+	static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int CHANGE_RADIUS = 1;
+
+	private static final int RING_INDEX_SHIFT = 30;
+	private static final int RADIUS_SHIFT = 48;
+	private static final long POSITION_MASK = (1L << RING_INDEX_SHIFT) - 1;
+
+	private final ISearchTypeIndexGrid grid;
+	private final short width;
+	private final short height;
+	private final int blocksPerRow;
+	private final int blocksPerColumn;
+	private final ESearchType[] indexedTypes;
+	private final BitSet[] candidates;
+	private final int[][] blockCounts;
+
+	private BitSet changedPositions;
+	private BitSet updatedPositions;
+
+	private BitSet searchedCandidates;
+	private int searchCenterX;
+	private int searchCenterY;
+	private int searchMinRadius;
+	private int searchMaxRadius;
+	private long[] searchBlocks = new long[16];
+	private int numberOfSearchBlocks;
+	private int nextSearchBlock;
+	private long[] queue = new long[64];
+	private int queueSize;
+
+	/**
+	 * @param indexedTypes
+	 *            The search types to keep the candidates of.
+	 */
+	public SearchTypeIndex(ISearchTypeIndexGrid grid, short width, short height, Set<ESearchType> indexedTypes) {
+		this.grid = grid;
+		this.width = width;
+		this.height = height;
+		this.blocksPerRow = (width + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		this.blocksPerColumn = (height + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+		this.indexedTypes = indexedTypes.toArray(new ESearchType[indexedTypes.size()]);
+
+		this.candidates = new BitSet[ESearchType.values().length];
+		this.blockCounts = new int[ESearchType.values().length][];
+		for (ESearchType type : this.indexedTypes) {
+			candidates[type.ordinal()] = new BitSet(width * height);
+			blockCounts[type.ordinal()] = new int[blocksPerRow * blocksPerColumn];
+		}
+
+		this.changedPositions = new BitSet(width * height);
+		this.changedPositions.set(0, width * height);
+		this.updatedPositions = new BitSet(width * height);
+	}
+
+	public boolean isIndexed(ESearchType type) {
+		return type != null && candidates[type.ordinal()] != null;
+	}
+
+	/**
+	 * Marks the positions whose candidates may depend on the given position. Search types like {@link ESearchType#CUTTABLE_TREE} look at a
+	 * neighbor of the searched position.
+	 */
+	public synchronized void positionChanged(int x, int y) {
+		int minX = Math.max(0, x - CHANGE_RADIUS);
+		int maxX = Math.min(width - 1, x + CHANGE_RADIUS);
+		int maxY = Math.min(height - 1, y + CHANGE_RADIUS);
+		for (int currY = Math.max(0, y - CHANGE_RADIUS); currY <= maxY; currY++) {
+			changedPositions.set(minX + currY * width, maxX + 1 + currY * width);
+		}
+	}
+
+	private synchronized BitSet takeChangedPositions() {
+		BitSet taken = changedPositions;
+		changedPositions = updatedPositions;
+		updatedPositions = taken;
+		return taken;
+	}
+
+	/**
+	 * Recalculates the candidates of all positions changed since the last update.
+	 */
+	void update() {
+		BitSet changed = takeChangedPositions();
+		for (int index = changed.nextSetBit(0); index >= 0; index = changed.nextSetBit(index + 1)) {
+			int x = index % width;
+			int y = index / width;
+			int block = getBlock(x, y);
+
+			for (ESearchType type : indexedTypes) {
+				BitSet typeCandidates = candidates[type.ordinal()];
+				boolean isCandidate = grid.isSearchTypeCandidate(x, y, type);
+				if (isCandidate != typeCandidates.get(index)) {
+					typeCandidates.set(index, isCandidate);
+					blockCounts[type.ordinal()][block] += isCandidate ? 1 : -1;
+				}
+			}
+		}
+		changed.clear();
+	}
+
+	boolean isCandidate(int x, int y, ESearchType type) {
+		return candidates[type.ordinal()].get(x + y * width);
+	}
+
+	/**
+	 * Starts to iterate the candidates of the given search type with a radius in [minRadius, maxRadius). The center itself is never returned.
+	 * The candidates are returned by {@link #nextCandidate()}.
+	 */
+	void startSearch(ESearchType type, int centerX, int centerY, int minRadius, int maxRadius) {
+		update();
+
+		searchedCandidates = candidates[type.ordinal()];
+		searchCenterX = centerX;
+		searchCenterY = centerY;
+		searchMinRadius = Math.max(1, minRadius);
+		searchMaxRadius = maxRadius;
+		queueSize = 0;
+		numberOfSearchBlocks = 0;
+		nextSearchBlock = 0;
+
+		int[] counts = blockCounts[type.ordinal()];
+		int minBlockX = Math.max(0, centerX - maxRadius + 1) >> BLOCK_SHIFT;
+		int maxBlockX = Math.min(width - 1, centerX + maxRadius - 1) >> BLOCK_SHIFT;
+		int minBlockY = Math.max(0, centerY - maxRadius + 1) >> BLOCK_SHIFT;
+		int maxBlockY = Math.min(height - 1, centerY + maxRadius - 1) >> BLOCK_SHIFT;
+
+		for (int blockY = minBlockY; blockY <= maxBlockY; blockY++) {
+			for (int blockX = minBlockX; blockX <= maxBlockX; blockX++) {
+				int block = blockX + blockY * blocksPerRow;
+				if (counts[block] > 0) {
+					int minDistance = getMinDistanceToBlock(blockX, blockY);
+					if (minDistance < maxRadius) {
+						addSearchBlock(((long) minDistance << 32) | block);
+					}
+				}
+			}
+		}
+		Arrays.sort(searchBlocks, 0, numberOfSearchBlocks);
+	}
+
+	/**
+	 * @return The index (x + y * width) of the next candidate of the search started with
+	 *         {@link #startSearch(ESearchType, int, int, int, int)} or -1 if there is none.
+	 */
+	int nextCandidate() {
+		while (nextSearchBlock < numberOfSearchBlocks && (queueSize == 0 || (int) (searchBlocks[nextSearchBlock] >>> 32) <= (int) (queue[0] >>> RADIUS_SHIFT))) {
+			addCandidatesOfBlock((int) searchBlocks[nextSearchBlock]);
+			nextSearchBlock++;
+		}
+
+		if (queueSize == 0) {
+			return -1;
+		}
+		return (int) (poll() & POSITION_MASK);
+	}
+
+	private void addCandidatesOfBlock(int block) {
+		int startX = (block % blocksPerRow) << BLOCK_SHIFT;
+		int endX = Math.min(width, startX + BLOCK_SIZE);
+		int startY = (block / blocksPerRow) << BLOCK_SHIFT;
+		int endY = Math.min(height, startY + BLOCK_SIZE);
+
+		for (int y = startY; y < endY; y++) {
+			int rowEnd = endX + y * width;
+			for (int index = searchedCandidates.nextSetBit(startX + y * width); index >= 0 && index < rowEnd; index = searchedCandidates
+					.nextSetBit(index + 1)) {
+				int dx = index - y * width - searchCenterX;
+				int dy = y - searchCenterY;
+				int radius = getHexDistance(dx, dy);
+				if (radius >= searchMinRadius && radius < searchMaxRadius) {
+					offer(((long) radius << RADIUS_SHIFT) | ((long) getRingIndex(dx, dy, radius) << RING_INDEX_SHIFT) | index);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The number of steps between two positions on the hex grid, where (1, 1) and (-1, -1) are neighbors, but (1, -1) and (-1, 1) are
+	 *         not.
+	 */
+	static int getHexDistance(int dx, int dy) {
+		return Math.max(Math.max(Math.abs(dx), Math.abs(dy)), Math.abs(dx - dy));
+	}
+
+	/**
+	 * @return The position of (dx, dy) on the ring with the given radius in the order the {@link DijkstraAlgorithm} walks it. The ring starts at
+	 *         (0, -radius) and goes to (-radius, -radius), (-radius, 0), (0, radius), (radius, radius), (radius, 0) and back to (0, -radius),
+	 *         which is the last position of the ring.
+	 */
+	static int getRingIndex(int dx, int dy, int radius) {
+		if (dy == -radius && dx < 0) {
+			return -dx;
+		} else if (dx == -radius || dx - dy == -radius) {
+			return 2 * radius + dy;
+		} else if (dy == radius) {
+			return 3 * radius + dx;
+		} else {
+			return 5 * radius - dy;
+		}
+	}
+
+	/**
+	 * @return A lower bound of the hex distance from the center of the search to the positions of the block.
+	 */
+	private int getMinDistanceToBlock(int blockX, int blockY) {
+		int minDx = (blockX << BLOCK_SHIFT) - searchCenterX;
+		int maxDx = minDx + BLOCK_SIZE - 1;
+		int minDy = (blockY << BLOCK_SHIFT) - searchCenterY;
+		int maxDy = minDy + BLOCK_SIZE - 1;
+		return Math.max(Math.max(getMinAbs(minDx, maxDx), getMinAbs(minDy, maxDy)), getMinAbs(minDx - maxDy, maxDx - minDy));
+	}
+
+	private static int getMinAbs(int min, int max) {
+		if (min > 0) {
+			return min;
+		} else if (max < 0) {
+			return -max;
+		} else {
+			return 0;
+		}
+	}
+
+	private int getBlock(int x, int y) {
+		return (x >> BLOCK_SHIFT) + (y >> BLOCK_SHIFT) * blocksPerRow;
+	}
+
+	private void addSearchBlock(long searchBlock) {
+		if (numberOfSearchBlocks == searchBlocks.length) {
+			searchBlocks = Arrays.copyOf(searchBlocks, searchBlocks.length * 2);
+		}
+		searchBlocks[numberOfSearchBlocks++] = searchBlock;
+	}
+
+	private void offer(long key) {
+		if (queueSize == queue.length) {
+			queue = Arrays.copyOf(queue, queue.length * 2);
+		}
+		int index = queueSize++;
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			if (queue[parent] <= key) {
+				break;
+			}
+			queue[index] = queue[parent];
+			index = parent;
+		}
+		queue[index] = key;
+	}
+
+	private long poll() {
+		long result = queue[0];
+		long last = queue[--queueSize];
+		int index = 0;
+		int half = queueSize >> 1;
+		while (index < half) {
+			int child = 2 * index + 1;
+			if (child + 1 < queueSize && queue[child + 1] < queue[child]) {
+				child++;
+			}
+			if (last <= queue[child]) {
+				break;
+			}
+			queue[index] = queue[child];
+			index = child;
+		}
+		queue[index] = last;
+		return result;
+	}
+}
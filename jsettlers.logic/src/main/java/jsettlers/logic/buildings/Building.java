@@ -95,6 +95,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 	private List<? extends IRequestStack> stacks;
 
 	private transient boolean selected;
+	private transient long timerHandle = RescheduleTimer.NO_HANDLE;
 
 	protected Building(EBuildingType type, Player player, ShortPoint2D position, IBuildingsGrid buildingsGrid) {
 		this.type = type;
@@ -167,7 +168,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 		placeAdditionalMapObjects(grid, pos, true);
 
 		this.state = EBuildingState.CREATED;
-		RescheduleTimer.add(this, IS_UNSTOPPED_RECHECK_PERIOD);
+		timerHandle = RescheduleTimer.add(this, IS_UNSTOPPED_RECHECK_PERIOD);
 	}
 
 	private List<IRequestStack> createConstructionStacks() {
@@ -361,7 +362,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 					finishConstruction();
 				} else {
 					state = EBuildingState.WAITING_FOR_MATERIAL;
-					RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD);
+					timerHandle = RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD);
 				}
 				return false;
 			}
@@ -397,7 +398,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 			stacks = new LinkedList<>(); // create a new stacks list
 		}
 		int timerPeriod = constructionFinishedEvent();
-		RescheduleTimer.add(this, timerPeriod);
+		timerHandle = RescheduleTimer.add(this, timerPeriod);
 	}
 
 	protected abstract int constructionFinishedEvent();
@@ -453,6 +454,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 		releaseRequestStacks();
 		allBuildings.remove(this);
+		RescheduleTimer.cancel(timerHandle);
 		this.state = EBuildingState.DESTROYED;
 		this.selected = false;
 	}
@@ -623,7 +625,7 @@ public abstract class Building extends AbstractHexMapObject implements IConstruc
 
 			case BRICKLAYERS_REQUESTED:
 				state = EBuildingState.WAITING_FOR_MATERIAL;
-				RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD); // we're not scheduled atm => reschedule!
+				timerHandle = RescheduleTimer.add(this, WAITING_FOR_MATERIAL_PERIOD); // we're not scheduled atm => reschedule!
 				break;
 			}
 		}
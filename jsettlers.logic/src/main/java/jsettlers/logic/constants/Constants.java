@@ -23,6 +23,11 @@ package jsettlers.logic.constants;
 public final class Constants {
 
 	public static boolean FOG_OF_WAR_DEFAULT_ENABLED = true;
+	/**
+	 * If true, the fog of war only updates the view circles that changed. Otherwise the whole map is rebuilt on every update. Needs to be set
+	 * before the game is started.
+	 */
+	public static boolean FOG_OF_WAR_INCREMENTAL = true;
 
 	public static final float COMBAT_STRENGTH_OWN_GROUND = 1;
 
@@ -15,13 +15,36 @@
 package jsettlers.logic.map.grid;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
+import jsettlers.input.PlayerState;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
 import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
+import jsettlers.logic.map.loading.savegame.SavegameFormat;
+import jsettlers.logic.map.loading.savegame.SavegameReader;
+import jsettlers.logic.map.loading.savegame.SavegameWriter;
+import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * This class serializes and deserializes the {@link MainGrid} and therefore the complete game state.
+ * <p />
+ * Savegames are written in the chunked format described in {@link SavegameFormat}: The {@link MatchConstants}, the {@link PlayerState}s and the
+ * object graph of the game (including the {@link RescheduleTimer}) are written with Java serialization into their own chunks. The primitive
+ * arrays of the {@link jsettlers.logic.map.grid.landscape.LandscapeGrid}, the {@link jsettlers.logic.map.grid.flags.FlagsGrid}, the
+ * {@link jsettlers.logic.map.grid.partition.PartitionsGrid} and the {@link jsettlers.algorithms.fogofwar.FogOfWar} are transient. They are
+ * written directly into following chunks by the writeTo() methods of these classes.
+ * <p />
+ * NOTE: The movables, buildings, managers and the timer are still written as one Java serialized object graph, because they reference each other
+ * by identity. Therefore saving them still needs memory for the handle table of the {@link ObjectOutputStream} and their classes must keep their
+ * serialVersionUIDs.
+ * <p />
+ * Savegames written with plain Java serialization can still be loaded.
  * 
  * @author Andreas Eberle
  * 
@@ -31,83 +54,186 @@ public class GameSerializer {
 	private static final long SAVE_STACK_SIZE = 1024 * 1024; // size of the save thread's stack
 	private static final long LOAD_STACK_SIZE = 1024 * 1024; // size of the load thread's stack
 
+	private static final short CHUNK_VERSION = 1;
+
 	/**
-	 * Saves the grid to the given output file.
+	 * Saves the game to the given stream.
 	 * 
 	 * @param grid
 	 *            The grid to use.
+	 * @param playerStates
+	 *            The UI states of the players.
 	 * @param out
-	 *            The output file/stream for the game.
+	 *            The stream to write the game to. It is flushed but not closed.
+	 * @param compress
+	 *            If true, the chunks of the savegame are compressed.
 	 * @throws IOException
 	 */
-	public void save(MainGrid grid, final ObjectOutputStream oos) throws IOException {
-		GameSaveTask runnable = new GameSaveTask(grid, oos);
-		Thread t = new Thread(null, runnable, "SaveThread", SAVE_STACK_SIZE);
-		t.start();
-		try {
-			t.join();
-		} catch (InterruptedException e) {
-			throw new IOException(e);
-		}
+	public void save(MainGrid grid, PlayerState[] playerStates, OutputStream out, boolean compress) throws IOException {
+		SavegameWriter writer = new SavegameWriter(out, compress);
 
-		if (runnable.exception != null) {
-			throw new IOException("Error saving map.", runnable.exception);
+		try (ObjectOutputStream oos = new ObjectOutputStream(writer.beginChunk(SavegameFormat.CHUNK_MATCH_CONSTANTS, CHUNK_VERSION))) {
+			MatchConstants.serialize(oos);
+		}
+		try (ObjectOutputStream oos = new ObjectOutputStream(writer.beginChunk(SavegameFormat.CHUNK_PLAYER_STATES, CHUNK_VERSION))) {
+			oos.writeObject(playerStates);
+		}
+		SavegameChunkOutputStream fogOfWarChunk = writer.beginChunk(SavegameFormat.CHUNK_FOG_OF_WAR, CHUNK_VERSION);
+		for (PlayerState playerState : playerStates) {
+			if (playerState.getFogOfWar() != null) {
+				playerState.getFogOfWar().writeTo(fogOfWarChunk);
+			}
+		}
+		try (ObjectOutputStream oos = new ObjectOutputStream(writer.beginChunk(SavegameFormat.CHUNK_OBJECTS, CHUNK_VERSION))) {
+			runWithStack("SaveThread", SAVE_STACK_SIZE, () -> {
+				oos.writeObject(grid);
+				RescheduleTimer.saveTo(oos);
+				return null;
+			});
 		}
 
-		oos.flush();
+		grid.landscapeGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_LANDSCAPE_GRID, CHUNK_VERSION));
+		grid.flagsGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_FLAGS_GRID, CHUNK_VERSION));
+		grid.partitionsGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_PARTITIONS_GRID, CHUNK_VERSION));
+
+		writer.finish();
 	}
 
-	public MainGrid load(final ObjectInputStream ois) throws MapLoadException {
+	/**
+	 * Loads a game from the given stream. Both, chunked savegames and savegames written with plain Java serialization, are supported.
+	 * 
+	 * @param in
+	 *            The stream positioned directly behind the map file header. It must support {@link InputStream#mark(int)}.
+	 * @return The loaded grid and player states.
+	 * @throws MapLoadException
+	 */
+	public MainGridWithUiSettings load(InputStream in) throws MapLoadException {
 		try {
-			LoadRunnable runnable = new LoadRunnable(ois);
-			Thread t = new Thread(null, runnable, "LoadThread", LOAD_STACK_SIZE);
-			t.start();
-			t.join();
-
-			if (runnable.grid != null) {
-				return runnable.grid;
+			if (SavegameFormat.isChunkedSavegame(in)) {
+				return loadChunked(new SavegameReader(in));
 			} else {
-				throw new MapLoadException("Error loading map.", runnable.exception);
+				return loadSerialized(new ObjectInputStream(in));
 			}
+		} catch (MapLoadException e) {
+			throw e;
 		} catch (Throwable t) {
 			throw new MapLoadException(t);
 		}
 	}
 
-	private final class GameSaveTask implements Runnable {
-		private final MainGrid grid;
-		private final ObjectOutputStream oos;
-		Throwable exception = null;
+	private MainGridWithUiSettings loadChunked(SavegameReader reader) throws Exception {
+		PlayerState[] playerStates = null;
+		MainGrid grid = null;
+		boolean[] gridsLoaded = new boolean[3];
+		boolean fogOfWarLoaded = false;
+
+		SavegameChunkInputStream chunk;
+		while ((chunk = reader.nextChunk()) != null) {
+			int chunkType = reader.getChunkType();
+			if (reader.getChunkVersion() > CHUNK_VERSION) {
+				throw new MapLoadException("Unsupported version " + reader.getChunkVersion() + " of savegame chunk " + Integer.toHexString(chunkType));
+			}
 
-		private GameSaveTask(MainGrid grid, ObjectOutputStream oos) {
-			this.grid = grid;
-			this.oos = oos;
+			switch (chunkType) {
+			case SavegameFormat.CHUNK_MATCH_CONSTANTS:
+				MatchConstants.deserialize(new ObjectInputStream(chunk));
+				break;
+			case SavegameFormat.CHUNK_PLAYER_STATES:
+				playerStates = (PlayerState[]) new ObjectInputStream(chunk).readObject();
+				break;
+			case SavegameFormat.CHUNK_FOG_OF_WAR:
+				if (playerStates == null) {
+					throw new MapLoadException("Savegame contains the fog of war before the player states.");
+				}
+				for (PlayerState playerState : playerStates) {
+					if (playerState.getFogOfWar() != null) {
+						playerState.getFogOfWar().readFrom(chunk);
+					}
+				}
+				fogOfWarLoaded = true;
+				break;
+			case SavegameFormat.CHUNK_OBJECTS:
+				ObjectInputStream ois = new ObjectInputStream(chunk);
+				grid = runWithStack("LoadThread", LOAD_STACK_SIZE, () -> {
+					MainGrid loadedGrid = (MainGrid) ois.readObject();
+					RescheduleTimer.loadFrom(ois);
+					return loadedGrid;
+				});
+				break;
+			case SavegameFormat.CHUNK_LANDSCAPE_GRID:
+				requireGrid(grid).landscapeGrid.readFrom(chunk);
+				gridsLoaded[0] = true;
+				break;
+			case SavegameFormat.CHUNK_FLAGS_GRID:
+				requireGrid(grid).flagsGrid.readFrom(chunk);
+				gridsLoaded[1] = true;
+				break;
+			case SavegameFormat.CHUNK_PARTITIONS_GRID:
+				requireGrid(grid).partitionsGrid.readFrom(chunk);
+				gridsLoaded[2] = true;
+				break;
+			default:
+				break; // chunks of newer versions that are not needed are skipped
+			}
 		}
 
-		@Override
-		public void run() {
-			try {
-				oos.writeObject(grid);
-			} catch (Throwable t) {
-				t.printStackTrace();
-				this.exception = t;
-			}
+		if (playerStates == null || !fogOfWarLoaded || grid == null || !gridsLoaded[0] || !gridsLoaded[1] || !gridsLoaded[2]) {
+			throw new MapLoadException("Savegame is incomplete.");
 		}
+		return new MainGridWithUiSettings(grid, playerStates);
 	}
 
-	private static final class LoadRunnable implements Runnable {
-		private final ObjectInputStream ois;
-		MainGrid grid = null;
+	private static MainGrid requireGrid(MainGrid grid) throws MapLoadException {
+		if (grid == null) {
+			throw new MapLoadException("Savegame contains grid data before the game objects.");
+		}
+		return grid;
+	}
+
+	private MainGridWithUiSettings loadSerialized(ObjectInputStream ois) throws Exception {
+		MatchConstants.deserialize(ois);
+		PlayerState[] playerStates = (PlayerState[]) ois.readObject();
+		MainGrid grid = runWithStack("LoadThread", LOAD_STACK_SIZE, () -> (MainGrid) ois.readObject());
+		RescheduleTimer.loadFrom(ois);
+		return new MainGridWithUiSettings(grid, playerStates);
+	}
+
+	/**
+	 * Runs the given task in a thread with the given stack size, as the (de)serialization of deep object graphs needs a big stack.
+	 */
+	private static <T> T runWithStack(String threadName, long stackSize, ISerializationTask<T> task) throws IOException {
+		SerializationRunnable<T> runnable = new SerializationRunnable<>(task);
+		Thread t = new Thread(null, runnable, threadName, stackSize);
+		t.start();
+		try {
+			t.join();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+
+		if (runnable.exception != null) {
+			throw new IOException("Error during (de)serialization of the game.", runnable.exception);
+		}
+		return runnable.result;
+	}
+
+	private interface ISerializationTask<T> {
+		T run() throws Exception;
+	}
+
+	private static final class SerializationRunnable<T> implements Runnable {
+		private final ISerializationTask<T> task;
+		T result = null;
 		Throwable exception = null;
 
-		private LoadRunnable(ObjectInputStream ois) {
-			this.ois = ois;
+		private SerializationRunnable(ISerializationTask<T> task) {
+			this.task = task;
 		}
 
 		@Override
 		public void run() {
 			try {
-				grid = (MainGrid) ois.readObject();
+				result = task.run();
 			} catch (Throwable t) {
 				t.printStackTrace();
 				this.exception = t;
@@ -17,11 +17,14 @@ package jsettlers.logic.map.grid;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import jsettlers.algorithms.borders.BordersBatch;
 import jsettlers.algorithms.borders.BordersThread;
 import jsettlers.algorithms.borders.IBordersThreadGrid;
 import jsettlers.algorithms.construction.AbstractConstructionMarkableMap;
@@ -34,11 +37,12 @@ import jsettlers.algorithms.path.IPathCalculatable;
 import jsettlers.algorithms.path.Path;
 import jsettlers.algorithms.path.area.IInAreaFinderMap;
 import jsettlers.algorithms.path.area.InAreaFinder;
-import jsettlers.algorithms.path.astar.AbstractAStar;
-import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.HierarchicalAStar;
 import jsettlers.algorithms.path.astar.IAStarPathMap;
 import jsettlers.algorithms.path.dijkstra.DijkstraAlgorithm;
 import jsettlers.algorithms.path.dijkstra.IDijkstraPathMap;
+import jsettlers.algorithms.path.dijkstra.ISearchTypeIndexGrid;
+import jsettlers.algorithms.path.dijkstra.SearchTypeIndex;
 import jsettlers.algorithms.previewimage.PreviewImageCreator;
 import jsettlers.algorithms.traversing.area.IAreaVisitor;
 import jsettlers.common.Color;
@@ -112,6 +116,7 @@ import jsettlers.logic.map.loading.data.objects.StoneMapDataObject;
 import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
 import jsettlers.logic.movable.Movable;
 import jsettlers.logic.movable.interfaces.AbstractMovableGrid;
 import jsettlers.logic.movable.interfaces.IAttackable;
@@ -131,6 +136,20 @@ import java8.util.Optional;
 public final class MainGrid implements Serializable {
 	private static final long serialVersionUID = 3824511313693431423L;
 
+	/**
+	 * The search types of the dijkstra searches that only depend on the map objects and the landscape apart from the player and the marks of a
+	 * position.
+	 */
+	private static final Set<ESearchType> INDEXED_SEARCH_TYPES = EnumSet.of(ESearchType.CUTTABLE_TREE, ESearchType.CUTTABLE_STONE,
+			ESearchType.CUTTABLE_CORN, ESearchType.HARVESTABLE_WINE, ESearchType.RIVER, ESearchType.FISHABLE, ESearchType.FOREIGN_MATERIAL);
+
+	/**
+	 * The search types of the dijkstra searches that are mostly started at the requester and have many fitting positions, some of them are not
+	 * reachable. They are searched with a flood from the requester instead of searching a path to every fitting position.
+	 */
+	private static final Set<ESearchType> FLOODED_SEARCH_TYPES = EnumSet.of(ESearchType.UNENFORCED_FOREIGN_GROUND,
+			ESearchType.VALID_FREE_POSITION, ESearchType.RESOURCE_SIGNABLE);
+
 	final String mapId;
 	final String mapName;
 
@@ -153,6 +172,7 @@ public final class MainGrid implements Serializable {
 	transient BordersThread bordersThread;
 	transient IGuiInputGrid guiInputGrid;
 	private transient IEnclosedBlockedAreaFinderGrid enclosedBlockedAreaFinderGrid;
+	private transient IPositionChangedListener[] positionChangedListeners;
 
 	public MainGrid(String mapId, String mapName, short width, short height, PlayerSetting[] playerSettings) {
 		this.mapId = mapId;
@@ -186,11 +206,40 @@ public final class MainGrid implements Serializable {
 	private void initAdditional() {
 		this.graphicsGrid = new GraphicsGrid();
 		this.constructionMarksGrid = new ConstructionMarksGrid();
-		this.bordersThread = new BordersThread(new BordersThreadGrid());
+		this.bordersThread = new BordersThread(new BordersThreadGrid(), width, height);
 		this.guiInputGrid = new GuiInputGrid();
 
 		this.partitionsGrid.setPlayerChangedListener(new PlayerChangedListener());
 		this.enclosedBlockedAreaFinderGrid = new EnclosedBlockedAreaFinderGrid();
+		this.flagsGrid.setBlockedChangedListener((x, y, blocked) -> movablePathfinderGrid.aStar.blockedChanged(x, y));
+		this.positionChangedListeners = new IPositionChangedListener[0];
+		addPositionChangedListener((x, y) -> movablePathfinderGrid.searchTypeIndex.positionChanged(x, y));
+	}
+
+	/**
+	 * Adds a listener that is informed about changes of the landscape, the resources, the map objects, the flags, the players and the tower
+	 * enforcement of positions.
+	 *
+	 * @param listener
+	 *            The listener to be added.
+	 */
+	public void addPositionChangedListener(IPositionChangedListener listener) {
+		positionChangedListeners = Arrays.copyOf(positionChangedListeners, positionChangedListeners.length + 1);
+		positionChangedListeners[positionChangedListeners.length - 1] = listener;
+		setPositionChangedListenerOfGrids(this::notifyPositionChangedListeners);
+	}
+
+	private void setPositionChangedListenerOfGrids(IPositionChangedListener listener) {
+		landscapeGrid.setPositionChangedListener(listener);
+		objectsGrid.setPositionChangedListener(listener);
+		flagsGrid.setPositionChangedListener(listener);
+		partitionsGrid.setPositionChangedListener(listener);
+	}
+
+	private void notifyPositionChangedListeners(int x, int y) {
+		for (IPositionChangedListener listener : positionChangedListeners) {
+			listener.positionChanged(x, y);
+		}
 	}
 
 	public final short getHeight() {
@@ -215,6 +264,14 @@ public final class MainGrid implements Serializable {
 		this.bordersThread.checkArea(0, 0, width, height);
 	}
 
+	/**
+	 * Builds the data structures of the path finders that depend on the whole map. This should be done while the map is loaded, so they aren't
+	 * built on the game thread while the game is running.
+	 */
+	public void initPathfinding() {
+		movablePathfinderGrid.aStar.buildGraph();
+	}
+
 	public void startThreads() {
 		bordersThread.start();
 		if (fogOfWar != null) {
@@ -339,6 +396,22 @@ public final class MainGrid implements Serializable {
 		MatchConstants.clock().setPausing(savedPausingState);
 	}
 
+	/**
+	 * Takes a snapshot of the game that can be written to disk while the game continues. This must be called by the game thread, so that no tick is
+	 * executed while the snapshot is taken.
+	 * 
+	 * @param playerId
+	 *            The id of the player the savegame is created for or null.
+	 * @param uiState
+	 *            The UI state of that player or null to use the position of one of the player's towers.
+	 * @return The snapshot.
+	 * @throws IOException
+	 */
+	public SavegameSnapshot createSnapshot(Byte playerId, UIState uiState) throws IOException {
+		PlayerState[] playerStates = calculatePlayerStates(playerId, uiState);
+		return SavegameSnapshot.create(generateSaveHeader(playerId), this, playerStates);
+	}
+
 	private PlayerState[] calculatePlayerStates(Byte playerId, UIState uiState) {
 		byte numberOfPlayers = partitionsGrid.getNumberOfPlayers();
 		PlayerState[] playerStates = new PlayerState[numberOfPlayers];
@@ -356,13 +429,21 @@ public final class MainGrid implements Serializable {
 		return playerStates;
 	}
 
+	/**
+	 * Uses the top left tower of the player, so the result does not depend on the order of {@link Building#getAllBuildings()}. That order differs
+	 * after a savegame has been loaded.
+	 */
 	private UIState calculateUiStateByTower(byte currPlayerId) {
+		ShortPoint2D towerPosition = null;
 		for (Building building : Building.getAllBuildings()) {
 			if (building.getPlayer().playerId == currPlayerId && building instanceof OccupyingBuilding) {
-				return new UIState(building.getPos());
+				ShortPoint2D position = building.getPos();
+				if (towerPosition == null || position.y < towerPosition.y || (position.y == towerPosition.y && position.x < towerPosition.x)) {
+					towerPosition = position;
+				}
 			}
 		}
-		return null;
+		return towerPosition != null ? new UIState(towerPosition) : null;
 	}
 
 	public MapFileHeader generateSaveHeader(Byte playerId) {
@@ -498,7 +579,7 @@ public final class MainGrid implements Serializable {
 		partitionsGrid.initWithPlayerSettings(playerSettings);
 	}
 
-	final class PathfinderGrid implements IAStarPathMap, IDijkstraPathMap, IInAreaFinderMap, Serializable {
+	final class PathfinderGrid implements IAStarPathMap, IDijkstraPathMap, ISearchTypeIndexGrid, IInAreaFinderMap, Serializable {
 		private static final long serialVersionUID = -2775530442375843213L;
 
 		@Override
@@ -592,6 +673,28 @@ public final class MainGrid implements Serializable {
 			}
 		}
 
+		@Override
+		public boolean isSearchTypeCandidate(int x, int y, ESearchType searchType) {
+			switch (searchType) {
+			case CUTTABLE_TREE:
+				return isInBounds(x - 1, y - 1) && isMapObjectCuttable(x - 1, y - 1, EMapObjectType.TREE_ADULT);
+			case CUTTABLE_CORN:
+				return isMapObjectCuttable(x, y, EMapObjectType.CORN_ADULT);
+			case HARVESTABLE_WINE:
+				return isMapObjectCuttable(x, y, EMapObjectType.WINE_HARVESTABLE);
+			case CUTTABLE_STONE:
+				return y + 1 < height && x - 1 > 0 && isMapObjectCuttable(x - 1, y + 1, EMapObjectType.STONE);
+			case RIVER:
+				return isRiver(x, y);
+			case FISHABLE:
+				return hasNeighbourLandscape(x, y, ELandscapeType.WATER1);
+			case FOREIGN_MATERIAL:
+				return objectsGrid.hasMapObjectType(x, y, EMapObjectType.STACK_OBJECT);
+			default:
+				return true;
+			}
+		}
+
 		@Override
 		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
 			for (ESearchType searchType : types) {
@@ -829,6 +932,9 @@ public final class MainGrid implements Serializable {
 		@Override
 		public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
 			landscapeGrid.setBackgroundListener(backgroundListener);
+			if (fogOfWar != null) {
+				fogOfWar.setBackgroundListener(backgroundListener);
+			}
 		}
 
 		@Override
@@ -880,6 +986,11 @@ public final class MainGrid implements Serializable {
 			return objectsGrid.removeMapObject(x, y, mapObject);
 		}
 
+		@Override
+		public void mapObjectChangedAt(int x, int y) {
+			objectsGrid.mapObjectChangedAt(x, y);
+		}
+
 		@Override
 		public final AbstractHexMapObject getMapObject(int x, int y, EMapObjectType mapObjectType) {
 			return objectsGrid.getMapObjectAt(x, y, mapObjectType);
@@ -1098,8 +1209,9 @@ public final class MainGrid implements Serializable {
 		private static final long serialVersionUID = 4006228724969442801L;
 
 		private transient PathfinderGrid pathfinderGrid;
-		private transient AbstractAStar aStar;
+		private transient HierarchicalAStar aStar;
 		transient DijkstraAlgorithm dijkstra; // not private, because it's used by BuildingsGrid
+		private transient SearchTypeIndex searchTypeIndex;
 		private transient InAreaFinder inAreaFinder;
 
 		public MovablePathfinderGrid() {
@@ -1114,8 +1226,9 @@ public final class MainGrid implements Serializable {
 		private void initPathfinders() {
 			pathfinderGrid = new PathfinderGrid();
 
-			aStar = new BucketQueueAStar(pathfinderGrid, width, height);
-			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height);
+			aStar = new HierarchicalAStar(pathfinderGrid, width, height);
+			searchTypeIndex = new SearchTypeIndex(pathfinderGrid, width, height, INDEXED_SEARCH_TYPES);
+			dijkstra = new DijkstraAlgorithm(pathfinderGrid, aStar, width, height, searchTypeIndex, FLOODED_SEARCH_TYPES);
 			inAreaFinder = new InAreaFinder(pathfinderGrid, width, height);
 		}
 
@@ -1211,6 +1324,26 @@ public final class MainGrid implements Serializable {
 			partitionsGrid.getPartitionAt(bricklayer).removeJobless(bricklayer);
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(bearer, oldPosition);
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(worker, oldPosition);
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(digger, oldPosition);
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition) {
+			partitionsGrid.getPartitionAt(oldPosition.x, oldPosition.y).joblessPositionChanged(bricklayer, oldPosition);
+		}
+
 		@Override
 		public boolean takeMaterial(ShortPoint2D position, EMaterialType materialType) {
 			return mapObjectsManager.popMaterial(position.x, position.y, materialType);
@@ -1465,8 +1598,9 @@ public final class MainGrid implements Serializable {
 		}
 
 		@Override
-		public final void setBorderAt(int x, int y, boolean isBorder) {
-			graphicsGrid.bordersGrid.set(x + y * width, isBorder);
+		public final void setBordersAt(BordersBatch batch) {
+			BitSet bordersGrid = graphicsGrid.bordersGrid;
+			batch.forEach((x, y, isBorder) -> bordersGrid.set(x + y * width, isBorder));
 		}
 
 		@Override
@@ -14,10 +14,15 @@
  *******************************************************************************/
 package jsettlers.logic.map.grid.flags;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.BitSet;
 
 import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.logic.map.grid.IPositionChangedListener;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
 
 /**
  * Grid that's storing the blocked information for fast access.
@@ -28,13 +33,16 @@ import jsettlers.algorithms.partitions.IBlockingProvider;
 public final class FlagsGrid implements Serializable, IBlockingProvider, IProtectedProvider {
 	private static final long serialVersionUID = -413005884613149208L;
 
-	private final short width;
+	private short width;
 
-	private final BitSet blockedGrid;
-	private final BitSet markedGrid;
-	private final BitSet protectedGrid;
+	// the bits are saved with writeTo()
+	private transient BitSet blockedGrid;
+	private transient BitSet markedGrid;
+	private transient BitSet protectedGrid;
 
 	private IProtectedChangedListener protectedChangedListener = null;
+	private transient IBlockedChangedListener blockedChangedListener = null;
+	private transient IPositionChangedListener positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
 
 	public FlagsGrid(final short width, final short height) {
 		this.width = width;
@@ -44,6 +52,36 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 		this.markedGrid = new BitSet(width * height);
 	}
 
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		width = fields.get("width", (short) 0);
+		protectedChangedListener = (IProtectedChangedListener) fields.get("protectedChangedListener", null);
+
+		if (fields.getObjectStreamClass().getField("blockedGrid") != null) { // savegames written with plain Java serialization contain the bits
+			blockedGrid = (BitSet) fields.get("blockedGrid", null);
+			markedGrid = (BitSet) fields.get("markedGrid", null);
+			protectedGrid = (BitSet) fields.get("protectedGrid", null);
+		}
+	}
+
+	/**
+	 * Writes the flags of this grid to the given savegame chunk.
+	 */
+	public void writeTo(SavegameChunkOutputStream out) throws IOException {
+		out.writeBits(blockedGrid);
+		out.writeBits(markedGrid);
+		out.writeBits(protectedGrid);
+	}
+
+	/**
+	 * Reads the flags written by {@link #writeTo(SavegameChunkOutputStream)}.
+	 */
+	public void readFrom(SavegameChunkInputStream in) throws IOException {
+		blockedGrid = in.readBits();
+		markedGrid = in.readBits();
+		protectedGrid = in.readBits();
+	}
+
 	@Override
 	public boolean isBlocked(int x, int y) {
 		return blockedGrid.get(x + y * width);
@@ -78,14 +116,21 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 	 */
 	public void setBlockedAndProtected(int x, int y, boolean newBlocked, boolean newProtected) {
 		final int idx = x + y * width;
+		boolean oldBlocked = this.blockedGrid.get(idx);
 		boolean oldProtected = this.protectedGrid.get(idx);
 
 		this.blockedGrid.set(idx, newBlocked);
 		this.protectedGrid.set(idx, newProtected);
 
+		if (blockedChangedListener != null && oldBlocked != newBlocked) {
+			this.blockedChangedListener.blockedChanged(x, y, newBlocked);
+		}
 		if (protectedChangedListener != null && oldProtected != newProtected) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
+		if (oldBlocked != newBlocked || oldProtected != newProtected) {
+			positionChangedListener.positionChanged(x, y);
+		}
 	}
 
 	public boolean isMarked(int x, int y) {
@@ -102,11 +147,16 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 	}
 
 	public void setProtected(int x, int y, boolean newProtected) {
-		this.protectedGrid.set(x + y * width, newProtected);
+		final int idx = x + y * width;
+		boolean oldProtected = this.protectedGrid.get(idx);
+		this.protectedGrid.set(idx, newProtected);
 
 		if (protectedChangedListener != null) {
 			this.protectedChangedListener.protectedChanged(x, y, newProtected);
 		}
+		if (oldProtected != newProtected) {
+			positionChangedListener.positionChanged(x, y);
+		}
 	}
 
 	public boolean isPioneerBlocked(int x, int y) {
@@ -118,4 +168,29 @@ public final class FlagsGrid implements Serializable, IBlockingProvider, IProtec
 	public void setProtectedChangedListener(IProtectedChangedListener protectedChangedListener) {
 		this.protectedChangedListener = protectedChangedListener;
 	}
+
+	public void setBlockedChangedListener(IBlockedChangedListener blockedChangedListener) {
+		this.blockedChangedListener = blockedChangedListener;
+	}
+
+	/**
+	 * Sets the listener informed about positions changing their blocked or protected state.
+	 *
+	 * @param positionChangedListener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public void setPositionChangedListener(IPositionChangedListener positionChangedListener) {
+		if (positionChangedListener != null) {
+			this.positionChangedListener = positionChangedListener;
+		} else {
+			this.positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
+		}
+	}
+
+	/**
+	 * Listener informed about changes of the blocked state of positions.
+	 */
+	public interface IBlockedChangedListener {
+		void blockedChanged(int x, int y, boolean newBlockedState);
+	}
 }
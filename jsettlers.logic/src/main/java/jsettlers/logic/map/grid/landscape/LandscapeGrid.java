@@ -26,10 +26,14 @@ import jsettlers.common.map.IGraphicsBackgroundListener;
 import jsettlers.common.map.shapes.HexGridArea;
 import jsettlers.common.position.RelativePoint;
 import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.coordinates.CoordinateOffsets;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.IPositionChangedListener;
 import jsettlers.logic.map.grid.flags.IProtectedProvider;
 import jsettlers.logic.map.grid.flags.IProtectedProvider.IProtectedChangedListener;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
 
 /**
  * This grid stores the height and the {@link ELandscapeType} of every position.
@@ -52,21 +56,23 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
-	private final byte[] heightGrid;
-	private final byte[] landscapeGrid;
-	private final byte[] resourceAmount;
-	private final byte[] temporaryFlatened;
-	private final byte[] resourceType;
-	private final short[] blockedPartitions;
+	// the arrays are saved with writeTo()
+	private transient byte[] heightGrid;
+	private transient byte[] landscapeGrid;
+	private transient byte[] resourceAmount;
+	private transient byte[] temporaryFlatened;
+	private transient byte[] resourceType;
+	private transient short[] blockedPartitions;
 
-	private final short width;
-	private final short height;
+	private short width;
+	private short height;
 
-	private final IProtectedProvider protectedProvider;
-	private final FlattenedResetter flattenedResetter;
+	private IProtectedProvider protectedProvider;
+	private FlattenedResetter flattenedResetter;
 
 	public transient int[] debugColors;
 	private transient IGraphicsBackgroundListener backgroundListener;
+	private transient IPositionChangedListener positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
 
 	public LandscapeGrid(short width, short height, IProtectedProvider protectedProvider) {
 		this.width = width;
@@ -89,12 +95,59 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		protectedProvider = (IProtectedProvider) fields.get("protectedProvider", null);
+		flattenedResetter = (FlattenedResetter) fields.get("flattenedResetter", null);
+
+		if (fields.getObjectStreamClass().getField("heightGrid") != null) { // savegames written with plain Java serialization contain the arrays
+			heightGrid = (byte[]) fields.get("heightGrid", null);
+			landscapeGrid = (byte[]) fields.get("landscapeGrid", null);
+			resourceAmount = (byte[]) fields.get("resourceAmount", null);
+			temporaryFlatened = (byte[]) fields.get("temporaryFlatened", null);
+			resourceType = (byte[]) fields.get("resourceType", null);
+			blockedPartitions = (short[]) fields.get("blockedPartitions", null);
+		}
+
 		setBackgroundListener(null);
+		setPositionChangedListener(null);
 
 		initDebugColors();
 	}
 
+	/**
+	 * Writes the arrays of this grid to the given savegame chunk.
+	 */
+	public void writeTo(SavegameChunkOutputStream out) throws IOException {
+		out.writeBytes(heightGrid);
+		out.writeBytes(landscapeGrid);
+		out.writeBytes(resourceAmount);
+		out.writeBytes(temporaryFlatened);
+		out.writeBytes(resourceType);
+		out.writeShorts(blockedPartitions);
+	}
+
+	/**
+	 * Reads the arrays written by {@link #writeTo(SavegameChunkOutputStream)}.
+	 */
+	public void readFrom(SavegameChunkInputStream in) throws IOException {
+		final int tiles = width * height;
+		heightGrid = new byte[tiles];
+		landscapeGrid = new byte[tiles];
+		resourceAmount = new byte[tiles];
+		temporaryFlatened = new byte[tiles];
+		resourceType = new byte[tiles];
+		blockedPartitions = new short[tiles];
+
+		in.readBytes(heightGrid);
+		in.readBytes(landscapeGrid);
+		in.readBytes(resourceAmount);
+		in.readBytes(temporaryFlatened);
+		in.readBytes(resourceType);
+		in.readShorts(blockedPartitions);
+	}
+
 	private final void initDebugColors() {
 		if (MatchConstants.ENABLE_DEBUG_COLORS) {
 			this.debugColors = new int[width * height];
@@ -121,12 +174,22 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		return false;
 	}
 
+	/**
+	 * Checks the landscape of the hexagon area around the given position. Areas up to {@link HexGridArea#MAX_CACHED_RADIUS} are checked with the
+	 * cached offsets, larger ones with {@link HexGridArea#stream(int, int, int, int)}.
+	 */
 	public boolean isHexAreaOfType(int x, int y, int minRadius, int maxRadius, ELandscapeType... landscapeTypes) {
-		boolean isOfType = HexGridArea
-				.stream(x, y, minRadius, maxRadius)
-				.filter((currX, currY) -> !isLandscapeOf(currX, currY, landscapeTypes))
-				.isEmpty();
-		return isOfType;
+		if (maxRadius > HexGridArea.MAX_CACHED_RADIUS) {
+			return HexGridArea.stream(x, y, minRadius, maxRadius).iterate((currX, currY) -> isLandscapeOf(currX, currY, landscapeTypes));
+		}
+
+		CoordinateOffsets offsets = HexGridArea.getOffsets();
+		for (int i = HexGridArea.getFirstIndexOfRadius(minRadius), end = HexGridArea.getFirstIndexOfRadius(maxRadius + 1); i < end; i++) {
+			if (!isLandscapeOf(x + offsets.getDx(i), y + offsets.getDy(i), landscapeTypes)) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -159,6 +222,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 
 		this.landscapeGrid[x + y * width] = landscapeType.ordinal;
 		backgroundListener.backgroundChangedAt(x, y);
+		positionChangedListener.positionChanged(x, y);
 	}
 
 	public final void setHeightAt(short x, short y, byte height) {
@@ -174,6 +238,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		this.temporaryFlatened[index] = Byte.MAX_VALUE; // cancel the flattening
 
 		backgroundListener.backgroundChangedAt(x, y);
+		positionChangedListener.positionChanged(x, y);
 	}
 
 	public final void setBackgroundListener(IGraphicsBackgroundListener backgroundListener) {
@@ -184,9 +249,24 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		}
 	}
 
+	/**
+	 * Sets the listener informed about changes of the landscape and the resources.
+	 *
+	 * @param positionChangedListener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public final void setPositionChangedListener(IPositionChangedListener positionChangedListener) {
+		if (positionChangedListener != null) {
+			this.positionChangedListener = positionChangedListener;
+		} else {
+			this.positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
+		}
+	}
+
 	public final void setResourceAt(short x, short y, EResourceType resourceType, byte amount) {
 		this.resourceType[x + y * width] = resourceType.ordinal;
 		this.resourceAmount[x + y * width] = (byte) Math.min(amount, Constants.MAX_RESOURCE_AMOUNT_PER_POSITION);
+		positionChangedListener.positionChanged(x, y);
 	}
 
 	/**
@@ -219,6 +299,7 @@ public final class LandscapeGrid implements Serializable, IWalkableGround, IFlat
 		int idx = position.x + position.y * width;
 		if (resourceType[idx] == resource.ordinal && resourceAmount[idx] > 0) {
 			resourceAmount[idx]--;
+			positionChangedListener.positionChanged(position.x, position.y);
 			return true;
 		} else {
 			return false;
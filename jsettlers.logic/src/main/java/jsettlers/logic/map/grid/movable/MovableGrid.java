@@ -24,8 +24,7 @@ import jsettlers.common.movable.EMovableType;
 import jsettlers.common.movable.IMovable;
 import jsettlers.common.player.IPlayer;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.common.utils.coordinates.CoordinateStream;
-import jsettlers.common.utils.mutables.MutableBoolean;
+import jsettlers.common.utils.coordinates.CoordinateOffsets;
 import jsettlers.logic.SerializationUtils;
 import jsettlers.logic.constants.Constants;
 import jsettlers.logic.map.grid.landscape.IWalkableGround;
@@ -106,27 +105,38 @@ public final class MovableGrid implements Serializable {
 	 */
 	public void informMovables(ILogicMovable movable, short x, short y, boolean informFullArea) {
 		// inform all movables of the given movable
-		CoordinateStream area;
+		int fromIndex;
+		int toIndex;
 		if (informFullArea) {
-			area = HexGridArea.stream(x, y, (short) 1, Constants.SOLDIER_SEARCH_RADIUS);
+			fromIndex = HexGridArea.getFirstIndexOfRadius(1);
+			toIndex = HexGridArea.getFirstIndexOfRadius(Constants.SOLDIER_SEARCH_RADIUS + 1);
 		} else {
-			area = HexGridArea.streamBorder(x, y, Constants.SOLDIER_SEARCH_RADIUS - 1);
+			fromIndex = HexGridArea.getFirstIndexOfRadius(Constants.SOLDIER_SEARCH_RADIUS - 1);
+			toIndex = HexGridArea.getFirstIndexOfRadius(Constants.SOLDIER_SEARCH_RADIUS);
 		}
 
-		MutableBoolean foundOne = new MutableBoolean();
+		CoordinateOffsets offsets = HexGridArea.getOffsets();
+		boolean inBounds = offsets.isInBounds(x, y, toIndex, 0, 0, width, height);
+		boolean foundOne = false;
 		IPlayer movablePlayer = movable.getPlayer();
 
-		area.filterBounds(width, height).forEach((currX, currY) -> {
+		for (int i = fromIndex; i < toIndex; i++) {
+			int currX = x + offsets.getDx(i);
+			int currY = y + offsets.getDy(i);
+			if (!inBounds && (currX < 0 || currX >= width || currY < 0 || currY >= height)) {
+				continue;
+			}
+
 			ILogicMovable currMovable = getMovableAt(currX, currY);
 			if (currMovable != null && isEnemy(movablePlayer, currMovable)) {
 				currMovable.informAboutAttackable(movable);
 
-				if (!foundOne.value) { // the first found movable is the one closest to the given movable.
+				if (!foundOne) { // the first found movable is the one closest to the given movable.
 					movable.informAboutAttackable(currMovable);
-					foundOne.value = true;
+					foundOne = true;
 				}
 			}
-		});
+		}
 	}
 
 	/**
@@ -29,6 +29,7 @@ import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.logic.SerializationUtils;
 import jsettlers.logic.buildings.Building;
 import jsettlers.logic.constants.Constants;
+import jsettlers.logic.map.grid.IPositionChangedListener;
 import jsettlers.logic.movable.interfaces.IAttackable;
 import jsettlers.logic.movable.interfaces.IInformable;
 
@@ -46,6 +47,7 @@ public final class ObjectsGrid implements Serializable {
 
 	private transient AbstractHexMapObject[] objectsGrid;
 	private transient Building[] buildingsGrid;
+	private transient IPositionChangedListener positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
 
 	public ObjectsGrid(short width, short height) {
 		this.width = width;
@@ -81,6 +83,7 @@ public final class ObjectsGrid implements Serializable {
 
 	private final void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
 		ois.defaultReadObject();
+		positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
 
 		buildingsGrid = SerializationUtils.readSparseArray(ois, Building.class);
 
@@ -124,6 +127,7 @@ public final class ObjectsGrid implements Serializable {
 		if (mapObjectHead != null) {
 			mapObjectHead.removeMapObjectTypes(mapObjectTypes);
 		}
+		positionChangedListener.positionChanged(x, y);
 	}
 
 	public final boolean removeMapObject(int x, int y, AbstractHexMapObject mapObject) {
@@ -138,6 +142,9 @@ public final class ObjectsGrid implements Serializable {
 				removed = mapObjectHead.removeMapObject(mapObject);
 			}
 
+			if (removed) {
+				positionChangedListener.positionChanged(x, y);
+			}
 			return removed;
 		} else
 			return false;
@@ -153,6 +160,28 @@ public final class ObjectsGrid implements Serializable {
 		} else {
 			mapObjectHead.addMapObject(mapObject);
 		}
+		positionChangedListener.positionChanged(x, y);
+	}
+
+	/**
+	 * Informs the listener that the state of an object at the given position changed without the object being added or removed.
+	 */
+	public final void mapObjectChangedAt(int x, int y) {
+		positionChangedListener.positionChanged(x, y);
+	}
+
+	/**
+	 * Sets the listener informed about map objects being added, removed or changed.
+	 *
+	 * @param positionChangedListener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public final void setPositionChangedListener(IPositionChangedListener positionChangedListener) {
+		if (positionChangedListener != null) {
+			this.positionChangedListener = positionChangedListener;
+		} else {
+			this.positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
+		}
 	}
 
 	public final boolean hasCuttableObject(int x, int y, EMapObjectType mapObjectType) {
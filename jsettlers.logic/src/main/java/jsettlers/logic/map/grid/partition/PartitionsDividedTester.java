@@ -26,6 +26,7 @@ import jsettlers.logic.map.grid.partition.PartitionsListingBorderVisitor.BorderP
  * 
  */
 final class PartitionsDividedTester {
+	private static final int INITIAL_TRAVERSING_LIMIT = 64;
 
 	/**
 	 * Private constructor to prevent the creation of objects.
@@ -35,6 +36,10 @@ final class PartitionsDividedTester {
 
 	/**
 	 * Tests if the given positions (that need to lie on the border of the given partition) are connected by the given partition.
+	 * <p />
+	 * The borders starting at both positions are traversed alternately with a doubling limit of visited positions. This way, the effort is bounded
+	 * by the border of the smaller part if the partition is divided and by the distance of the positions along the border if it is not. The size of
+	 * a part whose border has not been traversed completely is reported as {@link Integer#MAX_VALUE}.
 	 * 
 	 * @param partitionObjects
 	 * @param partitions
@@ -43,18 +48,36 @@ final class PartitionsDividedTester {
 	 * @param partition1Size
 	 * @param partition2
 	 * @param partition2Size
-	 * @return true if both positions are connected by the given partition.<br>
-	 *         false if the positions are not connected.
+	 * @return true if both positions are not connected by the given partition.<br>
+	 *         false if the positions are connected.
 	 */
 	public static boolean isPartitionDivided(Partition[] partitionObjects, short[] partitions, short width, BorderPartitionInfo partition1,
 			MutableInt partition1Size, BorderPartitionInfo partition2, MutableInt partition2Size) {
 
 		assert partition1.partitionId == partition2.partitionId;
 
-		return posNotOnBorder(partitionObjects, partitions, width, partition1.positionOfPartition,
-				partition1.insideNeighborPosition, partition2.positionOfPartition, partition1.partitionId, partition1Size)
-				&& posNotOnBorder(partitionObjects, partitions, width, partition2.positionOfPartition,
-						partition2.insideNeighborPosition, partition1.positionOfPartition, partition1.partitionId, partition2Size);
+		for (int limit = INITIAL_TRAVERSING_LIMIT;; limit *= 2) {
+			ETraversingResult result1 = traverseBorder(partitionObjects, partitions, width, partition1.positionOfPartition,
+					partition1.insideNeighborPosition, partition2.positionOfPartition, partition1.partitionId, limit, partition1Size);
+			if (result1 == ETraversingResult.CONNECTED) {
+				return false;
+			}
+
+			ETraversingResult result2 = traverseBorder(partitionObjects, partitions, width, partition2.positionOfPartition,
+					partition2.insideNeighborPosition, partition1.positionOfPartition, partition1.partitionId, limit, partition2Size);
+			if (result2 == ETraversingResult.CONNECTED) {
+				return false;
+			}
+
+			if (result1 == ETraversingResult.DIVIDED || result2 == ETraversingResult.DIVIDED) {
+				if (result1 == ETraversingResult.LIMIT_REACHED) {
+					partition1Size.value = Integer.MAX_VALUE;
+				} else if (result2 == ETraversingResult.LIMIT_REACHED) {
+					partition2Size.value = Integer.MAX_VALUE;
+				}
+				return true;
+			}
+		}
 	}
 
 	/**
@@ -65,18 +88,37 @@ final class PartitionsDividedTester {
 	 * @param width
 	 * @param insideStartPosition
 	 * @param checkPosition
+	 * @param limit
+	 *            The maximum number of inside positions to be visited.
 	 * @param partitionSize
-	 * @return
+	 * @return {@link ETraversingResult#CONNECTED} if the check position is found on the border, {@link ETraversingResult#DIVIDED} if the whole border
+	 *         has been traversed without finding it and {@link ETraversingResult#LIMIT_REACHED} if the limit was reached before.
 	 */
-	private static boolean posNotOnBorder(final Partition[] partitionObjects, final short[] partitions, final short width,
+	private static ETraversingResult traverseBorder(final Partition[] partitionObjects, final short[] partitions, final short width,
 			final ShortPoint2D insideStartPosition, final ShortPoint2D outsideStartPosition, final ShortPoint2D checkPosition,
-			final short partitionId, MutableInt partitionSize) {
+			final short partitionId, final int limit, MutableInt partitionSize) {
 
 		final short checkPositionX = checkPosition.x;
 		final short checkPositionY = checkPosition.y;
+		final MutableInt visitedPositions = new MutableInt();
 
-		return BorderTraversingAlgorithm.traverseBorder(
+		boolean completed = BorderTraversingAlgorithm.traverseBorder(
 				(x, y) -> partitionObjects[partitions[x + y * width]].partitionId == partitionId, insideStartPosition, outsideStartPosition,
-				(insideX, insideY, outsideX, outsideY) -> checkPositionX != insideX || checkPositionY != insideY, false, partitionSize);
+				(insideX, insideY, outsideX, outsideY) -> (checkPositionX != insideX || checkPositionY != insideY) && ++visitedPositions.value <= limit,
+				false, partitionSize);
+
+		if (completed) {
+			return ETraversingResult.DIVIDED;
+		} else if (visitedPositions.value > limit) {
+			return ETraversingResult.LIMIT_REACHED;
+		} else {
+			return ETraversingResult.CONNECTED;
+		}
+	}
+
+	private enum ETraversingResult {
+		CONNECTED,
+		DIVIDED,
+		LIMIT_REACHED
 	}
-}
\ No newline at end of file
+}
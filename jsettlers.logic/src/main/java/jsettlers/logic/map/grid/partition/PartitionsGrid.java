@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -44,10 +45,13 @@ import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.utils.Tuple;
 import jsettlers.common.utils.coordinates.CoordinateStream;
 import jsettlers.common.utils.mutables.MutableInt;
+import jsettlers.logic.map.grid.IPositionChangedListener;
 import jsettlers.logic.map.grid.partition.manager.settings.MaterialProductionSettings;
 import jsettlers.logic.map.grid.partition.PartitionsListingBorderVisitor.BorderPartitionInfo;
 import jsettlers.logic.map.grid.partition.manager.PartitionManager;
 import jsettlers.logic.map.grid.partition.manager.settings.PartitionManagerSettings;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.PlayerSetting;
 import jsettlers.logic.player.Team;
@@ -69,25 +73,39 @@ public final class PartitionsGrid implements Serializable {
 
 	private static final short NO_PLAYER_PARTITION_ID = 0;
 
-	private final PartitionOccupyingTowerList occupyingTowers = new PartitionOccupyingTowerList();
+	private PartitionOccupyingTowerList occupyingTowers = new PartitionOccupyingTowerList();
 
-	final short width;
-	final short height;
-	private final Player[] players;
-	private final IBlockingProvider blockingProvider;
+	short width;
+	short height;
+	private Player[] players;
+	private IBlockingProvider blockingProvider;
 
-	final short[] partitions;
-	private final byte[] towers;
+	// the arrays are saved with writeTo()
+	transient short[] partitions;
+	private transient byte[] towers;
 
-	private final short[] blockedPartitionsForPlayers;
+	private short[] blockedPartitionsForPlayers;
 	Partition[] partitionObjects = new Partition[NUMBER_OF_START_PARTITION_OBJECTS];
 
+	/**
+	 * The ids sharing the same {@link Partition} object are linked to a ring by this array. A merge only relabels the ids in the ring of the smaller
+	 * partition, instead of searching all partition objects.
+	 */
+	private transient short[] mergedPartitionsRing;
+	private transient int numberOfMergedPartitionIds;
+	/**
+	 * All ids below this one are in use. Ids are only freed by {@link #checkNormalizePartitions(int)}, which resets it.
+	 */
+	private transient short nextFreePartitionId;
+
 	private transient IPlayerChangedListener playerChangedListener = IPlayerChangedListener.DEFAULT_IMPLEMENTATION;
+	private transient IPositionChangedListener positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
 
 	public PartitionsGrid(short width, short height, PlayerSetting[] playerSettings, IBlockingProvider blockingProvider) {
 		this.width = width;
 		this.height = height;
 		this.blockingProvider = blockingProvider;
+		rebuildMergedPartitionsRings();
 
 		this.players = new Player[playerSettings.length]; // create the players.
 		this.blockedPartitionsForPlayers = new short[playerSettings.length];
@@ -128,14 +146,94 @@ public final class PartitionsGrid implements Serializable {
 		return height;
 	}
 
+	/**
+	 * Writes the partition objects normalized, so merged partition ids are not saved. The normalization is done on copies, because the game state
+	 * must not change when a game is saved. Otherwise a game saved by only some of the clients of a multiplayer game would run out of sync.
+	 */
 	private void writeObject(ObjectOutputStream oos) throws IOException {
-		int normalizedPartitions = checkNormalizePartitions(0);
-		System.out.println("Normalized " + normalizedPartitions + " partitions");
-		oos.defaultWriteObject();
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("occupyingTowers", occupyingTowers);
+		fields.put("width", width);
+		fields.put("height", height);
+		fields.put("players", players);
+		fields.put("blockingProvider", blockingProvider);
+		fields.put("blockedPartitionsForPlayers", blockedPartitionsForPlayers);
+		fields.put("partitionObjects", getNormalizedPartitionObjects());
+		oos.writeFields();
+	}
+
+	private Partition[] getNormalizedPartitionObjects() {
+		Partition[] normalizedPartitionObjects = partitionObjects.clone();
+		for (int i = 1; i < normalizedPartitionObjects.length; i++) {
+			if (normalizedPartitionObjects[i] != null && normalizedPartitionObjects[i].partitionId != i) {
+				normalizedPartitionObjects[i] = null;
+			}
+		}
+		return normalizedPartitionObjects;
+	}
+
+	private short[] getNormalizedPartitions() {
+		short[] normalizedPartitions = new short[partitions.length];
+		for (int i = 0; i < partitions.length; i++) {
+			normalizedPartitions[i] = partitionObjects[partitions[i]].partitionId;
+		}
+		return normalizedPartitions;
 	}
 
 	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
-		ois.defaultReadObject();
+		ObjectInputStream.GetField fields = ois.readFields();
+		occupyingTowers = (PartitionOccupyingTowerList) fields.get("occupyingTowers", null);
+		width = fields.get("width", (short) 0);
+		height = fields.get("height", (short) 0);
+		players = (Player[]) fields.get("players", null);
+		blockingProvider = (IBlockingProvider) fields.get("blockingProvider", null);
+		blockedPartitionsForPlayers = (short[]) fields.get("blockedPartitionsForPlayers", null);
+		partitionObjects = (Partition[]) fields.get("partitionObjects", null);
+
+		if (fields.getObjectStreamClass().getField("partitions") != null) { // savegames written with plain Java serialization contain the arrays
+			partitions = (short[]) fields.get("partitions", null);
+			towers = (byte[]) fields.get("towers", null);
+		}
+		rebuildMergedPartitionsRings();
+	}
+
+	private void rebuildMergedPartitionsRings() {
+		int length = partitionObjects.length;
+		mergedPartitionsRing = new short[length];
+		numberOfMergedPartitionIds = 0;
+		nextFreePartitionId = 1;
+
+		for (int i = 0; i < length; i++) {
+			mergedPartitionsRing[i] = (short) i;
+		}
+		for (int i = 1; i < length; i++) {
+			Partition partitionObject = partitionObjects[i];
+			if (partitionObject != null && partitionObject.partitionId != i) { // link i into the ring of its representative
+				mergedPartitionsRing[i] = mergedPartitionsRing[partitionObject.partitionId];
+				mergedPartitionsRing[partitionObject.partitionId] = (short) i;
+				numberOfMergedPartitionIds++;
+			}
+		}
+	}
+
+	/**
+	 * Writes the arrays of this grid to the given savegame chunk. The partitions are normalized like the partition objects written by
+	 * writeObject(). If no partitions have been merged, they are already normalized and written without a copy.
+	 */
+	public void writeTo(SavegameChunkOutputStream out) throws IOException {
+		out.writeShorts(numberOfMergedPartitionIds == 0 ? partitions : getNormalizedPartitions());
+		out.writeBytes(towers);
+	}
+
+	/**
+	 * Reads the arrays written by {@link #writeTo(SavegameChunkOutputStream)}.
+	 */
+	public void readFrom(SavegameChunkInputStream in) throws IOException {
+		partitions = new short[width * height];
+		towers = new byte[width * height];
+
+		in.readShorts(partitions);
+		in.readBytes(towers);
 	}
 
 	public boolean isDefaultPartition(short partitionId) {
@@ -269,7 +367,7 @@ public final class PartitionsGrid implements Serializable {
 
 	private void occupyAreaOfTower(PartitionOccupyingTower tower) {
 		// set the tower counter of the groundArea to 0 => the ground area will be occupied
-		tower.groundArea.stream().forEach((x, y) -> towers[x + y * width] = 0);
+		tower.groundArea.stream().forEach((x, y) -> setTowerCounterAt(x, y, 0));
 
 		// occupy the area for the new player
 		occupyAreaByTower(tower.playerId, tower.area.stream(), tower.areaBorders);
@@ -309,13 +407,13 @@ public final class PartitionsGrid implements Serializable {
 	 * @param area
 	 */
 	private void recalculateTowerCounter(PartitionOccupyingTower tower, IMapArea area) {
-		area.stream().forEach((x, y) -> towers[x + y * width] = 0);
+		area.stream().forEach((x, y) -> setTowerCounterAt(x, y, 0));
 
 		List<Tuple<Integer, PartitionOccupyingTower>> towersInRange = occupyingTowers.getTowersInRange(tower.position, tower.radius, currTower -> currTower.playerId == tower.playerId);
 		stream(towersInRange)
 				.forEach(currTower -> area.stream()
 						.filter(currTower.e2.area::contains)
-						.forEach((x, y) -> towers[x + y * width]++));
+						.forEach((x, y) -> setTowerCounterAt(x, y, towers[x + y * width] + 1)));
 	}
 
 	/**
@@ -378,6 +476,7 @@ public final class PartitionsGrid implements Serializable {
 
 		// check for needed merges
 		checkForMergesAndDivides(playerId, partitioner, newPartitionsMap);
+		mergeEnclosedPartitions(playerId, partitioner);
 
 		// increase the tower counter
 		changeTowerCounter(playerId, influencingArea, +1);
@@ -399,6 +498,43 @@ public final class PartitionsGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Merges the partitions of the player that touch the newly occupied area but are not on its outer border. This happens, if the new area
+	 * encloses an area of the player.
+	 */
+	private void mergeEnclosedPartitions(byte playerId, PartitionCalculatorAlgorithm partitioner) {
+		int minX = partitioner.getMinX();
+		int minY = partitioner.getMinY();
+		int partitionerWidth = partitioner.getWidth();
+		int partitionerHeight = partitioner.getHeight();
+
+		for (int dY = 0; dY < partitionerHeight; dY++) {
+			for (int dX = 0; dX < partitionerWidth; dX++) {
+				if (partitioner.getPartitionAt(dX, dY) < PartitionCalculatorAlgorithm.NUMBER_OF_RESERVED_PARTITIONS) {
+					continue; // not occupied or blocked
+				}
+
+				int x = dX + minX;
+				int y = dY + minY;
+				int index = x + y * width;
+
+				for (EDirection direction : EDirection.VALUES) {
+					int neighborX = x + direction.gridDeltaX;
+					int neighborY = y + direction.gridDeltaY;
+
+					if (neighborX < 0 || neighborY < 0 || neighborX >= width || neighborY >= height || blockingProvider.isBlocked(neighborX, neighborY)) {
+						continue;
+					}
+
+					Partition neighborPartition = partitionObjects[partitions[neighborX + neighborY * width]];
+					if (neighborPartition.playerId == playerId && neighborPartition != partitionObjects[partitions[index]]) {
+						mergePartitions(neighborPartition.partitionId, partitionObjects[partitions[index]].partitionId);
+					}
+				}
+			}
+		}
+	}
+
 	private void checkMergesAndDividesOnPartitionsList(byte playerId, final short innerPartition, LinkedList<BorderPartitionInfo> partitionsList) {
 		if (partitionsList.isEmpty()) {
 			return; // nothing to do
@@ -408,6 +544,10 @@ public final class PartitionsGrid implements Serializable {
 		HashMap<Short, BorderPartitionInfo> foundPartitionsSet = new HashMap<>();
 		for (BorderPartitionInfo currPartitionInfo : partitionsList) {
 			Short currPartitionId = currPartitionInfo.partitionId;
+			if (getPartitionIdAt(currPartitionInfo.positionOfPartition.x, currPartitionInfo.positionOfPartition.y) != currPartitionId) {
+				continue; // the position has been relabeled by a divide of an earlier entry of the list
+			}
+
 			BorderPartitionInfo existingPartitionInfo = foundPartitionsSet.get(currPartitionId);
 			if (existingPartitionInfo != null) {
 				if (partitionObjects[currPartitionId].playerId != playerId) { // the player cannot divide its own partitions => only check other player's positions
@@ -495,7 +635,17 @@ public final class PartitionsGrid implements Serializable {
 	private void changeTowerCounter(final byte playerId, CoordinateStream influencingArea, int delta) {
 		influencingArea
 				.filter((x, y) -> partitionObjects[partitions[x + y * width]].playerId == playerId)
-				.forEach((x, y) -> towers[x + y * width] += delta);
+				.forEach((x, y) -> setTowerCounterAt(x, y, towers[x + y * width] + delta));
+	}
+
+	private void setTowerCounterAt(int x, int y, int towerCounter) {
+		int index = x + y * width;
+		boolean wasEnforcedByTower = towers[index] > 0;
+		towers[index] = (byte) towerCounter;
+
+		if (wasEnforcedByTower != towerCounter > 0) {
+			positionChangedListener.positionChanged(x, y);
+		}
 	}
 
 	/**
@@ -534,21 +684,24 @@ public final class PartitionsGrid implements Serializable {
 		smallerPartitionObject.mergeInto(biggerPartitionObject);
 		smallerPartitionObject.stopManager();
 
-		partitionObjects[smallerPartition] = biggerPartitionObject;
-
 		/**
-		 * Flatten all hierarchies: <br>
+		 * Keep all hierarchies flat: <br>
 		 * start situation: 1 <- 2 and 3 <- 4 <br>
-		 * merge of 4 and 2 leads to a merge of 1 and 3. Say 1 is the resulting partition. Then we get: <br>
-		 * 1 <- 2, 1 <- 3 <- 4 <br>
-		 * The chain 1 <- 3 <- 4 will be cut to 1 <- 3 and 1 <- 4 by the following code. <br>
+		 * merge of 4 and 2 leads to a merge of 1 and 3. Say 1 is the resulting partition. Then 3 and 4 are relabeled by walking the ring of 3 and we
+		 * get: <br>
+		 * 1 <- 2, 1 <- 3, 1 <- 4 <br>
+		 * Afterwards, the rings of 1 and 3 are joined.
 		 */
-		int numberOfPartitions = partitionObjects.length;
-		for (int i = 1; i < numberOfPartitions; i++) {
-			if (partitionObjects[i] == smallerPartitionObject) {
-				partitionObjects[i] = biggerPartitionObject;
-			}
-		}
+		short id = smallerPartition;
+		do {
+			partitionObjects[id] = biggerPartitionObject;
+			id = mergedPartitionsRing[id];
+		} while (id != smallerPartition);
+
+		short nextOfBigger = mergedPartitionsRing[biggerPartition];
+		mergedPartitionsRing[biggerPartition] = mergedPartitionsRing[smallerPartition];
+		mergedPartitionsRing[smallerPartition] = nextOfBigger;
+		numberOfMergedPartitionIds++;
 
 		return biggerPartition;
 	}
@@ -627,24 +780,27 @@ public final class PartitionsGrid implements Serializable {
 
 	private void notifyPlayerChangedListener(int x, int y, byte newPlayer) {
 		playerChangedListener.playerChangedAt(x, y, newPlayer);
+		positionChangedListener.positionChanged(x, y);
 	}
 
 	short createNewPartition(byte playerId) { // package private for tests
 		checkNormalizePartitions(NUMBER_OF_START_PARTITION_OBJECTS / 2);
 
-		short newPartitionId = 1;
+		short newPartitionId = nextFreePartitionId;
 
-		while (partitionObjects[newPartitionId] != null) { // get a free partition
-			newPartitionId++;
+		while (newPartitionId >= partitionObjects.length || partitionObjects[newPartitionId] != null) { // get a free partition
 			int length = partitionObjects.length;
 
-			if (newPartitionId >= length) {
+			if (newPartitionId < length) {
+				newPartitionId++;
+			} else {
 				synchronized (this) {
 					int newLength = (int) (length * PARTITIONS_EXPAND_FACTOR);
 					Partition[] newPartitionObjects = new Partition[newLength];
 
 					System.arraycopy(partitionObjects, 0, newPartitionObjects, 0, length);
 					partitionObjects = newPartitionObjects;
+					mergedPartitionsRing = Arrays.copyOf(mergedPartitionsRing, newLength);
 
 					System.out.println("PartitionsGrid: Expanded the number of possible partitions from " + length + " to " + newLength);
 				}
@@ -654,6 +810,8 @@ public final class PartitionsGrid implements Serializable {
 		Partition newPartitionObject = new Partition(newPartitionId, playerId, players[playerId]);
 		newPartitionObject.startManager();
 		partitionObjects[newPartitionId] = newPartitionObject;
+		mergedPartitionsRing[newPartitionId] = newPartitionId;
+		nextFreePartitionId = (short) (newPartitionId + 1);
 
 		return newPartitionId;
 	}
@@ -679,11 +837,29 @@ public final class PartitionsGrid implements Serializable {
 		}
 	}
 
+	/**
+	 * Sets the given listener. The listener will then be informed of any positions that change their player or their enforcement by towers.
+	 *
+	 * @param listener
+	 *            The listener to be set or null if no listener should be set.
+	 */
+	public void setPositionChangedListener(IPositionChangedListener listener) {
+		if (listener == null) {
+			this.positionChangedListener = IPositionChangedListener.DEFAULT_IMPLEMENTATION;
+		} else {
+			this.positionChangedListener = listener;
+		}
+	}
+
 	public byte getNumberOfPlayers() {
 		return (byte) players.length;
 	}
 
 	private int checkNormalizePartitions(int mergePartitionsThreshold) {
+		if (numberOfMergedPartitionIds <= mergePartitionsThreshold) {
+			return 0;// skip the rest if nothing is to do.
+		}
+
 		int maxPartitions = this.partitionObjects.length;
 		BitSet stoppedManagers = new BitSet(maxPartitions);
 
@@ -698,10 +874,6 @@ public final class PartitionsGrid implements Serializable {
 			}
 		}
 
-		if (counter <= mergePartitionsThreshold) {
-			return 0;// skip the rest if nothing is to do.
-		}
-
 		// normalize the partitions
 		for (int y = 0; y < height; y++) {
 			synchronized (this) { // the lock is acquired here to prevent holding it for a long time without requesting it every time
@@ -719,6 +891,7 @@ public final class PartitionsGrid implements Serializable {
 					this.partitionObjects[i] = null;
 				}
 			}
+			rebuildMergedPartitionsRings();
 		}
 
 		return counter;
@@ -195,6 +195,22 @@ public class PartitionManager implements IScheduledTimerable, Serializable, IWor
 		joblessWorkers.remove(worker);
 	}
 
+	public void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition) {
+		joblessBearer.positionChanged(bearer, oldPosition);
+	}
+
+	public void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition) {
+		joblessWorkers.positionChanged(worker, oldPosition);
+	}
+
+	public void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition) {
+		joblessDiggers.positionChanged(digger, oldPosition);
+	}
+
+	public void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition) {
+		joblessBricklayers.positionChanged(bricklayer, oldPosition);
+	}
+
 	/**
 	 * @param x
 	 * 		x coordinate of the position to be removed from this manager and added to the given manager
@@ -15,17 +15,31 @@
 package jsettlers.logic.map.grid.partition.manager.datastructures;
 
 import java8.util.function.Consumer;
+import java8.util.function.Predicate;
 import jsettlers.common.position.ILocatable;
 import jsettlers.common.position.ShortPoint2D;
 import jsettlers.common.utils.MathUtils;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object around a given position.
+ * <p>
+ * The objects are kept in insertion order and are additionally indexed in a grid of buckets covering {@link #BUCKET_SIZE}x{@link #BUCKET_SIZE}
+ * positions each. Nearest neighbor searches visit the buckets in rings around the searched position and stop as soon as no further ring can contain
+ * a closer object. If several objects have the same distance, the one inserted first is returned - exactly like a linear search over the insertion
+ * order would do.
+ * <p>
+ * The index assumes the positions of the stored objects do not change. If they do, {@link #positionChanged(ILocatable, ShortPoint2D)} has to be
+ * called.
  *
  * @param <T>
  * @author Andreas Eberle
@@ -33,24 +47,50 @@ import java.util.LinkedList;
 public class PositionableList<T extends ILocatable> implements Serializable {
 	private static final long serialVersionUID = 414099060331344505L;
 
-	protected final LinkedList<T> data;
+	/**
+	 * The list is still serialized as the {@link LinkedList} of the former implementation. This keeps old savegames loadable.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField("data", LinkedList.class) };
+
+	private static final int BUCKET_SIZE_SHIFT = 4;
+	private static final int BUCKET_SIZE = 1 << BUCKET_SIZE_SHIFT;
+	private static final int BUCKETS_GROWTH_MARGIN = 4;
+	/**
+	 * Lists up to this size are searched linearly, as this is faster than visiting the buckets.
+	 */
+	private static final int LINEAR_SEARCH_SIZE = 16;
+
+	private transient Entry<T> first;
+	private transient Entry<T> last;
+	private transient int size;
+	private transient long nextOrder;
+
+	private transient Entry<T>[] bucketHeads;
+	private transient Entry<T>[] bucketTails;
+	private transient int bucketsMinX;
+	private transient int bucketsMinY;
+	private transient int bucketsWidth;
+	private transient int bucketsHeight;
+
+	/**
+	 * Objects read from a savegame. They are indexed on first access, as their positions may not be readable during deserialization.
+	 */
+	private transient LinkedList<T> deserializedData;
 
 	public PositionableList() {
-		data = new LinkedList<>();
 	}
 
 	public void insert(T object) {
-		data.add(object);
+		restoreDeserializedData();
+		append(object);
 	}
 
 	public T removeObjectAt(ShortPoint2D position) {
-		Iterator<T> iterator = data.iterator();
-		while (iterator.hasNext()) {
-			T curr = iterator.next();
-			if (curr.getPos().equals(position)) {
-				iterator.remove();
-				return curr;
-			}
+		restoreDeserializedData();
+		Entry<T> entry = getEntryAt(position);
+		if (entry != null) {
+			unlink(entry);
+			return entry.object;
 		}
 		return null;
 	}
@@ -63,12 +103,9 @@ public class PositionableList<T extends ILocatable> implements Serializable {
 	 * @return Returns the found object at the given position or null if no object has been found.
 	 */
 	public T getObjectAt(ShortPoint2D position) {
-		for (T curr : data) {
-			if (curr.getPos().equals(position)) {
-				return curr;
-			}
-		}
-		return null;
+		restoreDeserializedData();
+		Entry<T> entry = getEntryAt(position);
+		return entry != null ? entry.object : null;
 	}
 
 	/**
@@ -79,71 +116,485 @@ public class PositionableList<T extends ILocatable> implements Serializable {
 	 * @return accepted object that's nearest to position
 	 */
 	public T removeObjectNextTo(ShortPoint2D position) {
-		T currBest = getObjectCloseTo(position);
-
-		if (currBest != null) {
-			data.remove(currBest);
-		}
-
-		return currBest;
+		return removeObjectCloseTo(position, null);
 	}
 
 	protected T getObjectCloseTo(ShortPoint2D position) {
-		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
+		return getObjectCloseTo(position, null);
+	}
 
-		for (T currEntry : data) {
-			int currDist = MathUtils.squareHypot(position, currEntry.getPos());
+	/**
+	 * Finds the object that's closest to the given position and accepted by the given predicate.
+	 *
+	 * @param position
+	 * 		position to be used to find the nearest accepted neighbor around it.
+	 * @param acceptor
+	 * 		if acceptor != null => the result is accepted by the acceptor. <br>
+	 * 		if acceptor == null every entry is accepted.
+	 * @return accepted object that's nearest to position or null if there is none.
+	 */
+	protected final T getObjectCloseTo(ShortPoint2D position, Predicate<T> acceptor) {
+		restoreDeserializedData();
+		Entry<T> entry = findClosest(position, acceptor);
+		return entry != null ? entry.object : null;
+	}
 
-			if (bestDistance > currDist) {
-				bestDistance = currDist;
-				currBest = currEntry;
+	/**
+	 * Finds the object that's closest to the given position and accepted by the given predicate and removes it.
+	 *
+	 * @param position
+	 * 		position to be used to find the nearest accepted neighbor around it.
+	 * @param acceptor
+	 * 		if acceptor != null => the result is accepted by the acceptor. <br>
+	 * 		if acceptor == null every entry is accepted.
+	 * @return accepted object that's nearest to position or null if there is none.
+	 */
+	protected final T removeObjectCloseTo(ShortPoint2D position, Predicate<T> acceptor) {
+		restoreDeserializedData();
+		Entry<T> entry = findClosest(position, acceptor);
+		if (entry != null) {
+			unlink(entry);
+			return entry.object;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the list contains an object accepted by the given predicate. Objects that can be removed are dropped while iterating.
+	 *
+	 * @param acceptor
+	 * 		The predicate checking the objects.
+	 * @return true if an accepted object has been found.
+	 */
+	protected final boolean containsAccepted(Predicate<T> acceptor) {
+		restoreDeserializedData();
+		for (Entry<T> entry = first; entry != null; ) {
+			Entry<T> next = entry.next;
+			if (canBeRemoved(entry.object)) {
+				unlink(entry);
+			} else if (acceptor.test(entry.object)) {
+				return true;
 			}
+			entry = next;
+		}
+		return false;
+	}
+
+	/**
+	 * Subclasses can use this method to let searches drop objects that are no longer needed.
+	 *
+	 * @param object
+	 * 		The object to check.
+	 * @return true if the object shall be removed from the list when a search comes across it.
+	 */
+	protected boolean canBeRemoved(T object) {
+		return false;
+	}
+
+	/**
+	 * Informs the list that the position of the given object has changed.
+	 *
+	 * @param object
+	 * 		The object that has been moved.
+	 * @param oldPosition
+	 * 		The position of the object before it has been moved.
+	 */
+	public void positionChanged(T object, ShortPoint2D oldPosition) {
+		restoreDeserializedData();
+		Entry<T> entry = getEntryInBucket(object, oldPosition);
+		if (entry != null) {
+			removeFromBucket(entry);
+			addToBucket(entry);
 		}
-		return currBest;
 	}
 
 	@Override
 	public String toString() {
-		return data.toString();
+		restoreDeserializedData();
+		return toList().toString();
 	}
 
 	public void moveAll(PositionableList<T> otherList) {
-		LinkedList<T> othersData = otherList.data;
-		data.addAll(othersData);
-		othersData.clear();
+		restoreDeserializedData();
+		otherList.restoreDeserializedData();
+		for (Entry<T> entry = otherList.first; entry != null; entry = entry.next) {
+			append(entry.object);
+		}
+		otherList.clear();
 	}
 
 	public void moveAll(PositionableList<T> otherList, Consumer<T> movedVisitor) {
-		LinkedList<T> othersData = otherList.data;
-		for (T othersDatum : othersData) {
-			movedVisitor.accept(othersDatum);
-			data.add(othersDatum);
+		restoreDeserializedData();
+		otherList.restoreDeserializedData();
+		for (Entry<T> entry = otherList.first; entry != null; entry = entry.next) {
+			movedVisitor.accept(entry.object);
+			append(entry.object);
 		}
-		othersData.clear();
+		otherList.clear();
 	}
 
 	public void remove(T object) {
-		this.data.remove(object);
+		restoreDeserializedData();
+		Entry<T> entry = getEntryInBucket(object, object.getPos());
+		if (entry == null) { // the object may have been moved without notification
+			for (entry = first; entry != null && entry.object != object; entry = entry.next) {
+			}
+		}
+
+		if (entry != null) {
+			unlink(entry);
+		}
 	}
 
 	public boolean isEmpty() {
-		return data.isEmpty();
+		restoreDeserializedData();
+		return size == 0;
 	}
 
 	public void moveObjectsAtPositionTo(ShortPoint2D position, PositionableList<T> newList, Consumer<T> movedVisitor) {
-		Iterator<T> iterator = data.iterator();
-		while (iterator.hasNext()) {
-			T curr = iterator.next();
-			if (curr.getPos().equals(position)) {
-				iterator.remove();
-				movedVisitor.accept(curr);
-				newList.data.add(curr);
+		restoreDeserializedData();
+		newList.restoreDeserializedData();
+		int bucketIndex = getBucketIndex(position.x >> BUCKET_SIZE_SHIFT, position.y >> BUCKET_SIZE_SHIFT);
+		if (bucketIndex < 0) {
+			return;
+		}
+
+		for (Entry<T> entry = bucketHeads[bucketIndex]; entry != null; ) {
+			Entry<T> next = entry.bucketNext;
+			if (entry.object.getPos().equals(position)) {
+				unlink(entry);
+				movedVisitor.accept(entry.object);
+				newList.append(entry.object);
 			}
+			entry = next;
 		}
 	}
 
 	public int size() {
-		return data.size();
+		restoreDeserializedData();
+		return size;
+	}
+
+	private void append(T object) {
+		Entry<T> entry = new Entry<>(object, nextOrder++);
+
+		entry.prev = last;
+		if (last == null) {
+			first = entry;
+		} else {
+			last.next = entry;
+		}
+		last = entry;
+		size++;
+
+		addToBucket(entry);
+	}
+
+	private void unlink(Entry<T> entry) {
+		if (entry.prev == null) {
+			first = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+		if (entry.next == null) {
+			last = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+		entry.prev = null;
+		entry.next = null;
+		size--;
+
+		removeFromBucket(entry);
+	}
+
+	private void clear() {
+		first = null;
+		last = null;
+		size = 0;
+		bucketHeads = null;
+		bucketTails = null;
+		bucketsWidth = 0;
+		bucketsHeight = 0;
+	}
+
+	private Entry<T> getEntryAt(ShortPoint2D position) {
+		int bucketIndex = getBucketIndex(position.x >> BUCKET_SIZE_SHIFT, position.y >> BUCKET_SIZE_SHIFT);
+		if (bucketIndex >= 0) {
+			for (Entry<T> entry = bucketHeads[bucketIndex]; entry != null; entry = entry.bucketNext) {
+				if (entry.object.getPos().equals(position)) {
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+
+	private Entry<T> getEntryInBucket(T object, ShortPoint2D position) {
+		int bucketIndex = getBucketIndex(position.x >> BUCKET_SIZE_SHIFT, position.y >> BUCKET_SIZE_SHIFT);
+		if (bucketIndex >= 0) {
+			for (Entry<T> entry = bucketHeads[bucketIndex]; entry != null; entry = entry.bucketNext) {
+				if (entry.object == object) {
+					return entry;
+				}
+			}
+		}
+		return null;
+	}
+
+	private Entry<T> findClosest(ShortPoint2D position, Predicate<T> acceptor) {
+		if (size <= LINEAR_SEARCH_SIZE) {
+			return findClosestLinear(position, acceptor);
+		}
+
+		int centerX = (position.x >> BUCKET_SIZE_SHIFT) - bucketsMinX;
+		int centerY = (position.y >> BUCKET_SIZE_SHIFT) - bucketsMinY;
+		int maxRing = Math.max(Math.max(centerX, bucketsWidth - 1 - centerX), Math.max(centerY, bucketsHeight - 1 - centerY));
+
+		BestEntry<T> best = new BestEntry<>();
+		int visitedBuckets = 0;
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (best.entry != null && getMinimumDistance(ring) > best.distance) {
+				break; // no object in this or further rings can be closer
+			}
+			if (visitedBuckets > size) { // the list is sparse compared to the area it covers
+				return findClosestLinear(position, acceptor);
+			}
+
+			int minY = Math.max(0, centerY - ring);
+			int maxY = Math.min(bucketsHeight - 1, centerY + ring);
+			int minX = Math.max(0, centerX - ring);
+			int maxX = Math.min(bucketsWidth - 1, centerX + ring);
+
+			for (int y = minY; y <= maxY; y++) {
+				if (y == centerY - ring || y == centerY + ring) {
+					for (int x = minX; x <= maxX; x++) {
+						searchBucket(y * bucketsWidth + x, position, acceptor, best);
+					}
+					visitedBuckets += Math.max(0, maxX - minX + 1);
+				} else {
+					if (centerX - ring >= 0 && centerX - ring < bucketsWidth) {
+						searchBucket(y * bucketsWidth + centerX - ring, position, acceptor, best);
+						visitedBuckets++;
+					}
+					if (centerX + ring >= 0 && centerX + ring < bucketsWidth) {
+						searchBucket(y * bucketsWidth + centerX + ring, position, acceptor, best);
+						visitedBuckets++;
+					}
+				}
+			}
+		}
+		return best.entry;
+	}
+
+	private void searchBucket(int bucketIndex, ShortPoint2D position, Predicate<T> acceptor, BestEntry<T> best) {
+		for (Entry<T> entry = bucketHeads[bucketIndex]; entry != null; ) {
+			Entry<T> next = entry.bucketNext;
+			T object = entry.object;
+
+			if (canBeRemoved(object)) {
+				unlink(entry);
+			} else if (acceptor == null || acceptor.test(object)) {
+				int distance = MathUtils.squareHypot(position, object.getPos());
+				if (distance < best.distance || (distance == best.distance && entry.order < best.entry.order)) {
+					best.distance = distance;
+					best.entry = entry;
+				}
+			}
+			entry = next;
+		}
+	}
+
+	private Entry<T> findClosestLinear(ShortPoint2D position, Predicate<T> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		Entry<T> currBest = null;
+
+		for (Entry<T> entry = first; entry != null; ) {
+			Entry<T> next = entry.next;
+			T object = entry.object;
+
+			if (canBeRemoved(object)) {
+				unlink(entry);
+			} else if (acceptor == null || acceptor.test(object)) {
+				int currDist = MathUtils.squareHypot(position, object.getPos());
+
+				if (bestDistance > currDist) {
+					bestDistance = currDist;
+					currBest = entry;
+				}
+			}
+			entry = next;
+		}
+		return currBest;
+	}
+
+	/**
+	 * Calculates a lower bound of the square distance between any position in a bucket and any position in a bucket the given number of rings
+	 * around it.
+	 */
+	private static int getMinimumDistance(int ring) {
+		if (ring == 0) {
+			return 0;
+		}
+		int minimumDelta = (ring - 1) * BUCKET_SIZE + 1;
+		return minimumDelta * minimumDelta;
+	}
+
+	private int getBucketIndex(int bucketX, int bucketY) {
+		int x = bucketX - bucketsMinX;
+		int y = bucketY - bucketsMinY;
+		if (x < 0 || y < 0 || x >= bucketsWidth || y >= bucketsHeight) {
+			return -1;
+		}
+		return y * bucketsWidth + x;
+	}
+
+	private void addToBucket(Entry<T> entry) {
+		ShortPoint2D position = entry.object.getPos();
+		int bucketX = position.x >> BUCKET_SIZE_SHIFT;
+		int bucketY = position.y >> BUCKET_SIZE_SHIFT;
+
+		int bucketIndex = getBucketIndex(bucketX, bucketY);
+		if (bucketIndex < 0) {
+			growBuckets(bucketX, bucketY);
+			bucketIndex = getBucketIndex(bucketX, bucketY);
+		}
+		entry.bucketIndex = bucketIndex;
+
+		// keep the buckets in insertion order, new entries are usually appended at the end
+		Entry<T> previous = bucketTails[bucketIndex];
+		while (previous != null && previous.order > entry.order) {
+			previous = previous.bucketPrev;
+		}
+
+		Entry<T> next = previous == null ? bucketHeads[bucketIndex] : previous.bucketNext;
+		entry.bucketPrev = previous;
+		entry.bucketNext = next;
+		if (previous == null) {
+			bucketHeads[bucketIndex] = entry;
+		} else {
+			previous.bucketNext = entry;
+		}
+		if (next == null) {
+			bucketTails[bucketIndex] = entry;
+		} else {
+			next.bucketPrev = entry;
+		}
+	}
+
+	private void removeFromBucket(Entry<T> entry) {
+		int bucketIndex = entry.bucketIndex;
+		if (entry.bucketPrev == null) {
+			bucketHeads[bucketIndex] = entry.bucketNext;
+		} else {
+			entry.bucketPrev.bucketNext = entry.bucketNext;
+		}
+		if (entry.bucketNext == null) {
+			bucketTails[bucketIndex] = entry.bucketPrev;
+		} else {
+			entry.bucketNext.bucketPrev = entry.bucketPrev;
+		}
+		entry.bucketPrev = null;
+		entry.bucketNext = null;
+	}
+
+	private void growBuckets(int bucketX, int bucketY) {
+		int newMinX, newMinY, newMaxX, newMaxY;
+		if (bucketHeads == null) {
+			newMinX = newMaxX = bucketX;
+			newMinY = newMaxY = bucketY;
+		} else {
+			int maxX = bucketsMinX + bucketsWidth - 1;
+			int maxY = bucketsMinY + bucketsHeight - 1;
+			newMinX = bucketX < bucketsMinX ? Math.max(0, bucketX - BUCKETS_GROWTH_MARGIN) : bucketsMinX;
+			newMinY = bucketY < bucketsMinY ? Math.max(0, bucketY - BUCKETS_GROWTH_MARGIN) : bucketsMinY;
+			newMaxX = bucketX > maxX ? bucketX + BUCKETS_GROWTH_MARGIN : maxX;
+			newMaxY = bucketY > maxY ? bucketY + BUCKETS_GROWTH_MARGIN : maxY;
+			newMinX = Math.min(newMinX, bucketX);
+			newMinY = Math.min(newMinY, bucketY);
+		}
+
+		int newWidth = newMaxX - newMinX + 1;
+		int newHeight = newMaxY - newMinY + 1;
+		Entry<T>[] newHeads = newEntryArray(newWidth * newHeight);
+		Entry<T>[] newTails = newEntryArray(newWidth * newHeight);
+
+		for (int y = 0; y < bucketsHeight; y++) {
+			for (int x = 0; x < bucketsWidth; x++) {
+				int oldIndex = y * bucketsWidth + x;
+				int newIndex = (y + bucketsMinY - newMinY) * newWidth + x + bucketsMinX - newMinX;
+				newHeads[newIndex] = bucketHeads[oldIndex];
+				newTails[newIndex] = bucketTails[oldIndex];
+				for (Entry<T> entry = bucketHeads[oldIndex]; entry != null; entry = entry.bucketNext) {
+					entry.bucketIndex = newIndex;
+				}
+			}
+		}
+
+		bucketHeads = newHeads;
+		bucketTails = newTails;
+		bucketsMinX = newMinX;
+		bucketsMinY = newMinY;
+		bucketsWidth = newWidth;
+		bucketsHeight = newHeight;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Entry<T>[] newEntryArray(int length) {
+		return (Entry<T>[]) new Entry<?>[length];
+	}
+
+	private List<T> toList() {
+		List<T> list = new ArrayList<>(size);
+		for (Entry<T> entry = first; entry != null; entry = entry.next) {
+			list.add(entry.object);
+		}
+		return list;
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		restoreDeserializedData();
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("data", new LinkedList<>(toList()));
+		oos.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		deserializedData = (LinkedList<T>) fields.get("data", null);
+	}
+
+	private void restoreDeserializedData() {
+		if (deserializedData != null) {
+			LinkedList<T> data = deserializedData;
+			deserializedData = null;
+			for (T object : data) {
+				append(object);
+			}
+		}
+	}
+
+	private static final class Entry<T> {
+		final T object;
+		final long order;
+
+		Entry<T> prev;
+		Entry<T> next;
+
+		int bucketIndex;
+		Entry<T> bucketPrev;
+		Entry<T> bucketNext;
+
+		Entry(T object, long order) {
+			this.object = object;
+			this.order = order;
+		}
+	}
+
+	private static final class BestEntry<T> {
+		Entry<T> entry;
+		int distance = Integer.MAX_VALUE;
 	}
 }
@@ -16,11 +16,8 @@ package jsettlers.logic.map.grid.partition.manager.materials.offers.list;
 
 import jsettlers.common.position.ILocatable;
 import jsettlers.common.position.ShortPoint2D;
-import jsettlers.common.utils.MathUtils;
 import jsettlers.logic.map.grid.partition.manager.datastructures.PositionableList;
 
-import java.util.Iterator;
-
 /**
  * This is a data structure for storing and retrieving objects at given positions.<br>
  * It is also possible to find the nearest object around a given position.
@@ -29,41 +26,19 @@ import java.util.Iterator;
  * @author Andreas Eberle
  */
 public class ManagingPositionableList<T extends ILocatable & IListManageable> extends PositionableList<T> {
+	private static final long serialVersionUID = 5373491460834642792L;
 
 	@Override
 	protected T getObjectCloseTo(ShortPoint2D position) {
-		int bestDistance = Integer.MAX_VALUE;
-		T currBest = null;
-
-		for (Iterator<T> iterator = data.iterator(); iterator.hasNext(); ) {
-			T currEntry = iterator.next();
-
-			if (currEntry.canBeRemoved()) { // remove old entries no longer needed
-				iterator.remove();
-
-			} else if (currEntry.isActive()) { // only use the active ones
-				int currDist = MathUtils.squareHypot(position, currEntry.getPos());
-
-				if (bestDistance > currDist) {
-					bestDistance = currDist;
-					currBest = currEntry;
-				}
-			}
-		}
-		return currBest;
+		return getObjectCloseTo(position, IListManageable::isActive); // only use the active ones
 	}
 
 	public boolean hasNoActive() {
-		for (Iterator<T> iterator = data.iterator(); iterator.hasNext(); ) {
-			T datum = iterator.next();
-
-			if (datum.canBeRemoved()) {
-				iterator.remove();
+		return !containsAccepted(IListManageable::isActive);
+	}
 
-			} else if (datum.isActive()) {
-				return false;
-			}
-		}
-		return true;
+	@Override
+	protected boolean canBeRemoved(T object) {
+		return object.canBeRemoved(); // remove old entries no longer needed
 	}
 }
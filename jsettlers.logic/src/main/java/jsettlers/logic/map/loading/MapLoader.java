@@ -42,25 +42,46 @@ public abstract class MapLoader implements IGameCreator, Comparable<MapLoader>,
 	public abstract MapFileHeader getFileHeader();
 
 	public static MapLoader getLoaderForListedMap(IListedMap listedMap) throws MapLoadException {
-		if ((checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL))
-				|| (checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL_MAP_EDITOR))) {
+		if (isOriginalMap(listedMap)) {
 			// - original Siedler 3 Map
 			return new OriginalMapLoader(listedMap);
 		} else {
 			// - Siedler 3 Remake Savegame or Map
-			MapFileHeader header = RemakeMapLoader.loadHeader(listedMap);
-
-			switch (header.getType()) {
-			case NORMAL:
-				return new FreshMapLoader(listedMap, header);
-			case SAVED_SINGLE:
-				return new SavegameLoader(listedMap, header);
-			default:
-				throw new MapLoadException("Unkown EMapType: " + header.getType());
-			}
+			return getLoaderForHeader(listedMap, RemakeMapLoader.loadHeader(listedMap));
 		}
 	}
 
+	/**
+	 * Creates the loader for a map whose header is already known, without reading the map file.
+	 *
+	 * @param listedMap
+	 *            The map.
+	 * @param header
+	 *            The header the {@link #getFileHeader()} method of a loader for the same map returned.
+	 * @return The loader for the map.
+	 * @throws MapLoadException
+	 *             If the type of the header is unknown.
+	 */
+	public static MapLoader getLoaderForHeader(IListedMap listedMap, MapFileHeader header) throws MapLoadException {
+		if (isOriginalMap(listedMap)) {
+			return new OriginalMapLoader(listedMap, header);
+		}
+
+		switch (header.getType()) {
+		case NORMAL:
+			return new FreshMapLoader(listedMap, header);
+		case SAVED_SINGLE:
+			return new SavegameLoader(listedMap, header);
+		default:
+			throw new MapLoadException("Unkown EMapType: " + header.getType());
+		}
+	}
+
+	private static boolean isOriginalMap(IListedMap listedMap) {
+		return checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL)
+				|| checkExtention(listedMap.getFileName(), MapLoader.MAP_EXTENSION_ORIGINAL_MAP_EDITOR);
+	}
+
 	public static boolean checkExtention(String filename, String Extention) {
 		if (filename == null)
 			return false;
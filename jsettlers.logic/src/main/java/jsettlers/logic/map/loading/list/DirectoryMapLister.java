@@ -15,6 +15,7 @@
 package jsettlers.logic.map.loading.list;
 
 import java.io.BufferedOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -25,6 +26,7 @@ import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -32,6 +34,7 @@ import jsettlers.common.CommonConstants;
 import jsettlers.common.utils.FileUtils;
 import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
 
 /**
  * Lists all maps in a directory.
@@ -98,6 +101,22 @@ public class DirectoryMapLister implements IMapLister {
 		});
 	}
 
+	/**
+	 * Watches the directory for maps being added, changed or removed.
+	 *
+	 * @param onChange
+	 *            Called on a background thread when the content of the directory has changed.
+	 * @return A handle to stop watching the directory.
+	 * @throws IOException
+	 *             If the directory cannot be watched.
+	 */
+	public Closeable watch(Runnable onChange) throws IOException {
+		if (directory == null || !directory.isDirectory()) {
+			throw new IOException("Can not watch " + directory + ", it is no directory.");
+		}
+		return new DirectoryWatcher(directory, onChange);
+	}
+
 	@Override
 	public OutputStream getOutputStream(MapFileHeader header) throws IOException {
 		String name = header.getName().toLowerCase(Locale.ENGLISH).replaceAll("^\\W+|\\W+$", "").replaceAll("\\W+", "_");
@@ -144,6 +163,9 @@ public class DirectoryMapLister implements IMapLister {
 			if (CommonConstants.USE_SAVEGAME_COMPRESSION) {
 				System.out.println("Using savegame compression!");
 				ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+				if (header.getType() == MapType.SAVED_SINGLE) {
+					zipOutputStream.setLevel(Deflater.NO_COMPRESSION); // savegames compress their data themselves
+				}
 				ZipEntry zipEntry = new ZipEntry(actualName + MapLoader.MAP_EXTENSION);
 				zipOutputStream.putNextEntry(zipEntry);
 
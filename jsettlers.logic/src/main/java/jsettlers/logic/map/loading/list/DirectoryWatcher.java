@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory and its sub-directories and runs a callback on a daemon thread when files in them have been created, modified or deleted.
+ * <p />
+ * Writing a file causes a burst of events. The callback is only run after no more events arrived for {@value #SETTLE_TIME_MS} ms.
+ *
+ */
+class DirectoryWatcher implements Closeable {
+	private static final long SETTLE_TIME_MS = 500;
+
+	private final WatchService watchService;
+	private final Runnable onChange;
+
+	DirectoryWatcher(File directory, Runnable onChange) throws IOException {
+		this.watchService = directory.toPath().getFileSystem().newWatchService();
+		this.onChange = onChange;
+		registerTree(directory);
+
+		Thread thread = new Thread(this::watch, "DirectoryWatcher " + directory.getName());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void registerTree(File directory) throws IOException {
+		directory.toPath().register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		File[] children = directory.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					registerTree(child);
+				}
+			}
+		}
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				WatchKey key = watchService.take();
+				do {
+					handleEvents(key);
+				} while ((key = watchService.poll(SETTLE_TIME_MS, TimeUnit.MILLISECONDS)) != null);
+
+				onChange.run();
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// the watcher has been closed
+		}
+	}
+
+	private void handleEvents(WatchKey key) {
+		Path directory = (Path) key.watchable();
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == ENTRY_CREATE) {
+				File created = directory.resolve((Path) event.context()).toFile();
+				if (created.isDirectory()) {
+					try {
+						registerTree(created);
+					} catch (IOException e) {
+						System.err.println("Could not watch " + created + ": " + e.getMessage());
+					}
+				}
+			}
+		}
+		key.reset();
+	}
+
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+}
@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+
+/**
+ * A persistent index of the {@link MapFileHeader}s of the map files on disk.
+ * <p />
+ * Creating the {@link MapLoader} of a map requires to open the file, unzip it and read the header with its preview image. The catalog stores the
+ * headers together with the size and the modification time of their files in a single file, that is read at once. A map file is only opened if
+ * it is not in the catalog or its size or modification time has changed. Maps that are not stored in files are always opened.
+ * <p />
+ * The catalog is not thread safe. The {@link MapList} only uses it while holding its lock.
+ *
+ */
+public class MapCatalog {
+	public static final String FILE_NAME = "mapcatalog.bin";
+
+	private static final int VERSION = 1;
+
+	private final File file;
+	private final Map<String, Entry> entries = new HashMap<>();
+	private final Set<String> listedPaths = new HashSet<>();
+
+	private boolean loaded = false;
+	private boolean changed = false;
+
+	/**
+	 * @param file
+	 *            The file the catalog is stored in. It is created when the catalog is saved the first time.
+	 */
+	public MapCatalog(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Starts a new listing of all maps. Entries of maps that are not requested with {@link #getLoader(IListedMap)} until
+	 * {@link #finishListing()} are removed from the catalog.
+	 */
+	public void startListing() {
+		if (!loaded) {
+			load();
+			loaded = true;
+		}
+		listedPaths.clear();
+	}
+
+	/**
+	 * Gives the loader of the given map. The header of the map is taken from the catalog if the map file did not change since it has been
+	 * added.
+	 *
+	 * @param listedMap
+	 *            The map to get the loader for.
+	 * @return The loader of the map.
+	 * @throws MapLoadException
+	 *             If the map is not in the catalog and cannot be read.
+	 */
+	public MapLoader getLoader(IListedMap listedMap) throws MapLoadException {
+		File mapFile = getFile(listedMap);
+		if (mapFile == null) {
+			return MapLoader.getLoaderForListedMap(listedMap);
+		}
+
+		String path = mapFile.getAbsolutePath();
+		long length = mapFile.length();
+		long lastModified = mapFile.lastModified();
+		listedPaths.add(path);
+
+		Entry entry = entries.get(path);
+		if (entry != null && entry.length == length && entry.lastModified == lastModified) {
+			try {
+				return MapLoader.getLoaderForHeader(listedMap, entry.readHeader());
+			} catch (IOException e) {
+				System.err.println("Invalid catalog entry for " + path + ": " + e.getMessage());
+			}
+		}
+
+		MapLoader loader = MapLoader.getLoaderForListedMap(listedMap);
+		putEntry(path, length, lastModified, loader.getFileHeader());
+		return loader;
+	}
+
+	/**
+	 * Removes the entries of the maps that have not been listed since {@link #startListing()} and saves the catalog if it has changed.
+	 */
+	public void finishListing() {
+		changed |= entries.keySet().retainAll(listedPaths);
+		listedPaths.clear();
+
+		if (changed) {
+			save();
+		}
+	}
+
+	private static File getFile(IListedMap listedMap) {
+		try {
+			return listedMap.getFile();
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	private void putEntry(String path, long length, long lastModified, MapFileHeader header) {
+		entries.remove(path);
+		changed = true;
+
+		if (header == null) {
+			return;
+		}
+
+		try {
+			// old maps have no creation date, but the header can only be written with one
+			boolean hasCreationDate = header.getCreationDate() != null;
+			ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+			(hasCreationDate ? header : header.withCreationDate(new Date(0))).writeTo(headerBytes);
+			entries.put(path, new Entry(length, lastModified, hasCreationDate, headerBytes.toByteArray()));
+		} catch (IOException e) {
+			System.err.println("Could not add " + path + " to the map catalog: " + e.getMessage());
+		}
+	}
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			try (DataInputStream fileIn = new DataInputStream(new FileInputStream(file))) {
+				fileIn.readFully(bytes);
+			}
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+			if (in.readInt() != VERSION) {
+				return;
+			}
+
+			int numberOfEntries = in.readInt();
+			for (int i = 0; i < numberOfEntries; i++) {
+				String path = in.readUTF();
+				long length = in.readLong();
+				long lastModified = in.readLong();
+				boolean hasCreationDate = in.readBoolean();
+				byte[] header = new byte[in.readInt()];
+				in.readFully(header);
+				entries.put(path, new Entry(length, lastModified, hasCreationDate, header));
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read the map catalog " + file + ": " + e);
+			entries.clear();
+		}
+	}
+
+	private void save() {
+		File tempFile = new File(file.getPath() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue().length);
+					out.writeLong(entry.getValue().lastModified);
+					out.writeBoolean(entry.getValue().hasCreationDate);
+					out.writeInt(entry.getValue().header.length);
+					out.write(entry.getValue().header);
+				}
+			}
+
+			if (file.exists() && !file.delete() || !tempFile.renameTo(file)) {
+				throw new IOException("Could not replace " + file);
+			}
+			changed = false;
+		} catch (IOException e) {
+			System.err.println("Could not write the map catalog " + file + ": " + e.getMessage());
+			tempFile.delete();
+		}
+	}
+
+	private static class Entry {
+		final long length;
+		final long lastModified;
+		final boolean hasCreationDate;
+		final byte[] header;
+
+		Entry(long length, long lastModified, boolean hasCreationDate, byte[] header) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.hasCreationDate = hasCreationDate;
+			this.header = header;
+		}
+
+		MapFileHeader readHeader() throws IOException {
+			MapFileHeader mapFileHeader = MapFileHeader.readFromStream(new ByteArrayInputStream(header));
+			return hasCreationDate ? mapFileHeader : mapFileHeader.withCreationDate(null);
+		}
+	}
+}
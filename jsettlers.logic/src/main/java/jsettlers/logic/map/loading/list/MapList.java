@@ -14,19 +14,19 @@
  *******************************************************************************/
 package jsettlers.logic.map.loading.list;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.logging.MilliStopWatch;
 import jsettlers.common.utils.collections.ChangingList;
 import jsettlers.input.PlayerState;
-import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.grid.GameSerializer;
 import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.loading.MapLoader;
@@ -36,14 +36,15 @@ import jsettlers.logic.map.loading.newmap.FreshMapSerializer;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.map.loading.newmap.MapFileHeader.MapType;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
-import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
 
 /**
  * This is the main map list.
  * <p>
  * It lists all available maps, and it can be used to add maps to the game.
  * <p>
- * TODO: load maps before they are needed, to decrease startup time.
+ * If a {@link MapCatalog} is given, only maps that are new or have changed since the last listing are read. The list can be refreshed on a
+ * background thread, e.g. when a watched {@link DirectoryMapLister} directory changes.
  * 
  * @author michael
  * @author Andreas Eberle
@@ -65,24 +66,98 @@ public class MapList implements IMapListerCallable {
 
 	private final ArrayList<IMapLister> mapDirectories;
 	private final IMapLister saveDirectory;
+	private final MapCatalog catalog;
+	private final List<Closeable> directoryWatchers = new ArrayList<>();
 
 	private final ChangingList<MapLoader> freshMaps = new ChangingList<>();
 	private final ChangingList<RemakeMapLoader> savedMaps = new ChangingList<>();
 
+	private List<MapLoader> listedFreshMaps;
+	private List<RemakeMapLoader> listedSavedMaps;
 	private boolean fileListLoaded = false;
 
 	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory) {
+		this(mapDirectories, saveDirectory, null);
+	}
+
+	/**
+	 * @param mapDirectories
+	 *            The listers of all maps.
+	 * @param saveDirectory
+	 *            The lister new maps and savegames are saved with.
+	 * @param catalog
+	 *            The catalog of the map headers or <code>null</code> to read the header of every map each time the maps are listed.
+	 */
+	public MapList(Collection<IMapLister> mapDirectories, IMapLister saveDirectory, MapCatalog catalog) {
 		this.mapDirectories = new ArrayList<>(mapDirectories);
 		this.saveDirectory = saveDirectory;
+		this.catalog = catalog;
 	}
 
+	/**
+	 * Lists the maps into new lists that replace the lists of {@link #freshMaps} and {@link #savedMaps} when the listing is finished. So a
+	 * refresh on a background thread never exposes a partly filled list.
+	 */
 	private void loadFileList() {
-		freshMaps.clear();
-		savedMaps.clear();
+		listedFreshMaps = new ArrayList<>();
+		listedSavedMaps = new ArrayList<>();
 
+		if (catalog != null) {
+			catalog.startListing();
+		}
 		for (IMapLister dir : mapDirectories) {
 			dir.listMaps(this);
 		}
+		if (catalog != null) {
+			catalog.finishListing();
+		}
+
+		freshMaps.setList(listedFreshMaps);
+		savedMaps.setList(listedSavedMaps);
+		listedFreshMaps = null;
+		listedSavedMaps = null;
+	}
+
+	private synchronized void refresh() {
+		loadFileList();
+		fileListLoaded = true;
+	}
+
+	/**
+	 * Lists all maps again on a background thread. The listeners of {@link #getFreshMaps()} and {@link #getSavedMaps()} are informed about the
+	 * changes on that thread, so UI listeners have to pass the new lists to their UI thread.
+	 */
+	public void refreshInBackground() {
+		Thread thread = new Thread(this::refresh, "MapListRefresh");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Refreshes the list on a background thread now and whenever the content of one of the {@link DirectoryMapLister} directories changes.
+	 */
+	public synchronized void startWatchingDirectories() {
+		for (IMapLister directory : mapDirectories) {
+			if (directory instanceof DirectoryMapLister) {
+				try {
+					directoryWatchers.add(((DirectoryMapLister) directory).watch(this::refreshInBackground));
+				} catch (IOException e) {
+					System.err.println("Could not watch map directory: " + e.getMessage());
+				}
+			}
+		}
+		refreshInBackground();
+	}
+
+	public synchronized void stopWatchingDirectories() {
+		for (Closeable watcher : directoryWatchers) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		directoryWatchers.clear();
 	}
 
 	@Override
@@ -90,7 +165,7 @@ public class MapList implements IMapListerCallable {
 		MapLoader loader;
 
 		try {
-			loader = MapLoader.getLoaderForListedMap(map);
+			loader = catalog != null ? catalog.getLoader(map) : MapLoader.getLoaderForListedMap(map);
 		} catch (Exception e) {
 			System.err.println("Cought exception while loading header for " + map.getFileName());
 			e.printStackTrace();
@@ -104,9 +179,9 @@ public class MapList implements IMapListerCallable {
 			MapType type = loader.getFileHeader().getType();
 
 			if ((type == MapType.SAVED_SINGLE)) {
-				savedMaps.add((RemakeMapLoader) loader);
+				listedSavedMaps.add((RemakeMapLoader) loader);
 			} else {
-				freshMaps.add(loader);
+				listedFreshMaps.add(loader);
 			}
 		}
 	}
@@ -200,21 +275,55 @@ public class MapList implements IMapListerCallable {
 		MilliStopWatch watch = new MilliStopWatch();
 		OutputStream outStream = saveDirectory.getOutputStream(header);
 
-		header.writeTo(outStream);
+		try {
+			header.writeTo(outStream);
+			new GameSerializer().save(grid, playerStates, outStream, CommonConstants.USE_SAVEGAME_COMPRESSION);
+		} finally {
+			outStream.close();
+		}
+		watch.stop("Writing savegame required");
+
+		loadFileList();
+	}
 
-		ObjectOutputStream oos = new ObjectOutputStream(outStream);
-		MatchConstants.serialize(oos);
-		oos.writeObject(playerStates);
-		GameSerializer gameSerializer = new GameSerializer();
-		gameSerializer.save(grid, oos);
-		RescheduleTimer.saveTo(oos);
+	/**
+	 * Writes a snapshot of a game to disk. In contrast to {@link #saveMap(PlayerState[], MapFileHeader, MainGrid)}, the game may continue while
+	 * this method is called.
+	 * 
+	 * @param snapshot
+	 *            The snapshot to be saved.
+	 * @throws IOException
+	 */
+	public synchronized void saveSnapshot(SavegameSnapshot snapshot) throws IOException {
+		MilliStopWatch watch = new MilliStopWatch();
+		OutputStream outStream = saveDirectory.getOutputStream(snapshot.getHeader());
 
-		oos.close();
-		watch.stop("Writing savegame required");
+		try {
+			snapshot.writeTo(outStream, CommonConstants.USE_SAVEGAME_COMPRESSION);
+		} finally {
+			outStream.close();
+		}
+		watch.stop("Writing savegame snapshot required");
 
 		loadFileList();
 	}
 
+	/**
+	 * Deletes the savegame with the given id.
+	 * 
+	 * @param id
+	 *            The unique id of the savegame's header.
+	 */
+	public synchronized void deleteSavedMap(String id) {
+		for (RemakeMapLoader savedMap : getSavedMaps().getItems()) {
+			if (savedMap.getMapId().equals(id)) {
+				savedMap.getListedMap().delete();
+				loadFileList();
+				return;
+			}
+		}
+	}
+
 	public ArrayList<MapLoader> getSavedMultiplayerMaps() {
 		// TODO: save multiplayer maps, so that we can load them.
 		return null;
@@ -232,7 +341,10 @@ public class MapList implements IMapListerCallable {
 		return defaultList;
 	}
 
-	public static void setDefaultListFactory(IMapListFactory factory) {
+	public static synchronized void setDefaultListFactory(IMapListFactory factory) {
+		if (defaultList != null) {
+			defaultList.stopWatchingDirectories();
+		}
 		mapListFactory = factory;
 		defaultList = null;
 	}
@@ -240,6 +352,8 @@ public class MapList implements IMapListerCallable {
 	public static class DefaultMapListFactory implements IMapListFactory {
 		protected ArrayList<IMapLister> directories = new ArrayList<>();
 		protected IMapLister saveDirectory = null;
+		protected MapCatalog catalog = null;
+		protected boolean watchDirectories = false;
 
 		public void addMapDirectory(String directory, boolean create) {
 			directories.add(new DirectoryMapLister(new File(directory), create));
@@ -256,13 +370,26 @@ public class MapList implements IMapListerCallable {
 			if (saveDirectory == null) {
 				throw new RuntimeException("Savegame directory not set.");
 			}
-			return new MapList(getMapListers(), saveDirectory);
+			MapList mapList = new MapList(getMapListers(), saveDirectory, catalog);
+			if (watchDirectories) {
+				mapList.startWatchingDirectories();
+			}
+			return mapList;
 		}
 
 		public void addResourcesDirectory(File resources) {
 			addMapDirectory(new DirectoryMapLister(new File(resources, "maps"), true));
 			saveDirectory = new DirectoryMapLister(new File(resources, "save"), true);
 			addMapDirectory(saveDirectory);
+			catalog = new MapCatalog(new File(resources, MapCatalog.FILE_NAME));
+		}
+
+		/**
+		 * @param watchDirectories
+		 *            If <code>true</code>, the map lists created by this factory are refreshed when the content of a map directory changes.
+		 */
+		public void setWatchDirectories(boolean watchDirectories) {
+			this.watchDirectories = watchDirectories;
 		}
 
 		protected IMapLister getSave() {
@@ -14,11 +14,22 @@
  *******************************************************************************/
 package jsettlers.logic.map.loading.newmap;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import jsettlers.common.buildings.EBuildingType;
 import jsettlers.common.landscape.ELandscapeType;
@@ -39,7 +50,7 @@ import jsettlers.common.position.ShortPoint2D;
  * <p>
  * Format:
  * <p>
- * 16 bit version: always 1.
+ * 16 bit version: 3 or 4. Version 4 is written, both are read.
  * <p>
  * 16 bit width, 16 bit height
  * <p>
@@ -47,11 +58,20 @@ import jsettlers.common.position.ShortPoint2D;
  * <p>
  * For each player: 2 byte x, 2 byte y
  * <p>
- * width * height bytes: landscape types (ordinals)
+ * Version 3:
  * <p>
- * width * height bytes: height map
+ * width * height bytes each, column by column: landscape types (ordinals), height map, resource types (ordinal) interleaved with resource amounts,
+ * blocked partitions (16 bit)
  * <p>
  * For each map object (until end of file): 16 bit x, 16 bit y, 8 bit type, String for additional data.
+ * <p>
+ * Version 4:
+ * <p>
+ * The landscape types, the height map, the resources (all types, then all amounts) and the blocked partitions (16 bit) as one block each. A block
+ * is stored row by row, compressed with {@link Deflater} and prefixed by its compressed 32 bit length. The blocks are decompressed in parallel.
+ * <p>
+ * 32 bit number of map objects. For each map object: 16 bit x, 16 bit y, 8 bit type, the binary data of the type (e.g. the building type name as
+ * UTF String and 8 bit player). Like in version 3, the object types are stored by name, so reordering their enums does not break existing maps.
  * 
  * @author michael
  * @author Andreas Eberle
@@ -59,8 +79,9 @@ import jsettlers.common.position.ShortPoint2D;
  * @see IMapData
  */
 public class FreshMapSerializer {
-	protected static final int VERSION = 3;
+	protected static final int VERSION = 4;
 	private static final int VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS = 3;
+	private static final int VERSION_WITH_COMPRESSED_LAYERS = 4;
 
 	private static final int TYPE_TREE = 1;
 	private static final int TYPE_STONE = 2;
@@ -68,6 +89,9 @@ public class FreshMapSerializer {
 	private static final int TYPE_MOVABLE = 4;
 	private static final int TYPE_STACK = 5;
 
+	private static final int NUMBER_OF_LAYERS = 4;
+	private static final int COMPRESSION_BUFFER_SIZE = 64 * 1024;
+
 	/**
 	 * Serializes the given data to the output stream.
 	 * 
@@ -82,8 +106,9 @@ public class FreshMapSerializer {
 		DataOutputStream stream = new DataOutputStream(out);
 		int width = data.getWidth();
 		int height = data.getHeight();
+		int size = width * height;
 
-		stream.writeShort(VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS);
+		stream.writeShort(VERSION);
 		stream.writeShort(width);
 		stream.writeShort(height);
 
@@ -94,59 +119,96 @@ public class FreshMapSerializer {
 			stream.writeShort(start.y);
 		}
 
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				stream.writeByte(data.getLandscape(x, y).ordinal());
+		byte[] landscapes = new byte[size];
+		byte[] heights = new byte[size];
+		byte[] resources = new byte[2 * size];
+		byte[] blockedPartitions = new byte[2 * size];
+
+		for (short y = 0; y < height; y++) {
+			for (short x = 0; x < width; x++) {
+				int index = x + y * width;
+				landscapes[index] = (byte) data.getLandscape(x, y).ordinal();
+				heights[index] = data.getLandscapeHeight(x, y);
+				resources[index] = data.getResourceType(x, y).ordinal;
+				resources[size + index] = data.getResourceAmount(x, y);
+				short blockedPartition = data.getBlockedPartition(x, y);
+				blockedPartitions[2 * index] = (byte) (blockedPartition >> 8);
+				blockedPartitions[2 * index + 1] = (byte) blockedPartition;
 			}
 		}
 
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				stream.writeByte(data.getLandscapeHeight(x, y));
-			}
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try {
+			writeLayer(stream, deflater, landscapes);
+			writeLayer(stream, deflater, heights);
+			writeLayer(stream, deflater, resources);
+			writeLayer(stream, deflater, blockedPartitions);
+		} finally {
+			deflater.end();
 		}
 
-		for (short x = 0; x < width; x++) {
-			for (short y = 0; y < height; y++) {
-				stream.writeByte(data.getResourceType(x, y).ordinal);
-				stream.writeByte(data.getResourceAmount(x, y));
+		ByteArrayOutputStream objectBytes = new ByteArrayOutputStream();
+		DataOutputStream objectStream = new DataOutputStream(objectBytes);
+		int numberOfObjects = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (writeObject(objectStream, x, y, data.getMapObject(x, y))) {
+					numberOfObjects++;
+				}
 			}
 		}
+		stream.writeInt(numberOfObjects);
+		objectBytes.writeTo(stream);
+		stream.flush();
+	}
 
-		for (short x = 0; x < width; x++) {
-			for (short y = 0; y < height; y++) {
-				stream.writeShort(data.getBlockedPartition(x, y));
-			}
-		}
+	private static void writeLayer(DataOutputStream stream, Deflater deflater, byte[] layer) throws IOException {
+		deflater.reset();
+		deflater.setInput(layer);
+		deflater.finish();
 
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				MapDataObject object = data.getMapObject(x, y);
-				if (object instanceof MapTreeObject) {
-					writeObject(stream, x, y, TYPE_TREE, "");
-				} else if (object instanceof StoneMapDataObject) {
-					int capacity = ((StoneMapDataObject) object).getCapacity();
-					writeObject(stream, x, y, TYPE_STONE, Integer.toString(capacity));
-				} else if (object instanceof BuildingMapDataObject) {
-					int player = ((BuildingMapDataObject) object).getPlayerId();
-					writeObject(stream, x, y, TYPE_BUILDING, ((BuildingMapDataObject) object).getType() + "," + player);
-				} else if (object instanceof MovableObject) {
-					int player = ((MovableObject) object).getPlayerId();
-					writeObject(stream, x, y, TYPE_MOVABLE, ((MovableObject) object).getType() + "," + player);
-				} else if (object instanceof StackMapDataObject) {
-					int capacity = ((StackMapDataObject) object).getCount();
-					writeObject(stream, x, y, TYPE_STACK, ((StackMapDataObject) object).getType() + "," + capacity);
-				}
-			}
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		byte[] buffer = new byte[COMPRESSION_BUFFER_SIZE];
+		while (!deflater.finished()) {
+			int length = deflater.deflate(buffer);
+			compressed.write(buffer, 0, length);
 		}
 
+		stream.writeInt(compressed.size());
+		compressed.writeTo(stream);
+	}
+
+	/**
+	 * @return true if the object is of a type that is stored in the map file and has been written.
+	 */
+	private static boolean writeObject(DataOutputStream stream, int x, int y, MapDataObject object) throws IOException {
+		if (object instanceof MapTreeObject) {
+			writeObjectPosition(stream, x, y, TYPE_TREE);
+		} else if (object instanceof StoneMapDataObject) {
+			writeObjectPosition(stream, x, y, TYPE_STONE);
+			stream.writeInt(((StoneMapDataObject) object).getCapacity());
+		} else if (object instanceof BuildingMapDataObject) {
+			writeObjectPosition(stream, x, y, TYPE_BUILDING);
+			stream.writeUTF(((BuildingMapDataObject) object).getType().name());
+			stream.writeByte(((BuildingMapDataObject) object).getPlayerId());
+		} else if (object instanceof MovableObject) {
+			writeObjectPosition(stream, x, y, TYPE_MOVABLE);
+			stream.writeUTF(((MovableObject) object).getType().name());
+			stream.writeByte(((MovableObject) object).getPlayerId());
+		} else if (object instanceof StackMapDataObject) {
+			writeObjectPosition(stream, x, y, TYPE_STACK);
+			stream.writeUTF(((StackMapDataObject) object).getType().name());
+			stream.writeInt(((StackMapDataObject) object).getCount());
+		} else {
+			return false;
+		}
+		return true;
 	}
 
-	private static void writeObject(DataOutputStream stream, int x, int y, int type, String string) throws IOException {
+	private static void writeObjectPosition(DataOutputStream stream, int x, int y, int type) throws IOException {
 		stream.writeShort(x);
 		stream.writeShort(y);
 		stream.writeByte(type);
-		stream.writeUTF(string);
 	}
 
 	/**
@@ -164,7 +226,7 @@ public class FreshMapSerializer {
 			DataInputStream stream = new DataInputStream(in);
 			int version = stream.readShort();
 
-			if (version < VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS) {
+			if (version < VERSION_WITH_RESOURCES_BLOCKED_PARTITIONS || version > VERSION) {
 				throw new IOException("wrong stream version, got: " + version);
 			}
 
@@ -181,47 +243,180 @@ public class FreshMapSerializer {
 				data.setPlayerStart((byte) player, x, y);
 			}
 
+			if (version >= VERSION_WITH_COMPRESSED_LAYERS) {
+				readCompressedLayers(data, stream, width, height);
+				readObjectTable(data, stream);
+			} else {
+				readColumnLayers(data, stream, width, height);
+				readObjectStrings(data, stream);
+			}
+		} catch (Throwable t) {
+			throw new IOException("Error while reading map file", t);
+		}
+	}
+
+	private static void readColumnLayers(IMapDataReceiver data, DataInputStream stream, int width, int height) throws IOException {
+		ELandscapeType[] types = ELandscapeType.VALUES;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				byte type = stream.readByte();
+				data.setLandscape(x, y, types[type]);
+			}
+		}
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				byte h = stream.readByte();
+				data.setHeight(x, y, h);
+			}
+		}
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				byte t = stream.readByte();
+				byte amount = stream.readByte();
+				data.setResources(x, y, EResourceType.VALUES[t], amount);
+			}
+		}
+
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				data.setBlockedPartition(x, y, stream.readShort());
+			}
+		}
+	}
+
+	private static void readObjectStrings(IMapDataReceiver data, DataInputStream stream) throws IOException {
+		while (stream.available() > 0) {
+			int x = stream.readShort();
+			int y = stream.readShort();
+			int type = stream.readByte();
+			String string = stream.readUTF();
+			MapDataObject object = getObject(type, string);
+			if (object != null) {
+				data.setMapObject(x, y, object);
+			}
+		}
+	}
+
+	/**
+	 * Reads the compressed blocks of all layers and decompresses them in parallel. Every layer is handed to the receiver by its own thread.
+	 */
+	private static void readCompressedLayers(final IMapDataReceiver data, DataInputStream stream, final int width, final int height)
+			throws IOException, InterruptedException {
+		final int size = width * height;
+		final byte[][] compressedLayers = new byte[NUMBER_OF_LAYERS][];
+		for (int layer = 0; layer < NUMBER_OF_LAYERS; layer++) {
+			compressedLayers[layer] = new byte[stream.readInt()];
+			stream.readFully(compressedLayers[layer]);
+		}
+
+		List<Callable<Void>> decoders = new ArrayList<>();
+		decoders.add(() -> {
 			ELandscapeType[] types = ELandscapeType.VALUES;
+			byte[] landscapes = inflate(compressedLayers[0], size);
 			for (int x = 0; x < width; x++) {
 				for (int y = 0; y < height; y++) {
-					byte type = stream.readByte();
-					data.setLandscape(x, y, types[type]);
+					data.setLandscape(x, y, types[landscapes[x + y * width]]);
 				}
 			}
-
+			return null;
+		});
+		decoders.add(() -> {
+			byte[] heights = inflate(compressedLayers[1], size);
 			for (int x = 0; x < width; x++) {
 				for (int y = 0; y < height; y++) {
-					byte h = stream.readByte();
-					data.setHeight(x, y, h);
+					data.setHeight(x, y, heights[x + y * width]);
 				}
 			}
-
+			return null;
+		});
+		decoders.add(() -> {
+			byte[] resources = inflate(compressedLayers[2], 2 * size);
 			for (int x = 0; x < width; x++) {
 				for (int y = 0; y < height; y++) {
-					byte t = stream.readByte();
-					byte amount = stream.readByte();
-					data.setResources(x, y, EResourceType.VALUES[t], amount);
+					int index = x + y * width;
+					data.setResources(x, y, EResourceType.VALUES[resources[index]], resources[size + index]);
 				}
 			}
-
+			return null;
+		});
+		decoders.add(() -> {
+			byte[] blockedPartitions = inflate(compressedLayers[3], 2 * size);
 			for (int x = 0; x < width; x++) {
 				for (int y = 0; y < height; y++) {
-					data.setBlockedPartition(x, y, stream.readShort());
+					int index = 2 * (x + y * width);
+					data.setBlockedPartition(x, y, (short) ((blockedPartitions[index] << 8) | (blockedPartitions[index + 1] & 0xff)));
 				}
 			}
+			return null;
+		});
 
-			while (stream.available() > 0) {
-				int x = stream.readShort();
-				int y = stream.readShort();
-				int type = stream.readByte();
-				String string = stream.readUTF();
-				MapDataObject object = getObject(type, string);
-				if (object != null) {
-					data.setMapObject(x, y, object);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(NUMBER_OF_LAYERS, Runtime.getRuntime().availableProcessors()));
+		try {
+			for (Future<Void> decoded : executor.invokeAll(decoders)) {
+				try {
+					decoded.get();
+				} catch (ExecutionException e) {
+					throw new IOException("Could not decode layer", e.getCause());
 				}
 			}
-		} catch (Throwable t) {
-			throw new IOException("Error while reading map file", t);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static byte[] inflate(byte[] compressed, int length) throws IOException, DataFormatException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] result = new byte[length];
+			int offset = 0;
+			while (offset < length) {
+				int inflated = inflater.inflate(result, offset, length - offset);
+				if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("layer is truncated");
+				}
+				offset += inflated;
+			}
+			return result;
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static void readObjectTable(IMapDataReceiver data, DataInputStream stream) throws IOException {
+		int numberOfObjects = stream.readInt();
+		for (int i = 0; i < numberOfObjects; i++) {
+			int x = stream.readShort();
+			int y = stream.readShort();
+			int type = stream.readByte();
+			MapDataObject object = readObject(type, stream);
+			if (object != null) {
+				data.setMapObject(x, y, object);
+			}
+		}
+	}
+
+	private static MapDataObject readObject(int type, DataInputStream stream) throws IOException {
+		switch (type) {
+		case TYPE_TREE:
+			return MapTreeObject.getInstance();
+
+		case TYPE_STONE:
+			return StoneMapDataObject.getInstance(stream.readInt());
+
+		case TYPE_STACK:
+			return new StackMapDataObject(EMaterialType.valueOf(stream.readUTF()), stream.readInt());
+
+		case TYPE_MOVABLE:
+			return new MovableObject(EMovableType.valueOf(stream.readUTF()), stream.readByte());
+
+		case TYPE_BUILDING:
+			return new BuildingMapDataObject(EBuildingType.valueOf(stream.readUTF()), stream.readByte());
+
+		default:
+			throw new IOException("unknown map object type: " + type);
 		}
 	}
 
@@ -257,6 +452,9 @@ public class FreshMapSerializer {
 	 * Receives the map data.
 	 * <p>
 	 * Before any other set methods, {@link #setDimension(int, int, int)} is called exactly once.
+	 * <p>
+	 * When reading version 4, the setters of the different layers (landscape, height, resources and blocked partitions) are called concurrently
+	 * from different threads. The map objects are set after all layers have been set.
 	 * 
 	 * @author michael
 	 */
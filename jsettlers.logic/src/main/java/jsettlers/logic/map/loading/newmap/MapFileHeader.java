@@ -159,6 +159,17 @@ public class MapFileHeader {
 		return playerId;
 	}
 
+	/**
+	 * Creates a copy of this header with the same id.
+	 *
+	 * @param date
+	 *            The creation date of the copy. It may be <code>null</code>, but then the copy can not be written.
+	 * @return The copy.
+	 */
+	public MapFileHeader withCreationDate(Date date) {
+		return new MapFileHeader(type, name, mapId, baseMapId, description, width, height, minPlayers, playerSettings, date, previewImage, playerId);
+	}
+
 	public void writeTo(OutputStream stream) throws IOException {
 		DataOutputStream out = new DataOutputStream(stream);
 		out.write(START_BYTES);
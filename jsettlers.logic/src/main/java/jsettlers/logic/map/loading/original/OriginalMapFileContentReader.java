@@ -15,8 +15,12 @@
 package jsettlers.logic.map.loading.original;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.EnumMap;
@@ -35,15 +39,22 @@ import jsettlers.logic.map.loading.original.data.EOriginalMapFileVersion;
 import java8.util.Optional;
 
 /**
+ * Reads an original map file. Map files on the disk are memory mapped, other maps are read into a buffer.
+ * <p />
+ * The parts of the file are encrypted. A part is only decrypted when it is needed, into a buffer that is reused for all parts. The landscape is
+ * decrypted and decoded row by row, so the file content is never copied as a whole.
+ *
  * @author Thomas Zeugner
  */
 class OriginalMapFileContentReader {
+	// - height, landscape, object, owner, accessible, resources
+	private static final int BYTES_PER_POSITION = 6;
+
 	private class MapResourceInfo {
 		final EOriginalMapFilePartType partType;
 		public final int offset;
 		public final int size;
 		final int cryptKey;
-		private boolean hasBeenDecrypted = false;
 
 		MapResourceInfo(EOriginalMapFilePartType partType, int offset, int size, int cryptKey) {
 			this.partType = partType;
@@ -52,47 +63,71 @@ class OriginalMapFileContentReader {
 			this.cryptKey = cryptKey;
 		}
 
-		// - Decrypt a file resource
-		private boolean doDecrypt() throws MapLoadException {
+		// - Start decrypting this file resource
+		PartDecrypter decrypt() throws MapLoadException {
 			if (mapContent == null) {
 				throw new MapLoadException("OriginalMapFile-Warning: Unable to decrypt map file: no data loaded!");
 			}
 
-			// - already decrypted
-			if (hasBeenDecrypted || size <= 0) {
-				return true;
+			// - check if the file has enough data
+			if ((offset + size) >= mapContent.capacity()) {
+				throw new MapLoadException("Error: Unable to decrypt map file: out of data!");
 			}
 
-			// - start of data
-			int pos = offset;
+			return new PartDecrypter(offset, size, cryptKey);
+		}
 
-			// - check if the file has enough data
-			if ((pos + size) >= mapContent.length) {
+		// - Decrypt the first bytes of this file resource into the part buffer
+		void decryptStart(int length) throws MapLoadException {
+			decrypt().decryptNext(Math.min(length, size));
+		}
+
+		// - Decrypt the whole file resource into the part buffer
+		void decryptAll() throws MapLoadException {
+			decrypt().decryptNext(size);
+		}
+	}
+
+	/**
+	 * Decrypts a file resource piece by piece. The key of each byte depends on all bytes before it, so the resource can only be decrypted from its
+	 * start.
+	 */
+	private class PartDecrypter {
+		private int pos;
+		private int remaining;
+		private int key;
+
+		PartDecrypter(int offset, int size, int cryptKey) {
+			this.pos = offset;
+			this.remaining = size;
+			this.key = cryptKey & 0xFF;
+		}
+
+		// - decrypt the next bytes to the start of the part buffer
+		void decryptNext(int length) throws MapLoadException {
+			if (length > remaining) {
 				throw new MapLoadException("Error: Unable to decrypt map file: out of data!");
 			}
 
-			// - init the key
-			int key = (cryptKey & 0xFF);
+			if (partBuffer.length < length) {
+				partBuffer = new byte[length];
+			}
+			partLength = length;
 
-			for (int i = size; i > 0; i--) {
+			for (int i = 0; i < length; i++) {
 
 				// - read one byte and uncrypt it
-				int byt = (mapContent[pos] ^ key);
+				int byt = (mapContent.get(pos) ^ key);
 
 				// - calculate next Key
 				key = (key << 1) ^ byt;
 
 				// - write Byte
-				mapContent[pos] = (byte) byt;
+				partBuffer[i] = (byte) byt;
 				pos++;
 			}
 
-			hasBeenDecrypted = true;
-			return true;
-		}
-
-		void resetDecryptedFlag() {
-			hasBeenDecrypted = false;
+			remaining -= length;
 		}
 	}
 
@@ -103,7 +138,10 @@ class OriginalMapFileContentReader {
 	private boolean isSinglePlayerMap = false;
 	private boolean hasBuildings = false;
 
-	private byte[] mapContent;
+	private ByteBuffer mapContent;
+	private byte[] partBuffer = new byte[0];
+	private int partLength = 0;
+
 	@SuppressWarnings("unused")
 	private EMapStartResources startResources = EMapStartResources.HIGH_GOODS;
 
@@ -125,8 +163,21 @@ class OriginalMapFileContentReader {
 		// - init players
 		mapData.setPlayerCount(1);
 
-		// - read File into buffer
-		mapContent = getBytesFromInputStream(originalMapFile);
+		mapContent = openMapContent(originalMapFile);
+	}
+
+	// - maps a file into memory or reads any other stream into a buffer
+	private static ByteBuffer openMapContent(InputStream originalMapFile) throws IOException {
+		ByteBuffer content;
+		try (InputStream stream = originalMapFile) {
+			if (stream instanceof FileInputStream) {
+				FileChannel channel = ((FileInputStream) stream).getChannel();
+				content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} else {
+				content = ByteBuffer.wrap(getBytesFromInputStream(stream));
+			}
+		}
+		return content.order(ByteOrder.LITTLE_ENDIAN);
 	}
 
 	// - reads the whole stream and returns it as BYTE-Array
@@ -146,64 +197,46 @@ class OriginalMapFileContentReader {
 		}
 	}
 
-	// - Read UNSIGNED Byte from Buffer
+	// - Read UNSIGNED Byte from the part buffer
 	private int readByteFrom(int offset) {
-		if (mapContent == null)
-			return 0;
-		return mapContent[offset] & 0xFF;
+		return partBuffer[offset] & 0xFF;
 	}
 
-	// - Read Big-Ending INT from Buffer
+	// - Read Big-Ending INT from the part buffer
 	private int readBEIntFrom(int offset) {
-		if (mapContent == null) {
-			return 0;
-		} else {
-			return (mapContent[offset] & 0xFF) |
-					((mapContent[offset + 1] & 0xFF) << 8) |
-					((mapContent[offset + 2] & 0xFF) << 16) |
-					((mapContent[offset + 3] & 0xFF) << 24);
-		}
+		return (partBuffer[offset] & 0xFF) |
+				((partBuffer[offset + 1] & 0xFF) << 8) |
+				((partBuffer[offset + 2] & 0xFF) << 16) |
+				((partBuffer[offset + 3] & 0xFF) << 24);
 	}
 
-	// - Read Big-Ending 2 Byte Number from Buffer
+	// - Read Big-Ending 2 Byte Number from the part buffer
 	private int readBEWordFrom(int offset) {
-		if (mapContent == null) {
-			return 0;
-		} else {
-			return (mapContent[offset] & 0xFF) |
-					((mapContent[offset + 1] & 0xFF) << 8);
-		}
+		return (partBuffer[offset] & 0xFF) |
+				((partBuffer[offset + 1] & 0xFF) << 8);
 	}
 
-	// - read the Higher 4-Bit of the buffer
+	// - read the Higher 4-Bit of the part buffer
 	private int readHighNibbleFrom(int offset) {
-		if (mapContent == null) {
-			return 0;
-		} else {
-			return (mapContent[offset] >> 4) & 0x0F;
-		}
+		return (partBuffer[offset] >> 4) & 0x0F;
 	}
 
-	// - read the Lower 4-Bit of the buffer
+	// - read the Lower 4-Bit of the part buffer
 	private int readLowNibbleFrom(int offset) {
-		if (mapContent == null) {
-			return 0;
-		} else {
-			return (mapContent[offset]) & 0x0F;
-		}
-
+		return (partBuffer[offset]) & 0x0F;
 	}
 
-	// - read a C-Style String from Buffer (ends with the first \0)
+	// - read a C-Style String from the part buffer (ends with the first \0)
 	private String readCStrFrom(int offset, int length) {
-		if (mapContent == null || mapContent.length <= offset + length) {
+		length = Math.min(length, partLength - offset);
+		if (length <= 0) {
 			return "";
 		}
 
 		// - find \0 char in buffer
 		int i = 0;
 		for (; i < length; i++) {
-			if (mapContent[offset + i] == 0) {
+			if (partBuffer[offset + i] == 0) {
 				break;
 			}
 		}
@@ -213,7 +246,7 @@ class OriginalMapFileContentReader {
 		}
 
 		// - substring + encoding
-		return new String(mapContent, offset, i - 1, TEXT_CHARSET);
+		return new String(partBuffer, offset, i - 1, TEXT_CHARSET);
 	}
 
 	// - returns a File Resources
@@ -224,22 +257,19 @@ class OriginalMapFileContentReader {
 	// - calculates the checksum of the file and compares it
 	boolean isChecksumValid() {
 		// - read Checksum from File
-		int fileChecksum = readBEIntFrom(0);
+		int fileChecksum = mapContent.getInt(0);
 
 		mapData.fileChecksum = fileChecksum;
 
 		// - make "count" a Multiple of four
-		int count = mapContent.length & 0xFFFFFFFC;
+		int count = mapContent.capacity() & 0xFFFFFFFC;
 		int currentChecksum = 0;
 
 		// - Map Content starts at Byte 8
 		for (int i = 8; i < count; i += 4) {
 
 			// - read DWord
-			int currentInt = (mapContent[i] & 0xFF) |
-					((mapContent[i + 1] & 0xFF) << 8) |
-					((mapContent[i + 2] & 0xFF) << 16) |
-					((mapContent[i + 3] & 0xFF) << 24);
+			int currentInt = mapContent.getInt(i);
 
 			// - using: Logic Right-Shift-Operator: >>>
 			currentChecksum = ((currentChecksum >>> 31) | ((currentChecksum << 1) ^ currentInt));
@@ -252,7 +282,7 @@ class OriginalMapFileContentReader {
 	// - Reads in the Map-File-Structure
 	void loadMapResources() throws MapLoadException {
 		// - Version of File: 0x0A : Original Settlers Map ; 0x0B : Amazon Map
-		int fileVersion = readBEIntFrom(4);
+		int fileVersion = mapContent.getInt(4);
 
 		// - check if the Version is compatible?
 		if ((fileVersion != EOriginalMapFileVersion.DEFAULT.value) && (fileVersion != EOriginalMapFileVersion.AMAZONS.value)) {
@@ -260,15 +290,15 @@ class OriginalMapFileContentReader {
 		}
 
 		// - Data length
-		int dataLength = mapContent.length;
+		int dataLength = mapContent.capacity();
 
 		// - start of map-content
 		int filePos = 8;
 		int partTypeTemp;
 
 		do {
-			partTypeTemp = readBEIntFrom(filePos);
-			int partLen = readBEIntFrom(filePos + 4);
+			partTypeTemp = mapContent.getInt(filePos);
+			int partLen = mapContent.getInt(filePos + 4);
 
 			// - don't know what the [FileTypeSub] is for -> it should by zero
 			int partType = (partTypeTemp & 0x0000FFFF);
@@ -297,20 +327,15 @@ class OriginalMapFileContentReader {
 	// - freeing the internal File-Buffer
 	void freeBuffer() {
 		mapContent = null;
+		partBuffer = new byte[0];
+		partLength = 0;
 		mapData.freeBuffer();
 	}
 
-	// - to process a map File this class loads the whole file to memory. To save memory this File-Buffer is
-	// - closed after using/when done processing. If more data are requested from the File, the File-Biffer
-	// - is loaded again with this reOpen() function.
+	// - the File-Buffer is closed after using/when done processing. If more data are requested from the File, the File-Buffer
+	// - is opened again with this reOpen() function.
 	void reOpen(InputStream originalMapFile) throws IOException {
-		// - read File into buffer
-		mapContent = getBytesFromInputStream(originalMapFile);
-
-		// - reset Crypt Info
-		for (MapResourceInfo element : resources.values()) {
-			element.resetDecryptedFlag();
-		}
+		mapContent = openMapContent(originalMapFile);
 	}
 
 	void readBasicMapInformation() throws MapLoadException {
@@ -324,12 +349,12 @@ class OriginalMapFileContentReader {
 		hasBuildings = false;
 
 		// - safety checks
-		if (mapContent == null || mapContent.length < 100) {
+		if (mapContent == null || mapContent.capacity() < 100) {
 			return;
 		}
 
 		// - checksum is the first DWord in File
-		fileChecksum = readBEIntFrom(0);
+		fileChecksum = mapContent.getInt(0);
 
 		// - read Map Information
 		readMapInfo();
@@ -352,16 +377,11 @@ class OriginalMapFileContentReader {
 			return;
 		}
 
-		// TODO: original map: the whole AREA-Block is decrypted but we only need the first 4 byte. Problem... maybe later we need the rest but only
-		// if this map is selected for playing AND there was no freeBuffer() and reOpen() call in between.
-		// - Decrypt this resource if necessary
-		filePart.doDecrypt();
-
-		// - file position of this part
-		int pos = filePart.offset;
+		// - only decrypt the first 4 byte of the AREA-Block
+		filePart.decryptStart(4);
 
 		// - read height and width (they are the same)
-		widthHeight = readBEIntFrom(pos);
+		widthHeight = readBEIntFrom(0);
 	}
 
 	short[] getPreviewImage() {
@@ -386,11 +406,11 @@ class OriginalMapFileContentReader {
 			return outImg;
 		}
 
-		// - Decrypt this resource if necessary
-		filePart.doDecrypt();
+		// - Decrypt this resource
+		filePart.decryptAll();
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the part
+		int pos = 0;
 
 		// - height and width are the same
 		int widthAndHeight = readBEWordFrom(pos);
@@ -412,7 +432,7 @@ class OriginalMapFileContentReader {
 
 				int inIndex = srcRow + (x * scaleX) * 2;
 
-				int colorValue = (mapContent[inIndex] & 0xFF) | ((mapContent[inIndex + 1] & 0xFF) << 8);
+				int colorValue = (partBuffer[inIndex] & 0xFF) | ((partBuffer[inIndex + 1] & 0xFF) << 8);
 
 				// - the Settlers Remake uses Short-Colors like argb_1555 (alpha, r, g, b)
 				outImg[outIndex] = (short) (1 | colorValue << 1);
@@ -439,8 +459,8 @@ class OriginalMapFileContentReader {
 			return Optional.empty();
 		}
 
-		// Decrypt this resource if necessary
-		filePart.doDecrypt();
+		// Decrypt this resource
+		filePart.decryptAll();
 
 		// Call consumer
 		return Optional.of(filePart);
@@ -453,7 +473,7 @@ class OriginalMapFileContentReader {
 
 		return findAndDecryptFilePart(EOriginalMapFilePartType.QUEST_TEXT)
 				.map(filePart -> {
-					mapQuestText = readCStrFrom(filePart.offset, filePart.size);
+					mapQuestText = readCStrFrom(0, filePart.size);
 					return mapQuestText;
 				})
 				.orElse("");
@@ -465,7 +485,7 @@ class OriginalMapFileContentReader {
 		}
 
 		return findAndDecryptFilePart(EOriginalMapFilePartType.QUEST_TIP).map(filePart -> {
-			mapQuestTip = readCStrFrom(filePart.offset, filePart.size);
+			mapQuestTip = readCStrFrom(0, filePart.size);
 			return mapQuestTip;
 		}).orElse("");
 	}
@@ -474,8 +494,8 @@ class OriginalMapFileContentReader {
 	private void readMapInfo() throws MapLoadException {
 		MapResourceInfo filePartOptional = findAndDecryptFilePartSafe(EOriginalMapFilePartType.MAP_INFO);
 
-		// - file position
-		int pos = filePartOptional.offset;
+		// - position in the part
+		int pos = 0;
 
 		// ----------------------------------
 		// - read mapType (single / multiplayer map?)
@@ -511,8 +531,8 @@ class OriginalMapFileContentReader {
 
 		if (filePartOptional.isPresent()) {
 			MapResourceInfo filePart = filePartOptional.get();
-			// - file position
-			int pos = filePart.offset;
+			// - position in the part
+			int pos = 0;
 
 			// - Number of buildings
 			int buildingsCount = readBEIntFrom(pos);
@@ -572,8 +592,8 @@ class OriginalMapFileContentReader {
 
 		if (filePartOptional.isPresent()) {
 			MapResourceInfo filePart = filePartOptional.get();
-			// - file position
-			int pos = filePart.offset;
+			// - position in the part
+			int pos = 0;
 
 			// - Number of buildings
 			int stackCount = readBEIntFrom(pos);
@@ -610,8 +630,8 @@ class OriginalMapFileContentReader {
 
 		if (filePartOptional.isPresent()) {
 			MapResourceInfo filePart = filePartOptional.get();
-			// - file position
-			int pos = filePart.offset;
+			// - position in the part
+			int pos = 0;
 
 			// - Number of buildings
 			int settlerCount = readBEIntFrom(pos);
@@ -644,8 +664,8 @@ class OriginalMapFileContentReader {
 	private void readPlayerInfo() throws MapLoadException {
 		MapResourceInfo filePart = findAndDecryptFilePartSafe(EOriginalMapFilePartType.PLAYER_INFO);
 
-		// - file position
-		int pos = filePart.offset;
+		// - position in the part
+		int pos = 0;
 
 		for (int i = 0; i < mapData.getPlayerCount(); i++) {
 
@@ -669,30 +689,37 @@ class OriginalMapFileContentReader {
 	 * Reads in the Map Data / Landscape and MapObjects like trees
 	 */
 	void readMapData() throws MapLoadException {
-		MapResourceInfo filePart = findAndDecryptFilePartSafe(EOriginalMapFilePartType.AREA);
+		MapResourceInfo filePart = findResource(EOriginalMapFilePartType.AREA);
+		if ((filePart == null) || (filePart.size == 0)) {
+			throw new MapLoadException("No " + EOriginalMapFilePartType.AREA + " information available in mapfile!");
+		}
 
-		// - file position
-		int pos = filePart.offset;
+		PartDecrypter decrypter = filePart.decrypt();
 
 		// - height and width are the same
-		int widthHeight = readBEIntFrom(pos);
-		pos += 4;
+		decrypter.decryptNext(4);
+		int widthHeight = readBEIntFrom(0);
 
 		// - init size of MapData
 		mapData.setWidthHeight(widthHeight);
 
-		// - points to read
-		int dataCount = widthHeight * widthHeight;
-
-		for (int i = 0; i < dataCount; i++) {
-			mapData.setLandscapeHeight(i, readByteFrom(pos++));
-			mapData.setLandscape(i, readByteFrom(pos++));
-			mapData.setMapObject(i, readByteFrom(pos++));
-			readByteFrom(pos++); // - which Player is the owner of this position
-			mapData.setAccessible(i, mapContent[pos++]);
-
-			mapData.setResources(i, readHighNibbleFrom(pos), readLowNibbleFrom(pos));
-			pos++;
+		// - decrypt and read one row after another
+		int i = 0;
+		for (int y = 0; y < widthHeight; y++) {
+			decrypter.decryptNext(widthHeight * BYTES_PER_POSITION);
+			int pos = 0;
+
+			for (int x = 0; x < widthHeight; x++) {
+				mapData.setLandscapeHeight(i, readByteFrom(pos++));
+				mapData.setLandscape(i, readByteFrom(pos++));
+				mapData.setMapObject(i, readByteFrom(pos++));
+				pos++; // - which Player is the owner of this position
+				mapData.setAccessible(i, partBuffer[pos++]);
+
+				mapData.setResources(i, readHighNibbleFrom(pos), readLowNibbleFrom(pos));
+				pos++;
+				i++;
+			}
 		}
 	}
 
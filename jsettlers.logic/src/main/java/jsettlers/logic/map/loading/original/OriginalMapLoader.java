@@ -39,33 +39,72 @@ import jsettlers.logic.player.PlayerSetting;
  */
 public class OriginalMapLoader extends MapLoader {
 	private final IListedMap listedMap;
-	private final OriginalMapFileContentReader mapContent;
 	private final Date creationDate;
 	private final String fileName;
-	private Boolean isMapOK = false;
+	private OriginalMapFileContentReader mapContent;
 
 	public OriginalMapLoader(IListedMap listedMap) throws MapLoadException {
 		this.listedMap = listedMap;
 		fileName = listedMap.getFileName();
 		creationDate = getCreationDateFrom(listedMap);
-		try {
-			mapContent = new OriginalMapFileContentReader(listedMap.getInputStream());
-		} catch (IOException e) {
-			throw new MapLoadException(e);
-		}
-
-		if (!CommonConstants.DISABLE_ORIGINAL_MAPS_CHECKSUM && !mapContent.isChecksumValid()) {
-			throw new MapLoadException("Checksum of original map (" + fileName + ") is not valid!");
-		}
+		mapContent = readMapContent();
 
 		// - read all important information from file
 		mapContent.loadMapResources();
 		mapContent.readBasicMapInformation(MapFileHeader.PREVIEW_IMAGE_SIZE, MapFileHeader.PREVIEW_IMAGE_SIZE);
 
+		header = new MapFileHeader(
+				MapFileHeader.MapType.NORMAL,
+				getMapName(),
+				mapContent.getChecksum() + getMapName(),
+				readDescription(),
+				(short) mapContent.widthHeight,
+				(short) mapContent.widthHeight,
+				(short) getMinPlayers(),
+				(short) mapContent.mapData.getPlayerCount(),
+				creationDate,
+				mapContent.getPreviewImage());
+
 		// - free the DataBuffer
 		mapContent.freeBuffer();
+	}
 
-		isMapOK = true;
+	/**
+	 * Creates a loader for an original map whose header has been created before, e.g. by the {@link jsettlers.logic.map.loading.list.MapCatalog}.
+	 * The map file is not read before the map is loaded.
+	 *
+	 * @param listedMap
+	 *            The original map file.
+	 * @param header
+	 *            A header created by {@link #getFileHeader()} for the same file.
+	 */
+	public OriginalMapLoader(IListedMap listedMap, MapFileHeader header) {
+		this.listedMap = listedMap;
+		this.header = header;
+		fileName = listedMap.getFileName();
+		creationDate = header.getCreationDate();
+	}
+
+	private OriginalMapFileContentReader readMapContent() throws MapLoadException {
+		OriginalMapFileContentReader content;
+		try {
+			content = new OriginalMapFileContentReader(listedMap.getInputStream());
+		} catch (IOException e) {
+			throw new MapLoadException(e);
+		}
+
+		if (!CommonConstants.DISABLE_ORIGINAL_MAPS_CHECKSUM && !content.isChecksumValid()) {
+			throw new MapLoadException("Checksum of original map (" + fileName + ") is not valid!");
+		}
+		return content;
+	}
+
+	private String readDescription() {
+		try {
+			return mapContent.readMapQuestText();
+		} catch (MapLoadException e) {
+			return "";
+		}
 	}
 
 	private Date getCreationDateFrom(IListedMap listedMap) {
@@ -81,20 +120,7 @@ public class OriginalMapLoader extends MapLoader {
 	// -------------------------//
 	@Override
 	public MapFileHeader getFileHeader() {
-		if (isMapOK) {
-			return new MapFileHeader(
-					MapFileHeader.MapType.NORMAL,
-					getMapName(),
-					getMapId(),
-					getDescription(),
-					(short) mapContent.widthHeight,
-					(short) mapContent.widthHeight,
-					(short) getMinPlayers(),
-					(short) getMaxPlayers(),
-					getCreationDate(),
-					getImage());
-		}
-		return null;
+		return header;
 	}
 
 	@Override
@@ -127,7 +153,7 @@ public class OriginalMapLoader extends MapLoader {
 
 	@Override
 	public int getMaxPlayers() {
-		return mapContent.mapData.getPlayerCount();
+		return header.getMaxPlayers();
 	}
 
 	@Override
@@ -137,21 +163,17 @@ public class OriginalMapLoader extends MapLoader {
 
 	@Override
 	public String getDescription() {
-		try {
-			return mapContent.readMapQuestText();
-		} catch (MapLoadException e) {
-			return "";
-		}
+		return header.getDescription();
 	}
 
 	@Override
 	public short[] getImage() {
-		return mapContent.getPreviewImage();
+		return header.getPreviewImage();
 	}
 
 	@Override
 	public String getMapId() {
-		return mapContent.getChecksum() + getMapName();
+		return header.getBaseMapId();
 	}
 
 	@Override
@@ -212,11 +234,16 @@ public class OriginalMapLoader extends MapLoader {
 	}
 
 	private void loadMapContent(EMapStartResources startResources) throws MapLoadException {
-		try {
-			// - the map buffer of the class may is closed and need to reopen!
-			mapContent.reOpen(this.listedMap.getInputStream());
-		} catch (Exception e) {
-			throw new MapLoadException(e);
+		if (mapContent == null) {
+			// - the header has been created before, so the file has not been read yet
+			mapContent = readMapContent();
+		} else {
+			try {
+				// - the map buffer of the class may is closed and need to reopen!
+				mapContent.reOpen(this.listedMap.getInputStream());
+			} catch (Exception e) {
+				throw new MapLoadException(e);
+			}
 		}
 
 		// - load all common map information
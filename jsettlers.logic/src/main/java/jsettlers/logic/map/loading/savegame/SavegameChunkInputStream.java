@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * The stream a single chunk of a savegame is read from. It is the counterpart of {@link SavegameChunkOutputStream}.
+ * 
+ * @see SavegameReader
+ */
+public final class SavegameChunkInputStream extends InputStream {
+	private final DataInputStream in;
+	private final Inflater inflater;
+	private final ByteBuffer buffer; // always in read mode
+	private final byte[] compressedBuffer;
+
+	private int remainingBlockBytes = 0;
+	private boolean endOfBlocks = false;
+
+	SavegameChunkInputStream(DataInputStream in, Inflater inflater, ByteBuffer buffer, byte[] compressedBuffer) {
+		this.in = in;
+		this.inflater = inflater;
+		this.buffer = buffer;
+		this.compressedBuffer = compressedBuffer;
+
+		buffer.clear();
+		buffer.flip();
+		if (inflater != null) {
+			inflater.reset();
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!fill(1)) {
+			return -1;
+		}
+		return buffer.get() & 0xff;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		if (!fill(1)) {
+			return -1;
+		}
+
+		int count = Math.min(length, buffer.remaining());
+		buffer.get(data, offset, count);
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+	public int readInt() throws IOException {
+		require(4);
+		return buffer.getInt();
+	}
+
+	/**
+	 * Reads an array written with {@link SavegameChunkOutputStream#writeBytes(byte[])}.
+	 * 
+	 * @param data
+	 *            The array to fill. Its length must match the written array's length.
+	 */
+	public void readBytes(byte[] data) throws IOException {
+		checkLength(data.length);
+		int offset = 0;
+		while (offset < data.length) {
+			require(1);
+			int count = Math.min(data.length - offset, buffer.remaining());
+			buffer.get(data, offset, count);
+			offset += count;
+		}
+	}
+
+	/**
+	 * Reads an array written with {@link SavegameChunkOutputStream#writeShorts(short[])}.
+	 * 
+	 * @param data
+	 *            The array to fill. Its length must match the written array's length.
+	 */
+	public void readShorts(short[] data) throws IOException {
+		checkLength(data.length);
+		int offset = 0;
+		while (offset < data.length) {
+			require(2);
+			byte[] source = buffer.array();
+			int position = buffer.position();
+			int end = offset + Math.min(data.length - offset, buffer.remaining() / 2);
+			for (; offset < end; offset++) { // the short buffer views of a byte buffer copy each value with several calls
+				data[offset] = (short) ((source[position++] << 8) | (source[position++] & 0xff));
+			}
+			buffer.position(position);
+		}
+	}
+
+	/**
+	 * Reads bits written with {@link SavegameChunkOutputStream#writeBits(BitSet)}.
+	 */
+	public BitSet readBits() throws IOException {
+		long[] words = new long[readInt()];
+		int offset = 0;
+		while (offset < words.length) {
+			require(8);
+			byte[] source = buffer.array();
+			int position = buffer.position();
+			int end = offset + Math.min(words.length - offset, buffer.remaining() / 8);
+			for (; offset < end; offset++) {
+				long word = 0;
+				for (int i = 0; i < 8; i++) {
+					word = (word << 8) | (source[position++] & 0xff);
+				}
+				words[offset] = word;
+			}
+			buffer.position(position);
+		}
+		return BitSet.valueOf(words);
+	}
+
+	private void checkLength(int expectedLength) throws IOException {
+		int length = readInt();
+		if (length != expectedLength) {
+			throw new IOException("Array length in savegame (" + length + ") does not match the expected length (" + expectedLength + ").");
+		}
+	}
+
+	private void require(int bytes) throws IOException {
+		if (!fill(bytes)) {
+			throw new EOFException("Unexpected end of savegame chunk.");
+		}
+	}
+
+	/**
+	 * Makes sure the buffer contains at least the given number of bytes.
+	 * 
+	 * @return false if the chunk ends before.
+	 */
+	private boolean fill(int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return true;
+		}
+
+		buffer.compact();
+		try {
+			while (buffer.position() < bytes) {
+				int read = inflater == null ? readBlockData(buffer.array(), buffer.position(), buffer.remaining()) : inflate();
+				if (read < 0) {
+					return false;
+				}
+				buffer.position(buffer.position() + read);
+			}
+			return true;
+		} finally {
+			buffer.flip();
+		}
+	}
+
+	private int inflate() throws IOException {
+		try {
+			while (true) {
+				int inflated = inflater.inflate(buffer.array(), buffer.position(), buffer.remaining());
+				if (inflated > 0) {
+					return inflated;
+				}
+				if (inflater.finished()) {
+					return -1;
+				}
+				if (inflater.needsInput()) {
+					int read = readBlockData(compressedBuffer, 0, compressedBuffer.length);
+					if (read < 0) {
+						throw new EOFException("Unexpected end of compressed savegame chunk.");
+					}
+					inflater.setInput(compressedBuffer, 0, read);
+				} else if (inflater.needsDictionary()) {
+					throw new IOException("Invalid compressed savegame chunk.");
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private int readBlockData(byte[] target, int offset, int length) throws IOException {
+		if (remainingBlockBytes == 0) {
+			if (endOfBlocks) {
+				return -1;
+			}
+			remainingBlockBytes = in.readInt();
+			if (remainingBlockBytes == 0) {
+				endOfBlocks = true;
+				return -1;
+			}
+		}
+
+		int count = Math.min(length, remainingBlockBytes);
+		in.readFully(target, offset, count);
+		remainingBlockBytes -= count;
+		return count;
+	}
+
+	/**
+	 * Skips the remaining data of the chunk. The underlying savegame stream is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		while (!endOfBlocks) {
+			while (remainingBlockBytes > 0) {
+				int skipped = in.skipBytes(remainingBlockBytes);
+				if (skipped <= 0) {
+					in.readByte(); // throws an EOFException at the end of the stream
+					skipped = 1;
+				}
+				remainingBlockBytes -= skipped;
+			}
+			remainingBlockBytes = in.readInt();
+			endOfBlocks = remainingBlockBytes == 0;
+		}
+		buffer.clear();
+		buffer.flip();
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+
+/**
+ * The stream a single chunk of a savegame is written to. Primitive arrays are copied in bulk into a fixed size buffer, that is written as a
+ * block (optionally compressed) whenever it is full. Byte arrays that are bigger than the buffer are written directly without copying them.
+ * 
+ * @see SavegameWriter
+ */
+public final class SavegameChunkOutputStream extends OutputStream {
+	private final DataOutputStream out;
+	private final Deflater deflater;
+	private final ByteBuffer buffer;
+	private final byte[] compressedBuffer;
+
+	private boolean closed = false;
+
+	SavegameChunkOutputStream(DataOutputStream out, Deflater deflater, ByteBuffer buffer, byte[] compressedBuffer) {
+		this.out = out;
+		this.deflater = deflater;
+		this.buffer = buffer;
+		this.compressedBuffer = compressedBuffer;
+
+		buffer.clear();
+		if (deflater != null) {
+			deflater.reset();
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureRemaining(1);
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] data, int offset, int length) throws IOException {
+		if (length >= buffer.capacity()) { // big arrays are written without copying them into the buffer
+			ensureRemaining(buffer.capacity());
+			writeData(data, offset, length);
+			return;
+		}
+
+		while (length > 0) {
+			ensureRemaining(1);
+			int count = Math.min(length, buffer.remaining());
+			buffer.put(data, offset, count);
+			offset += count;
+			length -= count;
+		}
+	}
+
+	public void writeInt(int value) throws IOException {
+		ensureRemaining(4);
+		buffer.putInt(value);
+	}
+
+	/**
+	 * Writes the length and the content of the given array.
+	 */
+	public void writeBytes(byte[] data) throws IOException {
+		writeInt(data.length);
+		write(data, 0, data.length);
+	}
+
+	/**
+	 * Writes the length and the content of the given array.
+	 */
+	public void writeShorts(short[] data) throws IOException {
+		writeInt(data.length);
+		int offset = 0;
+		while (offset < data.length) {
+			ensureRemaining(2);
+			byte[] target = buffer.array();
+			int position = buffer.position();
+			int end = offset + Math.min(data.length - offset, buffer.remaining() / 2);
+			for (; offset < end; offset++) { // the short buffer views of a byte buffer copy each value with several calls
+				short value = data[offset];
+				target[position++] = (byte) (value >> 8);
+				target[position++] = (byte) value;
+			}
+			buffer.position(position);
+		}
+	}
+
+	/**
+	 * Writes the given {@link BitSet} as a number of words followed by the words.
+	 */
+	public void writeBits(BitSet bits) throws IOException {
+		long[] words = bits.toLongArray();
+		writeInt(words.length);
+		int offset = 0;
+		while (offset < words.length) {
+			ensureRemaining(8);
+			byte[] target = buffer.array();
+			int position = buffer.position();
+			int end = offset + Math.min(words.length - offset, buffer.remaining() / 8);
+			for (; offset < end; offset++) {
+				long word = words[offset];
+				for (int shift = 56; shift >= 0; shift -= 8) {
+					target[position++] = (byte) (word >> shift);
+				}
+			}
+			buffer.position(position);
+		}
+	}
+
+	private void ensureRemaining(int required) throws IOException {
+		if (closed) {
+			throw new IOException("Chunk has already been closed.");
+		}
+		if (buffer.remaining() < required) {
+			writeBuffer();
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		if (buffer.position() == 0) {
+			return;
+		}
+
+		writeData(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	private void writeData(byte[] data, int offset, int length) throws IOException {
+		if (deflater == null) {
+			writeBlock(data, offset, length);
+		} else {
+			deflater.setInput(data, offset, length);
+			while (!deflater.needsInput()) {
+				writeBlock(compressedBuffer, 0, deflater.deflate(compressedBuffer));
+			}
+		}
+	}
+
+	private void writeBlock(byte[] data, int offset, int length) throws IOException {
+		if (length > 0) {
+			out.writeInt(length);
+			out.write(data, offset, length);
+		}
+	}
+
+	/**
+	 * Writes the remaining data and the end of the chunk. The underlying savegame stream is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+
+		writeBuffer();
+		if (deflater != null) {
+			deflater.finish();
+			while (!deflater.finished()) {
+				writeBlock(compressedBuffer, 0, deflater.deflate(compressedBuffer));
+			}
+		}
+		out.writeInt(0);
+		closed = true;
+	}
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.GameSerializer;
+import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.list.IListedMap;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Converts savegames written with plain Java serialization into the chunked format described in {@link SavegameFormat}.
+ * <p />
+ * The game is completely loaded and saved again. This uses and afterwards clears the {@link MatchConstants}, so no game must be running at the
+ * same time.
+ * 
+ */
+public final class SavegameConverter {
+	private SavegameConverter() {
+	}
+
+	/**
+	 * Converts the given savegame.
+	 * 
+	 * @param savegame
+	 *            The savegame to convert. It may already use the chunked format.
+	 * @param out
+	 *            The stream to write the map file header and the converted game to. It is not closed.
+	 * @param compress
+	 *            If true, the chunks of the converted savegame are compressed.
+	 * @throws IOException
+	 * @throws MapLoadException
+	 *             If the savegame could not be loaded.
+	 */
+	public static void convert(IListedMap savegame, OutputStream out, boolean compress) throws IOException, MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0L);
+		try (InputStream in = new BufferedInputStream(RemakeMapLoader.getMapInputStream(savegame))) {
+			MapFileHeader header = MapFileHeader.readFromStream(in);
+			MainGridWithUiSettings game = new GameSerializer().load(in);
+
+			header.writeTo(out);
+			new GameSerializer().save(game.getMainGrid(), game.getPlayerStates(), out, compress);
+		} finally {
+			MatchConstants.clearState();
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Constants of the chunked savegame format.
+ * <p />
+ * After the {@link jsettlers.logic.map.loading.newmap.MapFileHeader}, a savegame starts with {@link #MAGIC} and {@link #VERSION}. It is followed
+ * by any number of chunks and an end marker. Each chunk starts with its type, its version and a compression flag. The chunk's data is written in
+ * blocks, each prefixed with its length, and ends with a block of length 0. Therefore a reader can skip chunks it does not know.
+ * <p />
+ * Savegames written before this format was introduced directly start with a Java serialization stream.
+ * 
+ */
+public final class SavegameFormat {
+	public static final int MAGIC = 0x4A53_4756; // "JSGV"
+	public static final short VERSION = 1;
+
+	public static final int CHUNK_END = 0;
+	public static final int CHUNK_MATCH_CONSTANTS = 0x4D41_5443; // "MATC"
+	public static final int CHUNK_PLAYER_STATES = 0x504C_5354; // "PLST"
+	public static final int CHUNK_OBJECTS = 0x4F42_4A53; // "OBJS"
+	public static final int CHUNK_LANDSCAPE_GRID = 0x4C41_4E44; // "LAND"
+	public static final int CHUNK_FLAGS_GRID = 0x464C_4147; // "FLAG"
+	public static final int CHUNK_PARTITIONS_GRID = 0x5041_5254; // "PART"
+	public static final int CHUNK_FOG_OF_WAR = 0x464F_4757; // "FOGW"
+
+	static final int BLOCK_SIZE = 64 * 1024;
+
+	private SavegameFormat() {
+	}
+
+	/**
+	 * Checks if the given stream contains a savegame in the chunked format. The position of the stream is not changed.
+	 * 
+	 * @param stream
+	 *            A stream positioned directly behind the map file header. The stream must support {@link InputStream#mark(int)}.
+	 * @return true if the stream starts with {@link #MAGIC}.
+	 * @throws IOException
+	 */
+	public static boolean isChunkedSavegame(InputStream stream) throws IOException {
+		stream.mark(4);
+		try {
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = stream.read();
+				if (b < 0) {
+					return false;
+				}
+				magic = (magic << 8) | b;
+			}
+			return magic == MAGIC;
+		} finally {
+			stream.reset();
+		}
+	}
+}
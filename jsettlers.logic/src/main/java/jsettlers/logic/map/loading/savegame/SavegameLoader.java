@@ -14,21 +14,18 @@
  *******************************************************************************/
 package jsettlers.logic.map.loading.savegame;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.io.InputStream;
 
 import jsettlers.logic.map.loading.data.IMapData;
 import jsettlers.logic.map.loading.MapLoadException;
-import jsettlers.input.PlayerState;
-import jsettlers.logic.constants.MatchConstants;
 import jsettlers.logic.map.loading.EMapStartResources;
 import jsettlers.logic.map.grid.GameSerializer;
-import jsettlers.logic.map.grid.MainGrid;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
 import jsettlers.logic.map.loading.list.IListedMap;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.player.PlayerSetting;
-import jsettlers.logic.timer.RescheduleTimer;
 
 /**
  * 
@@ -46,20 +43,13 @@ public class SavegameLoader extends RemakeMapLoader {
 		return loadMainGrid(playerSettings, EMapStartResources.HIGH_GOODS);
 	}
 
-		@Override
+	@Override
 	public MainGridWithUiSettings loadMainGrid(PlayerSetting[] playerSettings, EMapStartResources startResources) throws MapLoadException {
-		try (ObjectInputStream ois = new ObjectInputStream(super.getMapDataStream())) {
-			MatchConstants.deserialize(ois);
-			PlayerState[] playerStates = (PlayerState[]) ois.readObject();
-			GameSerializer gameSerializer = new GameSerializer();
-			MainGrid mainGrid = gameSerializer.load(ois);
-			mainGrid.initWithPlayerSettings(playerSettings);
-			RescheduleTimer.loadFrom(ois);
-
-			ois.close();
-
-			return new MainGridWithUiSettings(mainGrid, playerStates);
-		} catch (IOException | ClassNotFoundException ex) {
+		try (InputStream stream = new BufferedInputStream(super.getMapDataStream())) {
+			MainGridWithUiSettings gameState = new GameSerializer().load(stream);
+			gameState.getMainGrid().initWithPlayerSettings(playerSettings);
+			return gameState;
+		} catch (IOException ex) {
 			throw new MapLoadException(ex);
 		}
 	}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a savegame in the chunked format described in {@link SavegameFormat}.
+ * 
+ */
+public final class SavegameReader {
+	private final DataInputStream in;
+	private final short formatVersion;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(SavegameFormat.BLOCK_SIZE);
+	private final byte[] compressedBuffer = new byte[SavegameFormat.BLOCK_SIZE];
+	private Inflater inflater;
+
+	private SavegameChunkInputStream currentChunk;
+	private int chunkType;
+	private short chunkVersion;
+
+	/**
+	 * Creates a new reader and checks the format's magic number and version.
+	 * 
+	 * @param in
+	 *            The stream positioned directly behind the map file header.
+	 * @throws IOException
+	 *             If the stream does not contain a savegame of a supported version.
+	 */
+	public SavegameReader(InputStream in) throws IOException {
+		this.in = new DataInputStream(in);
+
+		int magic = this.in.readInt();
+		if (magic != SavegameFormat.MAGIC) {
+			throw new IOException("The stream does not contain a chunked savegame.");
+		}
+		formatVersion = this.in.readShort();
+		if (formatVersion > SavegameFormat.VERSION) {
+			throw new IOException("Savegame format version " + formatVersion + " is not supported (supported version: " + SavegameFormat.VERSION + ").");
+		}
+	}
+
+	/**
+	 * Skips the rest of the current chunk and starts the next one.
+	 * 
+	 * @return The stream of the next chunk or null if the end of the savegame has been reached.
+	 * @throws IOException
+	 */
+	public SavegameChunkInputStream nextChunk() throws IOException {
+		if (currentChunk != null) {
+			currentChunk.close();
+			currentChunk = null;
+		}
+
+		chunkType = in.readInt();
+		if (chunkType == SavegameFormat.CHUNK_END) {
+			if (inflater != null) {
+				inflater.end();
+				inflater = null;
+			}
+			return null;
+		}
+		chunkVersion = in.readShort();
+		boolean compressed = in.readBoolean();
+
+		if (compressed && inflater == null) {
+			inflater = new Inflater();
+		}
+		currentChunk = new SavegameChunkInputStream(in, compressed ? inflater : null, buffer, compressedBuffer);
+		return currentChunk;
+	}
+
+	public short getFormatVersion() {
+		return formatVersion;
+	}
+
+	/**
+	 * @return The type of the chunk returned by the last call of {@link #nextChunk()}.
+	 */
+	public int getChunkType() {
+		return chunkType;
+	}
+
+	/**
+	 * @return The version of the chunk returned by the last call of {@link #nextChunk()}.
+	 */
+	public short getChunkVersion() {
+		return chunkVersion;
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import jsettlers.input.PlayerState;
+import jsettlers.logic.map.grid.GameSerializer;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+
+/**
+ * A consistent copy of the game state that can be written to disk by another thread while the game continues.
+ * <p />
+ * Taking the snapshot serializes the game into memory without compression. The expensive part of saving, compressing the chunks and writing
+ * them to disk, is done by {@link #writeTo(OutputStream, boolean)}.
+ * 
+ */
+public final class SavegameSnapshot {
+	private final MapFileHeader header;
+	private final byte[] data;
+
+	private SavegameSnapshot(MapFileHeader header, byte[] data) {
+		this.header = header;
+		this.data = data;
+	}
+
+	/**
+	 * Takes a snapshot of the given game. This must be called by the game thread between two ticks of the game clock.
+	 * 
+	 * @param header
+	 *            The header of the savegame.
+	 * @param grid
+	 *            The grid of the game.
+	 * @param playerStates
+	 *            The UI states of the players.
+	 * @return The snapshot.
+	 * @throws IOException
+	 */
+	public static SavegameSnapshot create(MapFileHeader header, MainGrid grid, PlayerState[] playerStates) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(SavegameFormat.BLOCK_SIZE);
+		new GameSerializer().save(grid, playerStates, out, false);
+		return new SavegameSnapshot(header, out.toByteArray());
+	}
+
+	public MapFileHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * Writes the header and the game of this snapshot.
+	 * 
+	 * @param out
+	 *            The stream to write to. It is not closed.
+	 * @param compress
+	 *            If true, the chunks of the savegame are compressed.
+	 * @throws IOException
+	 */
+	public void writeTo(OutputStream out, boolean compress) throws IOException {
+		header.writeTo(out);
+
+		if (compress) {
+			SavegameWriter writer = new SavegameWriter(out, true);
+			writer.copyChunks(new SavegameReader(new ByteArrayInputStream(data)));
+			writer.finish();
+		} else {
+			out.write(data);
+			out.flush();
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.savegame;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a savegame in the chunked format described in {@link SavegameFormat}. All chunks share one buffer (and one {@link Deflater}), so only
+ * one chunk can be written at a time.
+ * 
+ */
+public final class SavegameWriter {
+	private final DataOutputStream out;
+	private final boolean compress;
+
+	private final ByteBuffer buffer = ByteBuffer.allocate(SavegameFormat.BLOCK_SIZE);
+	private final byte[] compressedBuffer;
+	private final Deflater deflater;
+
+	private SavegameChunkOutputStream currentChunk;
+
+	/**
+	 * Creates a new writer and writes the format's magic number and version.
+	 * 
+	 * @param out
+	 *            The stream to write to.
+	 * @param compress
+	 *            If true, the chunks are compressed.
+	 * @throws IOException
+	 */
+	public SavegameWriter(OutputStream out, boolean compress) throws IOException {
+		this.out = new DataOutputStream(out);
+		this.compress = compress;
+		this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+		this.compressedBuffer = compress ? new byte[SavegameFormat.BLOCK_SIZE] : null;
+
+		this.out.writeInt(SavegameFormat.MAGIC);
+		this.out.writeShort(SavegameFormat.VERSION);
+	}
+
+	/**
+	 * Starts a new chunk. A previous chunk that has not been closed yet is closed.
+	 * 
+	 * @param type
+	 *            The type of the chunk.
+	 * @param version
+	 *            The version of the chunk's content.
+	 * @return The stream to write the chunk's data to.
+	 * @throws IOException
+	 */
+	public SavegameChunkOutputStream beginChunk(int type, short version) throws IOException {
+		closeCurrentChunk();
+
+		out.writeInt(type);
+		out.writeShort(version);
+		out.writeBoolean(compress);
+
+		currentChunk = new SavegameChunkOutputStream(out, deflater, buffer, compressedBuffer);
+		return currentChunk;
+	}
+
+	private void closeCurrentChunk() throws IOException {
+		if (currentChunk != null) {
+			currentChunk.close();
+			currentChunk = null;
+		}
+	}
+
+	/**
+	 * Copies all remaining chunks of the given reader with their types and versions. The chunks are compressed as configured for this writer.
+	 * 
+	 * @param reader
+	 *            The reader to copy the chunks from.
+	 * @throws IOException
+	 */
+	public void copyChunks(SavegameReader reader) throws IOException {
+		byte[] data = new byte[SavegameFormat.BLOCK_SIZE];
+
+		SavegameChunkInputStream in;
+		while ((in = reader.nextChunk()) != null) {
+			SavegameChunkOutputStream chunk = beginChunk(reader.getChunkType(), reader.getChunkVersion());
+			int length;
+			while ((length = in.read(data, 0, data.length)) > 0) {
+				chunk.write(data, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * Closes the current chunk and writes the end marker. The underlying stream is flushed but not closed.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		closeCurrentChunk();
+		out.writeInt(SavegameFormat.CHUNK_END);
+		out.flush();
+
+		if (deflater != null) {
+			deflater.end();
+		}
+	}
+}
@@ -86,6 +86,7 @@ public final class Movable implements ILogicMovable {
 
 	private transient boolean selected = false;
 	private transient boolean soundPlayed = false;
+	private transient long timerHandle = RescheduleTimer.NO_HANDLE;
 
 	public Movable(AbstractMovableGrid grid, EMovableType movableType, ShortPoint2D position, Player player) {
 		this.grid = grid;
@@ -97,7 +98,7 @@ public final class Movable implements ILogicMovable {
 
 		this.direction = EDirection.VALUES[MatchConstants.random().nextInt(EDirection.NUMBER_OF_DIRECTIONS)];
 
-		RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
+		timerHandle = RescheduleTimer.add(this, Constants.MOVABLE_INTERRUPT_PERIOD);
 
 		this.id = nextID++;
 		movablesByID.put(this.id, this);
@@ -341,8 +342,10 @@ public final class Movable implements ILogicMovable {
 		playAnimation(EMovableAction.WALKING, movableType.getStepDurationMs());
 		grid.leavePosition(this.position, this);
 		grid.enterPosition(position, this, false);
+		ShortPoint2D oldPosition = this.position;
 		this.position = position;
 		isRightstep = !isRightstep;
+		strategy.positionChanged(oldPosition);
 	}
 
 	private int doingNothingAction() {
@@ -653,7 +656,9 @@ public final class Movable implements ILogicMovable {
 			grid.enterPosition(position, this, true);
 		}
 
+		ShortPoint2D oldPosition = this.position;
 		this.position = position;
+		strategy.positionChanged(oldPosition);
 	}
 
 	final void setVisible(boolean visible) {
@@ -763,6 +768,7 @@ public final class Movable implements ILogicMovable {
 
 		movablesByID.remove(this.getID());
 		allMovables.remove(this);
+		RescheduleTimer.cancel(timerHandle);
 
 		grid.addSelfDeletingMapObject(position, EMapObjectType.GHOST, Constants.GHOST_PLAY_DURATION, player);
 	}
@@ -55,6 +55,14 @@ public abstract class AbstractStrategyGrid implements Serializable {
 
 	public abstract void removeJobless(IManageableBricklayer bricklayer);
 
+	public abstract void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition);
+
+	public abstract void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition);
+
+	public abstract void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition);
+
+	public abstract void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition);
+
 	/**
 	 * Take a material from the stack at given position of given {@link EMaterialType}.
 	 * 
@@ -298,6 +298,13 @@ public final class BearerMovableStrategy extends MovableStrategy implements IMan
 		}
 	}
 
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (state == EBearerState.JOBLESS) {
+			super.getGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
 	@Override
 	protected void strategyKilledEvent(ShortPoint2D pathTarget) {
 		if (state == EBearerState.JOBLESS) {
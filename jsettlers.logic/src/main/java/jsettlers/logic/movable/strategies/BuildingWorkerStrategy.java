@@ -470,6 +470,13 @@ public final class BuildingWorkerStrategy extends MovableStrategy implements IMa
 		}
 	}
 
+	@Override
+	protected void positionChanged(ShortPoint2D oldPosition) {
+		if (isJobless()) {
+			super.getGrid().joblessPositionChanged(this, oldPosition);
+		}
+	}
+
 	@Override
 	protected void strategyKilledEvent(ShortPoint2D pathTarget) { // used in overriding methods
 		killed = true;
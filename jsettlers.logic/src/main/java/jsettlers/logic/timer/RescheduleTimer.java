@@ -17,31 +17,116 @@ package jsettlers.logic.timer;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import jsettlers.common.logging.TickProfiler;
 import jsettlers.logic.map.loading.MapLoadException;
 import jsettlers.logic.constants.MatchConstants;
 import jsettlers.network.client.interfaces.IGameClock;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 
+/**
+ * Hierarchical timing wheel scheduling {@link IScheduledTimerable}s in slices of {@value #TIME_SLICE} ms.
+ * <p>
+ * The lowest level has one slot per time slice and covers one aligned block of {@link #TIME_SLOTS} slices. Every higher level has
+ * {@link #UPPER_LEVEL_SLOTS} slots, each covering a whole block of the level below. When the wheel enters a new block, the matching slots of the
+ * higher levels are cascaded down. Timerables due in the same slice are therefore always executed in the order they have been scheduled.
+ * <p>
+ * The slots are intrusive doubly linked lists stored in primitive index arrays, so scheduling does not allocate once the entry arrays have grown to
+ * their working size. Every scheduled timerable keeps its entry while it reschedules itself, so the handle returned by {@link #add(IScheduledTimerable,
+ * int)} can be used to {@link #cancel(long)} it in O(1) as long as it is alive.
+ * <p>
+ * The executions of the timerables are measured per class by the {@link TickProfiler}, if it is enabled.
+ *
+ */
 public final class RescheduleTimer implements INetworkTimerable, Serializable {
 	private static final long serialVersionUID = -1962430988827211391L;
 
+	/**
+	 * The serialized form equals the one of the former list based implementation, so old savegames can still be loaded. Timerables scheduled
+	 * further in the future than {@link #FUTURE_TIME} are stored in the additional far fields.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+			new ObjectStreamField("timerables", ArrayList[].class),
+			new ObjectStreamField("currTimeSlot", int.class),
+			new ObjectStreamField("currentTick", int.class),
+			new ObjectStreamField("farTimerables", ArrayList.class),
+			new ObjectStreamField("farDueTicks", int[].class)
+	};
+
+	/**
+	 * Value for handles that do not reference a scheduled timerable.
+	 */
+	public static final long NO_HANDLE = 0;
+
 	private static final int FUTURE_TIME = 32000;
 	private static final short TIME_SLICE = 25; // ms
 	private static final int TIME_SLOTS = FUTURE_TIME / TIME_SLICE;
 
+	private static final int LEVELS = 4;
+	private static final int UPPER_LEVEL_SLOTS = 64;
+	private static final int[] LEVEL_SPANS = new int[LEVELS + 1]; // number of ticks covered by one slot of the level
+	private static final int[] LEVEL_OFFSETS = new int[LEVELS]; // index of the first slot of the level
+	private static final int NUMBER_OF_SLOTS = TIME_SLOTS + (LEVELS - 1) * UPPER_LEVEL_SLOTS;
+
+	static {
+		LEVEL_SPANS[0] = 1;
+		LEVEL_SPANS[1] = TIME_SLOTS;
+		for (int level = 2; level <= LEVELS; level++) {
+			LEVEL_SPANS[level] = LEVEL_SPANS[level - 1] * UPPER_LEVEL_SLOTS;
+		}
+		LEVEL_OFFSETS[0] = 0;
+		LEVEL_OFFSETS[1] = TIME_SLOTS;
+		for (int level = 2; level < LEVELS; level++) {
+			LEVEL_OFFSETS[level] = LEVEL_OFFSETS[level - 1] + UPPER_LEVEL_SLOTS;
+		}
+	}
+
+	private static final int START_CAPACITY = 1024;
+	private static final int NONE = -1;
+	private static final int FREE = -1;
+	private static final int FIRING = -2;
+	private static final int CANCELLED = -3;
+
 	private static RescheduleTimer uniIns;
 
-	@SuppressWarnings("unchecked")
-	private final ArrayList<IScheduledTimerable> timerables[] = new ArrayList[TIME_SLOTS];
-	private int currTimeSlot = 0;
+	private transient int currentTick;
+
+	private transient int[] slotHeads;
+	private transient int[] slotTails;
+
+	private transient IScheduledTimerable[] entryTimerables;
+	private transient int[] entryNext;
+	private transient int[] entryPrev;
+	private transient int[] entrySlots;
+	private transient int[] entryDueTicks;
+	private transient int[] entryGenerations;
+	private transient int freeEntries;
+	private transient int usedEntries;
 
 	protected RescheduleTimer() {
-		for (int i = 0; i < TIME_SLOTS; i++) {
-			timerables[i] = new ArrayList<>();
-		}
+		initialize(START_CAPACITY);
+	}
+
+	private void initialize(int capacity) {
+		slotHeads = new int[NUMBER_OF_SLOTS];
+		slotTails = new int[NUMBER_OF_SLOTS];
+		Arrays.fill(slotHeads, NONE);
+		Arrays.fill(slotTails, NONE);
+
+		entryTimerables = new IScheduledTimerable[capacity];
+		entryNext = new int[capacity];
+		entryPrev = new int[capacity];
+		entrySlots = new int[capacity];
+		entryDueTicks = new int[capacity];
+		entryGenerations = new int[capacity];
+		Arrays.fill(entrySlots, FREE);
+		Arrays.fill(entryGenerations, 1);
+		freeEntries = NONE;
+		usedEntries = 0;
 	}
 
 	public static synchronized void stopAndClear() {
@@ -62,25 +147,154 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 	 * 
 	 * @param t
 	 * @param delay
+	 * @return A handle that can be used to {@link #cancel(long)} the timerable as long as it keeps rescheduling itself, or {@link #NO_HANDLE} if
+	 *         nothing has been scheduled. Handles are not persisted in savegames.
+	 */
+	public static long add(IScheduledTimerable t, int delay) {
+		return get().addTimerable(t, delay);
+	}
+
+	/**
+	 * Removes the timerable identified by the given handle from the schedule. Handles of timerables that are no longer scheduled are ignored.
+	 * 
+	 * @param handle
+	 *            A handle returned by {@link #add(IScheduledTimerable, int)}.
 	 */
-	public static void add(IScheduledTimerable t, int delay) {
-		get().addTimerable(t, delay);
+	public static void cancel(long handle) {
+		RescheduleTimer timer = uniIns;
+		if (timer != null && handle != NO_HANDLE) {
+			timer.cancelTimerable(handle);
+		}
 	}
 
-	private void addTimerable(IScheduledTimerable t, int delay) {
+	private long addTimerable(IScheduledTimerable t, int delay) {
 		if (delay <= 0) {
-			return; // don't schedule if requested delay is negative or zero
+			return NO_HANDLE; // don't schedule if requested delay is negative or zero
+		}
+
+		int entry = allocateEntry(t);
+		scheduleEntry(entry, getDueTick(delay));
+		return ((long) entryGenerations[entry] << 32) | entry;
+	}
+
+	private void cancelTimerable(long handle) {
+		int entry = (int) handle;
+		int generation = (int) (handle >>> 32);
+
+		if (entry < 0 || entry >= entrySlots.length || entryGenerations[entry] != generation) {
+			return; // handle is outdated
+		}
+
+		int slot = entrySlots[entry];
+		if (slot == FIRING) {
+			entrySlots[entry] = CANCELLED; // released after its timerEvent() returned
+		} else if (slot >= 0) {
+			unlink(entry);
+			releaseEntry(entry);
 		}
+	}
 
+	private int getDueTick(int delay) {
 		int delaySlots = delay / TIME_SLICE;
 		delaySlots = delaySlots > 0 ? delaySlots : 1; // ensure at least one slot delay
 
-		assert delaySlots < TIME_SLOTS : "SCHEDULED TO FAR IN THE FUTURE! " + delay + "ms";
+		int dueTick = currentTick + delaySlots;
+		int latestTick = (currentTick / LEVEL_SPANS[LEVELS - 1] + UPPER_LEVEL_SLOTS) * LEVEL_SPANS[LEVELS - 1] - 1;
+		return dueTick < latestTick ? dueTick : latestTick;
+	}
+
+	private int allocateEntry(IScheduledTimerable t) {
+		int entry = freeEntries;
+		if (entry != NONE) {
+			freeEntries = entryNext[entry];
+		} else {
+			if (usedEntries >= entrySlots.length) {
+				growEntries();
+			}
+			entry = usedEntries++;
+		}
+
+		entryTimerables[entry] = t;
+		return entry;
+	}
+
+	private void releaseEntry(int entry) {
+		entryTimerables[entry] = null;
+		entrySlots[entry] = FREE;
+		entryGenerations[entry] = entryGenerations[entry] == Integer.MAX_VALUE ? 1 : entryGenerations[entry] + 1;
+		entryNext[entry] = freeEntries;
+		freeEntries = entry;
+	}
+
+	private void growEntries() {
+		int oldCapacity = entrySlots.length;
+		int newCapacity = oldCapacity * 2;
+
+		entryTimerables = Arrays.copyOf(entryTimerables, newCapacity);
+		entryNext = Arrays.copyOf(entryNext, newCapacity);
+		entryPrev = Arrays.copyOf(entryPrev, newCapacity);
+		entrySlots = Arrays.copyOf(entrySlots, newCapacity);
+		entryDueTicks = Arrays.copyOf(entryDueTicks, newCapacity);
+		entryGenerations = Arrays.copyOf(entryGenerations, newCapacity);
+		Arrays.fill(entrySlots, oldCapacity, newCapacity, FREE);
+		Arrays.fill(entryGenerations, oldCapacity, newCapacity, 1);
+	}
 
-		timerables[(currTimeSlot + delaySlots) % TIME_SLOTS].add(t);
+	private void scheduleEntry(int entry, int dueTick) {
+		entryDueTicks[entry] = dueTick;
+		append(getSlot(dueTick), entry);
 	}
 
-	private static synchronized RescheduleTimer get() {
+	/**
+	 * Returns the slot of the lowest level whose block contains the due tick as well as the current tick.
+	 */
+	private int getSlot(int dueTick) {
+		for (int level = 0; level < LEVELS - 1; level++) {
+			int parentSpan = LEVEL_SPANS[level + 1];
+			if (dueTick / parentSpan == currentTick / parentSpan) {
+				return getSlot(level, dueTick);
+			}
+		}
+		return getSlot(LEVELS - 1, dueTick);
+	}
+
+	private static int getSlot(int level, int tick) {
+		int slotsOfLevel = level == 0 ? TIME_SLOTS : UPPER_LEVEL_SLOTS;
+		return LEVEL_OFFSETS[level] + (tick / LEVEL_SPANS[level]) % slotsOfLevel;
+	}
+
+	private void append(int slot, int entry) {
+		int tail = slotTails[slot];
+		entrySlots[entry] = slot;
+		entryPrev[entry] = tail;
+		entryNext[entry] = NONE;
+
+		if (tail == NONE) {
+			slotHeads[slot] = entry;
+		} else {
+			entryNext[tail] = entry;
+		}
+		slotTails[slot] = entry;
+	}
+
+	private void unlink(int entry) {
+		int slot = entrySlots[entry];
+		int prev = entryPrev[entry];
+		int next = entryNext[entry];
+
+		if (prev == NONE) {
+			slotHeads[slot] = next;
+		} else {
+			entryNext[prev] = next;
+		}
+		if (next == NONE) {
+			slotTails[slot] = prev;
+		} else {
+			entryPrev[next] = prev;
+		}
+	}
+
+	static synchronized RescheduleTimer get() {
 		if (uniIns == null) {
 			uniIns = new RescheduleTimer();
 		}
@@ -89,17 +303,36 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 
 	@Override
 	public void timerEvent() {
-		ArrayList<IScheduledTimerable> queue = timerables[currTimeSlot];
+		int slot = getSlot(0, currentTick);
 
-		for (IScheduledTimerable curr : queue) {
+		int entry;
+		while ((entry = slotHeads[slot]) != NONE) { // entries can't be scheduled into the current slot while it is executed
 			if (uniIns != this) { // fast stop when stopAndClear() is called.
 				return;
 			}
 
+			unlink(entry);
+			entrySlots[entry] = FIRING;
+			IScheduledTimerable curr = entryTimerables[entry];
+
 			try {
-				int delay = curr.timerEvent();
-				addTimerable(curr, delay);
+				int delay;
+				boolean measured = TickProfiler.begin();
+				try {
+					delay = curr.timerEvent();
+				} finally {
+					if (measured) {
+						TickProfiler.end(curr.getClass());
+					}
+				}
+
+				if (delay > 0 && entrySlots[entry] == FIRING) {
+					scheduleEntry(entry, getDueTick(delay));
+				} else {
+					releaseEntry(entry);
+				}
 			} catch (Throwable t) {
+				releaseEntry(entry);
 				System.err.println("RescheduleTimer catched: ");
 				t.printStackTrace();
 				try {
@@ -111,8 +344,86 @@ public final class RescheduleTimer implements INetworkTimerable, Serializable {
 			}
 		}
 
-		queue.clear();
-		currTimeSlot = (currTimeSlot + 1) % TIME_SLOTS;
+		currentTick++;
+		cascade();
+	}
+
+	/**
+	 * Moves the entries of the higher level slots belonging to the block that begins with the current tick down the hierarchy. The highest level
+	 * is cascaded first, so that entries arrive in the lower levels before any entry scheduled directly to them.
+	 */
+	private void cascade() {
+		for (int level = LEVELS - 1; level > 0; level--) {
+			if (currentTick % LEVEL_SPANS[level] == 0) {
+				int slot = getSlot(level, currentTick);
+				int entry = slotHeads[slot];
+				slotHeads[slot] = NONE;
+				slotTails[slot] = NONE;
+
+				while (entry != NONE) {
+					int next = entryNext[entry];
+					append(getSlot(entryDueTicks[entry]), entry);
+					entry = next;
+				}
+			}
+		}
+	}
+
+	private void writeObject(ObjectOutputStream oos) throws IOException {
+		@SuppressWarnings("unchecked")
+		ArrayList<IScheduledTimerable>[] nearTimerables = new ArrayList[TIME_SLOTS];
+		for (int i = 0; i < TIME_SLOTS; i++) {
+			nearTimerables[i] = new ArrayList<>();
+		}
+		ArrayList<IScheduledTimerable> farTimerables = new ArrayList<>();
+		int[] farDueTicks = new int[usedEntries];
+		int farEntries = 0;
+
+		// all entries with the same due tick are in the same slot, so their order is kept
+		for (int slot = 0; slot < NUMBER_OF_SLOTS; slot++) {
+			for (int entry = slotHeads[slot]; entry != NONE; entry = entryNext[entry]) {
+				int dueTick = entryDueTicks[entry];
+				if (dueTick - currentTick < TIME_SLOTS) {
+					nearTimerables[dueTick % TIME_SLOTS].add(entryTimerables[entry]);
+				} else {
+					farTimerables.add(entryTimerables[entry]);
+					farDueTicks[farEntries++] = dueTick;
+				}
+			}
+		}
+
+		ObjectOutputStream.PutField fields = oos.putFields();
+		fields.put("timerables", nearTimerables);
+		fields.put("currTimeSlot", currentTick % TIME_SLOTS);
+		fields.put("currentTick", currentTick);
+		fields.put("farTimerables", farTimerables);
+		fields.put("farDueTicks", Arrays.copyOf(farDueTicks, farEntries));
+		oos.writeFields();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = ois.readFields();
+		ArrayList<IScheduledTimerable>[] nearTimerables = (ArrayList<IScheduledTimerable>[]) fields.get("timerables", null);
+		int currTimeSlot = fields.get("currTimeSlot", 0);
+		ArrayList<IScheduledTimerable> farTimerables = (ArrayList<IScheduledTimerable>) fields.get("farTimerables", null);
+		int[] farDueTicks = (int[]) fields.get("farDueTicks", null);
+
+		currentTick = fields.defaulted("currentTick") ? currTimeSlot : fields.get("currentTick", 0);
+		initialize(START_CAPACITY);
+
+		for (int slot = 0; slot < TIME_SLOTS; slot++) {
+			int dueTick = currentTick + (slot - currTimeSlot + TIME_SLOTS) % TIME_SLOTS;
+			for (IScheduledTimerable timerable : nearTimerables[slot]) {
+				scheduleEntry(allocateEntry(timerable), dueTick);
+			}
+		}
+
+		if (farTimerables != null) {
+			for (int i = 0; i < farTimerables.size(); i++) {
+				scheduleEntry(allocateEntry(farTimerables.get(i)), farDueTicks[i]);
+			}
+		}
 	}
 
 	public static void loadFrom(ObjectInputStream ois) throws MapLoadException {
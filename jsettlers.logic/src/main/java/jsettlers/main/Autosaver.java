@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jsettlers.common.logging.MilliStopWatch;
+import jsettlers.common.menu.UIState;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.list.MapList;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
+import jsettlers.network.synchronic.timer.INetworkTimerable;
+
+import java8.util.function.Supplier;
+
+/**
+ * Periodically saves the game without stopping the game clock.
+ * <p />
+ * The autosaver is scheduled on the game clock, so the snapshot of the game is taken between two ticks. Only compressing and writing the
+ * snapshot is done by a background thread. If that thread is still busy when the next autosave is due, the autosave is skipped. Only the newest
+ * autosaves of the game are kept.
+ * 
+ */
+public class Autosaver implements INetworkTimerable {
+	public static final short CHECK_PERIOD = 1000;
+
+	private final MainGrid grid;
+	private final byte playerId;
+	private final Supplier<UIState> uiStateSupplier;
+	private final MapList mapList;
+	private final int interval;
+	private final int retention;
+
+	private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "AutosaveThread"));
+	private final AtomicBoolean writing = new AtomicBoolean(false);
+	private final ArrayDeque<String> autosaveIds = new ArrayDeque<>(); // only accessed by the write thread
+
+	private int nextAutosaveTime;
+
+	/**
+	 * 
+	 * @param grid
+	 *            The grid of the game.
+	 * @param playerId
+	 *            The id of the player the game is saved for.
+	 * @param uiStateSupplier
+	 *            Supplies the current UI state of the player. It is called by the game thread.
+	 * @param mapList
+	 *            The list the savegames are saved to.
+	 * @param interval
+	 *            The interval of the autosaves in game time milliseconds.
+	 * @param retention
+	 *            The number of autosaves to keep or 0 to keep all of them.
+	 */
+	public Autosaver(MainGrid grid, byte playerId, Supplier<UIState> uiStateSupplier, MapList mapList, int interval, int retention) {
+		this.grid = grid;
+		this.playerId = playerId;
+		this.uiStateSupplier = uiStateSupplier;
+		this.mapList = mapList;
+		this.interval = interval;
+		this.retention = retention;
+		this.nextAutosaveTime = MatchConstants.clock().getTime() + interval;
+	}
+
+	@Override
+	public void timerEvent() {
+		int time = MatchConstants.clock().getTime();
+		if (time < nextAutosaveTime) {
+			return;
+		}
+		nextAutosaveTime = time + interval;
+
+		if (!writing.compareAndSet(false, true)) {
+			System.out.println("Skipping autosave, because the last one is still being written.");
+			return;
+		}
+
+		final SavegameSnapshot snapshot;
+		try {
+			MilliStopWatch watch = new MilliStopWatch();
+			snapshot = grid.createSnapshot(playerId, uiStateSupplier.get());
+			watch.stop("Taking autosave snapshot required");
+		} catch (IOException e) {
+			System.err.println("Could not take autosave snapshot:");
+			e.printStackTrace();
+			writing.set(false);
+			return;
+		}
+
+		writeExecutor.execute(() -> {
+			try {
+				write(snapshot);
+			} finally {
+				writing.set(false);
+			}
+		});
+	}
+
+	private void write(SavegameSnapshot snapshot) {
+		try {
+			mapList.saveSnapshot(snapshot);
+		} catch (IOException e) {
+			System.err.println("Could not write autosave:");
+			e.printStackTrace();
+			return;
+		}
+
+		autosaveIds.addLast(snapshot.getHeader().getUniqueId());
+		while (retention > 0 && autosaveIds.size() > retention) {
+			mapList.deleteSavedMap(autosaveIds.pollFirst());
+		}
+	}
+
+	/**
+	 * Stops the autosaver. An autosave that is currently written is finished.
+	 */
+	public void stop() {
+		writeExecutor.shutdown();
+	}
+}
@@ -18,7 +18,9 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.Writer;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
@@ -26,6 +28,7 @@ import java.util.Date;
 
 import jsettlers.ai.highlevel.AiExecutor;
 import jsettlers.common.CommonConstants;
+import jsettlers.common.logging.TickProfiler;
 import jsettlers.common.map.IGraphicsGrid;
 import jsettlers.common.menu.EGameError;
 import jsettlers.common.menu.EProgressState;
@@ -50,9 +53,11 @@ import jsettlers.logic.map.loading.IGameCreator;
 import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
 import jsettlers.logic.map.loading.MapLoadException;
 import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.logic.movable.Movable;
 import jsettlers.logic.player.Player;
 import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.ClockProfiler;
 import jsettlers.logic.timer.RescheduleTimer;
 import jsettlers.main.replay.ReplayUtils;
 import jsettlers.network.client.OfflineNetworkConnector;
@@ -195,6 +200,26 @@ public class JSettlersGame {
 		}
 	}
 
+	/**
+	 * Writes the profiles recorded by the {@link TickProfiler} to the log folder of the game, if it has been enabled during the game.
+	 */
+	private void writeTickProfile() {
+		if (!TickProfiler.hasProfiles()) {
+			return;
+		}
+
+		try (Writer csvWriter = new OutputStreamWriter(ResourceManager.writeUserFile(getLogFile(mapCreator, "_tickprofile.csv")), "UTF-8")) {
+			TickProfiler.writeCsv(csvWriter);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		try (Writer jsonWriter = new OutputStreamWriter(ResourceManager.writeUserFile(getLogFile(mapCreator, "_tickprofile.json")), "UTF-8")) {
+			TickProfiler.writeJson(jsonWriter);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	protected OutputStream createReplayWriteStream() throws IOException {
 		final String replayFilename = getLogFile(mapCreator, "_replay.log");
 		return ResourceManager.writeUserFile(replayFilename);
@@ -209,6 +234,7 @@ public class JSettlersGame {
 		private IGameExitListener exitListener;
 		private boolean gameRunning;
 		private AiExecutor aiExecutor;
+		private Autosaver autosaver;
 
 		@Override
 		public void run() {
@@ -223,6 +249,8 @@ public class JSettlersGame {
 					// TODO: log that we do not have write access to resources.
 					System.out.println("Cannot write jsettlers.integration.replay file.");
 				}
+				TickProfiler.reset();
+				MatchConstants.clock().setProfiler(new ClockProfiler());
 
 				updateProgressListener(EProgressState.LOADING_MAP, 0.3f);
 				Thread imagePreloader = ImageProvider.getInstance().startPreloading();
@@ -237,6 +265,7 @@ public class JSettlersGame {
 				gameTimeProvider = new GameTimeProvider(MatchConstants.clock());
 
 				mainGrid.initForPlayer(playerId, playerState.getFogOfWar());
+				mainGrid.initPathfinding();
 				mainGrid.startThreads();
 
 				if (imagePreloader != null)
@@ -261,6 +290,12 @@ public class JSettlersGame {
 				aiExecutor = new AiExecutor(playerSettings, mainGrid, networkConnector.getTaskScheduler());
 				networkConnector.getGameClock().schedule(aiExecutor, (short) 10000);
 
+				if (CommonConstants.AUTOSAVE_INTERVAL > 0) {
+					autosaver = new Autosaver(mainGrid, playerId, guiInterface::getUIState, MapList.getDefaultList(), CommonConstants.AUTOSAVE_INTERVAL,
+							CommonConstants.AUTOSAVE_RETENTION);
+					networkConnector.getGameClock().schedule(autosaver, Autosaver.CHECK_PERIOD);
+				}
+
 				MatchConstants.clock().startExecution(); // WARNING: GAME CLOCK IS STARTED!
 				// NO CONFIGURATION AFTER THIS POINT! =================================
 				gameRunning = true;
@@ -277,9 +312,16 @@ public class JSettlersGame {
 				}
 
 				networkConnector.shutdown();
+				if (autosaver != null) {
+					autosaver.stop();
+				}
 				mainGrid.stopThreads();
+				if (aiExecutor != null) {
+					aiExecutor.shutdown();
+				}
 				connector.shutdown();
 				guiInterface.stop();
+				writeTickProfile();
 				clearState();
 
 				System.setErr(systemErrorStream);
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.logic.timer.RescheduleTimer;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.client.interfaces.ITaskScheduler;
+import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Checks that the {@link AiExecutor} schedules the same tasks no matter how many workers evaluate the computer players.
+ *
+ */
+public class AiExecutorTest {
+	private static final int NUMBER_OF_EVALUATIONS = 5;
+	private static final int GAME_TIME_BETWEEN_EVALUATIONS = 10 * 1000;
+
+	@After
+	public void tearDown() {
+		JSettlersGame.clearState();
+	}
+
+	@Test
+	public void testParallelEvaluationSchedulesTheSameTasksAsSerialEvaluation() throws MapLoadException {
+		List<TaskPacket> serialTasks = evaluateComputerPlayers(1);
+		List<TaskPacket> parallelTasks = evaluateComputerPlayers(4);
+
+		assertFalse(serialTasks.isEmpty());
+		assertEquals(serialTasks, parallelTasks);
+	}
+
+	private static List<TaskPacket> evaluateComputerPlayers(int numberOfWorkers) throws MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		MapLoader map = MapUtils.getMountainlake();
+		PlayerSetting[] playerSettings = new PlayerSetting[map.getMaxPlayers()];
+		for (byte playerId = 0; playerId < playerSettings.length; playerId++) {
+			playerSettings[playerId] = new PlayerSetting(EPlayerType.AI_VERY_HARD, ECivilisation.ROMAN, playerId);
+		}
+		MainGrid mainGrid = map.loadMainGrid(playerSettings).getMainGrid();
+		RescheduleTimer.schedule(MatchConstants.clock());
+
+		final List<TaskPacket> tasks = new ArrayList<>();
+		AiExecutor aiExecutor = new AiExecutor(playerSettings, mainGrid, new ITaskScheduler() {
+			@Override
+			public void scheduleTask(TaskPacket task) {
+				tasks.add(task);
+			}
+		}, numberOfWorkers);
+		try {
+			for (int i = 1; i <= NUMBER_OF_EVALUATIONS; i++) {
+				MatchConstants.clock().fastForwardTo(i * GAME_TIME_BETWEEN_EVALUATIONS);
+				aiExecutor.timerEvent();
+			}
+		} finally {
+			aiExecutor.shutdown();
+			JSettlersGame.clearState();
+		}
+		return tasks;
+	}
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.ai.highlevel;
+
+import static org.junit.Assert.assertNull;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.map.shapes.FreeMapArea;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.mapobject.EMapObjectType;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.MainGrid;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Changes the grids of a map at random positions and checks that the incrementally updated {@link AiStatistics} equal statistics calculated by a
+ * full scan of the map.
+ *
+ */
+public class AiStatisticsTest {
+	private static final int NUMBER_OF_ROUNDS = 20;
+	private static final int CHANGES_PER_ROUND = 40;
+	private static final ELandscapeType[] LANDSCAPE_TYPES = { ELandscapeType.GRASS, ELandscapeType.WATER1, ELandscapeType.RIVER2,
+			ELandscapeType.MOUNTAIN, ELandscapeType.DESERT };
+
+	private MainGrid grid;
+	private AiStatistics aiStatistics;
+
+	@Before
+	public void setUp() throws MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		grid = MapUtils.getMountainlake().loadMainGrid(null).getMainGrid();
+		aiStatistics = new AiStatistics(grid);
+	}
+
+	@After
+	public void tearDown() {
+		JSettlersGame.clearState();
+	}
+
+	@Test
+	public void testInitialStatisticsEqualFullScan() {
+		aiStatistics.updateStatistics();
+		assertNull(aiStatistics.findDifferenceToFullScan());
+	}
+
+	@Test
+	public void testRandomGridChanges() {
+		Random random = new Random(1);
+		aiStatistics.updateStatistics();
+
+		for (int round = 0; round < NUMBER_OF_ROUNDS; round++) {
+			for (int change = 0; change < CHANGES_PER_ROUND; change++) {
+				changeRandomPosition(random);
+			}
+			aiStatistics.updateStatistics();
+			assertNull("round " + round, aiStatistics.findDifferenceToFullScan());
+		}
+	}
+
+	private void changeRandomPosition(Random random) {
+		int margin = 20;
+		short x = (short) (margin + random.nextInt(grid.getWidth() - 2 * margin));
+		short y = (short) (margin + random.nextInt(grid.getHeight() - 2 * margin));
+
+		switch (random.nextInt(5)) {
+		case 0:
+			grid.getLandscapeGrid().setLandscapeTypeAt(x, y, LANDSCAPE_TYPES[random.nextInt(LANDSCAPE_TYPES.length)]);
+			break;
+		case 1:
+			EResourceType resourceType = EResourceType.VALUES[random.nextInt(EResourceType.VALUES.length)];
+			grid.getLandscapeGrid().setResourceAt(x, y, resourceType, (byte) random.nextInt(10));
+			break;
+		case 2:
+			grid.getObjectsGrid().removeMapObjectTypes(x, y, EnumSet.of(EMapObjectType.TREE_ADULT, EMapObjectType.STONE));
+			break;
+		case 3:
+			grid.getFlagsGrid().setBlockedAndProtected(x, y, random.nextBoolean(), random.nextBoolean());
+			break;
+		default:
+			ShortPoint2D position = new ShortPoint2D(x, y);
+			byte playerId = (byte) random.nextInt(grid.getGuiInputGrid().getNumberOfPlayers());
+			grid.getPartitionsGrid().addTowerAndOccupyArea(playerId, new MapCircle(position, 10 + random.nextInt(10)),
+					new FreeMapArea(position, EBuildingType.TOWER.getProtectedTiles()));
+			break;
+		}
+	}
+}
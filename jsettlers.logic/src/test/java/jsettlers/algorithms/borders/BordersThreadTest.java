@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2015 - 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.borders;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the borders calculated by the {@link BordersThread}.
+ */
+public class BordersThreadTest {
+	private static final int WIDTH = 200;
+	private static final int HEIGHT = 150;
+	private static final long TIMEOUT = 10000;
+
+	private final byte[] players = new byte[WIDTH * HEIGHT];
+	private final BitSet borders = new BitSet(WIDTH * HEIGHT);
+	private int batches = 0;
+
+	private BordersThread bordersThread;
+
+	@After
+	public void tearDown() {
+		if (bordersThread != null) {
+			bordersThread.cancel();
+		}
+	}
+
+	@Test
+	public void testBordersOfWholeMap() throws InterruptedException {
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				players[x + y * WIDTH] = (byte) (x < 20 ? -1 : (x < 100 ? 0 : 1));
+			}
+		}
+
+		bordersThread = new BordersThread(new TestBordersThreadGrid(), WIDTH, HEIGHT);
+		bordersThread.checkArea(0, 0, (short) WIDTH, (short) HEIGHT);
+		bordersThread.start();
+		awaitBatches(1);
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals("at (" + x + "|" + y + ")", isExpectedBorder(x, y), isBorder(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testMarkedPositionsAreCalculatedOnce() throws InterruptedException {
+		Arrays.fill(players, (byte) -1);
+		players[50 + 50 * WIDTH] = 0;
+		bordersThread = new BordersThread(new TestBordersThreadGrid(), WIDTH, HEIGHT);
+		for (int i = 0; i < 1000; i++) {
+			bordersThread.checkPosition(50, 50);
+		}
+		bordersThread.start();
+		awaitBatches(1);
+
+		assertEquals(true, isBorder(50, 50));
+		assertEquals(1, batches);
+	}
+
+	private boolean isExpectedBorder(int x, int y) {
+		byte player = players[x + y * WIDTH];
+		if (player < 0) {
+			return false;
+		}
+		return x == 20 || x == 99 || x == 100; // the hexagonal neighbors of a column are in the columns left and right of it
+	}
+
+	private synchronized boolean isBorder(int x, int y) {
+		return borders.get(x + y * WIDTH);
+	}
+
+	private synchronized void awaitBatches(int expectedBatches) throws InterruptedException {
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (batches < expectedBatches && System.currentTimeMillis() < end) {
+			wait(100);
+		}
+		assertEquals(expectedBatches, batches);
+	}
+
+	private class TestBordersThreadGrid implements IBordersThreadGrid {
+		@Override
+		public byte getPlayerIdAt(int x, int y) {
+			return players[x + y * WIDTH];
+		}
+
+		@Override
+		public void setBordersAt(BordersBatch batch) {
+			synchronized (BordersThreadTest.this) {
+				batch.forEach((x, y, isBorder) -> borders.set(x + y * WIDTH, isBorder));
+				batches++;
+				BordersThreadTest.this.notifyAll();
+			}
+		}
+
+		@Override
+		public boolean isInBounds(int x, int y) {
+			return 0 <= x && x < WIDTH && 0 <= y && y < HEIGHT;
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.fogofwar;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import jsettlers.common.mapobject.IMapObject;
+import jsettlers.common.movable.IMovable;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.constants.Constants;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Validates the incremental sight update of {@link FogOfWar} against the full rebuild.
+ */
+public class FogOfWarTest {
+	private static final short WIDTH = 200;
+	private static final short HEIGHT = 150;
+	private static final IPlayer PLAYER = new IPlayer.DummyPlayer((byte) 0);
+	private static final IPlayer ENEMY = new IPlayer.DummyPlayer((byte) 1);
+
+	private final Random random = new Random(42);
+	private final ConcurrentLinkedQueue<TestViewer> buildings = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<TestViewer> movables = new ConcurrentLinkedQueue<>();
+
+	@After
+	public void tearDown() {
+		Constants.FOG_OF_WAR_INCREMENTAL = true;
+	}
+
+	@Test
+	public void testIncrementalEqualsFullRebuild() {
+		FogOfWar full = createFogOfWar();
+		FogOfWar incremental = createFogOfWar();
+
+		for (int i = 0; i < 5; i++) {
+			buildings.add(new TestViewer(randomPosition(), (short) (10 + random.nextInt(20)), PLAYER));
+		}
+		for (int i = 0; i < 40; i++) {
+			movables.add(new TestViewer(randomPosition(), (short) (3 + random.nextInt(8)), random.nextInt(4) == 0 ? ENEMY : PLAYER));
+		}
+
+		for (int update = 0; update < 60; update++) {
+			for (TestViewer movable : movables) {
+				if (random.nextInt(3) == 0) {
+					movable.move(random.nextInt(5) - 2, random.nextInt(5) - 2);
+				}
+			}
+			if (update % 10 == 5) {
+				movables.poll();
+				buildings.poll();
+				buildings.add(new TestViewer(randomPosition(), (short) (10 + random.nextInt(20)), PLAYER));
+			}
+			if (update > 40 && !movables.isEmpty()) {
+				movables.poll(); // let everything dim down
+			}
+
+			updateSight(full, false);
+			updateSight(incremental, true);
+			assertSameSight(full, incremental);
+		}
+	}
+
+	private FogOfWar createFogOfWar() {
+		FogOfWar fogOfWar = new FogOfWar(WIDTH, HEIGHT, PLAYER);
+		fogOfWar.setGrid(new TestFogOfWarGrid());
+		return fogOfWar;
+	}
+
+	private static void updateSight(FogOfWar fogOfWar, boolean incremental) {
+		Constants.FOG_OF_WAR_INCREMENTAL = incremental;
+		fogOfWar.updateSight();
+	}
+
+	private static void assertSameSight(FogOfWar expected, FogOfWar actual) {
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals("at (" + x + "|" + y + ")", expected.getVisibleStatus(x, y), actual.getVisibleStatus(x, y));
+			}
+		}
+	}
+
+	private ShortPoint2D randomPosition() {
+		return new ShortPoint2D(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+	}
+
+	private static class TestViewer implements IViewDistancable {
+		private ShortPoint2D position;
+		private final short viewDistance;
+		private final IPlayer player;
+
+		TestViewer(ShortPoint2D position, short viewDistance, IPlayer player) {
+			this.position = position;
+			this.viewDistance = viewDistance;
+			this.player = player;
+		}
+
+		void move(int dx, int dy) {
+			int x = Math.min(Math.max(position.x + dx, 0), WIDTH - 1);
+			int y = Math.min(Math.max(position.y + dy, 0), HEIGHT - 1);
+			position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return player;
+		}
+
+		@Override
+		public short getViewDistance() {
+			return viewDistance;
+		}
+	}
+
+	private class TestFogOfWarGrid implements IFogOfWarGrid {
+		@Override
+		public IMovable getMovableAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public IMapObject getMapObjectsAt(short x, short y) {
+			return null;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getMovableViewDistancables() {
+			return movables;
+		}
+
+		@Override
+		public ConcurrentLinkedQueue<? extends IViewDistancable> getBuildingViewDistancables() {
+			return buildings;
+		}
+	}
+}
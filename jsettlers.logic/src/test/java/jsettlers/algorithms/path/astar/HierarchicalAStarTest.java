@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.astar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.common.Color;
+import jsettlers.common.movable.EDirection;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the paths of the {@link HierarchicalAStar} with the ones of the {@link BucketQueueAStar}.
+ */
+public class HierarchicalAStarTest {
+	private static final short WIDTH = 160;
+	private static final short HEIGHT = 160;
+	private static final int QUERIES = 200;
+	/**
+	 * The hierarchical paths are not the shortest ones, but they must not be longer than the shortest paths by more than this factor.
+	 */
+	private static final float MAX_LENGTH_FACTOR = 1.05f;
+
+	private final Random random = new Random(1);
+	private final RandomObstaclesMap map = new RandomObstaclesMap();
+	private final HierarchicalAStar hierarchicalAStar = new HierarchicalAStar(map, WIDTH, HEIGHT);
+	private final BucketQueueAStar aStar = new BucketQueueAStar(map, WIDTH, HEIGHT);
+
+	@Test
+	public void testPathsOnRandomMap() {
+		map.fillRandomly(0.3f);
+		comparePaths(QUERIES);
+	}
+
+	@Test
+	public void testPathsAfterMapChanges() {
+		map.fillRandomly(0.2f);
+		comparePaths(QUERIES);
+
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 500; j++) {
+				int x = random.nextInt(WIDTH);
+				int y = random.nextInt(HEIGHT);
+				map.blocked[x][y] = !map.blocked[x][y];
+				hierarchicalAStar.blockedChanged(x, y);
+			}
+			map.calculatePartitions();
+			comparePaths(QUERIES);
+		}
+	}
+
+	/**
+	 * Single changes only rebuild a few clusters. The links of their neighbors must still match the entrances of the rebuilt clusters.
+	 */
+	@Test
+	public void testPathsAfterSingleChanges() {
+		map.fillRandomly(0.2f);
+		comparePaths(QUERIES);
+
+		for (int i = 0; i < 200; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			map.blocked[x][y] = !map.blocked[x][y];
+			hierarchicalAStar.blockedChanged(x, y);
+			map.calculatePartitions();
+			comparePaths(10);
+		}
+	}
+
+	@Test
+	public void testPathsAreIndependentOfPreviousSearches() {
+		map.fillRandomly(0.25f);
+		HierarchicalAStar otherAStar = new HierarchicalAStar(map, WIDTH, HEIGHT);
+
+		for (int i = 0; i < 20; i++) {
+			ShortPoint2D start = getFreePosition();
+			ShortPoint2D target = getFreePosition();
+			Path path = hierarchicalAStar.findPath(getPathable(start), target);
+
+			otherAStar.findPath(getPathable(getFreePosition()), getFreePosition());
+			Path otherPath = new HierarchicalAStar(map, WIDTH, HEIGHT).findPath(getPathable(start), target);
+
+			assertEquals(String.valueOf(path), String.valueOf(otherPath));
+		}
+	}
+
+	@Test
+	public void testPathsWithPrebuiltGraph() {
+		map.fillRandomly(0.25f);
+		HierarchicalAStar prebuiltAStar = new HierarchicalAStar(map, WIDTH, HEIGHT);
+		prebuiltAStar.buildGraph();
+
+		for (int i = 0; i < 300; i++) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			map.blocked[x][y] = !map.blocked[x][y];
+			hierarchicalAStar.blockedChanged(x, y);
+			prebuiltAStar.blockedChanged(x, y);
+		}
+		map.calculatePartitions();
+
+		for (int i = 0; i < 50; i++) {
+			ShortPoint2D start = getFreePosition();
+			ShortPoint2D target = getFreePosition();
+			Path path = hierarchicalAStar.findPath(getPathable(start), target);
+			Path prebuiltPath = prebuiltAStar.findPath(getPathable(start), target);
+
+			assertEquals(String.valueOf(path), String.valueOf(prebuiltPath));
+		}
+	}
+
+	private void comparePaths(int queries) {
+		int hierarchicalLength = 0;
+		int optimalLength = 0;
+
+		for (int i = 0; i < queries; i++) {
+			ShortPoint2D start = getFreePosition();
+			ShortPoint2D target = getFreePosition();
+
+			Path expected = aStar.findPath(getPathable(start), target);
+			Path path = hierarchicalAStar.findPath(getPathable(start), target);
+
+			if (expected == null) {
+				assertNull(path);
+			} else {
+				assertNotNull(path);
+				assertValidPath(start, target, path);
+				hierarchicalLength += path.getLength();
+				optimalLength += expected.getLength();
+			}
+		}
+
+		assertTrue("hierarchical paths are too long: " + hierarchicalLength + " instead of " + optimalLength,
+				hierarchicalLength <= optimalLength * MAX_LENGTH_FACTOR);
+	}
+
+	private void assertValidPath(ShortPoint2D start, ShortPoint2D target, Path path) {
+		ShortPoint2D current = start;
+		for (int i = 0; i < path.getLength(); i++) {
+			ShortPoint2D next = path.getNextPos();
+			path.goToNextStep();
+
+			assertFalse(map.blocked[next.x][next.y]);
+			assertNotNull(current + " -> " + next, EDirection.getDirection(next.x - current.x, next.y - current.y));
+			current = next;
+		}
+		assertEquals(target, current);
+	}
+
+	private ShortPoint2D getFreePosition() {
+		while (true) {
+			int x = random.nextInt(WIDTH);
+			int y = random.nextInt(HEIGHT);
+			if (!map.blocked[x][y]) {
+				return new ShortPoint2D(x, y);
+			}
+		}
+	}
+
+	private static IPathCalculatable getPathable(final ShortPoint2D position) {
+		return new IPathCalculatable() {
+			private static final long serialVersionUID = 7361203562847145298L;
+
+			@Override
+			public ShortPoint2D getPos() {
+				return position;
+			}
+
+			@Override
+			public IPlayer getPlayer() {
+				return new IPlayer.DummyPlayer();
+			}
+
+			@Override
+			public boolean needsPlayersGround() {
+				return false;
+			}
+		};
+	}
+
+	private class RandomObstaclesMap implements IAStarPathMap {
+		private final boolean[][] blocked = new boolean[WIDTH][HEIGHT];
+		private final short[] partitions = new short[WIDTH * HEIGHT];
+
+		void fillRandomly(float blockedProbability) {
+			for (int x = 0; x < WIDTH; x++) {
+				for (int y = 0; y < HEIGHT; y++) {
+					blocked[x][y] = random.nextFloat() < blockedProbability;
+				}
+			}
+			for (int i = 0; i < 20; i++) { // add some walls
+				int x = random.nextInt(WIDTH);
+				int y = random.nextInt(HEIGHT);
+				int length = random.nextInt(60);
+				boolean vertical = random.nextBoolean();
+				for (int j = 0; j < length && x < WIDTH && y < HEIGHT; j++) {
+					blocked[x][y] = true;
+					if (vertical) {
+						y++;
+					} else {
+						x++;
+					}
+				}
+			}
+			calculatePartitions();
+		}
+
+		void calculatePartitions() {
+			Arrays.fill(partitions, (short) -1);
+			short nextPartition = 0;
+			ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+			for (int i = 0; i < partitions.length; i++) {
+				if (partitions[i] >= 0 || blocked[i % WIDTH][i / WIDTH]) {
+					continue;
+				}
+				partitions[i] = nextPartition;
+				queue.add(i);
+				while (!queue.isEmpty()) {
+					int current = queue.poll();
+					for (EDirection direction : EDirection.VALUES) {
+						int x = current % WIDTH + direction.gridDeltaX;
+						int y = current / WIDTH + direction.gridDeltaY;
+						if (0 <= x && x < WIDTH && 0 <= y && y < HEIGHT && !blocked[x][y] && partitions[y * WIDTH + x] < 0) {
+							partitions[y * WIDTH + x] = nextPartition;
+							queue.add(y * WIDTH + x);
+						}
+					}
+				}
+				nextPartition++;
+			}
+		}
+
+		@Override
+		public boolean isBlocked(IPathCalculatable requester, int x, int y) {
+			return blocked[x][y];
+		}
+
+		@Override
+		public float getCost(int sx, int sy, int tx, int ty) {
+			return 1;
+		}
+
+		@Override
+		public void markAsOpen(int x, int y) {
+		}
+
+		@Override
+		public void markAsClosed(int x, int y) {
+		}
+
+		@Override
+		public void setDebugColor(int x, int y, Color color) {
+		}
+
+		@Override
+		public short getBlockedPartition(int x, int y) {
+			return partitions[y * WIDTH + x];
+		}
+	}
+}
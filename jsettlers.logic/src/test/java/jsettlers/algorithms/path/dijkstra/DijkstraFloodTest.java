@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the flooded searches of the {@link DijkstraAlgorithm} with searching a path to every fitting position of the searched area. Targets that
+ * can only be reached by paths longer than the max radius may not be found by the flood.
+ *
+ */
+public class DijkstraFloodTest {
+	private static final short WIDTH = 97;
+	private static final short HEIGHT = 89;
+	private static final ESearchType TYPE = ESearchType.VALID_FREE_POSITION;
+
+	private final Random random = new Random(1);
+	private final BitSet blocked = new BitSet(WIDTH * HEIGHT);
+	private final BitSet fitting = new BitSet(WIDTH * HEIGHT);
+	private final DummyEmptyAStarMap aStarMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+
+	private final IDijkstraPathMap map = new IDijkstraPathMap() {
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return fitting.get(x + y * WIDTH);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+			return fitting.get(x + y * WIDTH);
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+	};
+
+	private final BucketQueueAStar aStar = new BucketQueueAStar(aStarMap, WIDTH, HEIGHT);
+	private final DijkstraAlgorithm ringDijkstra = new DijkstraAlgorithm(map, aStar, WIDTH, HEIGHT);
+	private final DijkstraAlgorithm floodDijkstra = new DijkstraAlgorithm(map, aStar, WIDTH, HEIGHT, null, EnumSet.of(TYPE));
+
+	@Test
+	public void testFindsNearestReachablePosition() {
+		fillRandomly(3, 40);
+		compareSearches(300);
+	}
+
+	@Test
+	public void testFindsNearestReachablePositionBehindWalls() {
+		fillRandomly(2, 200);
+		compareSearches(300);
+	}
+
+	@Test
+	public void testRingSearchOutsideOfTheArea() {
+		fillRandomly(3, 40);
+
+		IPathCalculatable requester = new Requester((short) 5, (short) 5);
+		short centerX = 60;
+		short centerY = 60;
+		Path expected = ringDijkstra.find(requester, centerX, centerY, (short) 0, (short) 10, TYPE);
+		Path actual = floodDijkstra.find(requester, centerX, centerY, (short) 0, (short) 10, TYPE);
+
+		assertEquals(expected == null ? null : expected.getTargetPos(), actual == null ? null : actual.getTargetPos());
+	}
+
+	private void fillRandomly(int blockedFraction, int fittingFraction) {
+		for (int i = 0; i < WIDTH * HEIGHT; i++) {
+			boolean positionBlocked = random.nextInt(blockedFraction) == 0;
+			blocked.set(i, positionBlocked);
+			aStarMap.setBlocked(i % WIDTH, i / WIDTH, positionBlocked);
+			fitting.set(i, random.nextInt(fittingFraction) == 0);
+		}
+	}
+
+	private void compareSearches(int numberOfSearches) {
+		for (int i = 0; i < numberOfSearches; i++) {
+			short x;
+			short y;
+			do {
+				x = (short) random.nextInt(WIDTH);
+				y = (short) random.nextInt(HEIGHT);
+			} while (blocked.get(x + y * WIDTH));
+			short minRadius = (short) random.nextInt(4);
+			short maxRadius = (short) (minRadius + 1 + random.nextInt(30));
+			IPathCalculatable requester = new Requester(x, y);
+			String search = "search around (" + x + "|" + y + ") from radius " + minRadius + " to " + maxRadius;
+
+			int expectedLength = getShortestPathLength(requester, minRadius, maxRadius);
+			Path actual = floodDijkstra.find(requester, x, y, minRadius, maxRadius, TYPE);
+
+			if (actual == null) {
+				assertTrue(search, expectedLength < 0 || expectedLength > maxRadius);
+				continue;
+			}
+
+			assertPathValid(search, requester.getPos(), actual);
+			ShortPoint2D target = actual.getTargetPos();
+			int radius = SearchTypeIndex.getHexDistance(target.x - x, target.y - y);
+			assertTrue(search, minRadius <= radius && radius < maxRadius);
+			assertTrue(search, fitting.get(target.x + target.y * WIDTH));
+			if (expectedLength <= maxRadius) {
+				assertEquals(search, expectedLength, actual.getLength());
+			} else {
+				assertTrue(search, actual.getLength() <= expectedLength);
+			}
+		}
+	}
+
+	/**
+	 * @return The length of the shortest path to a fitting position of the searched area or -1 if there is none.
+	 */
+	private int getShortestPathLength(IPathCalculatable requester, short minRadius, short maxRadius) {
+		ShortPoint2D center = requester.getPos();
+		int shortest = -1;
+		for (int y = Math.max(0, center.y - maxRadius); y < Math.min(HEIGHT, center.y + maxRadius); y++) {
+			for (int x = Math.max(0, center.x - maxRadius); x < Math.min(WIDTH, center.x + maxRadius); x++) {
+				int radius = SearchTypeIndex.getHexDistance(x - center.x, y - center.y);
+				if (minRadius <= radius && radius < maxRadius && fitting.get(x + y * WIDTH)) {
+					Path path = aStar.findPath(requester, center.x, center.y, (short) x, (short) y);
+					if (path != null && (shortest < 0 || path.getLength() < shortest)) {
+						shortest = path.getLength();
+					}
+				}
+			}
+		}
+		return shortest;
+	}
+
+	private void assertPathValid(String search, ShortPoint2D start, Path path) {
+		ShortPoint2D previous = start;
+		while (path.hasNextStep()) {
+			ShortPoint2D position = path.getNextPos();
+			path.goToNextStep();
+
+			assertEquals(search, 1, SearchTypeIndex.getHexDistance(position.x - previous.x, position.y - previous.y));
+			assertFalse(search, blocked.get(position.x + position.y * WIDTH));
+			previous = position;
+		}
+	}
+
+	private static class Requester implements IPathCalculatable {
+		private static final long serialVersionUID = 7614090542213987051L;
+
+		private final ShortPoint2D position;
+
+		Requester(short x, short y) {
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return new IPlayer.DummyPlayer();
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	}
+}
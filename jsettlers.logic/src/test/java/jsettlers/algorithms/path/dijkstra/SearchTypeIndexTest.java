@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.algorithms.path.dijkstra;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.path.IPathCalculatable;
+import jsettlers.algorithms.path.Path;
+import jsettlers.algorithms.path.astar.BucketQueueAStar;
+import jsettlers.algorithms.path.astar.DummyEmptyAStarMap;
+import jsettlers.common.material.ESearchType;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+
+/**
+ * Compares the searches of the {@link DijkstraAlgorithm} using a {@link SearchTypeIndex} with the searches walking every position of the rings.
+ *
+ */
+public class SearchTypeIndexTest {
+	private static final short WIDTH = 123;
+	private static final short HEIGHT = 117;
+	private static final ESearchType TYPE = ESearchType.CUTTABLE_TREE;
+
+	private final Random random = new Random(1);
+	private final BitSet candidates = new BitSet(WIDTH * HEIGHT);
+	private final BitSet fitting = new BitSet(WIDTH * HEIGHT);
+	private final DummyEmptyAStarMap aStarMap = new DummyEmptyAStarMap(WIDTH, HEIGHT);
+
+	private final IDijkstraPathMap map = new IDijkstraPathMap() {
+		@Override
+		public boolean fitsSearchType(int x, int y, ESearchType type, IPathCalculatable requester) {
+			return fitting.get(x + y * WIDTH);
+		}
+
+		@Override
+		public boolean fitsSearchType(int x, int y, Set<ESearchType> types, IPathCalculatable requester) {
+			return fitting.get(x + y * WIDTH);
+		}
+
+		@Override
+		public void setDijkstraSearched(int x, int y) {
+		}
+	};
+
+	private final SearchTypeIndex index = new SearchTypeIndex((x, y, type) -> candidates.get(x + y * WIDTH), WIDTH, HEIGHT, EnumSet.of(TYPE));
+	private final BucketQueueAStar aStar = new BucketQueueAStar(aStarMap, WIDTH, HEIGHT);
+	private final DijkstraAlgorithm ringDijkstra = new DijkstraAlgorithm(map, aStar, WIDTH, HEIGHT);
+	private final DijkstraAlgorithm indexedDijkstra = new DijkstraAlgorithm(map, aStar, WIDTH, HEIGHT, index);
+
+	@Test
+	public void testRingIndices() {
+		for (int radius = 1; radius < 30; radius++) {
+			int dx = 0;
+			int dy = -radius;
+			int ringIndex = 1;
+			for (byte direction = 0; direction < 6; direction++) {
+				for (int length = 0; length < radius; length++) {
+					dx += new int[] { -1, 0, 1, 1, 0, -1 }[direction];
+					dy += new int[] { 0, 1, 1, 0, -1, -1 }[direction];
+
+					assertEquals(radius, SearchTypeIndex.getHexDistance(dx, dy));
+					assertEquals("(" + dx + "|" + dy + ") on radius " + radius, ringIndex, SearchTypeIndex.getRingIndex(dx, dy, radius));
+					ringIndex++;
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSameResultsAsRingSearch() {
+		fillRandomly();
+		compareSearches(500);
+	}
+
+	@Test
+	public void testSameResultsAfterChanges() {
+		fillRandomly();
+		compareSearches(50);
+
+		for (int round = 0; round < 20; round++) {
+			for (int i = 0; i < 100; i++) {
+				int x = random.nextInt(WIDTH);
+				int y = random.nextInt(HEIGHT);
+				boolean candidate = random.nextInt(10) == 0;
+				candidates.set(x + y * WIDTH, candidate);
+				fitting.set(x + y * WIDTH, candidate && random.nextBoolean());
+				index.positionChanged(x, y);
+			}
+			compareSearches(50);
+		}
+	}
+
+	private void fillRandomly() {
+		for (int i = 0; i < WIDTH * HEIGHT; i++) {
+			if (random.nextInt(50) == 0) {
+				candidates.set(i);
+				fitting.set(i, random.nextInt(3) > 0);
+				aStarMap.setBlocked(i % WIDTH, i / WIDTH, random.nextInt(4) == 0);
+			}
+		}
+	}
+
+	private void compareSearches(int numberOfSearches) {
+		for (int i = 0; i < numberOfSearches; i++) {
+			short x = (short) random.nextInt(WIDTH);
+			short y = (short) random.nextInt(HEIGHT);
+			short minRadius = (short) random.nextInt(4);
+			short maxRadius = (short) (1 + random.nextInt(60));
+			IPathCalculatable requester = new Requester(x, y);
+
+			Path expected = ringDijkstra.find(requester, x, y, minRadius, maxRadius, TYPE);
+			Path actual = indexedDijkstra.find(requester, x, y, minRadius, maxRadius, TYPE);
+
+			String search = "search around (" + x + "|" + y + ") from radius " + minRadius + " to " + maxRadius;
+			assertEquals(search, expected == null ? null : expected.getTargetPos(), actual == null ? null : actual.getTargetPos());
+		}
+	}
+
+	private static class Requester implements IPathCalculatable {
+		private static final long serialVersionUID = -5129745362270513882L;
+
+		private final ShortPoint2D position;
+
+		Requester(short x, short y) {
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public IPlayer getPlayer() {
+			return new IPlayer.DummyPlayer();
+		}
+
+		@Override
+		public boolean needsPlayersGround() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.BitSet;
+import java.util.Random;
+
+import jsettlers.algorithms.fogofwar.FogOfWar;
+import jsettlers.common.menu.UIState;
+import jsettlers.common.player.IPlayer;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.input.PlayerState;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.IGameCreator.MainGridWithUiSettings;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameChunkOutputStream;
+import jsettlers.logic.map.loading.savegame.SavegameFormat;
+import jsettlers.logic.map.loading.savegame.SavegameReader;
+import jsettlers.logic.map.loading.savegame.SavegameSnapshot;
+import jsettlers.logic.map.loading.savegame.SavegameWriter;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+import jsettlers.testutils.map.MapUtils;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the chunked savegame format and the {@link GameSerializer}.
+ */
+public class GameSerializerTest {
+	private static final int UNKNOWN_CHUNK = 0x5858_5858;
+
+	@After
+	public void tearDown() {
+		MatchConstants.clearState();
+	}
+
+	@Test
+	public void testChunksUncompressed() throws IOException {
+		testChunks(false);
+	}
+
+	@Test
+	public void testChunksCompressed() throws IOException {
+		testChunks(true);
+	}
+
+	private void testChunks(boolean compress) throws IOException {
+		Random random = new Random(42);
+		byte[] bytes = new byte[200000]; // bigger than a block
+		random.nextBytes(bytes);
+		short[] shorts = new short[100001];
+		for (int i = 0; i < shorts.length; i++) {
+			shorts[i] = (short) random.nextInt();
+		}
+		BitSet bits = new BitSet();
+		for (int i = 0; i < 1000; i++) {
+			bits.set(random.nextInt(1000000));
+		}
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameWriter writer = new SavegameWriter(out, compress);
+		writer.beginChunk(UNKNOWN_CHUNK, (short) 1).writeBytes(bytes);
+		SavegameChunkOutputStream chunk = writer.beginChunk(SavegameFormat.CHUNK_LANDSCAPE_GRID, (short) 3);
+		chunk.writeInt(17);
+		chunk.writeShorts(shorts);
+		chunk.writeBytes(bytes);
+		chunk.writeBits(bits);
+		chunk.write(5);
+		writer.finish();
+
+		BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+		assertTrue(SavegameFormat.isChunkedSavegame(in));
+		SavegameReader reader = new SavegameReader(in);
+
+		assertTrue(reader.nextChunk() != null); // skipped without reading
+		assertEquals(UNKNOWN_CHUNK, reader.getChunkType());
+
+		SavegameChunkInputStream readChunk = reader.nextChunk();
+		assertEquals(SavegameFormat.CHUNK_LANDSCAPE_GRID, reader.getChunkType());
+		assertEquals(3, reader.getChunkVersion());
+		assertEquals(17, readChunk.readInt());
+		short[] readShorts = new short[shorts.length];
+		readChunk.readShorts(readShorts);
+		assertArrayEquals(shorts, readShorts);
+		byte[] readBytes = new byte[bytes.length];
+		readChunk.readBytes(readBytes);
+		assertArrayEquals(bytes, readBytes);
+		assertEquals(bits, readChunk.readBits());
+		assertEquals(5, readChunk.read());
+		assertEquals(-1, readChunk.read());
+
+		assertNull(reader.nextChunk());
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testLegacySavegameIsDetected() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+			oos.writeObject("game");
+		}
+		assertFalse(SavegameFormat.isChunkedSavegame(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()))));
+	}
+
+	@Test
+	public void testSaveAndLoadMainGrid() throws IOException, MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		MainGrid grid = MapUtils.getMountainlake().loadMainGrid(null).getMainGrid();
+
+		ByteArrayOutputStream savegame = new ByteArrayOutputStream();
+		new GameSerializer().save(grid, new PlayerState[0], savegame, true);
+		byte[] expectedGrids = serializeGrids(grid);
+
+		MatchConstants.init(new NetworkTimer(true), 1);
+		MainGridWithUiSettings loaded = new GameSerializer().load(new BufferedInputStream(new ByteArrayInputStream(savegame.toByteArray())));
+
+		assertEquals(0, loaded.getPlayerStates().length);
+		assertEquals(grid.width, loaded.getMainGrid().width);
+		assertEquals(grid.height, loaded.getMainGrid().height);
+		assertArrayEquals(expectedGrids, serializeGrids(loaded.getMainGrid()));
+	}
+
+	@Test
+	public void testSaveAndLoadFogOfWar() throws IOException, MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		MainGrid grid = MapUtils.getMountainlake().loadMainGrid(null).getMainGrid();
+
+		byte[] sight = new byte[grid.width * grid.height];
+		new Random(42).nextBytes(sight);
+		FogOfWar fogOfWar = new FogOfWar(grid.width, grid.height, new IPlayer.DummyPlayer());
+		fogOfWar.readFrom(createChunk(sight));
+		fogOfWar.setEnabled(true);
+		PlayerState[] playerStates = { new PlayerState((byte) 0, new UIState(new ShortPoint2D(10, 10)), fogOfWar),
+				new PlayerState((byte) 1, new UIState(new ShortPoint2D(20, 20))) };
+
+		ByteArrayOutputStream savegame = new ByteArrayOutputStream();
+		new GameSerializer().save(grid, playerStates, savegame, true);
+
+		MatchConstants.init(new NetworkTimer(true), 1);
+		MainGridWithUiSettings loaded = new GameSerializer().load(new BufferedInputStream(new ByteArrayInputStream(savegame.toByteArray())));
+
+		FogOfWar loadedFogOfWar = loaded.getPlayerState((byte) 0).getFogOfWar();
+		assertNull(loaded.getPlayerState((byte) 1).getFogOfWar());
+		for (int y = 0; y < grid.height; y++) {
+			for (int x = 0; x < grid.width; x++) {
+				assertEquals(fogOfWar.getVisibleStatus(x, y), loadedFogOfWar.getVisibleStatus(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteSnapshot() throws IOException, MapLoadException {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		MainGrid grid = MapUtils.getMountainlake().loadMainGrid(null).getMainGrid();
+
+		SavegameSnapshot snapshot = grid.createSnapshot(null, null);
+		byte[] expectedGrids = serializeGrids(grid);
+
+		for (boolean compress : new boolean[] { false, true }) {
+			ByteArrayOutputStream savegame = new ByteArrayOutputStream();
+			snapshot.writeTo(savegame, compress);
+
+			MatchConstants.init(new NetworkTimer(true), 1);
+			BufferedInputStream in = new BufferedInputStream(new ByteArrayInputStream(savegame.toByteArray()));
+			assertEquals(snapshot.getHeader().getUniqueId(), MapFileHeader.readFromStream(in).getUniqueId());
+			MainGridWithUiSettings loaded = new GameSerializer().load(in);
+
+			assertArrayEquals(expectedGrids, serializeGrids(loaded.getMainGrid()));
+		}
+	}
+
+	private static SavegameChunkInputStream createChunk(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameWriter writer = new SavegameWriter(out, false);
+		writer.beginChunk(SavegameFormat.CHUNK_FOG_OF_WAR, (short) 1).writeBytes(data);
+		writer.finish();
+
+		SavegameReader reader = new SavegameReader(new BufferedInputStream(new ByteArrayInputStream(out.toByteArray())));
+		return reader.nextChunk();
+	}
+
+	private static byte[] serializeGrids(MainGrid grid) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SavegameWriter writer = new SavegameWriter(out, false);
+		grid.landscapeGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_LANDSCAPE_GRID, (short) 1));
+		grid.flagsGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_FLAGS_GRID, (short) 1));
+		grid.partitionsGrid.writeTo(writer.beginChunk(SavegameFormat.CHUNK_PARTITIONS_GRID, (short) 1));
+		writer.finish();
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.landscape;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.map.shapes.HexGridArea;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.grid.flags.FlagsGrid;
+import jsettlers.main.JSettlersGame;
+import jsettlers.network.synchronic.timer.NetworkTimer;
+
+/**
+ * Test for {@link LandscapeGrid#isHexAreaOfType(int, int, int, int, ELandscapeType...)} with areas inside and outside of the cached radius.
+ *
+ */
+public class LandscapeGridTest {
+	private static final short SIZE = 200;
+	private static final int CENTER = SIZE / 2;
+
+	private LandscapeGrid grid;
+
+	@Before
+	public void setUp() {
+		MatchConstants.init(new NetworkTimer(true), 0);
+		grid = new LandscapeGrid(SIZE, SIZE, new FlagsGrid(SIZE, SIZE));
+	}
+
+	@After
+	public void tearDown() {
+		JSettlersGame.clearState();
+	}
+
+	@Test
+	public void testHexAreaWithinCachedRadius() {
+		assertHexAreaOfType(HexGridArea.MAX_CACHED_RADIUS / 2);
+	}
+
+	@Test
+	public void testHexAreaBeyondCachedRadius() {
+		assertHexAreaOfType(HexGridArea.MAX_CACHED_RADIUS + 10);
+	}
+
+	private void assertHexAreaOfType(int radius) {
+		assertTrue(grid.isHexAreaOfType(CENTER, CENTER, 0, radius, ELandscapeType.GRASS));
+
+		grid.setLandscapeTypeAt(CENTER + radius, CENTER, ELandscapeType.SAND);
+		assertFalse(grid.isHexAreaOfType(CENTER, CENTER, 0, radius, ELandscapeType.GRASS));
+		assertFalse(grid.isHexAreaOfType(CENTER, CENTER, radius, radius, ELandscapeType.GRASS));
+		assertTrue(grid.isHexAreaOfType(CENTER, CENTER, 0, radius - 1, ELandscapeType.GRASS));
+		assertTrue(grid.isHexAreaOfType(CENTER, CENTER, 0, radius, ELandscapeType.GRASS, ELandscapeType.SAND));
+	}
+}
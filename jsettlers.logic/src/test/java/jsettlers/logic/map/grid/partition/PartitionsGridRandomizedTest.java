@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import jsettlers.algorithms.partitions.IBlockingProvider;
+import jsettlers.algorithms.partitions.PartitionCalculatorAlgorithm;
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.map.shapes.FreeMapArea;
+import jsettlers.common.map.shapes.MapCircle;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.data.IMapData;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.player.PlayerSetting;
+
+/**
+ * Adds, removes and takes over towers at random positions of <code>partitiontest.rmap</code> and compares the incrementally maintained partitions
+ * of the {@link PartitionsGrid} with partitions calculated from scratch by the {@link PartitionCalculatorAlgorithm} after every step.
+ *
+ */
+public class PartitionsGridRandomizedTest {
+	private static final String MAP_FILE = "../maps/test/partitiontest.rmap";
+	private static final byte NUMBER_OF_PLAYERS = 3;
+	private static final int NUMBER_OF_STEPS = 150;
+	private static final int MIN_RADIUS = 15;
+	private static final int MAX_RADIUS = 40;
+	private static final int MIN_TOWER_DISTANCE = 8;
+
+	private final short width;
+	private final short height;
+	private final BitSet blocked;
+	private final IBlockingProvider blockingProvider;
+
+	public PartitionsGridRandomizedTest() throws MapLoadException {
+		IMapData mapData = MapLoader.getLoaderForListedMap(new ListedMapFile(new File(MAP_FILE))).getMapData();
+		width = (short) mapData.getWidth();
+		height = (short) mapData.getHeight();
+		blocked = new BitSet(width * height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				blocked.set(x + y * width, mapData.getLandscape(x, y).isBlocking);
+			}
+		}
+		blockingProvider = (x, y) -> x < 0 || y < 0 || x >= width || y >= height || blocked.get(x + y * width);
+	}
+
+	@Test
+	public void testRandomTowerChanges() {
+		for (long seed = 1; seed <= 3; seed++) {
+			playRandomTowerChanges(seed);
+		}
+	}
+
+	private void playRandomTowerChanges(long seed) {
+		Random random = new Random(seed);
+		PartitionsGrid grid = new PartitionsGrid(width, height, PlayerSetting.createDefaultSettings((byte) 0, NUMBER_OF_PLAYERS), blockingProvider);
+		List<ShortPoint2D> towers = new ArrayList<>();
+
+		for (int step = 0; step < NUMBER_OF_STEPS; step++) {
+			int action = random.nextInt(4);
+			String description;
+
+			if (towers.isEmpty() || action <= 1) {
+				int radius = MIN_RADIUS + random.nextInt(MAX_RADIUS - MIN_RADIUS);
+				ShortPoint2D position = getRandomTowerPosition(random, radius, towers);
+				byte playerId = (byte) random.nextInt(NUMBER_OF_PLAYERS);
+
+				grid.addTowerAndOccupyArea(playerId, new MapCircle(position, radius), new FreeMapArea(position, EBuildingType.TOWER.getProtectedTiles()));
+				towers.add(position);
+				description = "add tower of player " + playerId + " at " + position + " with radius " + radius;
+
+			} else if (action == 2) {
+				ShortPoint2D position = towers.remove(random.nextInt(towers.size()));
+				grid.removeTowerAndFreeOccupiedArea(position);
+				description = "remove tower at " + position;
+
+			} else {
+				ShortPoint2D position = towers.get(random.nextInt(towers.size()));
+				byte playerId = (byte) random.nextInt(NUMBER_OF_PLAYERS);
+				grid.changePlayerOfTower(position, playerId);
+				description = "change player of tower at " + position + " to " + playerId;
+			}
+
+			assertConsistentWithRecalculation(grid, "seed " + seed + ", step " + step + " (" + description + ")");
+		}
+	}
+
+	private ShortPoint2D getRandomTowerPosition(Random random, int radius, List<ShortPoint2D> towers) {
+		int margin = radius + 3;
+		while (true) {
+			ShortPoint2D position = new ShortPoint2D(margin + random.nextInt(width - 2 * margin), margin + random.nextInt(height - 2 * margin));
+			if (isGroundFree(position) && !isNearTower(position, towers)) {
+				return position;
+			}
+		}
+	}
+
+	private boolean isGroundFree(ShortPoint2D position) {
+		for (ShortPoint2D groundPosition : new FreeMapArea(position, EBuildingType.TOWER.getProtectedTiles())) {
+			if (blocked.get(groundPosition.x + groundPosition.y * width)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Towers of the game can not stand on the ground of other towers.
+	 */
+	private static boolean isNearTower(ShortPoint2D position, List<ShortPoint2D> towers) {
+		for (ShortPoint2D tower : towers) {
+			if (tower.getOnGridDistTo(position) < MIN_TOWER_DISTANCE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void assertConsistentWithRecalculation(PartitionsGrid grid, String message) {
+		Map<Partition, Integer> numberOfPositions = new IdentityHashMap<>();
+
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				Partition partition = grid.getPartitionAt(x, y);
+				assertSame(message + ": flat representative at (" + x + "|" + y + ")", partition, grid.partitionObjects[partition.partitionId]);
+
+				Integer positions = numberOfPositions.get(partition);
+				numberOfPositions.put(partition, positions == null ? 1 : positions + 1);
+			}
+		}
+
+		for (Map.Entry<Partition, Integer> entry : numberOfPositions.entrySet()) {
+			assertEquals(message + ": number of elements of partition " + entry.getKey().partitionId, (int) entry.getValue(),
+					entry.getKey().getNumberOfElements());
+		}
+
+		for (byte playerId = 0; playerId < NUMBER_OF_PLAYERS; playerId++) {
+			assertPlayerPartitionsConnected(grid, playerId, message);
+		}
+	}
+
+	/**
+	 * Positions of a player that are connected must be in the same partition. The recalculation runs on a grid with a border of one position, so
+	 * the algorithm never looks at positions outside of the map.
+	 */
+	private void assertPlayerPartitionsConnected(PartitionsGrid grid, byte playerId, String message) {
+		int paddedWidth = width + 2;
+		BitSet containing = new BitSet(paddedWidth * (height + 2));
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (grid.getPlayerIdAt(x, y) == playerId && !blocked.get(x + y * width)) {
+					containing.set(x + 1 + (y + 1) * paddedWidth);
+				}
+			}
+		}
+
+		PartitionCalculatorAlgorithm recalculation = new PartitionCalculatorAlgorithm(-1, -1, paddedWidth, height + 2, containing, blockingProvider);
+		recalculation.calculatePartitions();
+
+		short[] partitionOfRecalculated = new short[recalculation.getNumberOfPartitions()];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (!containing.get(x + 1 + (y + 1) * paddedWidth)) {
+					continue;
+				}
+
+				short recalculated = recalculation.getPartitionAt(x + 1, y + 1);
+				short partition = grid.getPartitionIdAt(x, y);
+				if (partitionOfRecalculated[recalculated] == 0) {
+					partitionOfRecalculated[recalculated] = partition;
+				} else {
+					assertEquals(message + ": connected positions of player " + playerId + " in different partitions at (" + x + "|" + y + ")",
+							partitionOfRecalculated[recalculated], partition);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.grid.partition.manager.datastructures;
+
+import java8.util.function.Predicate;
+import jsettlers.common.position.ILocatable;
+import jsettlers.common.position.ShortPoint2D;
+import jsettlers.common.utils.MathUtils;
+import jsettlers.testutils.TestUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Compares the spatially indexed {@link PositionableList} with a linear search over the insertion order.
+ */
+public class PositionableListTest {
+	private static final int OPERATIONS = 20000;
+
+	private final Random random = new Random(42);
+	private final PredicatedPositionableList<TestObject> list = new PredicatedPositionableList<>();
+	private final LinkedList<TestObject> reference = new LinkedList<>();
+
+	@Test
+	public void testRandomOperationsOnSmallArea() {
+		testRandomOperations(20);
+	}
+
+	@Test
+	public void testRandomOperationsOnLargeArea() {
+		testRandomOperations(500);
+	}
+
+	@Test
+	public void testSearchesAroundPositionsOutsideOfTheObjects() {
+		for (int i = 0; i < 100; i++) {
+			insert(new TestObject(i, 200 + random.nextInt(60), 200 + random.nextInt(60)));
+		}
+
+		for (int i = 0; i < 90; i++) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(600), random.nextInt(600));
+			TestObject expected = linearSearch(position, null);
+			assertSame("search around " + position, expected, list.removeObjectNextTo(position));
+			reference.remove(expected);
+		}
+	}
+
+	@Test
+	public void testSerializationKeepsOrder() throws IOException, ClassNotFoundException {
+		for (int i = 0; i < 100; i++) {
+			insert(new TestObject(i, random.nextInt(50), random.nextInt(50)));
+		}
+
+		PositionableList<TestObject> deserialized = TestUtils.serializeAndDeserialize(list);
+
+		assertEquals(reference.size(), deserialized.size());
+		for (int i = 0; i < 100; i++) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(50), random.nextInt(50));
+			assertEquals(linearSearch(position, null).id, deserialized.removeObjectNextTo(position).id);
+			reference.remove(linearSearch(position, null));
+		}
+	}
+
+	private void testRandomOperations(int size) {
+		int nextId = 0;
+		Predicate<TestObject> evenIds = object -> object.id % 2 == 0;
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			ShortPoint2D position = new ShortPoint2D(random.nextInt(size), random.nextInt(size));
+
+			switch (random.nextInt(7)) {
+			case 0:
+			case 1:
+			case 6: // insert more often than remove to let the list grow
+				insert(new TestObject(nextId++, position.x, position.y));
+				break;
+			case 2:
+				TestObject expected = linearSearch(position, null);
+				assertSame(expected, list.removeObjectNextTo(position));
+				reference.remove(expected);
+				break;
+			case 3:
+				TestObject expectedEven = linearSearch(position, evenIds);
+				assertSame(expectedEven, list.removeObjectNextTo(position, evenIds));
+				reference.remove(expectedEven);
+				break;
+			case 4:
+				if (!reference.isEmpty()) {
+					TestObject moved = reference.get(random.nextInt(reference.size()));
+					ShortPoint2D oldPosition = moved.position;
+					moved.position = position;
+					list.positionChanged(moved, oldPosition);
+				}
+				break;
+			case 5:
+				TestObject atPosition = linearGetAt(position);
+				assertSame(atPosition, list.getObjectAt(position));
+				if (!reference.isEmpty() && random.nextBoolean()) {
+					TestObject removed = reference.remove(random.nextInt(reference.size()));
+					list.remove(removed);
+				}
+				break;
+			}
+
+			assertEquals(reference.size(), list.size());
+		}
+	}
+
+	private void insert(TestObject object) {
+		list.insert(object);
+		reference.add(object);
+	}
+
+	private TestObject linearSearch(ShortPoint2D position, Predicate<TestObject> acceptor) {
+		int bestDistance = Integer.MAX_VALUE;
+		TestObject currBest = null;
+
+		for (TestObject currEntry : reference) {
+			if (acceptor != null && !acceptor.test(currEntry)) {
+				continue;
+			}
+
+			int currDist = MathUtils.squareHypot(position, currEntry.getPos());
+			if (bestDistance > currDist) {
+				bestDistance = currDist;
+				currBest = currEntry;
+			}
+		}
+		return currBest;
+	}
+
+	private TestObject linearGetAt(ShortPoint2D position) {
+		for (TestObject curr : reference) {
+			if (curr.getPos().equals(position)) {
+				return curr;
+			}
+		}
+		return null;
+	}
+
+	private static class TestObject implements ILocatable, Serializable {
+		private static final long serialVersionUID = -2316458931845067013L;
+
+		private final int id;
+		private ShortPoint2D position;
+
+		TestObject(int id, int x, int y) {
+			this.id = id;
+			this.position = new ShortPoint2D(x, y);
+		}
+
+		@Override
+		public ShortPoint2D getPos() {
+			return position;
+		}
+
+		@Override
+		public String toString() {
+			return id + "@" + position;
+		}
+	}
+}
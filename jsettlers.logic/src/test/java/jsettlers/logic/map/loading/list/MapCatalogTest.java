@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.list;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+
+/**
+ * Tests that the {@link MapCatalog} only reads maps that are new or have changed.
+ */
+public class MapCatalogTest {
+	private static final String MAPS_DIRECTORY = "../maps/test/";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File catalogFile;
+
+	@Before
+	public void setUp() {
+		catalogFile = new File(folder.getRoot(), MapCatalog.FILE_NAME);
+	}
+
+	@Test
+	public void testMapWithCreationDate() throws IOException, MapLoadException {
+		testMapReadOnlyOnce("pathfindingtestmap.rmap");
+	}
+
+	@Test
+	public void testMapWithoutCreationDate() throws IOException, MapLoadException {
+		testMapReadOnlyOnce("partitiontest.rmap");
+	}
+
+	@Test
+	public void testOriginalMap() throws IOException, MapLoadException {
+		MapLoader cachedLoader = testMapReadOnlyOnce("SpezialSumpf_12.map");
+
+		assertEquals(cachedLoader.getFileHeader().getWidth(), cachedLoader.getMapData().getWidth());
+	}
+
+	private MapLoader testMapReadOnlyOnce(String mapName) throws IOException, MapLoadException {
+		CountingListedMap map = copyMap(mapName);
+
+		MapLoader readLoader = listMap(new MapCatalog(catalogFile), map);
+		assertEquals(1, map.openedStreams);
+		assertTrue(catalogFile.isFile());
+
+		MapLoader cachedLoader = listMap(new MapCatalog(catalogFile), map);
+		assertEquals(1, map.openedStreams);
+		assertHeaderEquals(readLoader.getFileHeader(), cachedLoader.getFileHeader());
+		assertEquals(readLoader.getMapId(), cachedLoader.getMapId());
+		return cachedLoader;
+	}
+
+	@Test
+	public void testChangedMapIsReadAgain() throws IOException, MapLoadException {
+		CountingListedMap map = copyMap("pathfindingtestmap.rmap");
+		MapCatalog catalog = new MapCatalog(catalogFile);
+
+		listMap(catalog, map);
+		listMap(catalog, map);
+		assertEquals(1, map.openedStreams);
+
+		assertTrue(map.getFile().setLastModified(map.getFile().lastModified() - 10000));
+		listMap(catalog, map);
+		assertEquals(2, map.openedStreams);
+	}
+
+	@Test
+	public void testRemovedMapIsRemovedFromCatalog() throws IOException, MapLoadException {
+		CountingListedMap map = copyMap("pathfindingtestmap.rmap");
+
+		listMap(new MapCatalog(catalogFile), map);
+
+		MapCatalog catalog = new MapCatalog(catalogFile);
+		catalog.startListing();
+		catalog.finishListing();
+
+		listMap(new MapCatalog(catalogFile), map);
+		assertEquals(2, map.openedStreams);
+	}
+
+	@Test
+	public void testInvalidCatalogFileIsIgnored() throws IOException, MapLoadException {
+		CountingListedMap map = copyMap("pathfindingtestmap.rmap");
+		Files.write(catalogFile.toPath(), new byte[] { 0, 0, 0, 1, 0, 0, 0, 5 });
+
+		MapLoader loader = listMap(new MapCatalog(catalogFile), map);
+		assertEquals(1, map.openedStreams);
+		assertEquals("pathfindingtestmap.rmap", loader.getListedMap().getFileName());
+
+		listMap(new MapCatalog(catalogFile), map);
+		assertEquals(1, map.openedStreams);
+	}
+
+	private static MapLoader listMap(MapCatalog catalog, IListedMap map) throws MapLoadException {
+		catalog.startListing();
+		MapLoader loader = catalog.getLoader(map);
+		catalog.finishListing();
+		return loader;
+	}
+
+	private CountingListedMap copyMap(String mapName) throws IOException {
+		File file = new File(folder.getRoot(), mapName);
+		Files.copy(new File(MAPS_DIRECTORY + mapName).toPath(), file.toPath());
+		return new CountingListedMap(file);
+	}
+
+	private static void assertHeaderEquals(MapFileHeader expected, MapFileHeader actual) {
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getUniqueId(), actual.getUniqueId());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getMinPlayers(), actual.getMinPlayers());
+		assertEquals(expected.getMaxPlayers(), actual.getMaxPlayers());
+		assertArrayEquals(expected.getPreviewImage(), actual.getPreviewImage());
+		assertEquals(expected.getCreationDate(), actual.getCreationDate());
+	}
+
+	private static class CountingListedMap extends ListedMapFile {
+		private int openedStreams = 0;
+
+		CountingListedMap(File file) {
+			super(file);
+		}
+
+		@Override
+		public InputStream getInputStream() throws FileNotFoundException {
+			openedStreams++;
+			return super.getInputStream();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.newmap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import jsettlers.common.buildings.EBuildingType;
+import jsettlers.common.landscape.ELandscapeType;
+import jsettlers.common.landscape.EResourceType;
+import jsettlers.common.material.EMaterialType;
+import jsettlers.common.movable.EMovableType;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.data.IMapData;
+import jsettlers.logic.map.loading.data.objects.BuildingMapDataObject;
+import jsettlers.logic.map.loading.data.objects.MapDataObject;
+import jsettlers.logic.map.loading.data.objects.MapTreeObject;
+import jsettlers.logic.map.loading.data.objects.MovableObject;
+import jsettlers.logic.map.loading.data.objects.StackMapDataObject;
+import jsettlers.logic.map.loading.data.objects.StoneMapDataObject;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+
+/**
+ * Writes maps in the current version of the {@link FreshMapSerializer} and checks that reading them results in the same data.
+ */
+public class FreshMapSerializerTest {
+	private static final String MAPS_DIRECTORY = "../maps/test/";
+
+	@Test
+	public void testAllObjectTypes() throws IOException {
+		FreshMapData data = new FreshMapData();
+		data.setDimension(30, 20, 2);
+		data.setPlayerStart((byte) 0, 3, 4);
+		data.setPlayerStart((byte) 1, 25, 15);
+		for (int x = 0; x < 30; x++) {
+			for (int y = 0; y < 20; y++) {
+				data.setLandscape(x, y, x < 10 ? ELandscapeType.WATER1 : ELandscapeType.GRASS);
+				data.setHeight(x, y, (byte) (x + y));
+				data.setResources(x, y, y < 10 ? EResourceType.GOLDORE : EResourceType.NOTHING, (byte) y);
+				data.setBlockedPartition(x, y, (short) (x < 10 ? 0 : 300 + y));
+			}
+		}
+		data.setMapObject(12, 2, MapTreeObject.getInstance());
+		data.setMapObject(14, 2, StoneMapDataObject.getInstance(7));
+		data.setMapObject(16, 6, new BuildingMapDataObject(EBuildingType.TOWER, (byte) 1));
+		data.setMapObject(20, 8, new MovableObject(EMovableType.BEARER, (byte) 0));
+		data.setMapObject(29, 19, new StackMapDataObject(EMaterialType.PLANK, 8));
+
+		assertDataEquals(data, serializeAndDeserialize(data));
+	}
+
+	@Test
+	public void testTestMaps() throws IOException, MapLoadException {
+		for (String mapName : new File(MAPS_DIRECTORY).list()) {
+			if (mapName.endsWith(MapLoader.MAP_EXTENSION)) {
+				IMapData data = MapLoader.getLoaderForListedMap(new ListedMapFile(new File(MAPS_DIRECTORY, mapName))).getMapData();
+				assertDataEquals(data, serializeAndDeserialize(data));
+			}
+		}
+	}
+
+	private static FreshMapData serializeAndDeserialize(IMapData data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		FreshMapSerializer.serialize(data, out);
+
+		FreshMapData read = new FreshMapData();
+		try (InputStream in = new ByteArrayInputStream(out.toByteArray())) {
+			assertEquals(FreshMapSerializer.VERSION, (in.read() << 8) | in.read());
+			in.reset();
+			FreshMapSerializer.deserialize(read, in);
+		}
+		return read;
+	}
+
+	private static void assertDataEquals(IMapData expected, IMapData actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getPlayerCount(), actual.getPlayerCount());
+		for (int player = 0; player < expected.getPlayerCount(); player++) {
+			assertEquals(expected.getStartPoint(player), actual.getStartPoint(player));
+		}
+
+		for (short x = 0; x < expected.getWidth(); x++) {
+			for (short y = 0; y < expected.getHeight(); y++) {
+				String position = "(" + x + "|" + y + ")";
+				assertSame(position, expected.getLandscape(x, y), actual.getLandscape(x, y));
+				assertEquals(position, expected.getLandscapeHeight(x, y), actual.getLandscapeHeight(x, y));
+				assertSame(position, expected.getResourceType(x, y), actual.getResourceType(x, y));
+				assertEquals(position, expected.getResourceAmount(x, y), actual.getResourceAmount(x, y));
+				assertEquals(position, expected.getBlockedPartition(x, y), actual.getBlockedPartition(x, y));
+				assertObjectEquals(position, expected.getMapObject(x, y), actual.getMapObject(x, y));
+			}
+		}
+	}
+
+	private static void assertObjectEquals(String position, MapDataObject expected, MapDataObject actual) {
+		if (expected instanceof StoneMapDataObject) {
+			assertEquals(position, ((StoneMapDataObject) expected).getCapacity(), ((StoneMapDataObject) actual).getCapacity());
+		} else if (expected instanceof BuildingMapDataObject) {
+			assertSame(position, ((BuildingMapDataObject) expected).getType(), ((BuildingMapDataObject) actual).getType());
+			assertEquals(position, ((BuildingMapDataObject) expected).getPlayerId(), ((BuildingMapDataObject) actual).getPlayerId());
+		} else if (expected instanceof MovableObject) {
+			assertSame(position, ((MovableObject) expected).getType(), ((MovableObject) actual).getType());
+			assertEquals(position, ((MovableObject) expected).getPlayerId(), ((MovableObject) actual).getPlayerId());
+		} else if (expected instanceof StackMapDataObject) {
+			assertSame(position, ((StackMapDataObject) expected).getType(), ((StackMapDataObject) actual).getType());
+			assertEquals(position, ((StackMapDataObject) expected).getCount(), ((StackMapDataObject) actual).getCount());
+		} else if (expected instanceof MapTreeObject) {
+			assertSame(position, MapTreeObject.class, actual.getClass());
+		} else {
+			assertNull(position, actual);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.map.loading.original;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.data.IMapData;
+import jsettlers.logic.map.loading.data.objects.MapDataObject;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.map.loading.newmap.MapFileHeader;
+
+/**
+ * Checks that an original map file that is memory mapped is read exactly like the same map read from a stream.
+ */
+public class OriginalMapLoaderTest {
+	private static final File MAP_FILE = new File("../maps/test/SpezialSumpf_12.map");
+
+	@Test
+	public void testMappedFileEqualsStream() throws MapLoadException {
+		OriginalMapLoader mapped = new OriginalMapLoader(new ListedMapFile(MAP_FILE));
+		OriginalMapLoader streamed = new OriginalMapLoader(new ListedMapFile(MAP_FILE) {
+			@Override
+			public InputStream getInputStream() throws FileNotFoundException {
+				return new BufferedInputStream(super.getInputStream());
+			}
+		});
+
+		MapFileHeader mappedHeader = mapped.getFileHeader();
+		MapFileHeader streamedHeader = streamed.getFileHeader();
+		assertEquals(streamedHeader.getBaseMapId(), mappedHeader.getBaseMapId());
+		assertEquals(streamedHeader.getDescription(), mappedHeader.getDescription());
+		assertEquals(streamedHeader.getWidth(), mappedHeader.getWidth());
+		assertEquals(streamedHeader.getMaxPlayers(), mappedHeader.getMaxPlayers());
+		assertArrayEquals(streamedHeader.getPreviewImage(), mappedHeader.getPreviewImage());
+
+		IMapData mappedData = mapped.getMapData();
+		IMapData streamedData = streamed.getMapData();
+		assertEquals(mappedHeader.getWidth(), mappedData.getWidth());
+		assertEquals(streamedData.getPlayerCount(), mappedData.getPlayerCount());
+		for (int player = 0; player < streamedData.getPlayerCount(); player++) {
+			assertEquals(streamedData.getStartPoint(player), mappedData.getStartPoint(player));
+		}
+
+		for (short x = 0; x < streamedData.getWidth(); x++) {
+			for (short y = 0; y < streamedData.getHeight(); y++) {
+				assertSame(streamedData.getLandscape(x, y), mappedData.getLandscape(x, y));
+				assertEquals(streamedData.getLandscapeHeight(x, y), mappedData.getLandscapeHeight(x, y));
+				assertSame(streamedData.getResourceType(x, y), mappedData.getResourceType(x, y));
+				assertEquals(streamedData.getResourceAmount(x, y), mappedData.getResourceAmount(x, y));
+				assertEquals(streamedData.getBlockedPartition(x, y), mappedData.getBlockedPartition(x, y));
+
+				MapDataObject streamedObject = streamedData.getMapObject(x, y);
+				MapDataObject mappedObject = mappedData.getMapObject(x, y);
+				assertEquals(streamedObject == null ? null : streamedObject.getClass(), mappedObject == null ? null : mappedObject.getClass());
+			}
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.logic.timer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import jsettlers.logic.map.loading.MapLoadException;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for the class {@link RescheduleTimer}.
+ */
+public class RescheduleTimerTest {
+	private static final int TICK = 25;
+
+	private static final List<String> executed = new ArrayList<>();
+
+	@After
+	public void tearDown() {
+		RescheduleTimer.stopAndClear();
+		executed.clear();
+	}
+
+	@Test
+	public void testExecutionOrderOfSameSlot() {
+		RescheduleTimer.add(new RecordingTimerable("a", -1), 5 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("b", -1), 2 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("c", -1), 5 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("d", -1), 5 * TICK + 10);
+
+		runTicks(10);
+
+		assertEquals(Arrays.asList("b", "a", "c", "d"), executed);
+	}
+
+	@Test
+	public void testRescheduling() {
+		RescheduleTimer.add(new RecordingTimerable("a", 3 * TICK), 3 * TICK);
+
+		runTicks(10);
+
+		assertEquals(Arrays.asList("a", "a", "a"), executed);
+	}
+
+	@Test
+	public void testCancel() {
+		long handleA = RescheduleTimer.add(new RecordingTimerable("a", TICK), TICK);
+		long handleB = RescheduleTimer.add(new RecordingTimerable("b", -1), 2 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("c", -1), 2 * TICK);
+
+		runTicks(2);
+		RescheduleTimer.cancel(handleA);
+		RescheduleTimer.cancel(handleB);
+		runTicks(5);
+
+		assertEquals(Arrays.asList("a", "c"), executed);
+	}
+
+	@Test
+	public void testOutdatedHandleIsIgnored() {
+		long handleA = RescheduleTimer.add(new RecordingTimerable("a", -1), TICK);
+		runTicks(2);
+		RescheduleTimer.add(new RecordingTimerable("b", -1), TICK); // reuses the entry of a
+		RescheduleTimer.cancel(handleA);
+		runTicks(2);
+
+		assertEquals(Arrays.asList("a", "b"), executed);
+	}
+
+	@Test
+	public void testDelaysBeyondFirstLevelKeepOrder() {
+		int longDelay = 100000; // 4000 ticks
+		RescheduleTimer.add(new RecordingTimerable("a", -1), longDelay);
+		runTicks(4000 - 5);
+		RescheduleTimer.add(new RecordingTimerable("b", -1), 5 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("c", -1), 4 * TICK);
+		runTicks(5);
+		assertEquals(Arrays.asList("c"), executed);
+
+		runTicks(1);
+		assertEquals(Arrays.asList("c", "a", "b"), executed);
+	}
+
+	@Test
+	public void testVeryLongDelay() {
+		int delay = 3 * 60 * 60 * 1000; // 3 hours
+		RescheduleTimer.add(new RecordingTimerable("a", -1), delay);
+		runTicks(delay / TICK);
+		assertEquals(0, executed.size());
+		runTicks(1);
+		assertEquals(Arrays.asList("a"), executed);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException, MapLoadException {
+		RescheduleTimer.add(new RecordingTimerable("a", -1), 10 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("b", 600 * TICK), 3 * TICK);
+		RescheduleTimer.add(new RecordingTimerable("c", -1), 40000);
+		RescheduleTimer.add(new RecordingTimerable("d", -1), 10 * TICK);
+		runTicks(2);
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(buffer)) {
+			RescheduleTimer.saveTo(oos);
+		}
+		executed.clear();
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+			RescheduleTimer.loadFrom(ois);
+		}
+
+		runTicks(1600);
+		assertEquals(Arrays.asList("b", "a", "d", "b", "b", "c"), executed);
+	}
+
+	private static void runTicks(int ticks) {
+		RescheduleTimer timer = RescheduleTimer.get();
+		for (int i = 0; i < ticks; i++) {
+			timer.timerEvent();
+		}
+	}
+
+	private static class RecordingTimerable implements IScheduledTimerable {
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+		private final int delay;
+
+		RecordingTimerable(String name, int delay) {
+			this.name = name;
+			this.delay = delay;
+		}
+
+		@Override
+		public int timerEvent() {
+			executed.add(name);
+			return delay;
+		}
+
+		@Override
+		public void kill() {
+		}
+	}
+}
@@ -24,6 +24,7 @@ import javax.swing.SwingUtilities;
 
 import jsettlers.common.CommonConstants;
 import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.logging.TickProfiler;
 import jsettlers.common.menu.IMapInterfaceConnector;
 import jsettlers.common.menu.IStartedGame;
 import jsettlers.common.menu.IStartingGame;
@@ -74,11 +75,24 @@ public class SwingManagedJSettlers {
 		CommonConstants.ENABLE_AI = !options.isOptionSet("disable-ai");
 		CommonConstants.ALL_AI = options.isOptionSet("all-ai");
 		CommonConstants.DISABLE_ORIGINAL_MAPS = options.isOptionSet("disable-original-maps");
+		CommonConstants.VERIFY_AI_STATISTICS = options.isOptionSet("verify-ai-statistics");
 
 		if (options.containsKey("fixed-ai-type")) {
 			CommonConstants.FIXED_AI_TYPE = EPlayerType.valueOf(options.getProperty("fixed-ai-type"));
 		}
 
+		if (options.containsKey("autosave-interval")) { // in minutes
+			CommonConstants.AUTOSAVE_INTERVAL = Integer.parseInt(options.getProperty("autosave-interval")) * 60 * 1000;
+		}
+		if (options.containsKey("autosave-retention")) {
+			CommonConstants.AUTOSAVE_RETENTION = Integer.parseInt(options.getProperty("autosave-retention"));
+		}
+
+		if (options.isOptionSet("tick-profiler")) {
+			TickProfiler.setEnabled(true);
+			TickProfiler.setAllocationCounter(ThreadAllocationCounter.create());
+		}
+
 		if (options.containsKey("server")) {
 			CommonConstants.DEFAULT_SERVER_ADDRESS = options.getProperty("server");
 		}
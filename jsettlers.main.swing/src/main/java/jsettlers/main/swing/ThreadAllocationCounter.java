@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.main.swing;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import jsettlers.common.logging.TickProfiler;
+import jsettlers.common.logging.TickProfiler.IAllocationCounter;
+
+/**
+ * Counts the allocated bytes of the current thread with the allocation counters of the HotSpot JVM, so the {@link TickProfiler} can report the
+ * allocations of the subsystems of the game clock.
+ *
+ */
+public final class ThreadAllocationCounter implements IAllocationCounter {
+	private final com.sun.management.ThreadMXBean threadBean;
+
+	private ThreadAllocationCounter(com.sun.management.ThreadMXBean threadBean) {
+		this.threadBean = threadBean;
+	}
+
+	/**
+	 * @return A counter or <code>null</code> if the JVM can not count the allocations of a thread.
+	 */
+	public static ThreadAllocationCounter create() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		if (!allocationBean.isThreadAllocatedMemorySupported()) {
+			return null;
+		}
+		allocationBean.setThreadAllocatedMemoryEnabled(true);
+		return new ThreadAllocationCounter(allocationBean);
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
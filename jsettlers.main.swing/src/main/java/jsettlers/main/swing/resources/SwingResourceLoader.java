@@ -87,6 +87,7 @@ public class SwingResourceLoader {
 			mapListFactory.addMapDirectory(additionalMaps, false);
 		}
 
+		mapListFactory.setWatchDirectories(true);
 		MapList.setDefaultListFactory(mapListFactory);
 	}
 
@@ -18,6 +18,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import jsettlers.network.synchronic.timer.INetworkTimerProfiler;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
@@ -53,6 +54,14 @@ public interface IGameClock extends IPausingSupplier {
 
 	void stopExecution();
 
+	/**
+	 * Sets the profiler that measures the executed timerables and ticks.
+	 * 
+	 * @param profiler
+	 *            The profiler or null to stop measuring.
+	 */
+	void setProfiler(INetworkTimerProfiler profiler);
+
 	/**
 	 * Sets the stream to be used to log the actions of the users.
 	 * 
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel;
+
+import java.io.DataInputStream;
+import java.util.HashMap;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
+import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
+import jsettlers.network.infrastructure.channel.ping.PingPacket;
+import jsettlers.network.infrastructure.channel.ping.PingPacketListener;
+import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
+import jsettlers.network.infrastructure.channel.reject.RejectPacket;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.log.Logger;
+import jsettlers.network.infrastructure.log.SwitchableLogger;
+
+/**
+ * The base of a logical channel between two network partners. It allows to send data of type {@link Packet} to the partner and dispatches the
+ * received messages to the registered {@link IChannelListener}s. The listeners, the pinging and the {@link IChannelClosedListener} are handled
+ * here, while the subclasses implement the transport of the messages.
+ * <p />
+ * The implementation to be used is chosen by the {@link ISocketFactory} that created the socket, see
+ * {@link ISocketFactory#createChannel(Logger, jsettlers.network.infrastructure.channel.socket.ISocket)}.
+ * 
+ * @see Channel
+ * @see jsettlers.network.infrastructure.channel.nio.NioChannel
+ */
+public abstract class AbstractChannel implements IRoundTripTimeSupplier {
+	protected final SwitchableLogger logger;
+
+	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<>();
+
+	private final PingPacketListener pingPacketListener;
+
+	private IChannelClosedListener channelClosedListener;
+
+	protected AbstractChannel(Logger logger) {
+		this.logger = new SwitchableLogger(logger);
+
+		pingPacketListener = new PingPacketListener(this.logger, this);
+		registerListener(pingPacketListener);
+	}
+
+	/**
+	 * Starts the message receiving of this channel.
+	 * <p />
+	 * NOTE: This method may only be called once!
+	 */
+	public abstract void start();
+
+	/**
+	 * Sends the given packet to the partner. If the channel has been closed, the packet is dropped.
+	 * 
+	 * @param key
+	 *            The key of the packet.
+	 * @param packet
+	 *            The packet to send.
+	 */
+	public abstract void sendPacket(ENetworkKey key, Packet packet);
+
+	/**
+	 * Closes this channel and releases its resources.
+	 */
+	public abstract void close();
+
+	public abstract boolean isClosed();
+
+	public abstract boolean isStarted();
+
+	/**
+	 * Registers the given listener to receive data of the type it specifies with it's getKeys() method.
+	 * 
+	 * @param listener
+	 *            The listener that shall be registered.
+	 */
+	public void registerListener(IChannelListener listener) {
+		ENetworkKey[] keys = listener.getKeys();
+		for (int i = 0; i < keys.length; i++) {
+			listenerRegistry.put(keys[i], listener);
+		}
+	}
+
+	public void removeListener(ENetworkKey key) {
+		listenerRegistry.remove(key);
+	}
+
+	/**
+	 * Hands a received message to the {@link IChannelListener} registered for its key. If no listener is registered, a {@link RejectPacket} is sent
+	 * to the partner.
+	 * 
+	 * @param key
+	 *            The key of the message.
+	 * @param length
+	 *            Number of bytes of the message.
+	 * @param bufferIn
+	 *            The {@link DataInputStream} offering exactly the bytes of the message.
+	 */
+	protected void receive(ENetworkKey key, int length, DataInputStream bufferIn) {
+		IChannelListener listener = listenerRegistry.get(key);
+
+		if (listener != null) {
+			try {
+				listener.receive(key, length, bufferIn);
+				if (bufferIn.available() > 0) {
+					logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
+				}
+			} catch (Exception e) { // ignore exceptions thrown in receive
+				e.printStackTrace();
+			}
+		} else {
+			logger.warn("NO LISTENER FOUND for key: " + key + "   (" + this + ")");
+
+			if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
+				sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
+						new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
+			}
+		}
+	}
+
+	/**
+	 * Informs the registered {@link IChannelClosedListener} (if any) that this channel has been shut down.
+	 */
+	protected void informChannelClosedListener() {
+		if (channelClosedListener != null) {
+			channelClosedListener.channelClosed();
+		}
+	}
+
+	/**
+	 * Gets the round trip time of this channel.
+	 * 
+	 * @return Returns the current round trip time of this channel.
+	 */
+	@Override
+	public RoundTripTime getRoundTripTime() {
+		return pingPacketListener.getRoundTripTime();
+	}
+
+	/**
+	 * Initialize the pinging by sending a first {@link PingPacket}.
+	 */
+	public void initPinging() {
+		pingPacketListener.initPinging();
+	}
+
+	public void setPingUpdateListener(IPingUpdateListener pingUpdateListener) {
+		pingPacketListener.setPingUpdateListener(pingUpdateListener);
+	}
+
+	/**
+	 * Sets an {@link IChannelClosedListener} to this channel. The given listener will be informed when the channel has been shut down.
+	 * <p />
+	 * NOTE: To remove a listener, just call this method with <code>null</code> as argument.<br>
+	 * NOTE2: Only one listener may be registered at a time. By setting a new listener, the old one will be replaced.
+	 * 
+	 * @param channelClosedListener
+	 *            The new {@link IChannelClosedListener} that shall be registered on this channel.
+	 */
+	public void setChannelClosedListener(IChannelClosedListener channelClosedListener) {
+		this.channelClosedListener = channelClosedListener;
+	}
+
+	public void setLogger(Logger newLogger) {
+		this.logger.setLogger(newLogger);
+	}
+}
@@ -21,34 +21,26 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.HashMap;
 
-import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
 import jsettlers.network.infrastructure.channel.packet.Packet;
-import jsettlers.network.infrastructure.channel.ping.IPingUpdateListener;
-import jsettlers.network.infrastructure.channel.ping.IRoundTripTimeSupplier;
-import jsettlers.network.infrastructure.channel.ping.PingPacket;
-import jsettlers.network.infrastructure.channel.ping.PingPacketListener;
-import jsettlers.network.infrastructure.channel.ping.RoundTripTime;
-import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.ConsoleLogger;
 import jsettlers.network.infrastructure.log.Logger;
-import jsettlers.network.infrastructure.log.SwitchableLogger;
 
 /**
  * This class builds up a logical channel between to network partners. The class allows to send data of type {@link Packet} to the partner and to
  * register {@link IChannelListener}s to receive incoming data as a callback.
+ * <p />
+ * The messages are sent and received over a blocking {@link ISocket}; every channel has an own receiver thread.
  * 
  * @author Andreas Eberle
  * 
  */
-public class Channel implements Runnable, IRoundTripTimeSupplier {
+public class Channel extends AbstractChannel implements Runnable {
 	private final Thread thread;
 
-	private final SwitchableLogger logger;
 	private final ISocket socket;
 	private final DataOutputStream outStream;
 	private final DataInputStream inStream;
@@ -56,12 +48,6 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	private final ByteArrayOutputStream byteBufferOutStream = new ByteArrayOutputStream();
 	private final DataOutputStream bufferDataOutStream = new DataOutputStream(byteBufferOutStream);
 
-	private final HashMap<ENetworkKey, IChannelListener> listenerRegistry = new HashMap<>();
-
-	private final PingPacketListener pingPacketListener;
-
-	private IChannelClosedListener channelClosedListener;
-
 	private boolean started;
 
 	/**
@@ -81,14 +67,11 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	}
 
 	public Channel(Logger logger, ISocket socket) throws IOException {
-		this.logger = new SwitchableLogger(logger);
+		super(logger);
 		this.socket = socket;
 		outStream = new DataOutputStream(socket.getOutputStream());
 		inStream = new DataInputStream(socket.getInputStream());
 
-		pingPacketListener = new PingPacketListener(this.logger, this);
-		registerListener(pingPacketListener);
-
 		thread = new Thread(this, "ChannelForSocket_" + socket);
 	}
 
@@ -102,11 +85,13 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	 * 
 	 * @see <code>Thread.start()</code>
 	 */
+	@Override
 	public void start() {
 		started = true;
 		thread.start();
 	}
 
+	@Override
 	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
 		if (socket.isClosed())
 			return;
@@ -132,23 +117,6 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		outStream.flush();
 	}
 
-	/**
-	 * Registers the given listener to receive data of the type it specifies with it's getKeys() method.
-	 * 
-	 * @param listener
-	 *            The listener that shall be registered.
-	 */
-	public void registerListener(IChannelListener listener) {
-		ENetworkKey[] keys = listener.getKeys();
-		for (int i = 0; i < keys.length; i++) {
-			listenerRegistry.put(keys[i], listener);
-		}
-	}
-
-	public void removeListener(ENetworkKey key) {
-		listenerRegistry.remove(key);
-	}
-
 	@Override
 	public void run() {
 		while (!socket.isClosed()) {
@@ -158,26 +126,7 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 
 				DataInputStream bufferIn = readBytesToBuffer(inStream, length);
 
-				IChannelListener listener = listenerRegistry.get(key);
-
-				if (listener != null) {
-					try {
-						listener.receive(key, length, bufferIn);
-						if (bufferIn.available() > 0) {
-							logger.warn("Deserialization did not read all bytes of input: " + key + " " + length + " " + bufferIn.available());
-						}
-					} catch (Exception e) { // ignore exceptions thrown in receive
-						e.printStackTrace();
-					}
-				} else {
-					logger.warn("NO LISTENER FOUND for key: " + key + "   (" + socket + ")");
-
-					if (key != NetworkConstants.ENetworkKey.REJECT_PACKET) { // prevent endless loop
-						sendPacket(NetworkConstants.ENetworkKey.REJECT_PACKET,
-								new RejectPacket(NetworkConstants.ENetworkMessage.NO_LISTENER_FOUND, key));
-					}
-				}
-
+				receive(key, length, bufferIn);
 			} catch (Exception e) {
 				try {
 					socket.close();
@@ -188,9 +137,7 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 
 		close(); // release the resources
 
-		if (channelClosedListener != null) {
-			channelClosedListener.channelClosed();
-		}
+		informChannelClosedListener();
 		logger.info("Channel listener shut down: " + socket);
 	}
 
@@ -213,6 +160,7 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 	/**
 	 * Closes this {@link Channel} and releases the contained {@link Socket} and the stream resources.
 	 */
+	@Override
 	public void close() {
 		try {
 			inStream.close();
@@ -232,50 +180,18 @@ public class Channel implements Runnable, IRoundTripTimeSupplier {
 		thread.interrupt();
 	}
 
-	/**
-	 * Gets the round trip time of this {@link Channel}.
-	 * 
-	 * @return Returns the current round trip time of this {@link Channel}.
-	 */
 	@Override
-	public RoundTripTime getRoundTripTime() {
-		return pingPacketListener.getRoundTripTime();
-	}
-
-	/**
-	 * Initialize the pinging by sending a first {@link PingPacket}.
-	 */
-	public void initPinging() {
-		pingPacketListener.initPinging();
-	}
-
-	public void setPingUpdateListener(IPingUpdateListener pingUpdateListener) {
-		pingPacketListener.setPingUpdateListener(pingUpdateListener);
-	}
-
-	/**
-	 * Sets an {@link IChannelClosedListener} to this {@link Channel}. The given listener will be informed when the {@link Channel} has been shut
-	 * down.
-	 * <p />
-	 * NOTE: To remove a listener, just call this method with <code>null</code> as argument.<br>
-	 * NOTE2: Only one listener may be registered at a time. By setting a new listener, the old one will be replaced.
-	 * 
-	 * @param channelClosedListener
-	 *            The new {@link IChannelClosedListener} that shall be registered on this {@link Channel}.
-	 */
-	public void setChannelClosedListener(IChannelClosedListener channelClosedListener) {
-		this.channelClosedListener = channelClosedListener;
-	}
-
 	public boolean isClosed() {
 		return socket.isClosed();
 	}
 
+	@Override
 	public boolean isStarted() {
 		return started;
 	}
 
-	public void setLogger(Logger newLogger) {
-		this.logger.setLogger(newLogger);
+	@Override
+	public String toString() {
+		return String.valueOf(socket);
 	}
 }
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} reading a range of a {@link ByteBuffer} without modifying the buffer's position. The stream can be reused for further
+ * ranges with {@link #reset(ByteBuffer, int, int)}.
+ * 
+ */
+final class ByteBufferInputStream extends InputStream {
+	private ByteBuffer buffer;
+	private int position;
+	private int limit;
+
+	void reset(ByteBuffer buffer, int position, int limit) {
+		this.buffer = buffer;
+		this.position = position;
+		this.limit = limit;
+	}
+
+	@Override
+	public int read() {
+		if (position >= limit) {
+			return -1;
+		}
+		return buffer.get(position++) & 0xff;
+	}
+
+	@Override
+	public int read(byte[] bytes, int offset, int length) {
+		if (length == 0) {
+			return 0;
+		}
+		int available = limit - position;
+		if (available <= 0) {
+			return -1;
+		}
+
+		int count = Math.min(length, available);
+		for (int i = 0; i < count; i++) {
+			bytes[offset + i] = buffer.get(position + i);
+		}
+		position += count;
+		return count;
+	}
+
+	@Override
+	public long skip(long n) {
+		int skipped = (int) Math.max(0, Math.min(n, limit - position));
+		position += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() {
+		return limit - position;
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} writing directly into a pooled {@link ByteBuffer}. When the buffer is full, it is replaced by a bigger one containing the
+ * already written bytes.
+ * 
+ */
+final class ByteBufferOutputStream extends OutputStream {
+	private final ByteBufferPool pool;
+	private ByteBuffer buffer;
+
+	ByteBufferOutputStream(ByteBufferPool pool) {
+		this.pool = pool;
+		this.buffer = pool.acquire();
+	}
+
+	/**
+	 * @return The current buffer in write mode. Note that the buffer may be replaced by any write to this stream.
+	 */
+	ByteBuffer getBuffer() {
+		return buffer;
+	}
+
+	@Override
+	public void write(int b) {
+		ensureRemaining(1);
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		ensureRemaining(length);
+		buffer.put(bytes, offset, length);
+	}
+
+	private void ensureRemaining(int required) {
+		if (buffer.remaining() < required) {
+			ByteBuffer newBuffer = pool.acquire(buffer.position() + required);
+			buffer.flip();
+			newBuffer.put(buffer);
+			pool.release(buffer);
+			buffer = newBuffer;
+		}
+	}
+
+	/**
+	 * Replaces an empty oversized buffer with a pooled one.
+	 */
+	void shrinkIfEmpty() {
+		if (buffer.position() == 0 && buffer.capacity() > pool.getBufferSize()) {
+			buffer = pool.acquire();
+		}
+	}
+
+	/**
+	 * Gives the buffer back to the pool. The stream must not be used afterwards.
+	 */
+	void release() {
+		if (buffer != null) {
+			pool.release(buffer);
+			buffer = null;
+		}
+	}
+}
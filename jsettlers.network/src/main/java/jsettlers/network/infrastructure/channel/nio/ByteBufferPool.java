@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A thread safe pool of direct {@link ByteBuffer}s of a fixed size. Requests for bigger buffers are served with newly allocated buffers, that are
+ * not taken back into the pool.
+ * 
+ */
+public final class ByteBufferPool {
+	public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+	public static final int DEFAULT_MAX_POOLED_BUFFERS = 256;
+
+	private static final ByteBufferPool DEFAULT_POOL = new ByteBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+
+	private final int bufferSize;
+	private final int maxPooledBuffers;
+	private final ArrayDeque<ByteBuffer> buffers = new ArrayDeque<>();
+
+	public ByteBufferPool(int bufferSize, int maxPooledBuffers) {
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+	public static ByteBufferPool getDefault() {
+		return DEFAULT_POOL;
+	}
+
+	/**
+	 * Gets a cleared buffer with at least the given capacity.
+	 * 
+	 * @param minCapacity
+	 *            The minimum capacity of the buffer.
+	 * @return A buffer that must be given back with {@link #release(ByteBuffer)} when it is not needed any more.
+	 */
+	public ByteBuffer acquire(int minCapacity) {
+		if (minCapacity > bufferSize) {
+			int capacity = bufferSize;
+			while (capacity < minCapacity) {
+				capacity *= 2;
+			}
+			return ByteBuffer.allocateDirect(capacity);
+		}
+
+		ByteBuffer buffer;
+		synchronized (buffers) {
+			buffer = buffers.pollLast();
+		}
+		return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+	}
+
+	public ByteBuffer acquire() {
+		return acquire(bufferSize);
+	}
+
+	/**
+	 * Gives the given buffer back to the pool. The buffer must not be used after this call.
+	 * 
+	 * @param buffer
+	 *            The buffer to release.
+	 */
+	public void release(ByteBuffer buffer) {
+		if (buffer.capacity() != bufferSize) {
+			return; // oversized buffers are left to the garbage collector
+		}
+
+		buffer.clear();
+		synchronized (buffers) {
+			if (buffers.size() < maxPooledBuffers) {
+				buffers.addLast(buffer);
+			}
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public int getNumberOfPooledBuffers() {
+		synchronized (buffers) {
+			return buffers.size();
+		}
+	}
+}
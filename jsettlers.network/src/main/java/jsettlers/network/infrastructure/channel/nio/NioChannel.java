@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelListener;
+import jsettlers.network.infrastructure.channel.packet.Packet;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * An {@link AbstractChannel} implementation based on a non blocking {@link SocketChannel}. Instead of having an own thread, the channel is served
+ * by a {@link NioSelectorThread} that is shared with other channels.
+ * <p />
+ * Outgoing packets are serialized directly into a pooled buffer behind the previous packets; the length of a message is filled in after the
+ * packet has been written. All packets sent until the selector thread flushes the channel are written with a single write call. Incoming messages
+ * are handed to the {@link IChannelListener}s with a reused stream reading directly from the pooled receive buffer.
+ * <p />
+ * The messages use the same format as the {@link Channel}, so both implementations can talk to each other.
+ * 
+ */
+public class NioChannel extends AbstractChannel {
+	private static final int HEADER_LENGTH = 5; // key byte and message length
+
+	private final NioSocket socket;
+	private final SocketChannel socketChannel;
+	private final NioSelectorThread selectorThread;
+	private final ByteBufferPool bufferPool;
+
+	private final ByteBufferOutputStream writeStream; // guarded by this
+	private final DataOutputStream writeDataStream;
+	private boolean writeRequested;
+
+	private ByteBuffer readBuffer; // only accessed by the selector thread
+	private final ByteBufferInputStream messageStream = new ByteBufferInputStream();
+	private final DataInputStream messageDataStream = new DataInputStream(messageStream);
+
+	private SelectionKey selectionKey;
+	private volatile boolean started;
+	private volatile boolean closed;
+
+	public NioChannel(String host, int port) throws IOException {
+		this((NioSocket) new NioSocketFactory().generateSocket(host, port));
+	}
+
+	public NioChannel(NioSocket socket) throws IOException {
+		this(new ConsoleLogger(socket.toString()), socket);
+	}
+
+	public NioChannel(Logger logger, NioSocket socket) throws IOException {
+		this(logger, socket, NioSelectorThread.getDefault(), ByteBufferPool.getDefault());
+	}
+
+	public NioChannel(Logger logger, NioSocket socket, NioSelectorThread selectorThread, ByteBufferPool bufferPool) throws IOException {
+		super(logger);
+		this.socket = socket;
+		this.socketChannel = socket.getSocketChannel();
+		this.selectorThread = selectorThread;
+		this.bufferPool = bufferPool;
+
+		this.writeStream = new ByteBufferOutputStream(bufferPool);
+		this.writeDataStream = new DataOutputStream(writeStream);
+		this.readBuffer = bufferPool.acquire();
+
+		socketChannel.configureBlocking(false);
+		socketChannel.socket().setTcpNoDelay(true);
+	}
+
+	/**
+	 * Registers this channel at its {@link NioSelectorThread} to start the message receiving.
+	 * <p />
+	 * NOTE: This method may only be called once!
+	 */
+	@Override
+	public void start() {
+		if (started) {
+			throw new IllegalStateException("NioChannel has already been started: " + socket);
+		}
+		started = true;
+		selectorThread.register(this);
+	}
+
+	@Override
+	public synchronized void sendPacket(ENetworkKey key, Packet packet) {
+		if (closed) {
+			return;
+		}
+
+		int messageStart = writeStream.getBuffer().position();
+		try {
+			key.writeTo(writeDataStream);
+			writeDataStream.writeInt(0); // placeholder for the length
+			packet.serialize(writeDataStream);
+		} catch (IOException e) {
+			writeStream.getBuffer().position(messageStart); // drop the incomplete message
+			return;
+		}
+
+		ByteBuffer buffer = writeStream.getBuffer();
+		buffer.putInt(messageStart + 1, buffer.position() - messageStart - HEADER_LENGTH);
+
+		if (!writeRequested) {
+			writeRequested = true;
+			selectorThread.requestWrite(this);
+		}
+	}
+
+	/**
+	 * Writes as much of the buffered outgoing data as possible.
+	 * 
+	 * @return true if there is data left that could not be written yet.
+	 * @throws IOException
+	 */
+	synchronized boolean handleWrite() throws IOException {
+		if (closed) {
+			return false;
+		}
+
+		ByteBuffer buffer = writeStream.getBuffer();
+		buffer.flip();
+		try {
+			socketChannel.write(buffer);
+		} finally {
+			buffer.compact();
+		}
+
+		if (buffer.position() > 0) {
+			return true;
+		}
+
+		writeRequested = false;
+		writeStream.shrinkIfEmpty();
+		return false;
+	}
+
+	/**
+	 * Reads the available data and dispatches all complete messages.
+	 * 
+	 * @throws IOException
+	 */
+	void handleRead() throws IOException {
+		if (socketChannel.read(readBuffer) < 0) {
+			close();
+			return;
+		}
+
+		readBuffer.flip();
+		int requiredCapacity = 0;
+		while (!closed && readBuffer.remaining() >= HEADER_LENGTH) {
+			int messageStart = readBuffer.position();
+			int length = readBuffer.getInt(messageStart + 1);
+			if (length < 0) {
+				throw new IOException("Received invalid message length: " + length);
+			}
+
+			int messageEnd = messageStart + HEADER_LENGTH + length;
+			if (messageEnd > readBuffer.limit()) {
+				requiredCapacity = HEADER_LENGTH + length;
+				break;
+			}
+
+			messageStream.reset(readBuffer, messageStart, messageEnd);
+			ENetworkKey key = ENetworkKey.readFrom(messageDataStream);
+			messageDataStream.readInt();
+
+			receive(key, length, messageDataStream);
+			readBuffer.position(messageEnd);
+		}
+		readBuffer.compact();
+
+		if (requiredCapacity > readBuffer.capacity()) {
+			ByteBuffer newBuffer = bufferPool.acquire(requiredCapacity);
+			readBuffer.flip();
+			newBuffer.put(readBuffer);
+			bufferPool.release(readBuffer);
+			readBuffer = newBuffer;
+		} else if (readBuffer.position() == 0 && readBuffer.capacity() > bufferPool.getBufferSize()) {
+			bufferPool.release(readBuffer);
+			readBuffer = bufferPool.acquire();
+		}
+	}
+
+	/**
+	 * Called by the selector thread after the channel has been closed.
+	 */
+	void closed() {
+		synchronized (this) {
+			writeStream.release();
+		}
+		if (readBuffer != null) {
+			bufferPool.release(readBuffer);
+			readBuffer = null;
+		}
+
+		informChannelClosedListener();
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+		}
+
+		try {
+			socket.close();
+		} catch (IOException e) {
+		}
+		selectorThread.requestClose(this);
+	}
+
+	@Override
+	public boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public boolean isStarted() {
+		return started;
+	}
+
+	SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	SelectionKey getSelectionKey() {
+		return selectionKey;
+	}
+
+	void setSelectionKey(SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
+	@Override
+	public String toString() {
+		return socket.toString();
+	}
+}
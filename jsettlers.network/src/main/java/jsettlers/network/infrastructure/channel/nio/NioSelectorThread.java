@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * This thread serves any number of {@link NioChannel}s with a single {@link Selector}. It reads and dispatches the incoming messages of all
+ * channels and flushes their outgoing data.
+ * <p />
+ * NOTE: The listeners of the channels are called on this thread. They must therefore not block.
+ * 
+ */
+public final class NioSelectorThread extends Thread {
+	private static NioSelectorThread defaultThread;
+
+	private final Selector selector;
+
+	private final Object pendingLock = new Object();
+	private final ArrayDeque<NioChannel> pendingRegistrations = new ArrayDeque<>();
+	private final ArrayDeque<NioChannel> pendingWrites = new ArrayDeque<>();
+	private final ArrayDeque<NioChannel> pendingCloses = new ArrayDeque<>();
+
+	private boolean canceled = false;
+
+	public NioSelectorThread(String name) throws IOException {
+		super(name);
+		this.selector = Selector.open();
+		this.setDaemon(true);
+	}
+
+	/**
+	 * @return The shared {@link NioSelectorThread}. The thread is started on the first call.
+	 * @throws IOException
+	 *             If the selector could not be opened.
+	 */
+	public static synchronized NioSelectorThread getDefault() throws IOException {
+		if (defaultThread == null) {
+			defaultThread = new NioSelectorThread("NioSelectorThread");
+			defaultThread.start();
+		}
+		return defaultThread;
+	}
+
+	void register(NioChannel channel) {
+		enqueue(pendingRegistrations, channel);
+	}
+
+	void requestWrite(NioChannel channel) {
+		enqueue(pendingWrites, channel);
+	}
+
+	void requestClose(NioChannel channel) {
+		enqueue(pendingCloses, channel);
+	}
+
+	private void enqueue(ArrayDeque<NioChannel> queue, NioChannel channel) {
+		synchronized (pendingLock) {
+			queue.addLast(channel);
+		}
+		selector.wakeup();
+	}
+
+	@Override
+	public void run() {
+		while (!canceled) {
+			try {
+				selector.select();
+				processPendingOperations();
+
+				Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				while (iterator.hasNext()) {
+					SelectionKey key = iterator.next();
+					iterator.remove();
+					handleSelectedKey(key);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		try {
+			selector.close();
+		} catch (IOException e) {
+		}
+	}
+
+	private void processPendingOperations() {
+		NioChannel channel;
+		while ((channel = poll(pendingRegistrations)) != null) {
+			try {
+				channel.setSelectionKey(channel.getSocketChannel().register(selector, SelectionKey.OP_READ, channel));
+			} catch (ClosedChannelException e) {
+				channel.close();
+				continue;
+			}
+			flush(channel); // packets might have been sent before the channel was started
+		}
+
+		while ((channel = poll(pendingWrites)) != null) {
+			flush(channel);
+		}
+
+		while ((channel = poll(pendingCloses)) != null) {
+			channel.closed();
+		}
+	}
+
+	private NioChannel poll(ArrayDeque<NioChannel> queue) {
+		synchronized (pendingLock) {
+			return queue.pollFirst();
+		}
+	}
+
+	private void flush(NioChannel channel) {
+		try {
+			boolean remaining = channel.handleWrite();
+			SelectionKey key = channel.getSelectionKey();
+			if (remaining && key != null && key.isValid()) {
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		} catch (IOException e) {
+			channel.close();
+		}
+	}
+
+	private void handleSelectedKey(SelectionKey key) {
+		NioChannel channel = (NioChannel) key.attachment();
+		try {
+			if (key.isValid() && key.isReadable()) {
+				channel.handleRead();
+			}
+			if (key.isValid() && key.isWritable() && !channel.handleWrite()) {
+				key.interestOps(SelectionKey.OP_READ);
+			}
+		} catch (Exception e) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Stops this thread. Channels still registered are not closed.
+	 */
+	public void cancel() {
+		canceled = true;
+		selector.wakeup();
+	}
+}
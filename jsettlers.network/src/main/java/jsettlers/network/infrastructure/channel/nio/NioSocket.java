@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SocketChannel;
+
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+
+/**
+ * {@link ISocket} implementation wrapping a {@link SocketChannel}. The streams can only be used as long as the socket is not used by a
+ * {@link NioChannel}, which switches the channel to non blocking mode. Also note that on Java 8, a blocking read on the input stream blocks all
+ * writes to the output stream, so the streams are not suitable for a {@link jsettlers.network.infrastructure.channel.Channel}.
+ * 
+ */
+public class NioSocket implements ISocket {
+
+	private final SocketChannel socketChannel;
+
+	public NioSocket(SocketChannel socketChannel) {
+		this.socketChannel = socketChannel;
+	}
+
+	@Override
+	public OutputStream getOutputStream() throws IOException {
+		return socketChannel.socket().getOutputStream();
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return socketChannel.socket().getInputStream();
+	}
+
+	@Override
+	public boolean isClosed() {
+		return !socketChannel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		socketChannel.close();
+	}
+
+	public SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	@Override
+	public String toString() {
+		return socketChannel.socket().toString();
+	}
+}
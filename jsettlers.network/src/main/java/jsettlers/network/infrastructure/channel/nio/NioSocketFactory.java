@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import jsettlers.network.infrastructure.channel.AbstractChannel;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.socket.ISocket;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
+import jsettlers.network.infrastructure.channel.socket.SocketConnectException;
+import jsettlers.network.infrastructure.log.Logger;
+
+/**
+ * Factory for {@link NioSocket}s. The channels created by this factory for {@link NioSocket}s are {@link NioChannel}s.
+ * 
+ */
+public class NioSocketFactory implements ISocketFactory {
+
+	@Override
+	public ISocket generateSocket(String host, int port) throws SocketConnectException {
+		try {
+			return new NioSocket(SocketChannel.open(new InetSocketAddress(host, port)));
+		} catch (IOException e) {
+			throw new SocketConnectException(e);
+		}
+	}
+
+	/**
+	 * NOTE: The given socket must have been created with a {@link SocketChannel}, e.g. by accepting it on a server socket created by
+	 * {@link #generateServerSocket(int)}.
+	 */
+	@Override
+	public ISocket generateSocket(Socket socket) throws SocketConnectException {
+		if (socket.getChannel() == null) {
+			throw new SocketConnectException("Socket has no SocketChannel: " + socket);
+		}
+		return new NioSocket(socket.getChannel());
+	}
+
+	@Override
+	public ServerSocket generateServerSocket(int port) throws IOException {
+		ServerSocket serverSocket = ServerSocketChannel.open().socket();
+		serverSocket.bind(new InetSocketAddress(port));
+		return serverSocket;
+	}
+
+	@Override
+	public AbstractChannel createChannel(Logger logger, ISocket socket) throws IOException {
+		if (socket instanceof NioSocket) {
+			return new NioChannel(logger, (NioSocket) socket);
+		} else {
+			return new Channel(logger, socket);
+		}
+	}
+}
@@ -16,7 +16,7 @@ package jsettlers.network.infrastructure.channel.ping;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.NetworkConstants.ENetworkKey;
-import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
 import jsettlers.network.infrastructure.channel.GenericDeserializer;
 import jsettlers.network.infrastructure.channel.listeners.PacketChannelListener;
 import jsettlers.network.infrastructure.log.Logger;
@@ -35,13 +35,13 @@ public class PingPacketListener extends PacketChannelListener<PingPacket> implem
 	private static final int JITTER_AVERAGING_BUFFER = 7;
 
 	private final Logger logger;
-	private final Channel channel;
+	private final AbstractChannel channel;
 	private final AveragingBoundedBuffer avgJitter = new AveragingBoundedBuffer(JITTER_AVERAGING_BUFFER);
 	private RoundTripTime currRtt = new RoundTripTime(System.currentTimeMillis(), 0, 0, 0);
 
 	private IPingUpdateListener pingUpdateListener = null;
 
-	public PingPacketListener(Logger logger, Channel channel) {
+	public PingPacketListener(Logger logger, AbstractChannel channel) {
 		super(NetworkConstants.ENetworkKey.PING, new GenericDeserializer<>(PingPacket.class));
 		this.logger = logger;
 
@@ -73,7 +73,7 @@ public class PingPacketListener extends PacketChannelListener<PingPacket> implem
 	}
 
 	/**
-	 * Gets the round trip time of this {@link Channel}.
+	 * Gets the round trip time of this {@link AbstractChannel}.
 	 * 
 	 * @return Returns the current {@link RoundTripTime}.
 	 */
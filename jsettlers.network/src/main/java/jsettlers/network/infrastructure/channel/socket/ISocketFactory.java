@@ -14,11 +14,15 @@
  *******************************************************************************/
 package jsettlers.network.infrastructure.channel.socket;
 
+import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.Socket;
 
 import jsettlers.network.NetworkConstants;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
 import jsettlers.network.infrastructure.channel.socket.delayed.DelayedSocketFactory;
 import jsettlers.network.infrastructure.channel.socket.standard.JavaSocketFactory;
+import jsettlers.network.infrastructure.log.Logger;
 
 /**
  * 
@@ -31,4 +35,28 @@ public interface ISocketFactory {
 	ISocket generateSocket(String host, int port) throws SocketConnectException;
 
 	ISocket generateSocket(Socket socket) throws SocketConnectException;
+
+	/**
+	 * Creates a {@link ServerSocket} bound to the given port. The sockets accepted by it can be given to {@link #generateSocket(Socket)}.
+	 * 
+	 * @param port
+	 *            The port to listen on.
+	 * @return The bound {@link ServerSocket}.
+	 * @throws IOException
+	 *             If the port could not be bound.
+	 */
+	ServerSocket generateServerSocket(int port) throws IOException;
+
+	/**
+	 * Creates a channel communicating over the given socket, which has been generated by this factory.
+	 * 
+	 * @param logger
+	 *            The logger to be used by the channel.
+	 * @param socket
+	 *            The socket to communicate over.
+	 * @return A new, not yet started channel.
+	 * @throws IOException
+	 *             If an I/O error occurs when creating the channel.
+	 */
+	AbstractChannel createChannel(Logger logger, ISocket socket) throws IOException;
 }
@@ -15,11 +15,15 @@
 package jsettlers.network.infrastructure.channel.socket.delayed;
 
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.Socket;
 
+import jsettlers.network.infrastructure.channel.AbstractChannel;
+import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.channel.socket.SocketConnectException;
+import jsettlers.network.infrastructure.log.Logger;
 
 /**
  * Factory class to create {@link DelayedSocket}s.
@@ -49,4 +53,13 @@ public class DelayedSocketFactory implements ISocketFactory {
 		}
 	}
 
+	@Override
+	public ServerSocket generateServerSocket(int port) throws IOException {
+		return new ServerSocket(port);
+	}
+
+	@Override
+	public AbstractChannel createChannel(Logger logger, ISocket socket) throws IOException {
+		return new Channel(logger, socket);
+	}
 }
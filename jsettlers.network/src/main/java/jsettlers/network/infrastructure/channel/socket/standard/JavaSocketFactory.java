@@ -15,11 +15,15 @@
 package jsettlers.network.infrastructure.channel.socket.standard;
 
 import java.io.IOException;
+import java.net.ServerSocket;
 import java.net.Socket;
 
+import jsettlers.network.infrastructure.channel.AbstractChannel;
+import jsettlers.network.infrastructure.channel.Channel;
 import jsettlers.network.infrastructure.channel.socket.ISocket;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.channel.socket.SocketConnectException;
+import jsettlers.network.infrastructure.log.Logger;
 
 /**
  * Factory for {@link ISocket} implementation using the standard java {@link Socket}s.
@@ -43,4 +47,13 @@ public class JavaSocketFactory implements ISocketFactory {
 		return new JavaSocketAdapter(socket);
 	}
 
+	@Override
+	public ServerSocket generateServerSocket(int port) throws IOException {
+		return new ServerSocket(port);
+	}
+
+	@Override
+	public AbstractChannel createChannel(Logger logger, ISocket socket) throws IOException {
+		return new Channel(logger, socket);
+	}
 }
@@ -15,13 +15,17 @@
 package jsettlers.network.server;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
+import jsettlers.network.infrastructure.channel.nio.NioSocketFactory;
+import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.server.match.Match;
 
 /**
- * This class starts a dedicated server.
+ * This class starts a dedicated server. With the argument <code>--nio</code>, the clients are served by a single selector thread instead of a thread
+ * per client.
  * 
  * @author Andreas Eberle
  * 
@@ -29,7 +33,8 @@ import jsettlers.network.server.match.Match;
 public class DedicatedServerApp {
 
 	public static void main(String args[]) throws IOException {
-		GameServerThread gameServer = new GameServerThread(false);
+		ISocketFactory socketFactory = Arrays.asList(args).contains("--nio") ? new NioSocketFactory() : ISocketFactory.DEFAULT_FACTORY;
+		GameServerThread gameServer = new GameServerThread(false, socketFactory);
 		gameServer.start();
 
 		Scanner s = new Scanner(System.in);
@@ -20,7 +20,7 @@ import java.net.Socket;
 import java.net.SocketException;
 
 import jsettlers.network.NetworkConstants;
-import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
 import jsettlers.network.infrastructure.channel.socket.ISocketFactory;
 import jsettlers.network.infrastructure.log.Logger;
 import jsettlers.network.infrastructure.log.LoggerManager;
@@ -39,6 +39,7 @@ public final class GameServerThread extends Thread {
 	private static final Logger LOGGER = LoggerManager.ROOT_LOGGER;
 
 	private final ServerSocket serverSocket;
+	private final ISocketFactory socketFactory;
 	private final ServerManager manager;
 	private final LanServerBroadcastThread lanBroadcastThread;
 
@@ -46,8 +47,21 @@ public final class GameServerThread extends Thread {
 	private boolean canceled = false;
 
 	public GameServerThread(boolean lan) throws IOException {
+		this(lan, ISocketFactory.DEFAULT_FACTORY);
+	}
+
+	/**
+	 * 
+	 * @param lan
+	 *            If true, the server's address is broadcasted in the local network.
+	 * @param socketFactory
+	 *            The factory used to create the sockets and {@link Channel}s of the accepted clients.
+	 * @throws IOException
+	 */
+	public GameServerThread(boolean lan, ISocketFactory socketFactory) throws IOException {
 		super("GameServer");
-		this.serverSocket = new ServerSocket(NetworkConstants.Server.SERVER_PORT);
+		this.socketFactory = socketFactory;
+		this.serverSocket = socketFactory.generateServerSocket(NetworkConstants.Server.SERVER_PORT);
 		this.manager = new ServerManager(new InMemoryDB());
 
 		this.setDaemon(true);
@@ -68,7 +82,7 @@ public final class GameServerThread extends Thread {
 			try {
 				Socket clientSocket = serverSocket.accept();
 
-				Channel clientChannel = new Channel(LOGGER, ISocketFactory.DEFAULT_FACTORY.generateSocket(clientSocket));
+				AbstractChannel clientChannel = socketFactory.createChannel(LOGGER, socketFactory.generateSocket(clientSocket));
 				manager.identifyNewChannel(clientChannel);
 				clientChannel.start();
 
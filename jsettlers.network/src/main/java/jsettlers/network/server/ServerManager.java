@@ -20,7 +20,7 @@ import jsettlers.network.NetworkConstants;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.OpenNewMatchPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
-import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
 import jsettlers.network.infrastructure.channel.reject.RejectPacket;
 import jsettlers.network.server.db.IDBFacade;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
@@ -65,7 +65,7 @@ public class ServerManager implements IServerManager {
 		matchesTaskDistributionTimer.cancel();
 	}
 
-	public void identifyNewChannel(Channel channel) {
+	public void identifyNewChannel(AbstractChannel channel) {
 		channel.registerListener(new IdentifyUserListener(channel, this));
 	}
 
@@ -74,7 +74,7 @@ public class ServerManager implements IServerManager {
 		if (database.isAcceptedPlayer(player.getId())) {
 			database.storePlayer(player);
 
-			Channel channel = player.getChannel();
+			AbstractChannel channel = player.getChannel();
 			channel.removeListener(NetworkConstants.ENetworkKey.IDENTIFY_USER);
 
 			channel.setChannelClosedListener(new ServerChannelClosedListener(this, player));
@@ -22,7 +22,7 @@ import jsettlers.network.NetworkConstants.ENetworkMessage;
 import jsettlers.network.common.packets.ChatMessagePacket;
 import jsettlers.network.common.packets.PlayerInfoPacket;
 import jsettlers.network.common.packets.TimeSyncPacket;
-import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
 import jsettlers.network.infrastructure.channel.packet.Packet;
 import jsettlers.network.infrastructure.log.LoggerManager;
 import jsettlers.network.server.exceptions.NotAllPlayersReadyException;
@@ -35,12 +35,12 @@ import jsettlers.network.server.match.lockstep.TaskCollectingListener;
  */
 public class Player {
 	private final PlayerInfoPacket playerInfo;
-	private final Channel channel;
+	private final AbstractChannel channel;
 
 	private EPlayerState state = EPlayerState.LOGGED_IN;
 	private Match match;
 
-	public Player(PlayerInfoPacket playerInfo, Channel channel) {
+	public Player(PlayerInfoPacket playerInfo, AbstractChannel channel) {
 		this.playerInfo = playerInfo;
 		this.channel = channel;
 	}
@@ -73,7 +73,7 @@ public class Player {
 		channel.setLogger(match.getMatchLogger());
 	}
 
-	public Channel getChannel() {
+	public AbstractChannel getChannel() {
 		return channel;
 	}
 
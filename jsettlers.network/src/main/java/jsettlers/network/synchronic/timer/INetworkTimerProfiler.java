@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.synchronic.timer;
+
+/**
+ * Receives the measurements of a {@link NetworkTimer}. It is called on the thread executing the timer's ticks.
+ *
+ */
+public interface INetworkTimerProfiler {
+	/**
+	 * Called before a timerable is executed.
+	 *
+	 * @return true if the execution is measured and {@link #endTimerable(INetworkTimerable)} has to be called after it.
+	 */
+	boolean beginTimerable();
+
+	/**
+	 * Called after a timerable has been executed, if {@link #beginTimerable()} returned true.
+	 */
+	void endTimerable(INetworkTimerable timerable);
+
+	/**
+	 * Called after every executed tick.
+	 *
+	 * @param tickNanos
+	 *            The duration of the tick in nanoseconds.
+	 * @param lockstepWaitNanos
+	 *            The part of the duration spent waiting for the lockstep to be allowed.
+	 */
+	void tickExecuted(long tickNanos, long lockstepWaitNanos);
+}
@@ -18,14 +18,15 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Locale;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.ListIterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import jsettlers.network.NetworkConstants;
 import jsettlers.network.client.INetworkClientClock;
@@ -36,38 +37,54 @@ import java8.util.Comparators;
 
 /**
  * This is a basic game timer. All synchronous actions must be based on this clock. The {@link NetworkTimer} also triggers the execution of synchronous tasks in the network game.
+ * <p>
+ * The timer runs on its own thread with a fixed rate based on {@link System#nanoTime()}. If a tick is late, the missed ticks are caught up, but
+ * never more than {@value #MAX_CATCH_UP_TICKS} at once.
+ * <p>
+ * Received {@link SyncTasksPacket}s and (un)registered timerables are handed to the timer thread through lock free queues and are processed at
+ * the beginning of the next tick. The time spent waiting for a lockstep to be allowed is recorded, see {@link #getLockstepWaitTime()}.
+ * <p>
+ * If an {@link INetworkTimerProfiler} is set, it is informed about the execution of every timerable and every tick.
  *
  * @author Andreas Eberle
  *
  */
-public final class NetworkTimer extends TimerTask implements INetworkClientClock {
+public final class NetworkTimer implements INetworkClientClock {
 	public static final short TIME_SLICE = 50;
+	private static final long TIME_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(TIME_SLICE);
+	private static final int MAX_CATCH_UP_TICKS = 10;
+	private static final long LOCKSTEP_WAIT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 	private static final Comparator<SyncTasksPacket> tasksByTimeComparator = Comparators.comparingInt(SyncTasksPacket::getLockstepNumber);
 
-	private final Timer timer;
-	private final Object lockstepLock = new Object();
-
 	private final List<ScheduledTimerable> timerables = new ArrayList<>();
-	private final List<ScheduledTimerable> newTimerables = new LinkedList<>();
-	private final List<INetworkTimerable> timerablesToBeRemoved = new LinkedList<>();
+	private final IdentityHashMap<INetworkTimerable, ScheduledTimerable> timerablesIndex = new IdentityHashMap<>();
+	private final ConcurrentLinkedQueue<ScheduledTimerable> newTimerables = new ConcurrentLinkedQueue<>();
+	private final ConcurrentLinkedQueue<INetworkTimerable> timerablesToBeRemoved = new ConcurrentLinkedQueue<>();
+	private boolean hasRemovedTimerables;
 
+	private final ConcurrentLinkedQueue<SyncTasksPacket> newTasks = new ConcurrentLinkedQueue<>();
 	private final LinkedList<SyncTasksPacket> tasks = new LinkedList<>();
 
 	private int time = 0;
-	private int maxAllowedLockstep = -1;
+	private volatile int maxAllowedLockstep = -1;
 
-	private boolean isPausing;
-	private int pauseTime;
-	private float speedFactor = 1.0f;
+	private volatile boolean isPausing;
+	private volatile int pauseTime;
+	private volatile float speedFactor = 1.0f;
 	private float progress = 0.0f;
 
-	private boolean scheduled = false;
+	private volatile Thread thread;
+	private volatile boolean stopped = false;
+	private volatile Thread lockstepWaitingThread;
+	private volatile long lockstepWaitNanos;
+	private volatile int lockstepWaits;
+	private volatile INetworkTimerProfiler profiler;
 
 	private ITaskExecutor taskExecutor;
+	private final Object replayLock = new Object();
 	private DataOutputStream replayLogStream;
 
 	public NetworkTimer() {
-		this.timer = new Timer("NetworkTimer");
 	}
 
 	public NetworkTimer(boolean disableLockstepWaiting) {
@@ -80,22 +97,53 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 	@Override
 	public synchronized void startExecution() {
-		if (!scheduled) {
-			scheduled = true;
-			timer.schedule(this, 0, TIME_SLICE);
+		if (thread == null && !stopped) {
+			thread = new Thread(this::runTimerLoop, "NetworkTimer");
+			thread.start();
 		}
 	}
 
 	@Override
 	public void stopExecution() {
 		setPausing(true);
-		timer.cancel();
+		stopped = true;
+
+		Thread waitingThread = lockstepWaitingThread;
+		if (waitingThread != null) {
+			LockSupport.unpark(waitingThread);
+		}
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
 
 		closeReplayLogStreamIfNeeded();
 	}
 
-	@Override
-	public void run() {
+	private void runTimerLoop() {
+		long nextTickTime = System.nanoTime();
+
+		while (!stopped) {
+			long now = System.nanoTime();
+			if (now - nextTickTime > MAX_CATCH_UP_TICKS * TIME_SLICE_NANOS) {
+				nextTickTime = now - MAX_CATCH_UP_TICKS * TIME_SLICE_NANOS; // don't try to catch up more than MAX_CATCH_UP_TICKS
+			}
+
+			while (now - nextTickTime >= 0 && !stopped) {
+				int waitsBefore = lockstepWaits;
+				tick();
+				nextTickTime += TIME_SLICE_NANOS;
+
+				if (waitsBefore != lockstepWaits) { // the time waiting for the lockstep must not be caught up
+					now = System.nanoTime();
+					nextTickTime = now + TIME_SLICE_NANOS;
+				}
+			}
+
+			LockSupport.parkNanos(this, nextTickTime - System.nanoTime());
+		}
+	}
+
+	private void tick() {
 		if (!isPausing) {
 			if (pauseTime <= 0) { // this is used for synchronizing the network clients
 				progress += speedFactor;
@@ -111,28 +159,25 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private synchronized void executeRun() {
+		INetworkTimerProfiler profiler = this.profiler;
+		long startNanos = profiler != null ? System.nanoTime() : 0;
+		long lockstepWaitNanosBefore = lockstepWaitNanos;
+
 		try {
-			time += TIME_SLICE;
-			final int lockstep = time / NetworkConstants.Client.LOCKSTEP_PERIOD;
+			final int lockstep = (time + TIME_SLICE) / NetworkConstants.Client.LOCKSTEP_PERIOD;
 
 			// check if the lockstep is allowed
-			synchronized (lockstepLock) {
-				while (lockstep > maxAllowedLockstep) {
-					System.out.println("WAITING for lockstep!");
-					lockstepLock.wait();
-				}
+			if (!awaitLockstep(lockstep)) {
+				return;
 			}
+			time += TIME_SLICE;
 
-			SyncTasksPacket tasksPacket;
-			synchronized (tasks) {
-				tasksPacket = tasks.peekFirst();
-			}
+			addNewTasks();
 
+			SyncTasksPacket tasksPacket = tasks.peekFirst();
 			while (tasksPacket != null && tasksPacket.getLockstepNumber() <= lockstep) {
 				assert tasksPacket.getLockstepNumber() == lockstep : "FOUND TasksPacket FOR older lockstep!";
 
-				System.out.println("Executing SyncTaskPacket(" + tasksPacket + ") in " + getLockstepText(lockstep));
-
 				try {
 					executeTasksPacket(tasksPacket);
 				} catch (Throwable t) {
@@ -140,17 +185,20 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 					t.printStackTrace();
 				}
 
-				synchronized (tasks) {// remove the executed tasksPacket and retrieve the next one to check it.
-					tasks.pollFirst();
-					tasksPacket = tasks.peekFirst();
-				}
+				// remove the executed tasksPacket and retrieve the next one to check it.
+				tasks.pollFirst();
+				tasksPacket = tasks.peekFirst();
 			}
 
 			addNewTimerables();
 			handleRemovedTimerables();
 
 			for (ScheduledTimerable curr : timerables) {
-				curr.checkExecution(TIME_SLICE);
+				curr.checkExecution(TIME_SLICE, profiler);
+			}
+
+			if (profiler != null) {
+				profiler.tickExecuted(System.nanoTime() - startNanos, lockstepWaitNanos - lockstepWaitNanosBefore);
 			}
 		} catch (Throwable t) {
 			System.err.println("WARNING: Networking Timer catched Throwable!!!");
@@ -158,6 +206,28 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	/**
+	 * Waits until the given lockstep has been allowed by a received {@link SyncTasksPacket}.
+	 *
+	 * @return true if the lockstep is allowed, false if the timer has been stopped while waiting.
+	 */
+	private boolean awaitLockstep(int lockstep) {
+		if (lockstep <= maxAllowedLockstep) {
+			return true;
+		}
+
+		long start = System.nanoTime();
+		lockstepWaitingThread = Thread.currentThread();
+		while (lockstep > maxAllowedLockstep && !stopped) {
+			LockSupport.parkNanos(this, LOCKSTEP_WAIT_PARK_NANOS);
+		}
+		lockstepWaitingThread = null;
+
+		lockstepWaitNanos += System.nanoTime() - start;
+		lockstepWaits++;
+		return lockstep <= maxAllowedLockstep;
+	}
+
 	private void executeTasksPacket(SyncTasksPacket tasksPacket) {
 		if (taskExecutor != null) {
 			for (TaskPacket currTask : tasksPacket.getTasks()) {
@@ -168,25 +238,63 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		}
 	}
 
+	/**
+	 * Moves the received tasks packets into the tasks list that is sorted by lockstep. Packets of the same lockstep stay in the order they have
+	 * been received.
+	 */
+	private void addNewTasks() {
+		SyncTasksPacket newPacket;
+		while ((newPacket = newTasks.poll()) != null) {
+			ListIterator<SyncTasksPacket> iterator = tasks.listIterator(tasks.size());
+			while (iterator.hasPrevious()) {
+				if (tasksByTimeComparator.compare(iterator.previous(), newPacket) <= 0) {
+					iterator.next();
+					break;
+				}
+			}
+			iterator.add(newPacket);
+		}
+	}
+
 	private void addNewTimerables() {
-		synchronized (newTimerables) {
-			timerables.addAll(newTimerables);
-			newTimerables.clear();
+		ScheduledTimerable newTimerable;
+		while ((newTimerable = newTimerables.poll()) != null) {
+			timerables.add(newTimerable);
+			if (!timerablesIndex.containsKey(newTimerable.getTimerable())) {
+				timerablesIndex.put(newTimerable.getTimerable(), newTimerable);
+			}
 		}
 	}
 
+	/**
+	 * Removed timerables are looked up in the index and only marked. The list of timerables is compacted once per tick if anything has been
+	 * removed, so the order of the remaining timerables is kept.
+	 */
 	private void handleRemovedTimerables() {
-		synchronized (timerablesToBeRemoved) {
-			for (INetworkTimerable currToBeRemoved : timerablesToBeRemoved) {
-				for (Iterator<ScheduledTimerable> iter = timerables.iterator(); iter.hasNext();) {
-					if (iter.next().getTimerable() == currToBeRemoved) {
-						iter.remove();
-						break;
-					}
-				}
+		INetworkTimerable toBeRemoved;
+		while ((toBeRemoved = timerablesToBeRemoved.poll()) != null) {
+			ScheduledTimerable scheduled = timerablesIndex.remove(toBeRemoved);
+			if (scheduled != null) {
+				scheduled.markRemoved();
+				hasRemovedTimerables = true;
+			} else {
 				System.err.println("tried to remove a object from timer that's not registered!");
 			}
-			timerablesToBeRemoved.clear();
+		}
+
+		if (hasRemovedTimerables) {
+			hasRemovedTimerables = false;
+			for (Iterator<ScheduledTimerable> iterator = timerables.iterator(); iterator.hasNext();) {
+				if (iterator.next().isRemoved()) {
+					iterator.remove();
+				}
+			}
+
+			for (ScheduledTimerable timerable : timerables) { // index the remaining timerables that have been registered multiple times
+				if (!timerablesIndex.containsKey(timerable.getTimerable())) {
+					timerablesIndex.put(timerable.getTimerable(), timerable);
+				}
+			}
 		}
 	}
 
@@ -201,9 +309,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	 */
 	@Override
 	public void schedule(INetworkTimerable timerable, short period) {
-		synchronized (newTimerables) {
-			newTimerables.add(new ScheduledTimerable(timerable, period));
-		}
+		newTimerables.add(new ScheduledTimerable(timerable, period));
 	}
 
 	/**
@@ -213,9 +319,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	 */
 	@Override
 	public void remove(INetworkTimerable timerable) {
-		synchronized (timerablesToBeRemoved) {
-			timerablesToBeRemoved.add(timerable);
-		}
+		timerablesToBeRemoved.add(timerable);
 	}
 
 	/**
@@ -239,7 +343,7 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 
 		System.out.println("Playing game forward to game time: " + targetGameTime);
 
-		while (time < targetGameTime) {
+		while (time < targetGameTime && !stopped) {
 			executeRun();
 		}
 	}
@@ -289,27 +393,26 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 						+ maxAllowedLockstep + " new: " + tasksPacket.getLockstepNumber();
 
 		if (!tasksPacket.getTasks().isEmpty()) {
-			synchronized (tasks) {
-				System.out.println("Scheduled SyncTasksPacket(" + tasksPacket + " for " + getLockstepText(tasksPacket.getLockstepNumber()));
-				tasks.addLast(tasksPacket);
-				Collections.sort(tasks, tasksByTimeComparator);
-				saveReplayIfNeeded(tasksPacket);
-			}
+			saveReplayIfNeeded(tasksPacket);
+			newTasks.add(tasksPacket);
 		}
 		maxAllowedLockstep = Math.max(maxAllowedLockstep, tasksPacket.getLockstepNumber());
 
-		synchronized (lockstepLock) {
-			lockstepLock.notifyAll();
+		Thread waitingThread = lockstepWaitingThread;
+		if (waitingThread != null) {
+			LockSupport.unpark(waitingThread);
 		}
 	}
 
 	private void saveReplayIfNeeded(SyncTasksPacket tasksPacket) {
-		if (replayLogStream != null) {
-			try {
-				tasksPacket.serialize(replayLogStream);
-				replayLogStream.flush();
-			} catch (IOException e) {
-				e.printStackTrace();
+		synchronized (replayLock) {
+			if (replayLogStream != null) {
+				try {
+					tasksPacket.serialize(replayLogStream);
+					replayLogStream.flush();
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
 			}
 		}
 	}
@@ -324,21 +427,43 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 		return time;
 	}
 
+	/**
+	 * @return The total time in milliseconds the timer has waited for locksteps to be allowed by the network.
+	 */
+	public long getLockstepWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(lockstepWaitNanos);
+	}
+
+	/**
+	 * @return The number of ticks that had to wait for their lockstep to be allowed by the network.
+	 */
+	public int getNumberOfLockstepWaits() {
+		return lockstepWaits;
+	}
+
+	@Override
+	public void setProfiler(INetworkTimerProfiler profiler) {
+		this.profiler = profiler;
+	}
+
 	@Override
 	public void setReplayLogStream(DataOutputStream replayFileStream) {
-		if (this.replayLogStream != null) {
-			throw new IllegalStateException("Replay log stream cannot be set twice!");
-		}
+		synchronized (replayLock) {
+			if (this.replayLogStream != null) {
+				throw new IllegalStateException("Replay log stream cannot be set twice!");
+			}
 
-		if (replayFileStream != null) {
-			replayLogStream = replayFileStream;
-		} else {
-			closeReplayLogStreamIfNeeded();
+			if (replayFileStream != null) {
+				replayLogStream = replayFileStream;
+			} else {
+				closeReplayLogStreamIfNeeded();
+			}
 		}
 	}
 
 	@Override
 	public synchronized void saveRemainingTasks(DataOutputStream dos) throws IOException {
+		addNewTasks();
 		for (SyncTasksPacket task : tasks) {
 			task.serialize(dos);
 		}
@@ -346,14 +471,16 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 	}
 
 	private void closeReplayLogStreamIfNeeded() {
-		if (replayLogStream != null) {
-			try {
-				replayLogStream.flush();
-				replayLogStream.close();
-			} catch (IOException e) {
-				e.printStackTrace();
-			} finally {
-				replayLogStream = null;
+		synchronized (replayLock) {
+			if (replayLogStream != null) {
+				try {
+					replayLogStream.flush();
+					replayLogStream.close();
+				} catch (IOException e) {
+					e.printStackTrace();
+				} finally {
+					replayLogStream = null;
+				}
 			}
 		}
 	}
@@ -381,13 +508,4 @@ public final class NetworkTimer extends TimerTask implements INetworkClientClock
 			}
 		}
 	}
-
-	private String getLockstepText(int lockstep) {
-		int time = lockstep * NetworkConstants.Client.LOCKSTEP_PERIOD;
-		int hours = time / (1000 * 60 * 60);
-		int minutes = (time / (1000 * 60)) % 60;
-		int seconds = (time / 1000) % 60;
-		int millis = time % 1000;
-		return String.format(Locale.ENGLISH, "lockstep: %d (game time: %dms / %02d:%02d:%02d:%03d)", lockstep, time, hours, minutes, seconds, millis);
-	}
 }
@@ -25,6 +25,7 @@ public final class ScheduledTimerable {
 	private final INetworkTimerable timerable;
 	private final short delay;
 	private short currDelay;
+	private boolean removed;
 
 	public ScheduledTimerable(INetworkTimerable timerable, short delay) {
 		this.timerable = timerable;
@@ -36,17 +37,35 @@ public final class ScheduledTimerable {
 		return timerable;
 	}
 
+	void markRemoved() {
+		removed = true;
+	}
+
+	boolean isRemoved() {
+		return removed;
+	}
+
 	/**
 	 * Checks if this task needs to be executed. (Is able to execute tasks serveral times if needed
 	 * 
 	 * @param timeSlice
 	 *            number of milliseconds of the game time that expired since the last call.
+	 * @param profiler
+	 *            The profiler measuring the executions or null.
 	 */
-	public void checkExecution(short timeSlice) {
+	public void checkExecution(short timeSlice, INetworkTimerProfiler profiler) {
 		currDelay -= timeSlice;
 		while (currDelay <= 0) {
 			currDelay += delay;
-			timerable.timerEvent();
+
+			boolean measured = profiler != null && profiler.beginTimerable();
+			try {
+				timerable.timerEvent();
+			} finally {
+				if (measured) {
+					profiler.endTimerable(timerable);
+				}
+			}
 		}
 	}
 }
@@ -21,6 +21,7 @@ import java.util.LinkedList;
 
 import jsettlers.network.client.task.packets.SyncTasksPacket;
 import jsettlers.network.client.task.packets.TaskPacket;
+import jsettlers.network.synchronic.timer.INetworkTimerProfiler;
 import jsettlers.network.synchronic.timer.INetworkTimerable;
 import jsettlers.network.synchronic.timer.ITaskExecutor;
 
@@ -137,6 +138,10 @@ public class NetworkClientClockMock implements INetworkClientClock {
 	public void stopExecution() {
 	}
 
+	@Override
+	public void setProfiler(INetworkTimerProfiler profiler) {
+	}
+
 	@Override
 	public void setReplayLogStream(DataOutputStream replayFileStream) {
 	}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.infrastructure.channel.nio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import jsettlers.network.NetworkConstants.ENetworkKey;
+import jsettlers.network.infrastructure.channel.AbstractChannel;
+import jsettlers.network.infrastructure.channel.Channel;
+import jsettlers.network.infrastructure.channel.IChannelClosedListener;
+import jsettlers.network.infrastructure.channel.TestPacket;
+import jsettlers.network.infrastructure.channel.TestPacketListener;
+import jsettlers.network.infrastructure.channel.socket.standard.JavaSocketAdapter;
+import jsettlers.network.infrastructure.channel.socket.standard.JavaSocketFactory;
+import jsettlers.network.infrastructure.log.ConsoleLogger;
+
+/**
+ * Test for the class {@link NioChannel}.
+ * 
+ */
+public class NioChannelTest {
+	private ServerSocketChannel serverChannel;
+	private SocketChannel[] sockets;
+
+	@Before
+	public void setUp() throws IOException {
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+		SocketChannel client = SocketChannel.open(serverChannel.getLocalAddress());
+		SocketChannel server = serverChannel.accept();
+		sockets = new SocketChannel[] { client, server };
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		for (SocketChannel socket : sockets) {
+			socket.close();
+		}
+		serverChannel.close();
+	}
+
+	private AbstractChannel[] createNioChannels(ByteBufferPool pool) throws IOException {
+		NioSelectorThread selectorThread = NioSelectorThread.getDefault();
+		AbstractChannel[] channels = new AbstractChannel[2];
+		for (int i = 0; i < 2; i++) {
+			channels[i] = new NioChannel(new ConsoleLogger("nio" + i), new NioSocket(sockets[i]), selectorThread,
+					pool);
+			channels[i].start();
+		}
+		return channels;
+	}
+
+	@Test
+	public void testConnection() throws Exception {
+		AbstractChannel[] channels = createNioChannels(ByteBufferPool.getDefault());
+		assertPacketsTransmitted(channels[0], channels[1], 1);
+		assertPacketsTransmitted(channels[1], channels[0], 1);
+		close(channels);
+	}
+
+	@Test
+	public void testManyCoalescedPackets() throws Exception {
+		AbstractChannel[] channels = createNioChannels(ByteBufferPool.getDefault());
+		assertPacketsTransmitted(channels[0], channels[1], 5000);
+		close(channels);
+	}
+
+	@Test
+	public void testPacketsBiggerThanBuffers() throws Exception {
+		AbstractChannel[] channels = createNioChannels(new ByteBufferPool(64, 4));
+
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		channels[1].registerListener(listener);
+
+		char[] chars = new char[10000];
+		Arrays.fill(chars, 'x');
+		String longString = new String(chars);
+		for (int i = 0; i < 20; i++) {
+			channels[0].sendPacket(ENetworkKey.TEST_PACKET, new TestPacket(longString, i));
+		}
+
+		waitForPackets(listener, 20);
+		for (int i = 0; i < 20; i++) {
+			assertEquals(new TestPacket(longString, i), listener.packets.get(i));
+		}
+		close(channels);
+	}
+
+	@Test
+	public void testInteroperabilityWithBlockingChannel() throws Exception {
+		ServerSocket blockingServerSocket = new JavaSocketFactory().generateServerSocket(0);
+		SocketChannel nioSocket = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), blockingServerSocket.getLocalPort()));
+		Socket blockingSocket = blockingServerSocket.accept();
+		blockingServerSocket.close();
+
+		AbstractChannel nioChannel = new NioSocketFactory().createChannel(new ConsoleLogger("nio"), new NioSocket(nioSocket));
+		AbstractChannel blockingChannel = new JavaSocketFactory().createChannel(new ConsoleLogger("blocking"), new JavaSocketAdapter(blockingSocket));
+		assertTrue(nioChannel instanceof NioChannel);
+		assertTrue(blockingChannel instanceof Channel);
+		nioChannel.start();
+		blockingChannel.start();
+
+		assertPacketsTransmitted(nioChannel, blockingChannel, 100);
+		assertPacketsTransmitted(blockingChannel, nioChannel, 100);
+		close(new AbstractChannel[] { nioChannel, blockingChannel });
+	}
+
+	@Test
+	public void testCloseOneSide() throws Exception {
+		AbstractChannel[] channels = createNioChannels(ByteBufferPool.getDefault());
+		final boolean[] closedInformed = new boolean[1];
+		channels[1].setChannelClosedListener(new IChannelClosedListener() {
+			@Override
+			public void channelClosed() {
+				closedInformed[0] = true;
+			}
+		});
+
+		assertFalse(channels[0].isClosed());
+		assertFalse(channels[1].isClosed());
+
+		channels[0].close();
+		assertTrue(channels[0].isClosed());
+
+		for (int i = 0; i < 100 && !closedInformed[0]; i++) {
+			Thread.sleep(10);
+		}
+		assertTrue(channels[1].isClosed());
+		assertTrue(closedInformed[0]);
+	}
+
+	@Test
+	public void testPoolReuse() throws Exception {
+		ByteBufferPool pool = new ByteBufferPool(1024, 16);
+		AbstractChannel[] channels = createNioChannels(pool);
+		assertPacketsTransmitted(channels[0], channels[1], 10);
+		close(channels);
+
+		for (int i = 0; i < 100 && pool.getNumberOfPooledBuffers() < 4; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(4, pool.getNumberOfPooledBuffers());
+	}
+
+	private static void assertPacketsTransmitted(AbstractChannel sender, AbstractChannel receiver, int numberOfPackets) throws InterruptedException {
+		TestPacketListener listener = new TestPacketListener(ENetworkKey.TEST_PACKET);
+		receiver.registerListener(listener);
+
+		for (int i = 0; i < numberOfPackets; i++) {
+			sender.sendPacket(ENetworkKey.TEST_PACKET, new TestPacket("packet", i));
+		}
+
+		waitForPackets(listener, numberOfPackets);
+		assertEquals(numberOfPackets, listener.packets.size());
+		for (int i = 0; i < numberOfPackets; i++) {
+			assertEquals(i, listener.packets.get(i).getTestInt());
+		}
+	}
+
+	private static void waitForPackets(TestPacketListener listener, int numberOfPackets) throws InterruptedException {
+		for (int i = 0; i < 200 && listener.packets.size() < numberOfPackets; i++) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static void close(AbstractChannel[] channels) {
+		for (AbstractChannel channel : channels) {
+			channel.close();
+		}
+	}
+}
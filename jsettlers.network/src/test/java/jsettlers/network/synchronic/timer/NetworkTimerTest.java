@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2015 - 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.network.synchronic.timer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import jsettlers.network.NetworkConstants;
+import jsettlers.network.client.task.TestTaskPacket;
+import jsettlers.network.client.task.packets.SyncTasksPacket;
+import jsettlers.network.client.task.packets.TaskPacket;
+
+/**
+ * This class tests the {@link NetworkTimer}.
+ * 
+ */
+public class NetworkTimerTest {
+
+	@Test
+	public void testTasksExecutedInLockstepAndReceiveOrder() {
+		NetworkTimer timer = new NetworkTimer(true);
+		TaskExecutorMock executor = new TaskExecutorMock();
+		timer.setTaskExecutor(executor);
+
+		TestTaskPacket first = new TestTaskPacket("first", 1, (byte) 1);
+		TestTaskPacket second = new TestTaskPacket("second", 2, (byte) 2);
+		TestTaskPacket third = new TestTaskPacket("third", 3, (byte) 3);
+		timer.scheduleSyncTasksPacket(new SyncTasksPacket(3, Collections.<TaskPacket> singletonList(third)));
+		timer.scheduleSyncTasksPacket(new SyncTasksPacket(2, Collections.<TaskPacket> singletonList(first)));
+		timer.scheduleSyncTasksPacket(new SyncTasksPacket(2, Collections.<TaskPacket> singletonList(second)));
+
+		timer.fastForwardTo(2 * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		assertEquals(Arrays.asList(first, second), executor.popBufferedPackets());
+
+		timer.fastForwardTo(3 * NetworkConstants.Client.LOCKSTEP_PERIOD);
+		assertEquals(Collections.singletonList(third), executor.popBufferedPackets());
+	}
+
+	@Test
+	public void testScheduleAndRemoveTimerables() {
+		NetworkTimer timer = new NetworkTimer(true);
+		CountingTimerable first = new CountingTimerable();
+		CountingTimerable second = new CountingTimerable();
+		timer.schedule(first, NetworkTimer.TIME_SLICE);
+		timer.schedule(second, (short) (NetworkTimer.TIME_SLICE / 2));
+
+		timer.fastForwardTo(10 * NetworkTimer.TIME_SLICE);
+		assertEquals(10, first.calls);
+		assertEquals(20, second.calls);
+
+		timer.remove(first);
+		timer.fastForwardTo(20 * NetworkTimer.TIME_SLICE);
+		assertEquals(10, first.calls);
+		assertEquals(40, second.calls);
+	}
+
+	@Test
+	public void testLockstepWaitIsMeasured() throws InterruptedException {
+		NetworkTimer timer = new NetworkTimer(false);
+		timer.scheduleSyncTasksPacket(new SyncTasksPacket(0, Collections.<TaskPacket> emptyList()));
+
+		Thread unlocker = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+			}
+			timer.scheduleSyncTasksPacket(new SyncTasksPacket(1, Collections.<TaskPacket> emptyList()));
+		});
+		unlocker.start();
+
+		timer.fastForwardTo(NetworkConstants.Client.LOCKSTEP_PERIOD);
+		unlocker.join();
+
+		assertEquals(NetworkConstants.Client.LOCKSTEP_PERIOD, timer.getTime());
+		assertEquals(1, timer.getNumberOfLockstepWaits());
+		assertTrue(timer.getLockstepWaitTime() >= 50);
+	}
+
+	private static class CountingTimerable implements INetworkTimerable {
+		private int calls;
+
+		@Override
+		public void timerEvent() {
+			calls++;
+		}
+	}
+}
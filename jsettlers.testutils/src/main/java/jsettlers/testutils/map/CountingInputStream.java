@@ -14,30 +14,58 @@
  *******************************************************************************/
 package jsettlers.testutils.map;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-public class CountingInputStream extends InputStream {
-
-	private final InputStream in;
+/**
+ * Counts the bytes read from the underlying stream. Marking is supported if the underlying stream supports it; a reset also resets the counter to
+ * the marked position.
+ */
+public class CountingInputStream extends FilterInputStream {
 
 	private int byteCounter = 0;
+	private int markedByteCounter = 0;
 
 	public CountingInputStream(InputStream in) {
-		super();
-		this.in = in;
+		super(in);
 	}
 
 	@Override
 	public int read() throws IOException {
-		byteCounter++;
-		return in.read();
+		int result = in.read();
+		if (result != -1) {
+			byteCounter++;
+		}
+		return result;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int result = in.read(b, off, len);
+		if (result > 0) {
+			byteCounter += result;
+		}
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		byteCounter += skipped;
+		return skipped;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		in.mark(readlimit);
+		markedByteCounter = byteCounter;
 	}
 
 	@Override
-	public void close() throws IOException {
-		super.close();
-		in.close();
+	public synchronized void reset() throws IOException {
+		in.reset();
+		byteCounter = markedByteCounter;
 	}
 
 	public int getByteCounter() {
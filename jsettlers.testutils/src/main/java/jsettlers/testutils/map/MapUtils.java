@@ -17,6 +17,7 @@ package jsettlers.testutils.map;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -30,6 +31,9 @@ import jsettlers.logic.map.loading.MapLoader;
 import jsettlers.logic.map.loading.list.MapList;
 import jsettlers.logic.map.loading.newmap.MapFileHeader;
 import jsettlers.logic.map.loading.newmap.RemakeMapLoader;
+import jsettlers.logic.map.loading.savegame.SavegameChunkInputStream;
+import jsettlers.logic.map.loading.savegame.SavegameFormat;
+import jsettlers.logic.map.loading.savegame.SavegameReader;
 import jsettlers.main.ReplayStartInformation;
 import jsettlers.main.replay.ReplayUtils;
 import jsettlers.network.synchronic.timer.NetworkTimer;
@@ -48,18 +52,19 @@ public final class MapUtils {
 			throws IOException, MapLoadException, ClassNotFoundException {
 		System.out.println("Comparing expected '" + expectedSavegame + "' with actual '" + actualSavegame + "' (uncompressed!)");
 
-		try (InputStream expectedStream = RemakeMapLoader.getMapInputStream(expectedSavegame.getListedMap());
-				CountingInputStream actualStream = new CountingInputStream(RemakeMapLoader.getMapInputStream(actualSavegame.getListedMap()))) {
+		try (InputStream expectedStream = new BufferedInputStream(RemakeMapLoader.getMapInputStream(expectedSavegame.getListedMap()));
+				CountingInputStream actualStream = new CountingInputStream(
+						new BufferedInputStream(RemakeMapLoader.getMapInputStream(actualSavegame.getListedMap())))) {
 			MapFileHeader expectedHeader = MapFileHeader.readFromStream(expectedStream);
 			MatchConstants.init(new NetworkTimer(true), 0L);
-			MatchConstants.deserialize(new ObjectInputStream(expectedStream));
+			readMatchConstants(expectedStream);
 			int expectedTime = MatchConstants.clock().getTime();
 			ExtendedRandom expectedRandom = MatchConstants.random();
 			MatchConstants.clearState();
 
 			MapFileHeader actualHeader = MapFileHeader.readFromStream(actualStream);
 			MatchConstants.init(new NetworkTimer(true), 1L);
-			MatchConstants.deserialize(new ObjectInputStream(actualStream));
+			readMatchConstants(actualStream);
 			int actualTime = MatchConstants.clock().getTime();
 			ExtendedRandom actualRandom = MatchConstants.random();
 			MatchConstants.clearState();
@@ -78,6 +83,21 @@ public final class MapUtils {
 		}
 	}
 
+	/**
+	 * Reads the {@link MatchConstants} of a savegame and leaves the stream positioned behind them.
+	 */
+	private static void readMatchConstants(InputStream stream) throws IOException, ClassNotFoundException {
+		if (SavegameFormat.isChunkedSavegame(stream)) {
+			SavegameReader reader = new SavegameReader(stream);
+			SavegameChunkInputStream chunk = reader.nextChunk();
+			assertEquals("first savegame chunk", SavegameFormat.CHUNK_MATCH_CONSTANTS, reader.getChunkType());
+			MatchConstants.deserialize(new ObjectInputStream(chunk));
+			chunk.close();
+		} else {
+			MatchConstants.deserialize(new ObjectInputStream(stream));
+		}
+	}
+
 	public static MapLoader saveMainGrid(MainGrid mainGrid, Byte playerId, UIState uiState) {
 		try {
 			System.out.println("Writing savegame with final state of failed test.");
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2015
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.dev.helper.savegame;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.map.loading.list.DirectoryMapLister.ListedMapFile;
+import jsettlers.logic.map.loading.savegame.SavegameConverter;
+
+/**
+ * Converts old savegames into the chunked savegame format.
+ * <p />
+ * Usage: <code>ConvertSavegames &lt;savegame or directory&gt; &lt;output directory&gt;</code>. The converted savegames are written with the same
+ * file names into the output directory.
+ * 
+ */
+public class ConvertSavegames {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ConvertSavegames <savegame or directory> <output directory>");
+			System.exit(1);
+		}
+
+		File input = new File(args[0]);
+		File outputDirectory = new File(args[1]);
+		outputDirectory.mkdirs();
+
+		File[] files = input.isDirectory() ? input.listFiles() : new File[] { input };
+		int failed = 0;
+		for (File file : files) {
+			if (file.getName().endsWith(MapLoader.MAP_EXTENSION) || file.getName().endsWith(MapLoader.MAP_EXTENSION_COMPRESSED)) {
+				System.out.println("Converting " + file);
+				try {
+					convert(file, new File(outputDirectory, file.getName()));
+				} catch (IOException | MapLoadException e) {
+					System.err.println("Could not convert " + file + ":");
+					e.printStackTrace();
+					failed++;
+				}
+			}
+		}
+		System.exit(failed == 0 ? 0 : 2);
+	}
+
+	private static void convert(File input, File output) throws IOException, MapLoadException {
+		ListedMapFile savegame = new ListedMapFile(input);
+
+		try (OutputStream fileStream = new BufferedOutputStream(new FileOutputStream(output))) {
+			if (savegame.isCompressed()) {
+				ZipOutputStream zipStream = new ZipOutputStream(fileStream);
+				zipStream.setLevel(Deflater.NO_COMPRESSION);
+				String name = output.getName();
+				zipStream.putNextEntry(new ZipEntry(name.substring(0, name.length() - MapLoader.MAP_EXTENSION_COMPRESSED.length())
+						+ MapLoader.MAP_EXTENSION));
+				SavegameConverter.convert(savegame, zipStream, true);
+				zipStream.finish();
+			} else {
+				SavegameConverter.convert(savegame, fileStream, false);
+			}
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import jsettlers.common.ai.EPlayerType;
+
+/**
+ * Plays every combination of maps, AI types and seeds as headless games in parallel and reports the simulation throughput of each game.
+ * <p />
+ * Every game is played by a {@link SimulationRun} in its own JVM, because the game state is held in static singletons. As many games as there are
+ * cores are run at the same time. The console output of each game is written to a log file in the output directory, the results are printed as a
+ * tab separated table and written to <code>results.tsv</code> in the output directory.
+ * <p />
+ * Usage: <code>SimulationBenchmark &lt;output directory&gt; [&lt;game minutes&gt; [&lt;seeds&gt; [&lt;maps&gt; [&lt;ai types&gt; [&lt;players&gt;]]]]]</code>.
+ * Maps and AI types are comma separated lists.
+ *
+ */
+public class SimulationBenchmark {
+	private static final int DEFAULT_GAME_MINUTES = 30;
+	private static final int DEFAULT_SEEDS = 3;
+	private static final String DEFAULT_MAPS = "SpezialSumpf_12.map";
+	private static final String DEFAULT_AI_TYPES = "AI_EASY,AI_VERY_HARD";
+	private static final int DEFAULT_PLAYERS = 2;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 1) {
+			System.err.println("Usage: SimulationBenchmark <output directory> [<game minutes> [<seeds> [<maps> [<ai types> [<players>]]]]]");
+			System.exit(1);
+		}
+
+		File outputDirectory = new File(args[0]);
+		int gameMinutes = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_GAME_MINUTES;
+		int seeds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SEEDS;
+		String[] maps = (args.length > 3 ? args[3] : DEFAULT_MAPS).split(",");
+		String[] aiTypes = (args.length > 4 ? args[4] : DEFAULT_AI_TYPES).split(",");
+		int players = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_PLAYERS;
+
+		outputDirectory.mkdirs();
+
+		List<SimulationSetting> settings = new ArrayList<>();
+		for (String map : maps) {
+			for (String aiType : aiTypes) {
+				for (long seed = 1; seed <= seeds; seed++) {
+					settings.add(new SimulationSetting(map, EPlayerType.valueOf(aiType), seed, gameMinutes, players));
+				}
+			}
+		}
+
+		int parallelRuns = Runtime.getRuntime().availableProcessors();
+		System.out.println("Playing " + settings.size() + " games with " + parallelRuns + " games in parallel...");
+
+		List<SimulationResult> results = runAll(settings, outputDirectory, parallelRuns);
+		int failed = settings.size() - results.size();
+
+		try (PrintStream out = new PrintStream(new File(outputDirectory, "results.tsv"), "UTF-8")) {
+			printResults(out, results);
+		}
+		printResults(System.out, results);
+
+		if (failed > 0) {
+			System.err.println(failed + " games failed. See the logs in " + outputDirectory);
+		}
+		System.exit(failed == 0 ? 0 : 2);
+	}
+
+	private static List<SimulationResult> runAll(List<SimulationSetting> settings, File outputDirectory, int parallelRuns)
+			throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(parallelRuns);
+		try {
+			List<Future<SimulationResult>> futures = new ArrayList<>();
+			for (SimulationSetting setting : settings) {
+				futures.add(executor.submit(() -> setting.run(outputDirectory)));
+			}
+
+			List<SimulationResult> results = new ArrayList<>();
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					SimulationResult result = futures.get(i).get();
+					if (result != null) {
+						System.out.println("Finished " + result);
+						results.add(result);
+					}
+				} catch (ExecutionException e) {
+					System.err.println("Could not play " + settings.get(i) + ":");
+					e.getCause().printStackTrace();
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void printResults(PrintStream out, List<SimulationResult> results) {
+		out.println(SimulationResult.HEADER);
+		for (SimulationResult result : results) {
+			out.println(result.toReportLine());
+		}
+
+		double sum = 0;
+		for (SimulationResult result : results) {
+			sum += result.getGameTimePerWallTime();
+		}
+		out.println(String.format(Locale.ENGLISH, "# average gameMsPerWallMs: %.2f", results.isEmpty() ? 0 : sum / results.size()));
+	}
+
+	private static class SimulationSetting {
+		private final String map;
+		private final EPlayerType aiType;
+		private final long seed;
+		private final int gameMinutes;
+		private final int players;
+
+		SimulationSetting(String map, EPlayerType aiType, long seed, int gameMinutes, int players) {
+			this.map = map;
+			this.aiType = aiType;
+			this.seed = seed;
+			this.gameMinutes = gameMinutes;
+			this.players = players;
+		}
+
+		/**
+		 * Plays the game in a new JVM using the class path of this JVM.
+		 *
+		 * @return The result of the game or <code>null</code> if the game did not report a result.
+		 */
+		SimulationResult run(File outputDirectory) throws IOException, InterruptedException {
+			File logFile = new File(outputDirectory, map + "_" + aiType + "_" + seed + ".log");
+			String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+			ProcessBuilder processBuilder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), SimulationRun.class.getName(), map,
+					aiType.name(), Long.toString(seed), Integer.toString(gameMinutes), Integer.toString(players));
+			processBuilder.redirectErrorStream(true);
+			processBuilder.redirectOutput(logFile);
+
+			int exitCode = processBuilder.start().waitFor();
+			if (exitCode != 0) {
+				System.err.println(this + " exited with code " + exitCode + ". See " + logFile);
+			}
+
+			for (String line : Files.readAllLines(logFile.toPath(), Charset.defaultCharset())) {
+				SimulationResult result = SimulationResult.fromLine(line);
+				if (result != null) {
+					return result;
+				}
+			}
+			System.err.println(this + " did not report a result. See " + logFile);
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			return "SimulationSetting{map=" + map + ", aiType=" + aiType + ", seed=" + seed + ", gameMinutes=" + gameMinutes + ", players="
+					+ players + "}";
+		}
+	}
+}
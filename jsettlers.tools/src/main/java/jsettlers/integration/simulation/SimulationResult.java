@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.simulation;
+
+import java.util.Locale;
+
+import jsettlers.common.ai.EPlayerType;
+
+/**
+ * The measurements of one headless game played by {@link SimulationRun}. The result is handed from the game's JVM to the
+ * {@link SimulationBenchmark} as a single tab separated line on the console.
+ *
+ */
+public class SimulationResult {
+	static final String LINE_PREFIX = "SIMULATION_RESULT";
+
+	static final String HEADER = String.join("\t", "map", "ai", "seed", "gameMs", "wallMs", "gameMsPerWallMs", "aiUpdateStatisticsMs",
+			"aiApplyRulesMs", "aiTicks", "allocatedMb", "gcCount", "gcMs");
+
+	private final String map;
+	private final EPlayerType aiType;
+	private final long seed;
+	private final int gameTimeMs;
+	private final long wallTimeMs;
+	private final long aiUpdateStatisticsMs;
+	private final long aiApplyRulesMs;
+	private final int aiTicks;
+	private final long allocatedBytes;
+	private final long gcCount;
+	private final long gcTimeMs;
+
+	public SimulationResult(String map, EPlayerType aiType, long seed, int gameTimeMs, long wallTimeMs, long aiUpdateStatisticsMs,
+			long aiApplyRulesMs, int aiTicks, long allocatedBytes, long gcCount, long gcTimeMs) {
+		this.map = map;
+		this.aiType = aiType;
+		this.seed = seed;
+		this.gameTimeMs = gameTimeMs;
+		this.wallTimeMs = wallTimeMs;
+		this.aiUpdateStatisticsMs = aiUpdateStatisticsMs;
+		this.aiApplyRulesMs = aiApplyRulesMs;
+		this.aiTicks = aiTicks;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcTimeMs = gcTimeMs;
+	}
+
+	public String toLine() {
+		return String.join("\t", LINE_PREFIX, map, aiType.name(), Long.toString(seed), Integer.toString(gameTimeMs), Long.toString(wallTimeMs),
+				Long.toString(aiUpdateStatisticsMs), Long.toString(aiApplyRulesMs), Integer.toString(aiTicks), Long.toString(allocatedBytes),
+				Long.toString(gcCount), Long.toString(gcTimeMs));
+	}
+
+	/**
+	 * @return The result contained in the given console line or <code>null</code> if the line is no result line.
+	 */
+	public static SimulationResult fromLine(String line) {
+		String[] values = line.split("\t");
+		if (values.length != 12 || !LINE_PREFIX.equals(values[0])) {
+			return null;
+		}
+
+		return new SimulationResult(values[1], EPlayerType.valueOf(values[2]), Long.parseLong(values[3]), Integer.parseInt(values[4]),
+				Long.parseLong(values[5]), Long.parseLong(values[6]), Long.parseLong(values[7]), Integer.parseInt(values[8]),
+				Long.parseLong(values[9]), Long.parseLong(values[10]), Long.parseLong(values[11]));
+	}
+
+	public String toReportLine() {
+		return String.format(Locale.ENGLISH, "%s\t%s\t%d\t%d\t%d\t%.2f\t%d\t%d\t%d\t%.1f\t%d\t%d", map, aiType, seed, gameTimeMs, wallTimeMs,
+				getGameTimePerWallTime(), aiUpdateStatisticsMs, aiApplyRulesMs, aiTicks, allocatedBytes / (1024f * 1024f), gcCount, gcTimeMs);
+	}
+
+	public double getGameTimePerWallTime() {
+		return wallTimeMs > 0 ? (double) gameTimeMs / wallTimeMs : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "SimulationResult{" + toReportLine() + "}";
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2017
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"),
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense,
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ *******************************************************************************/
+package jsettlers.integration.simulation;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import jsettlers.ai.highlevel.AiExecutor;
+import jsettlers.common.CommonConstants;
+import jsettlers.common.ai.EPlayerType;
+import jsettlers.common.menu.IStartedGame;
+import jsettlers.common.player.ECivilisation;
+import jsettlers.logic.constants.Constants;
+import jsettlers.logic.constants.MatchConstants;
+import jsettlers.logic.map.loading.MapLoadException;
+import jsettlers.logic.map.loading.MapLoader;
+import jsettlers.logic.player.PlayerSetting;
+import jsettlers.main.JSettlersGame;
+import jsettlers.main.replay.ReplayUtils;
+import jsettlers.network.client.OfflineNetworkConnector;
+import jsettlers.testutils.TestUtils;
+import jsettlers.testutils.map.MapUtils;
+
+/**
+ * Plays a single headless game of computer players and prints its {@link SimulationResult}.
+ * <p />
+ * The game state lives in static singletons (e.g. {@link MatchConstants}), so only one game can run per JVM. The {@link SimulationBenchmark}
+ * therefore starts every run in its own JVM.
+ * <p />
+ * Usage: <code>SimulationRun &lt;map&gt; &lt;ai type&gt; &lt;seed&gt; &lt;game minutes&gt; &lt;players&gt;</code>. The map is the name of a map
+ * resource of the {@link MapUtils} package.
+ *
+ */
+public class SimulationRun {
+
+	static {
+		CommonConstants.ENABLE_CONSOLE_LOGGING = true;
+		CommonConstants.ENABLE_AI = true;
+		Constants.FOG_OF_WAR_DEFAULT_ENABLED = false;
+
+		TestUtils.setupTempResourceManager();
+	}
+
+	public static void main(String[] args) throws MapLoadException {
+		if (args.length != 5) {
+			System.err.println("Usage: SimulationRun <map> <ai type> <seed> <game minutes> <players>");
+			System.exit(1);
+		}
+
+		String map = args[0];
+		EPlayerType aiType = EPlayerType.valueOf(args[1]);
+		long seed = Long.parseLong(args[2]);
+		int gameTimeMs = Integer.parseInt(args[3]) * 60 * 1000;
+		int players = Integer.parseInt(args[4]);
+
+		SimulationResult result = play(map, aiType, seed, gameTimeMs, players);
+		System.out.println(result.toLine());
+		System.exit(0);
+	}
+
+	private static SimulationResult play(String map, EPlayerType aiType, long seed, int gameTimeMs, int players) throws MapLoadException {
+		MapLoader mapLoader = MapUtils.getMap(MapUtils.class, map);
+		PlayerSetting[] playerSettings = createPlayerSettings(aiType, mapLoader.getMaxPlayers(), players);
+
+		JSettlersGame game = new JSettlersGame(mapLoader, seed, new OfflineNetworkConnector(), (byte) 0, playerSettings);
+		JSettlersGame.GameRunner startingGame = (JSettlersGame.GameRunner) game.start();
+		IStartedGame startedGame = ReplayUtils.waitForGameStartup(startingGame);
+
+		long allocatedBytesBefore = getAllocatedBytes();
+		long gcCountBefore = getGcCount();
+		long gcTimeBefore = getGcTime();
+		long startTime = System.currentTimeMillis();
+
+		MatchConstants.clock().fastForwardTo(gameTimeMs);
+
+		long wallTime = System.currentTimeMillis() - startTime;
+		long allocatedBytes = getAllocatedBytes() - allocatedBytesBefore;
+		long gcCount = getGcCount() - gcCountBefore;
+		long gcTime = getGcTime() - gcTimeBefore;
+		int reachedGameTime = MatchConstants.clock().getTime();
+
+		AiExecutor aiExecutor = startingGame.getAiExecutor();
+		SimulationResult result = new SimulationResult(map, aiType, seed, reachedGameTime, wallTime,
+				aiExecutor.getUpdateStatisticsStopWatch().getTotal(), aiExecutor.getApplyRulesStopWatch().getTotal(),
+				aiExecutor.getApplyRulesStopWatch().getNumberOfMeasurements(), allocatedBytes, gcCount, gcTime);
+
+		ReplayUtils.awaitShutdown(startedGame);
+		return result;
+	}
+
+	private static PlayerSetting[] createPlayerSettings(EPlayerType aiType, int maxPlayers, int players) {
+		PlayerSetting[] playerSettings = new PlayerSetting[maxPlayers];
+		for (byte playerId = 0; playerId < maxPlayers; playerId++) {
+			if (playerId < players) {
+				playerSettings[playerId] = new PlayerSetting(aiType, ECivilisation.ROMAN, playerId);
+			} else {
+				playerSettings[playerId] = new PlayerSetting();
+			}
+		}
+		return playerSettings;
+	}
+
+	/**
+	 * Sums up the bytes allocated by the live threads. The game threads run until the game is shut down, so they are all covered while the game
+	 * is running.
+	 */
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+		long sum = 0;
+		for (long allocated : allocationBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+			if (allocated > 0) {
+				sum += allocated;
+			}
+		}
+		return sum;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gcBean.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static long getGcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, gcBean.getCollectionTime());
+		}
+		return time;
+	}
+}
@@ -387,6 +387,22 @@ public class MovableTestsMap implements IGraphicsGrid, IAStarPathMap {
 		public void removeJobless(IManageableBricklayer bricklayer) {
 		}
 
+		@Override
+		public void joblessPositionChanged(IManageableBearer bearer, ShortPoint2D oldPosition) {
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableWorker worker, ShortPoint2D oldPosition) {
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableDigger digger, ShortPoint2D oldPosition) {
+		}
+
+		@Override
+		public void joblessPositionChanged(IManageableBricklayer bricklayer, ShortPoint2D oldPosition) {
+		}
+
 		@Override
 		public ELandscapeType getLandscapeTypeAt(int x, int y) {
 			return ELandscapeType.GRASS;